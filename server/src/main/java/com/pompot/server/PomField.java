@@ -0,0 +1,132 @@
+package com.pompot.server;
+
+import com.pompot.server.parser.ParsedPom;
+import com.pompot.server.pomgraph.GraphEdge;
+import com.pompot.server.pomgraph.GraphNode;
+import com.pompot.server.pomgraph.Text;
+import com.pompot.server.pomgraph.TextReference;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Field of a {@link ParsedPom} that {@code /api/pom} can return for each entry of a page.
+ */
+enum PomField {
+    POM_PATH("pomPath"),
+    RELATIVE_PATH("relativePath"),
+    GROUP_ID("groupId"),
+    ARTIFACT_ID("artifactId"),
+    VERSION("version"),
+    COUNTS("counts"),
+    MODEL("model"),
+    GRAPH("graph");
+
+    /**
+     * Fields of the summary view: what a pom list needs, without the model and the graph.
+     */
+    static final Set<PomField> SUMMARY =
+        Collections.unmodifiableSet(EnumSet.of(POM_PATH, RELATIVE_PATH, GROUP_ID, ARTIFACT_ID, VERSION, COUNTS));
+
+    /**
+     * Every field, as returned by the full view.
+     */
+    static final Set<PomField> FULL = Collections.unmodifiableSet(EnumSet.allOf(PomField.class));
+
+    private static final String POM_NODE_PREFIX = "pom:";
+    private static final String ATTRIBUTE_NODE_PREFIX = "attribute:";
+
+    private final String fieldName;
+
+    PomField(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    /**
+     * Name of the field in the JSON entries and in the {@code fields} request parameter.
+     * @return field name, such as {@code relativePath}.
+     */
+    String fieldName() {
+        return fieldName;
+    }
+
+    /**
+     * Reads the field from a parsed pom.
+     * @param pom parsed pom.
+     * @return field value; {@code null} when the pom does not declare it.
+     */
+    Object read(ParsedPom pom) {
+        return switch (this) {
+            case POM_PATH -> pom.pomPath();
+            case RELATIVE_PATH -> pom.relativePath();
+            case GROUP_ID -> pom.groupId();
+            case ARTIFACT_ID -> pom.artifactId();
+            case VERSION -> version(pom);
+            case COUNTS -> counts(pom);
+            case MODEL -> pom.model();
+            case GRAPH -> pom.graph();
+        };
+    }
+
+    /**
+     * Parses a comma separated list of field names.
+     * @param names field names, such as {@code relativePath,version}; blanks around names are ignored.
+     * @return fields in declaration order.
+     * @throws IllegalArgumentException when a name is unknown or no name is given.
+     */
+    static Set<PomField> parse(String names) {
+        Set<PomField> fields = EnumSet.noneOf(PomField.class);
+        for (String name : names.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            fields.add(Arrays.stream(values())
+                .filter(field -> field.fieldName.equals(trimmed))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown pom field '" + trimmed + "'")));
+        }
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("No pom field selected");
+        }
+        return fields;
+    }
+
+    /**
+     * Version declared by the pom itself, read from its graph; inherited versions are not resolved.
+     */
+    private static String version(ParsedPom pom) {
+        return pomNode(pom)
+            .flatMap(node -> node.edges("version").stream().findFirst())
+            .flatMap(edge -> edge.value().text())
+            .map(TextReference::value)
+            .map(Text::value)
+            .orElse(null);
+    }
+
+    /**
+     * Number of outgoing edges of the pom node per relationship, such as dependencies or plugins.
+     * Attribute edges are left out since they hold the coordinates themselves.
+     */
+    private static Map<String, Integer> counts(ParsedPom pom) {
+        Map<String, Integer> counts = new TreeMap<>();
+        pomNode(pom).ifPresent(node -> {
+            for (GraphEdge edge : node.edges()) {
+                if (!edge.target().id().startsWith(ATTRIBUTE_NODE_PREFIX)) {
+                    counts.merge(edge.relationship(), 1, Integer::sum);
+                }
+            }
+        });
+        return counts;
+    }
+
+    private static Optional<GraphNode> pomNode(ParsedPom pom) {
+        return pom.graph().nodes().stream()
+            .filter(node -> node.id().startsWith(POM_NODE_PREFIX))
+            .findFirst();
+    }
+}
@@ -0,0 +1,59 @@
+package com.pompot.server;
+
+import com.pompot.server.parser.ParsedPom;
+import com.pompot.server.parser.ParsedPomCollection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One page of the stored pom entries, each reduced to the selected fields.
+ *
+ * @param scannedRoot absolute path of the directory that was scanned for pom files.
+ * @param page zero based page index.
+ * @param size maximum number of entries per page.
+ * @param totalEntries number of entries in the whole collection.
+ * @param totalPages number of pages of {@code size} entries in the whole collection.
+ * @param entries entries of the page in collection order, as field name to value maps. The entry at
+ *     index {@code i} has the ordinal {@code page * size + i} used by the common value pom sets.
+ */
+record PomPage(
+    String scannedRoot,
+    int page,
+    int size,
+    int totalEntries,
+    int totalPages,
+    List<Map<String, Object>> entries) {
+
+    PomPage {
+        entries = List.copyOf(entries);
+    }
+
+    /**
+     * Cuts a page out of a collection. Fields are only read for the entries of the page, so lazy
+     * models outside of it stay unparsed.
+     * @param collection stored collection.
+     * @param page zero based page index; a page past the end is empty.
+     * @param size maximum number of entries per page, at least one.
+     * @param fields fields to copy into each entry.
+     * @return page of projected entries.
+     */
+    static PomPage of(ParsedPomCollection collection, int page, int size, Set<PomField> fields) {
+        List<ParsedPom> all = collection.entries();
+        int from = (int) Math.min((long) page * size, all.size());
+        int to = Math.min(from + size, all.size());
+        List<Map<String, Object>> entries = new ArrayList<>(to - from);
+        for (ParsedPom pom : all.subList(from, to)) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            for (PomField field : fields) {
+                entry.put(field.fieldName(), field.read(pom));
+            }
+            entries.add(Collections.unmodifiableMap(entry));
+        }
+        int totalPages = (all.size() + size - 1) / size;
+        return new PomPage(collection.scannedRoot(), page, size, all.size(), totalPages, entries);
+    }
+}
@@ -0,0 +1,494 @@
+package com.pompot.server;
+
+import com.pompot.server.parser.CommonValueAggregator;
+import com.pompot.server.parser.CommonValueExtractor;
+import com.pompot.server.parser.ParsedPom;
+import com.pompot.server.parser.ParsedPomCollection;
+import com.pompot.server.parser.ParsedPomRepository;
+import com.pompot.server.parser.PomCollectionDiff;
+import com.pompot.server.parser.PomDirectoryScanner;
+import com.pompot.server.parser.ValueAnalysis;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Watches the scan root after startup and keeps the stored {@link ParsedPomCollection} current by
+ * reparsing only the pom files that were modified, created or deleted.
+ */
+@Component
+class PomWorkspaceWatcher implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PomWorkspaceWatcher.class);
+
+    private final ParsedPomRepository parsedPomRepository;
+    private final CommonValueExtractor commonValueExtractor;
+    private final PomDirectoryScanner pomDirectoryScanner;
+    private final boolean enabled;
+    private final long debounceMillis;
+    private final Object lifecycle = new Object();
+    private Session session;
+    private CommonValueAggregator aggregator;
+    private ParsedPomCollection aggregated;
+    private Path discoveredRoot;
+    private Changes held;
+    private Set<Path> discovered = Set.of();
+
+    /**
+     * Creates the watcher.
+     * @param parsedPomRepository repository receiving the refreshed collections.
+     * @param commonValueExtractor component that recomputes repeated values.
+     * @param pomDirectoryScanner scanner used to parse individual pom files and to find pom files
+     *     after structural changes.
+     * @param enabled whether {@link #watch(Path)} starts watching ({@code pompot.watch.enabled}).
+     * @param debounceMillis quiet period that ends a burst of events ({@code pompot.watch.debounce-millis}).
+     */
+    PomWorkspaceWatcher(
+        ParsedPomRepository parsedPomRepository,
+        CommonValueExtractor commonValueExtractor,
+        PomDirectoryScanner pomDirectoryScanner,
+        @Value("${pompot.watch.enabled:true}") boolean enabled,
+        @Value("${pompot.watch.debounce-millis:500}") long debounceMillis
+    ) {
+        this.parsedPomRepository = parsedPomRepository;
+        this.commonValueExtractor = commonValueExtractor;
+        this.pomDirectoryScanner = pomDirectoryScanner;
+        this.enabled = enabled;
+        this.debounceMillis = Math.max(0L, debounceMillis);
+    }
+
+    /**
+     * Starts watching the provided root, replacing any previous watch. Only the root itself is
+     * watched until {@link #watchPoms(Path, Collection)} adds the directories of the poms
+     * discovery finds.
+     * @param root absolute, normalized scan root.
+     */
+    void watch(Path root) {
+        if (!enabled || root == null) {
+            return;
+        }
+
+        synchronized (lifecycle) {
+            stop();
+            try {
+                session = new Session(root, root.getFileSystem().newWatchService());
+                // Register before returning so poms and directories created right after startup are not missed.
+                session.register(root);
+            } catch (IOException exception) {
+                LOGGER.error("Could not watch {} for pom.xml changes", root, exception);
+                return;
+            }
+            session.thread.start();
+            LOGGER.info("Watching {} for pom.xml changes", root);
+        }
+    }
+
+    /**
+     * Watches the directories holding the provided pom files and every directory between them and
+     * the root, so the watch follows the same pruning as discovery instead of the whole tree.
+     * Directories already watched are left alone.
+     * @param root absolute, normalized scan root being watched.
+     * @param pomFiles discovered pom files under the root.
+     */
+    void watchPoms(Path root, Collection<Path> pomFiles) {
+        synchronized (lifecycle) {
+            if (session != null && session.root.equals(root)) {
+                pomFiles.forEach(session::registerPom);
+            }
+        }
+    }
+
+    /**
+     * Directories currently watched, for tests.
+     * @return snapshot of the watched directories; empty when nothing is watched.
+     */
+    Set<Path> watchedDirectories() {
+        synchronized (lifecycle) {
+            return session == null ? Set.of() : Set.copyOf(session.watched);
+        }
+    }
+
+    /**
+     * Holds every change applied from now on until {@link #publishScan(Path, ParsedPomCollection)}
+     * hands over the result of the startup scan. Called before {@link #watch(Path)} so edits made
+     * while the scan runs are neither lost nor applied to a collection the scan then overwrites.
+     */
+    synchronized void holdChanges() {
+        if (held == null) {
+            held = new Changes();
+        }
+    }
+
+    /**
+     * Publishes the result of the startup scan and applies the changes held since
+     * {@link #holdChanges()} on top of it.
+     * @param root absolute, normalized scan root.
+     * @param scanned scanned collection, or {@code null} to clear the repository when the scan found
+     *     nothing to parse.
+     */
+    synchronized void publishScan(Path root, ParsedPomCollection scanned) {
+        // The scan supersedes whatever was served meanwhile, such as the workspace snapshot or a batch
+        // published on top of it: every file change since the watch was registered is held and
+        // applied right after.
+        ParsedPomCollection current;
+        do {
+            current = parsedPomRepository.fetch().orElse(null);
+        } while (!parsedPomRepository.replace(current, scanned));
+        Changes pending = held;
+        held = null;
+        if (pending != null && !pending.isEmpty()) {
+            apply(root, pending);
+        }
+    }
+
+    /**
+     * Stops the active watch, if any.
+     */
+    @Override
+    public void close() {
+        synchronized (lifecycle) {
+            stop();
+        }
+    }
+
+    private void stop() {
+        if (session == null) {
+            return;
+        }
+
+        session.thread.interrupt();
+        try {
+            session.watchService.close();
+        } catch (IOException exception) {
+            LOGGER.debug("Failed to close the pom.xml watch service", exception);
+        }
+        session = null;
+    }
+
+    /**
+     * Applies a batch of changes to the stored collection and publishes the result.
+     * @param root scan root being watched.
+     * @param changes pom files and structural changes gathered during one burst.
+     */
+    synchronized void apply(Path root, Changes changes) {
+        if (held != null) {
+            held.addAll(changes);
+            return;
+        }
+
+        while (!refresh(root, changes)) {
+            LOGGER.debug("Stored pom.xml collection changed during the refresh of {}; recomputing", root);
+        }
+    }
+
+    /**
+     * Applies the changes to the stored collection and publishes the result with
+     * {@link ParsedPomRepository#replace}, so a collection published by someone else in the
+     * meantime, such as a {@code PomTextBatch}, is never overwritten.
+     * @return {@code false} when the stored collection changed before the result could be
+     *     published, in which case nothing was published and the changes must be applied again.
+     */
+    private boolean refresh(Path root, Changes changes) {
+        Map<String, ParsedPom> entries = new LinkedHashMap<>();
+        Optional<ParsedPomCollection> current = parsedPomRepository.fetch();
+        if (current.isPresent() && root.toString().equals(current.get().scannedRoot())) {
+            for (ParsedPom entry : current.get().entries()) {
+                entries.put(entry.pomPath(), entry);
+            }
+        }
+
+        boolean changed = false;
+        Set<Path> toParse = new LinkedHashSet<>();
+        boolean rediscover = changes.rediscover;
+        for (Path pomFile : changes.modifiedPoms) {
+            // Only poms the discovery selected may be reparsed in place. Anything else, such as a
+            // pom excluded by a glob or .gitignore, or outside the module tree, is left to discovery.
+            if (entries.containsKey(pomFile.toString()) || (root.equals(discoveredRoot) && discovered.contains(pomFile))) {
+                toParse.add(pomFile);
+            } else {
+                rediscover = true;
+            }
+        }
+        int discoveries = 0;
+        while (true) {
+            for (Path pomFile : toParse) {
+                String key = pomFile.toString();
+                ParsedPom previous = entries.remove(key);
+                Optional<ParsedPom> reparsed = pomDirectoryScanner.parsePom(root, pomFile);
+                if (reparsed.isPresent()) {
+                    entries.put(key, reparsed.get());
+                    rediscover |= previous != null && !previous.modules().equals(reparsed.get().modules());
+                }
+                changed |= previous != null || reparsed.isPresent();
+            }
+            toParse.clear();
+            // Modified poms are parsed first so discovery reads their current modules.
+            if (!rediscover || discoveries == 2) {
+                break;
+            }
+            discoveries += 1;
+            rediscover = false;
+
+            Map<Path, ParsedPom> known = new HashMap<>();
+            entries.forEach((key, entry) -> known.put(Path.of(key), entry));
+            Optional<PomDirectoryScanner.Discovery> discovery = pomDirectoryScanner.discover(root, known);
+            if (discovery.isEmpty()) {
+                return true;
+            }
+            Set<Path> discovered = new HashSet<>();
+            for (Path pomFile : discovery.get().pomFiles()) {
+                discovered.add(pomFile.toAbsolutePath().normalize());
+            }
+            this.discoveredRoot = root;
+            this.discovered = discovered;
+            watchPoms(root, discovered);
+            changed |= entries.keySet().removeIf(path -> !discovered.contains(Path.of(path)));
+            for (Map.Entry<Path, Optional<ParsedPom>> parsed : discovery.get().parsed().entrySet()) {
+                // Poms the discovery had to parse to read their modules are not parsed again.
+                if (parsed.getValue().isPresent() && discovered.contains(parsed.getKey())) {
+                    entries.put(parsed.getKey().toString(), parsed.getValue().get());
+                    changed = true;
+                }
+            }
+            for (Path pomFile : discovered) {
+                if (!entries.containsKey(pomFile.toString()) && !discovery.get().parsed().containsKey(pomFile)) {
+                    toParse.add(pomFile);
+                }
+            }
+        }
+
+        if (!changed) {
+            return true;
+        }
+
+        List<ParsedPom> parsedPoms = new ArrayList<>(entries.values());
+        ParsedPomCollection previous = current.orElse(null);
+        if (parsedPoms.isEmpty()) {
+            if (!parsedPomRepository.replace(previous, null)) {
+                return false;
+            }
+            aggregator = null;
+            aggregated = null;
+            LOGGER.info("No parsable pom.xml files remain under {}", root);
+            return true;
+        }
+
+        parsedPoms.sort(PomDirectoryScanner.ENTRY_ORDER);
+        ValueAnalysis analysis = analyze(previous, parsedPoms);
+        ParsedPomCollection refreshed = new ParsedPomCollection(root.toString(), parsedPoms, analysis);
+        if (!parsedPomRepository.replace(previous, refreshed)) {
+            return false;
+        }
+        aggregated = refreshed;
+        LOGGER.info(
+            "Refreshed pom.xml snapshot under {} ({} entries: {})",
+            root,
+            parsedPoms.size(),
+            PomCollectionDiff.between(previous, refreshed)
+        );
+        return true;
+    }
+
+    /**
+     * Updates the common value counts with the entries that changed since the last refresh and
+     * reads the repeated values and drift back from them. The
+     * counts are rebuilt from every entry when the stored collection is not the one this watcher
+     * published last, for example after startup or after a batch update.
+     */
+    private ValueAnalysis analyze(ParsedPomCollection previous, List<ParsedPom> parsedPoms) {
+        if (aggregator == null || previous == null || previous != aggregated) {
+            aggregator = commonValueExtractor.aggregator();
+            parsedPoms.forEach(aggregator::add);
+            return aggregator.analysis(parsedPoms);
+        }
+
+        Map<String, ParsedPom> remaining = new HashMap<>();
+        for (ParsedPom entry : previous.entries()) {
+            remaining.put(entry.pomPath(), entry);
+        }
+        for (ParsedPom entry : parsedPoms) {
+            ParsedPom before = remaining.remove(entry.pomPath());
+            if (before == null) {
+                aggregator.add(entry);
+            } else if (before != entry) {
+                aggregator.replace(before, entry);
+            }
+        }
+        remaining.values().forEach(aggregator::remove);
+        return aggregator.analysis(parsedPoms);
+    }
+
+    /**
+     * Changes gathered from the file system during one burst of events.
+     */
+    static final class Changes {
+
+        private final Set<Path> modifiedPoms = new LinkedHashSet<>();
+        private boolean rediscover;
+
+        void modified(Path pomFile) {
+            modifiedPoms.add(pomFile.toAbsolutePath().normalize());
+        }
+
+        void structureChanged() {
+            rediscover = true;
+        }
+
+        void addAll(Changes other) {
+            modifiedPoms.addAll(other.modifiedPoms);
+            rediscover |= other.rediscover;
+        }
+
+        boolean isEmpty() {
+            return modifiedPoms.isEmpty() && !rediscover;
+        }
+    }
+
+    /**
+     * Background loop bound to one root and one {@link WatchService}.
+     */
+    private final class Session implements Runnable {
+
+        private final Path root;
+        private final WatchService watchService;
+        private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+        private final Set<Path> watched = ConcurrentHashMap.newKeySet();
+        private final Thread thread;
+
+        Session(Path root, WatchService watchService) {
+            this.root = root;
+            this.watchService = watchService;
+            this.thread = new Thread(this, "pompot-watch");
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    Changes changes = new Changes();
+                    collect(watchService.take(), changes);
+                    WatchKey next;
+                    while ((next = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                        collect(next, changes);
+                    }
+                    if (!changes.isEmpty()) {
+                        apply(root, changes);
+                    }
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            } catch (ClosedWatchServiceException exception) {
+                LOGGER.debug("Stopped watching {}", root);
+            } catch (RuntimeException exception) {
+                LOGGER.error("pom.xml watcher for {} stopped unexpectedly", root, exception);
+            }
+        }
+
+        private void collect(WatchKey key, Changes changes) {
+            Path directory = directories.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW || directory == null) {
+                    changes.structureChanged();
+                    continue;
+                }
+
+                Path child = directory.resolve((Path) event.context());
+                boolean pomFile = "pom.xml".equalsIgnoreCase(String.valueOf(child.getFileName()));
+                if (event.kind() == StandardWatchEventKinds.ENTRY_MODIFY) {
+                    if (pomFile) {
+                        changes.modified(child);
+                    }
+                } else if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                    if (Files.isDirectory(child)) {
+                        // A directory discovery prunes can never add a pom, so it is neither watched nor rediscovered.
+                        if (!pomDirectoryScanner.prunes(root, child)) {
+                            registerTree(child);
+                            changes.structureChanged();
+                        }
+                    } else if (pomFile) {
+                        changes.structureChanged();
+                    }
+                } else if (pomFile || watched.contains(child)) {
+                    changes.structureChanged();
+                }
+            }
+
+            if (!key.reset()) {
+                Path gone = directories.remove(key);
+                if (gone != null) {
+                    watched.remove(gone);
+                }
+            }
+        }
+
+        void registerPom(Path pomFile) {
+            Path directory = pomFile.getParent();
+            while (directory != null && directory.startsWith(root) && !watched.contains(directory)) {
+                register(directory);
+                directory = directory.getParent();
+            }
+        }
+
+        void register(Path directory) {
+            try {
+                WatchKey key = directory.register(
+                    watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE,
+                    StandardWatchEventKinds.ENTRY_MODIFY
+                );
+                directories.put(key, directory);
+                watched.add(directory);
+            } catch (IOException exception) {
+                LOGGER.warn("Could not watch {} for pom.xml changes", directory, exception);
+            }
+        }
+
+        void registerTree(Path start) {
+            try {
+                Files.walkFileTree(start, new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) {
+                        if (pomDirectoryScanner.prunes(root, directory)) {
+                            return FileVisitResult.SKIP_SUBTREE;
+                        }
+                        register(directory);
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException exception) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException exception) {
+                LOGGER.warn("Could not watch {} for pom.xml changes", start, exception);
+            }
+        }
+    }
+}
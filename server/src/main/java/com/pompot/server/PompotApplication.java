@@ -6,6 +6,9 @@ import com.pompot.server.cli.CommonValueReportCommand;
 import com.pompot.server.parser.CommonValueExtractor;
 import com.pompot.server.parser.PomDirectoryScanner;
 import com.pompot.server.parser.PomFileParser;
+import com.pompot.server.parser.PomParseCache;
+import com.pompot.server.parser.WorkspaceSnapshot;
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.Optional;
 import org.apache.maven.model.io.DefaultModelReader;
@@ -30,7 +33,7 @@ public class PompotApplication {
     public static void main(String[] args) {
         Optional<String> reportArgument = extractCommonValueReportArgument(args);
         if (reportArgument.isPresent()) {
-            runCommonValueReport(reportArgument.get());
+            runCommonValueReport(reportArgument.get(), args);
             return;
         }
 
@@ -84,13 +87,43 @@ public class PompotApplication {
         return Optional.empty();
     }
 
-    private static void runCommonValueReport(String directory) {
+    /**
+     * Reads a {@code --name=value} option so CLI runs accept the same settings as UI mode.
+     * @param arguments command-line arguments passed to the JVM.
+     * @param name option name without the leading dashes.
+     * @return the trimmed value when present and not blank.
+     */
+    private static Optional<String> extractOptionValue(String[] arguments, String name) {
+        if (arguments == null) {
+            return Optional.empty();
+        }
+
+        String prefix = "--" + name + "=";
+        for (String argument : arguments) {
+            if (argument != null && argument.startsWith(prefix)) {
+                String value = argument.substring(prefix.length()).trim();
+                return value.isEmpty() ? Optional.empty() : Optional.of(value);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static void runCommonValueReport(String directory, String[] arguments) {
         ModelReader modelReader = new DefaultModelReader();
         ObjectMapper objectMapper = new ObjectMapper();
         PomFileParser parser = new PomFileParser(modelReader, objectMapper);
-        PomDirectoryScanner scanner = new PomDirectoryScanner(parser);
+        PomParseCache parseCache = extractOptionValue(arguments, "pompot.cache.directory")
+            .map(value -> new PomParseCache(Path.of(value), objectMapper))
+            .orElse(PomParseCache.disabled());
+        PomDirectoryScanner scanner = new PomDirectoryScanner(parser, PomDirectoryScanner.Options.defaults()
+            .withParseCache(parseCache)
+            .withParallelism(PomDirectoryScanner.defaultParallelism())
+            .withParseMode(PomFileParser.Mode.GRAPH_ONLY));
         CommonValueExtractor extractor = new CommonValueExtractor();
-        CommonValueReportCommand command = new CommonValueReportCommand(scanner, extractor);
+        WorkspaceSnapshot snapshot = extractOptionValue(arguments, "pompot.snapshot.file")
+            .map(value -> new WorkspaceSnapshot(Path.of(value)))
+            .orElse(WorkspaceSnapshot.disabled());
+        CommonValueReportCommand command = new CommonValueReportCommand(scanner, extractor, snapshot);
         command.run(directory, System.out, System.err);
     }
 }
@@ -1,13 +1,21 @@
 package com.pompot.server;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
+import com.pompot.server.parser.CommonValue;
+import com.pompot.server.parser.ParsedPom;
 import com.pompot.server.parser.ParsedPomCollection;
 import com.pompot.server.parser.ParsedPomRepository;
+import com.pompot.server.parser.ValueDrift;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 /**
  * Exposes parsed pom metadata to the UI via HTTP endpoints.
@@ -16,6 +24,9 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api/pom")
 class ProjectPomController {
 
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+
     private final ParsedPomRepository parsedPomRepository;
 
     ProjectPomController(ParsedPomRepository parsedPomRepository) {
@@ -23,16 +34,104 @@ class ProjectPomController {
     }
 
     /**
-     * Returns the parsed pom model stored in memory, if any.
-     * @return HTTP 200 with the parsed model or 404 when nothing is stored.
+     * Returns the parsed pom model stored in memory, if any. Without parameters the whole collection
+     * is returned. When any parameter is given, a {@link PomPage} is returned instead, holding only
+     * the requested page and fields.
+     * @param page zero based page index, {@code 0} by default.
+     * @param size entries per page, {@value #DEFAULT_PAGE_SIZE} by default and at most
+     *     {@value #MAX_PAGE_SIZE}.
+     * @param view {@code summary} for the coordinates, version and counts of each pom, or
+     *     {@code full} for every field. Defaults to {@code full}.
+     * @param fields comma separated field names, such as {@code relativePath,version}; takes
+     *     precedence over {@code view}.
+     * @return HTTP 200 with the parsed model or a page of it, 404 when nothing is stored, or 400
+     *     when a parameter is invalid.
      */
     @GetMapping
-    ResponseEntity<ParsedPomCollection> fetchParsedPom() {
+    ResponseEntity<?> fetchParsedPom(
+        @RequestParam(required = false) Integer page,
+        @RequestParam(required = false) Integer size,
+        @RequestParam(required = false) String view,
+        @RequestParam(required = false) String fields
+    ) {
         Optional<ParsedPomCollection> parsedPom = parsedPomRepository.fetch();
         if (parsedPom.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
+        if (page == null && size == null && view == null && fields == null) {
+            return ResponseEntity.ok(parsedPom.get());
+        }
+
+        int pageIndex = page == null ? 0 : page;
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : size;
+        if (pageIndex < 0) {
+            throw badRequest("Page must not be negative, got " + pageIndex);
+        }
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw badRequest("Size must be between 1 and " + MAX_PAGE_SIZE + ", got " + pageSize);
+        }
+        return ResponseEntity.ok(PomPage.of(parsedPom.get(), pageIndex, pageSize, selectedFields(view, fields)));
+    }
+
+    private static Set<PomField> selectedFields(String view, String fields) {
+        if (fields != null) {
+            try {
+                return PomField.parse(fields);
+            } catch (IllegalArgumentException e) {
+                throw badRequest(e.getMessage());
+            }
+        }
+        if (view == null || view.equals("full")) {
+            return PomField.FULL;
+        }
+        if (view.equals("summary")) {
+            return PomField.SUMMARY;
+        }
+        throw badRequest("Unknown view '" + view + "', expected summary or full");
+    }
 
-        return ResponseEntity.ok(parsedPom.get());
+    private static ResponseStatusException badRequest(String reason) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, reason);
+    }
+
+    /**
+     * Returns the values repeated across the stored poms, the {@code commonValues} of the whole
+     * collection, for clients that read the entries page by page.
+     * @return HTTP 200 with the common values, empty when no value repeats, or 404 when nothing is
+     *     stored.
+     */
+    @GetMapping("/common-values")
+    ResponseEntity<List<CommonValue>> fetchCommonValues() {
+        return parsedPomRepository.fetch()
+            .map(collection -> ResponseEntity.ok(collection.commonValues()))
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Returns the coordinates found with several values in the stored poms, such as a dependency
+     * pinned to different versions. The index is built with the common values on every scan, so
+     * nothing is computed per request.
+     * @return HTTP 200 with the drift, empty when every coordinate agrees, or 404 when nothing is
+     *     stored.
+     */
+    @GetMapping("/drift")
+    ResponseEntity<List<ValueDrift>> fetchDrift() {
+        return parsedPomRepository.fetch()
+            .map(collection -> ResponseEntity.ok(collection.drift()))
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Returns the poms referencing a node of the workspace graph, such as the poms depending on an
+     * artifact, through the merged workspace graph of the stored collection.
+     * @param node node identifier, such as {@code dependency:org.slf4j:slf4j-api:jar}.
+     * @return HTTP 200 with the relative paths of the poms in collection order, empty when none
+     *     references the node, or 404 when nothing is stored.
+     */
+    @GetMapping("/users")
+    ResponseEntity<List<String>> fetchUsers(@RequestParam String node) {
+        return parsedPomRepository.fetch()
+            .map(collection -> ResponseEntity.ok(collection.users(node).stream().map(ParsedPom::relativePath).toList()))
+            .orElseGet(() -> ResponseEntity.notFound().build());
     }
 }
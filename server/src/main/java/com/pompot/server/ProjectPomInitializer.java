@@ -6,11 +6,12 @@ import java.nio.file.Path;
 import java.util.List;
 
 import com.pompot.server.parser.ParsedPom;
-import com.pompot.server.parser.CommonValue;
 import com.pompot.server.parser.CommonValueExtractor;
 import com.pompot.server.parser.ParsedPomCollection;
 import com.pompot.server.parser.PomDirectoryScanner;
 import com.pompot.server.parser.ParsedPomRepository;
+import com.pompot.server.parser.ValueAnalysis;
+import com.pompot.server.parser.WorkspaceSnapshot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.ApplicationArguments;
@@ -28,25 +29,35 @@ class ProjectPomInitializer implements ApplicationRunner {
     private final ParsedPomRepository parsedPomRepository;
     private final CommonValueExtractor commonValueExtractor;
     private final PomDirectoryScanner pomDirectoryScanner;
+    private final PomWorkspaceWatcher pomWorkspaceWatcher;
+    private final WorkspaceSnapshot workspaceSnapshot;
 
     /**
      * Creates the initializer with parsing collaborators.
      * @param parsedPomRepository repository that stores the parsed result.
      * @param commonValueExtractor component that aggregates repeated values.
      * @param pomDirectoryScanner scanner used to discover and parse pom files.
+     * @param pomWorkspaceWatcher watcher that keeps the stored result current after startup.
+     * @param workspaceSnapshot snapshot served while the startup scan runs and rewritten after it.
      */
     ProjectPomInitializer(
         ParsedPomRepository parsedPomRepository,
         CommonValueExtractor commonValueExtractor,
-        PomDirectoryScanner pomDirectoryScanner
+        PomDirectoryScanner pomDirectoryScanner,
+        PomWorkspaceWatcher pomWorkspaceWatcher,
+        WorkspaceSnapshot workspaceSnapshot
     ) {
         this.parsedPomRepository = parsedPomRepository;
         this.commonValueExtractor = commonValueExtractor;
         this.pomDirectoryScanner = pomDirectoryScanner;
+        this.pomWorkspaceWatcher = pomWorkspaceWatcher;
+        this.workspaceSnapshot = workspaceSnapshot;
     }
 
     /**
-     * Scans the working directory (or the --parent argument) and parses every pom.xml found.
+     * Scans the working directory (or the --parent argument) and parses every pom.xml found. When
+     * a snapshot of the same directory exists and none of its poms changed since, it is stored
+     * first, so the API answers from it while the scan runs.
      * @param arguments command-line arguments supplied to the Spring application.
      */
     @Override
@@ -57,27 +68,42 @@ class ProjectPomInitializer implements ApplicationRunner {
             return;
         }
 
-        PomDirectoryScanner.ScanResult scanResult = pomDirectoryScanner.scan(scanRoot);
+        workspaceSnapshot.load(scanRoot).ifPresent(snapshot -> {
+            if (parsedPomRepository.replace(null, snapshot)) {
+                LOGGER.info("Loaded {} pom.xml files from the workspace snapshot", snapshot.entries().size());
+            }
+        });
+
+        // Watch before scanning so edits made during a long scan are applied once it is published.
+        pomWorkspaceWatcher.holdChanges();
+        pomWorkspaceWatcher.watch(scanRoot);
+        long scanStartedMillis = System.currentTimeMillis();
+        // The discovered poms are watched before they are parsed, so an edit made while they are read is not missed.
+        PomDirectoryScanner.ScanResult scanResult = pomDirectoryScanner.scan(
+            scanRoot,
+            pomFiles -> pomWorkspaceWatcher.watchPoms(scanRoot, pomFiles)
+        );
         if (!scanResult.foundPomFiles()) {
             LOGGER.info("No pom.xml files found under {}", scanRoot.toAbsolutePath().normalize());
-            parsedPomRepository.clear();
+            pomWorkspaceWatcher.publishScan(scanRoot, null);
             return;
         }
 
         List<ParsedPom> parsedPoms = scanResult.parsedPoms();
         if (parsedPoms.isEmpty()) {
             LOGGER.warn("Failed to parse pom.xml files under {}", scanResult.root());
-            parsedPomRepository.clear();
+            pomWorkspaceWatcher.publishScan(scanRoot, null);
             return;
         }
 
-        List<CommonValue> commonValues = commonValueExtractor.extract(parsedPoms);
+        ValueAnalysis analysis = commonValueExtractor.analyze(parsedPoms);
         ParsedPomCollection collection = new ParsedPomCollection(
             scanResult.root().toString(),
             parsedPoms,
-            commonValues
+            analysis
         );
-        parsedPomRepository.store(collection);
+        pomWorkspaceWatcher.publishScan(scanRoot, collection);
+        workspaceSnapshot.save(collection, scanStartedMillis);
         LOGGER.info("Parsed {} pom.xml files under {}", parsedPoms.size(), scanResult.root());
     }
 
@@ -2,15 +2,25 @@ package com.pompot.server.cli;
 
 import com.pompot.server.parser.CommonValue;
 import com.pompot.server.parser.CommonValueExtractor;
+import com.pompot.server.parser.ParsedPom;
+import com.pompot.server.parser.ParsedPomCollection;
 import com.pompot.server.parser.PomDirectoryScanner;
 import com.pompot.server.parser.PomDirectoryScanner.ScanResult;
+import com.pompot.server.parser.ValueAnalysis;
+import com.pompot.server.parser.ValueDrift;
+import com.pompot.server.parser.WorkspaceSnapshot;
 import java.io.PrintStream;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Command executed in CLI mode to print a report of repeated values across pom.xml files.
@@ -19,13 +29,31 @@ public final class CommonValueReportCommand {
 
     private final PomDirectoryScanner pomDirectoryScanner;
     private final CommonValueExtractor commonValueExtractor;
+    private final WorkspaceSnapshot workspaceSnapshot;
 
     public CommonValueReportCommand(
         PomDirectoryScanner pomDirectoryScanner,
         CommonValueExtractor commonValueExtractor
+    ) {
+        this(pomDirectoryScanner, commonValueExtractor, WorkspaceSnapshot.disabled());
+    }
+
+    /**
+     * Creates a command that reports from a workspace snapshot when one exists for the directory
+     * and still matches its poms, and scans and writes one otherwise.
+     *
+     * @param pomDirectoryScanner scanner used when no snapshot matches.
+     * @param commonValueExtractor extractor used on scanned poms.
+     * @param workspaceSnapshot snapshot to read and write.
+     */
+    public CommonValueReportCommand(
+        PomDirectoryScanner pomDirectoryScanner,
+        CommonValueExtractor commonValueExtractor,
+        WorkspaceSnapshot workspaceSnapshot
     ) {
         this.pomDirectoryScanner = Objects.requireNonNull(pomDirectoryScanner, "pomDirectoryScanner");
         this.commonValueExtractor = Objects.requireNonNull(commonValueExtractor, "commonValueExtractor");
+        this.workspaceSnapshot = Objects.requireNonNull(workspaceSnapshot, "workspaceSnapshot");
     }
 
     /**
@@ -55,23 +83,87 @@ public final class CommonValueReportCommand {
             return 1;
         }
 
-        ScanResult scan = pomDirectoryScanner.scan(root);
-        if (!scan.foundPomFiles()) {
-            out.printf("No pom.xml files were found under %s%n", root);
-            return 0;
+        Optional<ParsedPomCollection> snapshot = workspaceSnapshot.load(root).filter(loaded -> discoversSamePoms(root, loaded));
+        List<CommonValue> repeatedValues;
+        List<ValueDrift> drift;
+        if (snapshot.isPresent()) {
+            repeatedValues = snapshot.get().commonValues();
+            drift = snapshot.get().drift();
+        } else {
+            long scanStartedMillis = System.currentTimeMillis();
+            ScanResult scan = pomDirectoryScanner.scan(root);
+            if (!scan.foundPomFiles()) {
+                out.printf("No pom.xml files were found under %s%n", root);
+                return 0;
+            }
+
+            ValueAnalysis analysis = commonValueExtractor.analyze(scan.parsedPoms());
+            repeatedValues = analysis.commonValues();
+            drift = analysis.drift();
+            workspaceSnapshot.save(
+                new ParsedPomCollection(scan.root().toString(), scan.parsedPoms(), analysis),
+                scanStartedMillis
+            );
         }
 
-        List<CommonValue> repeatedValues = commonValueExtractor.extract(scan.parsedPoms());
         if (repeatedValues.isEmpty()) {
             out.printf("No repeated values were detected under %s%n", root);
-            return 0;
+        } else {
+            printReport(root, repeatedValues, out);
+        }
+        if (!drift.isEmpty()) {
+            out.println();
+            printDrift(root, drift, out);
         }
-
-        printReport(scan, repeatedValues, out);
         return 0;
     }
 
-    private void printReport(ScanResult scan, List<CommonValue> values, PrintStream out) {
+    /**
+     * Runs discovery again, reusing the snapshot graphs for module discovery, so a pom added since
+     * the snapshot was written, which {@link WorkspaceSnapshot#load} cannot know about, makes the
+     * command scan.
+     */
+    private boolean discoversSamePoms(Path root, ParsedPomCollection snapshot) {
+        Map<Path, ParsedPom> known = new HashMap<>();
+        for (ParsedPom entry : snapshot.entries()) {
+            known.put(Path.of(entry.pomPath()), entry);
+        }
+        Optional<Set<Path>> discovered = pomDirectoryScanner.discover(root, known)
+            .map(discovery -> Set.copyOf(discovery.pomFiles()));
+        return discovered.isPresent() && discovered.get().equals(known.keySet());
+    }
+
+    /**
+     * Prints each coordinate found with several values, its values in Maven version order and how
+     * often each one occurs, for example {@code 2.0.9 (1), 2.0.12 (3)}.
+     */
+    private void printDrift(Path root, List<ValueDrift> drift, PrintStream out) {
+        List<String> values = drift.stream()
+            .map(entry -> entry.values().stream()
+                .map(variant -> variant.value() + " (" + variant.occurrences() + ")")
+                .collect(Collectors.joining(", ")))
+            .toList();
+        int categoryWidth = Math.max(
+            "Category".length(),
+            drift.stream().map(ValueDrift::category).mapToInt(String::length).max().orElse(0)
+        );
+        int identifierWidth = Math.max(
+            "Identifier".length(),
+            drift.stream().map(ValueDrift::identifier).mapToInt(String::length).max().orElse(0)
+        );
+
+        String format = String.format("%%-%ds  %%-%ds  %%s%%n", categoryWidth, identifierWidth);
+
+        out.printf("Values that drift under %s%n", root);
+        out.println();
+        out.printf(format, "Category", "Identifier", "Values");
+        out.printf(format, "-".repeat(categoryWidth), "-".repeat(identifierWidth), "-".repeat("Values".length()));
+        for (int index = 0; index < drift.size(); index++) {
+            out.printf(format, drift.get(index).category(), drift.get(index).identifier(), values.get(index));
+        }
+    }
+
+    private void printReport(Path root, List<CommonValue> values, PrintStream out) {
         int categoryWidth = Math.max(
             "Category".length(),
             values.stream().map(CommonValue::category).mapToInt(String::length).max().orElse(0)
@@ -97,7 +189,7 @@ public final class CommonValueReportCommand {
             occurrencesWidth
         );
 
-        out.printf("Repeated values under %s%n", scan.root());
+        out.printf("Repeated values under %s%n", root);
         out.println();
         out.printf(format, "Category", "Identifier", "Value", "Occurrences");
         out.printf(
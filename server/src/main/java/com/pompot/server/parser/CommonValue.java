@@ -4,15 +4,19 @@ import java.util.Objects;
 
 /**
  * Describes a value repeated across parsed pom files. It captures the category
- * of the value, a descriptive identifier and the number of occurrences.
+ * of the value, a descriptive identifier, the number of occurrences and the poms
+ * holding it.
  *
  * @param category logical group for the value (for example {@code property} or
  *     {@code dependency}).
  * @param identifier human readable name describing what the value refers to.
  * @param value actual repeated value.
  * @param occurrences number of times the value appeared across the parsed poms.
+ * @param poms ordinals of the poms holding the value in the entry list it was
+ *     extracted from; a pom holding the value twice is counted twice by
+ *     {@code occurrences} but appears once here.
  */
-public record CommonValue(String category, String identifier, String value, int occurrences) {
+public record CommonValue(String category, String identifier, String value, int occurrences, PomSet poms) {
 
     public CommonValue {
         category = Objects.requireNonNull(category, "category").trim();
@@ -30,5 +34,9 @@ public record CommonValue(String category, String identifier, String value, int
         if (occurrences < 2) {
             throw new IllegalArgumentException("occurrences must be greater than 1");
         }
+        Objects.requireNonNull(poms, "poms");
+        if (poms.size() > occurrences) {
+            throw new IllegalArgumentException("poms must not outnumber occurrences");
+        }
     }
 }
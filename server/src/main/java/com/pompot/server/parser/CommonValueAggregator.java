@@ -0,0 +1,271 @@
+package com.pompot.server.parser;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Occurrence counts of a {@link CommonValueExtractor} kept between changes, so a rescan only
+ * walks the poms that changed. Poms are tracked by {@link ParsedPom#pomPath()}, and the keys
+ * each pom contributed are remembered, so removing a pom does not read its graph again and
+ * {@link #analysis(List)} never reads a graph. Each key keeps the ordinals of the poms holding it
+ * and the published common values and drift are kept sorted, so an analysis only rebuilds the
+ * keys touched since the previous one. It always equals {@link CommonValueExtractor#analyze} over
+ * the tracked poms in the given order. Not thread-safe.
+ */
+public final class CommonValueAggregator {
+
+    private final CommonValueExtractor extractor;
+    private final Map<CommonValueExtractor.Key, Count> counts = new HashMap<>();
+    private final Map<CommonValueExtractor.Key, List<Count>> coordinates = new HashMap<>();
+    private final Map<String, Tracked> tracked = new HashMap<>();
+    private final TreeMap<CommonValueExtractor.Key, CommonValue> commonValues =
+        new TreeMap<>(CommonValueExtractor.Key.ORDER);
+    private final TreeMap<CommonValueExtractor.Key, ValueDrift> drift = new TreeMap<>(CommonValueExtractor.Key.ORDER);
+    private final Set<Count> touched = new LinkedHashSet<>();
+    private int analyzed;
+    private int epoch;
+
+    CommonValueAggregator(CommonValueExtractor extractor) {
+        this.extractor = Objects.requireNonNull(extractor, "extractor");
+    }
+
+    /**
+     * Counts the values of a pom.
+     * @param pom pom to track.
+     * @throws IllegalArgumentException when a pom with the same path is already tracked.
+     */
+    public void add(ParsedPom pom) {
+        Objects.requireNonNull(pom, "pom");
+        if (tracked.containsKey(pom.pomPath())) {
+            throw new IllegalArgumentException("Pom " + pom.pomPath() + " is already counted");
+        }
+        List<Count> contributed = new ArrayList<>();
+        extractor.collect(pom, key -> {
+            Count count = counts.computeIfAbsent(key, this::newCount);
+            count.occurrences += 1;
+            contributed.add(count);
+            touched.add(count);
+        });
+        tracked.put(pom.pomPath(), new Tracked(contributed));
+    }
+
+    /**
+     * Stops counting the values a pom contributed when it was added.
+     * @param pom pom to forget; matched by path.
+     * @throws IllegalArgumentException when no pom with that path is tracked.
+     */
+    public void remove(ParsedPom pom) {
+        Tracked removed = tracked.remove(Objects.requireNonNull(pom, "pom").pomPath());
+        if (removed == null) {
+            throw new IllegalArgumentException("Pom " + pom.pomPath() + " is not counted");
+        }
+        for (Count count : removed.contributed) {
+            count.occurrences -= 1;
+            if (removed.ordinal >= 0) {
+                count.poms.clear(removed.ordinal);
+            }
+            touched.add(count);
+            if (count.occurrences == 0) {
+                counts.remove(count.key);
+                List<Count> variants = coordinates.get(count.coordinate);
+                variants.remove(count);
+                if (variants.isEmpty()) {
+                    coordinates.remove(count.coordinate);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces a tracked pom with a new version, such as the result of parsing it again.
+     * @param oldPom pom to forget; matched by path.
+     * @param newPom pom to count.
+     * @throws IllegalArgumentException when {@code oldPom} is not tracked or another tracked pom
+     *     already has the path of {@code newPom}; nothing changes then.
+     */
+    public void replace(ParsedPom oldPom, ParsedPom newPom) {
+        Objects.requireNonNull(newPom, "newPom");
+        if (!newPom.pomPath().equals(oldPom.pomPath()) && tracked.containsKey(newPom.pomPath())) {
+            throw new IllegalArgumentException("Pom " + newPom.pomPath() + " is already counted");
+        }
+        remove(oldPom);
+        add(newPom);
+    }
+
+    /**
+     * Values repeated across the tracked poms.
+     * @param entries every tracked pom exactly once, in the order {@link CommonValue#poms()}
+     *     ordinals refer to, such as the entries of the collection being published.
+     * @return values sorted like {@link CommonValueExtractor#extract}.
+     * @throws IllegalArgumentException when {@code entries} are not exactly the tracked poms.
+     */
+    public List<CommonValue> commonValues(List<ParsedPom> entries) {
+        return analysis(entries).commonValues();
+    }
+
+    /**
+     * Repeated values and drift of the tracked poms. Only the keys added, removed or moved to
+     * another ordinal since the previous call are rebuilt; no graph is walked.
+     * @param entries every tracked pom exactly once, in the order pom ordinals refer to.
+     * @return the same analysis as {@link CommonValueExtractor#analyze} over {@code entries}.
+     * @throws IllegalArgumentException when {@code entries} are not exactly the tracked poms.
+     */
+    public ValueAnalysis analysis(List<ParsedPom> entries) {
+        Tracked[] order = order(entries);
+
+        for (int ordinal = 0; ordinal < order.length; ordinal++) {
+            if (order[ordinal].ordinal >= 0 && order[ordinal].ordinal != ordinal) {
+                remap(order);
+                break;
+            }
+        }
+        for (int ordinal = 0; ordinal < order.length; ordinal++) {
+            Tracked pom = order[ordinal];
+            if (pom.ordinal < 0) {
+                for (Count count : pom.contributed) {
+                    count.poms.set(ordinal);
+                }
+            }
+            pom.ordinal = ordinal;
+        }
+        analyzed = order.length;
+
+        Set<CommonValueExtractor.Key> changedCoordinates = new LinkedHashSet<>();
+        for (Count count : touched) {
+            changedCoordinates.add(count.coordinate);
+            if (counts.get(count.key) != count) {
+                // Dropped with its last pom; a count created for the same key since is touched too.
+                if (!counts.containsKey(count.key)) {
+                    commonValues.remove(count.key);
+                }
+                continue;
+            }
+            if (count.occurrences > 1) {
+                commonValues.put(count.key, count.key.toCommonValue(count.occurrences, PomSet.of(count.poms)));
+            } else {
+                commonValues.remove(count.key);
+            }
+        }
+        touched.clear();
+        for (CommonValueExtractor.Key coordinate : changedCoordinates) {
+            List<Count> variants = coordinates.get(coordinate);
+            if (variants == null || variants.size() < 2) {
+                drift.remove(coordinate);
+                continue;
+            }
+            List<ValueDrift.Variant> values = new ArrayList<>(variants.size());
+            for (Count count : variants) {
+                values.add(new ValueDrift.Variant(count.key.value(), count.occurrences, PomSet.of(count.poms)));
+            }
+            values.sort(ValueDrift.VERSION_ORDER);
+            drift.put(coordinate, new ValueDrift(coordinate.category(), coordinate.identifier(), values));
+        }
+        return new ValueAnalysis(new ArrayList<>(commonValues.values()), new ArrayList<>(drift.values()));
+    }
+
+    /**
+     * Number of tracked poms.
+     * @return pom count.
+     */
+    public int size() {
+        return tracked.size();
+    }
+
+    /**
+     * Resolves the entries to tracked poms, checking that each tracked pom appears exactly once
+     * before anything is changed.
+     */
+    private Tracked[] order(List<ParsedPom> entries) {
+        if (entries.size() != tracked.size()) {
+            throw new IllegalArgumentException(entries.size() + " entries given for " + tracked.size() + " counted poms");
+        }
+        epoch += 1;
+        Tracked[] order = new Tracked[entries.size()];
+        for (int ordinal = 0; ordinal < order.length; ordinal++) {
+            String pomPath = entries.get(ordinal).pomPath();
+            Tracked pom = tracked.get(pomPath);
+            if (pom == null) {
+                throw new IllegalArgumentException("Pom " + pomPath + " is not counted");
+            }
+            if (pom.epoch == epoch) {
+                throw new IllegalArgumentException("Pom " + pomPath + " is given twice");
+            }
+            pom.epoch = epoch;
+            order[ordinal] = pom;
+        }
+        return order;
+    }
+
+    /**
+     * Moves the ordinals of the poms counted at the previous analysis to their new position, such
+     * as after a pom was inserted before them, instead of counting every pom again. Keys whose pom
+     * set changed are rebuilt by the analysis.
+     */
+    private void remap(Tracked[] order) {
+        int[] remap = new int[analyzed];
+        for (int ordinal = 0; ordinal < order.length; ordinal++) {
+            if (order[ordinal].ordinal >= 0) {
+                remap[order[ordinal].ordinal] = ordinal;
+            }
+        }
+        for (Count count : counts.values()) {
+            if (count.poms.isEmpty()) {
+                continue;
+            }
+            BitSet moved = new BitSet();
+            for (int ordinal = count.poms.nextSetBit(0); ordinal >= 0; ordinal = count.poms.nextSetBit(ordinal + 1)) {
+                moved.set(remap[ordinal]);
+            }
+            if (!moved.equals(count.poms)) {
+                count.poms.clear();
+                count.poms.or(moved);
+                touched.add(count);
+            }
+        }
+    }
+
+    private Count newCount(CommonValueExtractor.Key key) {
+        Count count = new Count(key);
+        coordinates.computeIfAbsent(count.coordinate, ignored -> new ArrayList<>(2)).add(count);
+        return count;
+    }
+
+    /**
+     * Key shared by the contributions of every tracked pom holding it, dropped with the last one.
+     * Holds the ordinals, as of the last analysis, of the poms holding it.
+     */
+    private static final class Count {
+
+        private final CommonValueExtractor.Key key;
+        private final CommonValueExtractor.Key coordinate;
+        private final BitSet poms = new BitSet();
+        private int occurrences;
+
+        Count(CommonValueExtractor.Key key) {
+            this.key = key;
+            this.coordinate = new CommonValueExtractor.Key(key.category(), key.identifier(), "");
+        }
+    }
+
+    /**
+     * Keys a tracked pom contributed, and its ordinal at the last analysis; {@code -1} until the
+     * pom is part of one.
+     */
+    private static final class Tracked {
+
+        private final List<Count> contributed;
+        private int ordinal = -1;
+        private int epoch;
+
+        Tracked(List<Count> contributed) {
+            this.contributed = contributed;
+        }
+    }
+}
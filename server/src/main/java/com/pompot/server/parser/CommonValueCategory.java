@@ -0,0 +1,40 @@
+package com.pompot.server.parser;
+
+/**
+ * Kind of repeated value a {@link CommonValueExtractor} can count. Each category reads the edges of
+ * one graph relationship and reports its values under {@link CommonValue#category()}.
+ */
+public enum CommonValueCategory {
+    PROPERTY("property", "property"),
+    DEPENDENCY("dependency", "dependency"),
+    MANAGED_DEPENDENCY("managed dependency", "managedDependency"),
+    BOM("bom", "bom"),
+    PARENT("parent", "parent"),
+    PLUGIN("plugin", "plugin"),
+    MANAGED_PLUGIN("managed plugin", "managedPlugin"),
+    TILE("tile", "tile");
+
+    private final String label;
+    private final String relationship;
+
+    CommonValueCategory(String label, String relationship) {
+        this.label = label;
+        this.relationship = relationship;
+    }
+
+    /**
+     * Name reported as {@link CommonValue#category()}.
+     * @return category label, such as {@code managed dependency}.
+     */
+    public String label() {
+        return label;
+    }
+
+    /**
+     * Graph relationship whose edges hold the values of this category.
+     * @return relationship name, such as {@code managedDependency}.
+     */
+    public String relationship() {
+        return relationship;
+    }
+}
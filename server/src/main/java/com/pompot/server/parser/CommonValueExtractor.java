@@ -4,14 +4,22 @@ import com.pompot.server.pomgraph.GraphEdge;
 import com.pompot.server.pomgraph.GraphNode;
 import com.pompot.server.pomgraph.GraphValue;
 import com.pompot.server.pomgraph.TextGraph;
-import com.pompot.server.pomgraph.TextReference;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.LinkedHashMap;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.springframework.stereotype.Component;
 
 /**
@@ -22,169 +30,220 @@ import org.springframework.stereotype.Component;
 public class CommonValueExtractor {
 
     /**
-     * Extracts repeated values from the provided pom collection.
+     * Smallest number of poms counted in parallel; fewer poms are not worth splitting.
+     */
+    static final int PARALLEL_THRESHOLD = 128;
+
+    private final Set<CommonValueCategory> categories;
+    private final Map<String, EdgeCollector> collectors = new HashMap<>();
+
+    /**
+     * Creates an extractor counting every {@link CommonValueCategory}.
+     */
+    public CommonValueExtractor() {
+        this(EnumSet.allOf(CommonValueCategory.class));
+    }
+
+    /**
+     * Creates an extractor counting only the given categories; edges of other relationships are
+     * skipped without being read.
+     *
+     * @param categories categories to count.
+     */
+    public CommonValueExtractor(Set<CommonValueCategory> categories) {
+        Objects.requireNonNull(categories, "categories");
+        this.categories = categories.isEmpty()
+            ? Collections.unmodifiableSet(EnumSet.noneOf(CommonValueCategory.class))
+            : Collections.unmodifiableSet(EnumSet.copyOf(categories));
+        for (CommonValueCategory category : this.categories) {
+            collectors.put(category.relationship(), collector(category));
+        }
+    }
+
+    /**
+     * Categories this extractor counts.
+     * @return read-only set of categories.
+     */
+    public Set<CommonValueCategory> categories() {
+        return categories;
+    }
+
+    /**
+     * Extracts repeated values from the provided pom collection, counting slices of poms in
+     * parallel on the common fork/join pool.
      *
      * @param entries parsed pom entries to inspect.
      * @return ordered list of repeated values sorted by category and identifier.
      */
     public List<CommonValue> extract(Collection<ParsedPom> entries) {
+        return analyze(entries).commonValues();
+    }
+
+    /**
+     * Extracts repeated values from the provided pom collection on the given pool.
+     *
+     * @param entries parsed pom entries to inspect.
+     * @param pool pool running the counting tasks.
+     * @return ordered list of repeated values sorted by category and identifier.
+     * @see #analyze(Collection, ForkJoinPool)
+     */
+    public List<CommonValue> extract(Collection<ParsedPom> entries, ForkJoinPool pool) {
+        return analyze(entries, pool).commonValues();
+    }
+
+    /**
+     * Counts the values of the provided poms once and reports both the repeated values and the
+     * coordinates found with several values, on the common fork/join pool.
+     *
+     * @param entries parsed pom entries to inspect.
+     * @return repeated values and drift.
+     */
+    public ValueAnalysis analyze(Collection<ParsedPom> entries) {
+        return analyze(entries, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Counts the values of the provided poms once and reports both the repeated values and the
+     * coordinates found with several values. Each worker counts its slice of poms into a map of
+     * its own and the maps are merged as the slices complete, so workers never share a map. The
+     * result does not depend on the pool: a pool with a parallelism of one, or fewer poms than
+     * {@link #PARALLEL_THRESHOLD}, counts on the calling thread.
+     *
+     * <p>{@link CommonValue#poms()} holds the positions of the poms in the iteration order of
+     * {@code entries}; {@code null} entries keep their position but hold nothing.
+     *
+     * @param entries parsed pom entries to inspect.
+     * @param pool pool running the counting tasks.
+     * @return repeated values sorted by category, identifier and value, and drift sorted by
+     *     category and identifier.
+     */
+    public ValueAnalysis analyze(Collection<ParsedPom> entries, ForkJoinPool pool) {
+        Objects.requireNonNull(pool, "pool");
         if (entries == null || entries.isEmpty()) {
-            return List.of();
+            return new ValueAnalysis(List.of(), List.of());
         }
 
-        Map<Key, Occurrence> occurrences = new LinkedHashMap<>();
-        for (ParsedPom pom : entries) {
-            if (pom == null) {
-                continue;
-            }
-            TextGraph graph = pom.graph();
-            for (GraphNode node : graph.nodes()) {
-                collectPropertyValues(node.edges("property"), occurrences);
-                collectDependencyValues("dependency", node.edges("dependency"), occurrences);
-                collectDependencyValues("managed dependency", node.edges("managedDependency"), occurrences);
-                collectDependencyValues("bom", node.edges("bom"), occurrences);
-                collectParentValues(node.edges("parent"), occurrences);
-                collectPluginValues("plugin", node.edges("plugin"), occurrences);
-                collectPluginValues("managed plugin", node.edges("managedPlugin"), occurrences);
-                collectTileValues(node.edges("tile"), occurrences);
+        List<ParsedPom> poms = new ArrayList<>(entries);
+        Map<Key, Occurrence> occurrences;
+        if (poms.size() < PARALLEL_THRESHOLD || pool.getParallelism() < 2) {
+            occurrences = new HashMap<>();
+            for (int ordinal = 0; ordinal < poms.size(); ordinal++) {
+                count(occurrences, poms.get(ordinal), ordinal);
             }
+        } else {
+            occurrences = pool.submit(() -> IntStream.range(0, poms.size())
+                .parallel()
+                .collect(HashMap<Key, Occurrence>::new, (map, ordinal) -> count(map, poms.get(ordinal), ordinal), CommonValueExtractor::merge))
+                .join();
         }
+        return summarize(occurrences.values());
+    }
 
-        return occurrences
-            .values()
+    /**
+     * Turns counted occurrences into the reported values.
+     * @param occurrences one occurrence per counted key.
+     * @return repeated values and drift.
+     */
+    static ValueAnalysis summarize(Collection<Occurrence> occurrences) {
+        List<CommonValue> commonValues = occurrences
             .stream()
             .filter(entry -> entry.count > 1)
-            .sorted((left, right) -> {
-                int categoryComparison = left.category.compareToIgnoreCase(right.category);
-                if (categoryComparison != 0) {
-                    return categoryComparison;
-                }
-                int identifierComparison = left.identifier.compareToIgnoreCase(right.identifier);
-                if (identifierComparison != 0) {
-                    return identifierComparison;
-                }
-                return left.value.compareToIgnoreCase(right.value);
-            })
-            .map(entry -> new CommonValue(entry.category, entry.identifier, entry.value, entry.count))
+            .sorted(Comparator.comparing(entry -> entry.key, Key.ORDER))
+            .map(entry -> entry.key.toCommonValue(entry.count, PomSet.of(entry.poms)))
             .collect(Collectors.toUnmodifiableList());
-    }
 
-    private void collectPropertyValues(Collection<GraphEdge> edges, Map<Key, Occurrence> storage) {
-        if (edges == null || edges.isEmpty()) {
-            return;
-        }
-
-        for (GraphEdge edge : edges) {
-            Optional<TextReference> reference = edge.value().text();
-            if (reference.isEmpty()) {
-                continue;
-            }
-
-            String value = reference.get().value().value();
-            if (value.isBlank()) {
-                continue;
-            }
-
-            String identifier = derivePropertyIdentifier(edge.target());
-            register(storage, new Key("property", identifier, value));
+        Map<Key, List<ValueDrift.Variant>> coordinates = new HashMap<>();
+        for (Occurrence occurrence : occurrences) {
+            Key coordinate = new Key(occurrence.key.category(), occurrence.key.identifier(), "");
+            coordinates
+                .computeIfAbsent(coordinate, ignored -> new ArrayList<>(2))
+                .add(new ValueDrift.Variant(occurrence.key.value(), occurrence.count, PomSet.of(occurrence.poms)));
         }
+        List<ValueDrift> drift = coordinates
+            .entrySet()
+            .stream()
+            .filter(entry -> entry.getValue().size() > 1)
+            .sorted(Map.Entry.comparingByKey(Key.ORDER))
+            .map(entry -> {
+                entry.getValue().sort(ValueDrift.VERSION_ORDER);
+                return new ValueDrift(entry.getKey().category(), entry.getKey().identifier(), entry.getValue());
+            })
+            .collect(Collectors.toUnmodifiableList());
+        return new ValueAnalysis(commonValues, drift);
     }
 
-    private void collectDependencyValues(String category, Collection<GraphEdge> edges, Map<Key, Occurrence> storage) {
-        if (edges == null || edges.isEmpty()) {
-            return;
-        }
-
-        for (GraphEdge edge : edges) {
-            GraphValue payload = edge.value();
-            GraphValue versionValue = payload.children().get("version");
-            if (versionValue == null) {
-                continue;
-            }
-            Optional<TextReference> reference = versionValue.text();
-            if (reference.isEmpty()) {
-                continue;
-            }
+    /**
+     * Starts an aggregator that keeps the occurrence counts of this extractor between changes.
+     * @return empty aggregator.
+     */
+    public CommonValueAggregator aggregator() {
+        return new CommonValueAggregator(this);
+    }
 
-            String value = reference.get().value().value();
-            if (value.isBlank()) {
-                continue;
+    /**
+     * Reports the key of every value of one pom that counts toward repeated values, once per
+     * occurrence. Each outgoing edge is visited once and handed to the collector registered for
+     * its relationship, if any.
+     * @param pom parsed pom to inspect.
+     * @param sink receives the keys.
+     */
+    void collect(ParsedPom pom, Consumer<Key> sink) {
+        TextGraph graph = pom.graph();
+        for (GraphNode node : graph.nodes()) {
+            for (GraphEdge edge : node.edges()) {
+                EdgeCollector collector = collectors.get(edge.relationship());
+                if (collector != null) {
+                    collector.collect(edge, sink);
+                }
             }
-
-            String identifier = deriveDependencyIdentifier(payload, edge.target());
-            register(storage, new Key(category, identifier, value));
         }
     }
 
-    private void collectParentValues(Collection<GraphEdge> edges, Map<Key, Occurrence> storage) {
-        if (edges == null || edges.isEmpty()) {
-            return;
-        }
-
-        for (GraphEdge edge : edges) {
-            Optional<TextReference> reference = edge.value().text();
-            if (reference.isEmpty()) {
-                continue;
-            }
+    private static EdgeCollector collector(CommonValueCategory category) {
+        return switch (category) {
+            case PROPERTY, PARENT, TILE -> textCollector(category.label(), category.relationship() + ":");
+            case DEPENDENCY, MANAGED_DEPENDENCY, BOM -> versionCollector(
+                category.label(), CommonValueExtractor::deriveDependencyIdentifier);
+            case PLUGIN, MANAGED_PLUGIN -> versionCollector(category.label(), CommonValueExtractor::derivePluginIdentifier);
+        };
+    }
 
-            String value = reference.get().value().value();
-            if (value.isBlank()) {
-                continue;
+    /**
+     * Counts textual payloads under the target node id without {@code prefix}.
+     */
+    private static EdgeCollector textCollector(String category, String prefix) {
+        return (edge, sink) -> {
+            String value = textOf(edge.value());
+            if (value == null || value.isBlank()) {
+                return;
             }
-
-            String identifier = deriveParentIdentifier(edge.target());
-            register(storage, new Key("parent", identifier, value));
-        }
+            sink.accept(new Key(category, stripPrefix(edge.target(), prefix), value));
+        };
     }
 
-    private void collectPluginValues(String category, Collection<GraphEdge> edges, Map<Key, Occurrence> storage) {
-        if (edges == null || edges.isEmpty()) {
-            return;
-        }
-
-        for (GraphEdge edge : edges) {
+    /**
+     * Counts the {@code version} child of composite payloads.
+     */
+    private static EdgeCollector versionCollector(String category, BiFunction<GraphValue, GraphNode, String> identifier) {
+        return (edge, sink) -> {
             GraphValue payload = edge.value();
             GraphValue versionValue = payload.children().get("version");
             if (versionValue == null) {
-                continue;
-            }
-            Optional<TextReference> reference = versionValue.text();
-            if (reference.isEmpty()) {
-                continue;
+                return;
             }
-
-            String value = reference.get().value().value();
-            if (value.isBlank()) {
-                continue;
+            String value = textOf(versionValue);
+            if (value == null || value.isBlank()) {
+                return;
             }
-
-            String identifier = derivePluginIdentifier(payload, edge.target());
-            register(storage, new Key(category, identifier, value));
-        }
+            sink.accept(new Key(category, identifier.apply(payload, edge.target()), value));
+        };
     }
 
-    private void collectTileValues(Collection<GraphEdge> edges, Map<Key, Occurrence> storage) {
-        if (edges == null || edges.isEmpty()) {
-            return;
-        }
-
-        for (GraphEdge edge : edges) {
-            Optional<TextReference> reference = edge.value().text();
-            if (reference.isEmpty()) {
-                continue;
-            }
-
-            String value = reference.get().value().value();
-            if (value.isBlank()) {
-                continue;
-            }
-
-            String identifier = deriveTileIdentifier(edge.target());
-            register(storage, new Key("tile", identifier, value));
-        }
+    private static String textOf(GraphValue value) {
+        return value instanceof GraphValue.Textual textual ? textual.reference().value().value() : null;
     }
 
-    private String deriveDependencyIdentifier(GraphValue payload, GraphNode target) {
+    private static String deriveDependencyIdentifier(GraphValue payload, GraphNode target) {
         String groupId = readChildValue(payload, "groupId");
         String artifactId = readChildValue(payload, "artifactId");
         String type = readChildValue(payload, "type");
@@ -216,31 +275,24 @@ public class CommonValueExtractor {
         return builder.toString();
     }
 
-    private String readChildValue(GraphValue payload, String key) {
+    private static String readChildValue(GraphValue payload, String key) {
         GraphValue child = payload.children().get(key);
         if (child == null) {
             return "";
         }
-        return child.text().map(reference -> reference.value().value()).orElse("");
+        String value = textOf(child);
+        return value == null ? "" : value;
     }
 
-    private String derivePropertyIdentifier(GraphNode target) {
+    private static String stripPrefix(GraphNode target, String prefix) {
         String id = target == null ? "" : target.id();
-        if (id.startsWith("property:")) {
-            return id.substring("property:".length());
+        if (id.startsWith(prefix)) {
+            return id.substring(prefix.length());
         }
         return id;
     }
 
-    private String deriveParentIdentifier(GraphNode target) {
-        String id = target == null ? "" : target.id();
-        if (id.startsWith("parent:")) {
-            return id.substring("parent:".length());
-        }
-        return id;
-    }
-
-    private String derivePluginIdentifier(GraphValue payload, GraphNode target) {
+    private static String derivePluginIdentifier(GraphValue payload, GraphNode target) {
         String groupId = readChildValue(payload, "groupId");
         String artifactId = readChildValue(payload, "artifactId");
 
@@ -261,44 +313,79 @@ public class CommonValueExtractor {
         return builder.toString();
     }
 
-    private String deriveTileIdentifier(GraphNode target) {
-        String id = target == null ? "" : target.id();
-        if (id.startsWith("tile:")) {
-            return id.substring("tile:".length());
+    private void count(Map<Key, Occurrence> occurrences, ParsedPom pom, int ordinal) {
+        if (pom == null) {
+            return;
         }
-        return id;
+        collect(pom, key -> register(occurrences, key, ordinal));
+    }
+
+    /**
+     * Counts one occurrence of a key in the pom at an ordinal.
+     */
+    static void register(Map<Key, Occurrence> occurrences, Key key, int ordinal) {
+        Occurrence occurrence = occurrences.computeIfAbsent(key, Occurrence::new);
+        occurrence.count += 1;
+        occurrence.poms.set(ordinal);
     }
 
-    private void register(Map<Key, Occurrence> storage, Key key) {
-        storage.compute(key, (ignored, current) -> {
-            if (current == null) {
-                return new Occurrence(key.category, key.identifier, key.value);
+    private static void merge(Map<Key, Occurrence> target, Map<Key, Occurrence> source) {
+        for (Occurrence occurrence : source.values()) {
+            Occurrence existing = target.putIfAbsent(occurrence.key, occurrence);
+            if (existing != null) {
+                existing.count += occurrence.count;
+                existing.poms.or(occurrence.poms);
             }
-            current.count += 1;
-            return current;
-        });
+        }
     }
 
-    private record Key(String category, String identifier, String value) {
-        private Key {
+    /**
+     * What a value is counted under.
+     */
+    record Key(String category, String identifier, String value) {
+
+        /**
+         * Report order: category, identifier and value ignoring case, then the same fields
+         * respecting case so keys differing only by case keep a fixed order.
+         */
+        static final Comparator<Key> ORDER = Comparator
+            .comparing(Key::category, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(Key::identifier, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(Key::value, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(Key::category)
+            .thenComparing(Key::identifier)
+            .thenComparing(Key::value);
+
+        Key {
             Objects.requireNonNull(category, "category");
             Objects.requireNonNull(identifier, "identifier");
             Objects.requireNonNull(value, "value");
         }
+
+        CommonValue toCommonValue(int occurrences, PomSet poms) {
+            return new CommonValue(category, identifier, value, occurrences, poms);
+        }
     }
 
-    private static final class Occurrence {
+    /**
+     * Turns one edge of the relationship it is registered for into keys.
+     */
+    private interface EdgeCollector {
+
+        void collect(GraphEdge edge, Consumer<Key> sink);
+    }
+
+    /**
+     * Count of one key and the poms it was found in.
+     */
+    static final class Occurrence {
 
-        private final String category;
-        private final String identifier;
-        private final String value;
+        private final Key key;
+        private final BitSet poms = new BitSet();
         private int count;
 
-        Occurrence(String category, String identifier, String value) {
-            this.category = category;
-            this.identifier = identifier;
-            this.value = value;
-            this.count = 1;
+        Occurrence(Key key) {
+            this.key = key;
         }
     }
 }
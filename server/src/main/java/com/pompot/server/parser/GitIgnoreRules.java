@@ -0,0 +1,184 @@
+package com.pompot.server.parser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Rules read from a single {@code .gitignore} file. Paths are matched relative to the
+ * directory that holds the file and the last matching rule decides the outcome, mirroring
+ * how Git evaluates ignore files.
+ */
+final class GitIgnoreRules {
+
+    private static final GitIgnoreRules EMPTY = new GitIgnoreRules(List.of());
+
+    private final List<Rule> rules;
+
+    private GitIgnoreRules(List<Rule> rules) {
+        this.rules = List.copyOf(rules);
+    }
+
+    /**
+     * Reads the {@code .gitignore} file stored in the provided directory.
+     *
+     * @param directory directory that may contain a {@code .gitignore} file.
+     * @return parsed rules, or an empty rule set when the file is absent.
+     * @throws IOException when the file exists but cannot be read.
+     */
+    static GitIgnoreRules load(Path directory) throws IOException {
+        Path file = directory.resolve(".gitignore");
+        if (!Files.isRegularFile(file)) {
+            return EMPTY;
+        }
+        return parse(Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses the provided {@code .gitignore} lines.
+     *
+     * @param lines raw lines of the ignore file.
+     * @return parsed rules; blank lines and comments are skipped.
+     */
+    static GitIgnoreRules parse(List<String> lines) {
+        List<Rule> parsed = new ArrayList<>();
+        for (String line : Objects.requireNonNull(lines, "lines")) {
+            Rule rule = Rule.parse(line);
+            if (rule != null) {
+                parsed.add(rule);
+            }
+        }
+        return parsed.isEmpty() ? EMPTY : new GitIgnoreRules(parsed);
+    }
+
+    boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    /**
+     * Evaluates the rules against a path.
+     *
+     * @param relativePath path relative to the directory holding the ignore file, using
+     *     {@code /} as separator.
+     * @param directory whether the path denotes a directory.
+     * @return {@link Boolean#TRUE} when ignored, {@link Boolean#FALSE} when explicitly
+     *     re-included by a negated rule, or {@code null} when no rule matches.
+     */
+    Boolean match(String relativePath, boolean directory) {
+        Boolean outcome = null;
+        for (Rule rule : rules) {
+            if (rule.directoryOnly && !directory) {
+                continue;
+            }
+            if (rule.pattern.matcher(relativePath).matches()) {
+                outcome = !rule.negated;
+            }
+        }
+        return outcome;
+    }
+
+    private static final class Rule {
+
+        private final Pattern pattern;
+        private final boolean negated;
+        private final boolean directoryOnly;
+
+        private Rule(Pattern pattern, boolean negated, boolean directoryOnly) {
+            this.pattern = pattern;
+            this.negated = negated;
+            this.directoryOnly = directoryOnly;
+        }
+
+        static Rule parse(String line) {
+            if (line == null) {
+                return null;
+            }
+
+            String candidate = stripTrailingSpaces(line);
+            if (candidate.isEmpty() || candidate.startsWith("#")) {
+                return null;
+            }
+
+            boolean negated = candidate.startsWith("!");
+            if (negated) {
+                candidate = candidate.substring(1);
+            } else if (candidate.startsWith("\\!") || candidate.startsWith("\\#")) {
+                candidate = candidate.substring(1);
+            }
+
+            boolean directoryOnly = candidate.endsWith("/");
+            if (directoryOnly) {
+                candidate = candidate.substring(0, candidate.length() - 1);
+            }
+
+            boolean anchored = candidate.contains("/");
+            if (candidate.startsWith("/")) {
+                candidate = candidate.substring(1);
+            }
+            if (candidate.isEmpty()) {
+                return null;
+            }
+
+            String regex = (anchored ? "" : "(?:.*/)?") + toRegex(candidate);
+            return new Rule(Pattern.compile(regex), negated, directoryOnly);
+        }
+
+        private static String stripTrailingSpaces(String line) {
+            int end = line.length();
+            while (end > 0 && line.charAt(end - 1) == ' ' && (end < 2 || line.charAt(end - 2) != '\\')) {
+                end -= 1;
+            }
+            return line.substring(0, end);
+        }
+
+        private static String toRegex(String glob) {
+            StringBuilder regex = new StringBuilder();
+            int index = 0;
+            while (index < glob.length()) {
+                char current = glob.charAt(index);
+                if (current == '*') {
+                    boolean doubleStar = index + 1 < glob.length() && glob.charAt(index + 1) == '*';
+                    if (doubleStar) {
+                        boolean leadingSegment = index == 0 || glob.charAt(index - 1) == '/';
+                        boolean trailingSlash = index + 2 < glob.length() && glob.charAt(index + 2) == '/';
+                        if (leadingSegment && trailingSlash) {
+                            regex.append("(?:.*/)?");
+                            index += 3;
+                        } else {
+                            regex.append(".*");
+                            index += 2;
+                        }
+                        continue;
+                    }
+                    regex.append("[^/]*");
+                } else if (current == '?') {
+                    regex.append("[^/]");
+                } else if (current == '[') {
+                    int closing = glob.indexOf(']', index + 1);
+                    if (closing < 0) {
+                        regex.append("\\[");
+                    } else {
+                        String body = glob.substring(index + 1, closing);
+                        if (body.startsWith("!")) {
+                            body = "^" + body.substring(1);
+                        }
+                        regex.append('[').append(body.replace("\\", "\\\\")).append(']');
+                        index = closing;
+                    }
+                } else if (current == '\\' && index + 1 < glob.length()) {
+                    index += 1;
+                    regex.append(Pattern.quote(String.valueOf(glob.charAt(index))));
+                } else {
+                    regex.append(Pattern.quote(String.valueOf(current)));
+                }
+                index += 1;
+            }
+            return regex.toString();
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.pompot.server.parser;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.pompot.server.pomgraph.GraphEdge;
 import com.pompot.server.pomgraph.TextGraph;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -11,7 +15,8 @@ import java.util.Objects;
  * @param relativePath relative path from the scanned root to the pom file.
  * @param groupId Maven group identifier resolved for the pom.
  * @param artifactId Maven artifact identifier resolved for the pom.
- * @param model JSON representation of the Maven model produced by {@link PomFileParser}.
+ * @param model JSON representation of the Maven model produced by {@link PomFileParser}, possibly
+ *     built on first access; {@code null} for graph-only scans.
  * @param graph graph representation mirroring the pom contents.
  */
 public record ParsedPom(
@@ -19,15 +24,35 @@ public record ParsedPom(
     String relativePath,
     String groupId,
     String artifactId,
-    JsonNode model,
+    PomModel model,
     TextGraph graph) {
 
     public ParsedPom {
-        graph = Objects.requireNonNull(graph, "graph").copy();
+        graph = Objects.requireNonNull(graph, "graph");
     }
 
-    @Override
-    public TextGraph graph() {
-        return graph.copy();
+    public ParsedPom(
+        String pomPath,
+        String relativePath,
+        String groupId,
+        String artifactId,
+        JsonNode model,
+        TextGraph graph
+    ) {
+        this(pomPath, relativePath, groupId, artifactId, model == null ? null : PomModel.of(model), graph);
+    }
+
+    /**
+     * Modules declared by the pom, profile modules included, read from the {@code module} edges of
+     * its graph.
+     * @return module entries as written in the pom, in declaration order.
+     */
+    @JsonIgnore
+    public List<String> modules() {
+        List<String> modules = new ArrayList<>();
+        for (GraphEdge edge : graph.edges("module")) {
+            edge.value().text().ifPresent(text -> modules.add(text.value().value()));
+        }
+        return modules;
     }
 }
@@ -1,6 +1,14 @@
 package com.pompot.server.parser;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.pompot.server.pomgraph.GraphNode;
+import com.pompot.server.pomgraph.WorkspaceGraph;
+import java.nio.file.Path;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Collection of parsed pom entries produced during initialization.
@@ -8,11 +16,81 @@ import java.util.List;
  * @param scannedRoot absolute path of the directory that was scanned for pom files.
  * @param entries parsed pom entries discovered under the root.
  * @param commonValues repeated values extracted from the parsed pom graphs.
+ * @param drift coordinates found with several values in the parsed pom graphs.
+ * @param workspace graphs of every entry merged into one, for cross-pom lookups such as
+ *     {@link #users(String)}; merged on its first query and not part of the JSON representation.
  */
-public record ParsedPomCollection(String scannedRoot, List<ParsedPom> entries, List<CommonValue> commonValues) {
+public record ParsedPomCollection(
+    String scannedRoot,
+    List<ParsedPom> entries,
+    List<CommonValue> commonValues,
+    List<ValueDrift> drift,
+    @JsonIgnore WorkspaceGraph workspace) {
 
     public ParsedPomCollection {
         entries = List.copyOf(entries);
         commonValues = List.copyOf(commonValues);
+        drift = List.copyOf(drift);
+        workspace = Objects.requireNonNull(workspace, "workspace");
+    }
+
+    /**
+     * Creates a collection whose workspace graph is merged from the entries' graphs on its first
+     * query.
+     * @param scannedRoot absolute path of the directory that was scanned for pom files.
+     * @param entries parsed pom entries discovered under the root.
+     * @param analysis repeated values and drift counted over {@code entries}, in the same order.
+     */
+    public ParsedPomCollection(String scannedRoot, List<ParsedPom> entries, ValueAnalysis analysis) {
+        this(scannedRoot, entries, analysis.commonValues(), analysis.drift(), merged(entries));
+    }
+
+    /**
+     * Creates a collection without drift whose workspace graph is merged from the entries' graphs
+     * on its first query.
+     * @param scannedRoot absolute path of the directory that was scanned for pom files.
+     * @param entries parsed pom entries discovered under the root.
+     * @param commonValues repeated values extracted from the parsed pom graphs.
+     */
+    public ParsedPomCollection(String scannedRoot, List<ParsedPom> entries, List<CommonValue> commonValues) {
+        this(scannedRoot, entries, commonValues, List.of(), merged(entries));
+    }
+
+    private static WorkspaceGraph merged(List<ParsedPom> entries) {
+        return WorkspaceGraph.deferred(entries.stream().map(ParsedPom::graph).toList());
+    }
+
+    /**
+     * Entries holding a common value, looked up as the stream is consumed.
+     * @param value common value of this collection.
+     * @return entries in collection order.
+     */
+    public Stream<ParsedPom> pomsWith(CommonValue value) {
+        return value.poms().expand(entries);
+    }
+
+    /**
+     * Entries whose pom references a node of the workspace graph, such as the poms depending on
+     * an artifact. Merges the workspace graph if no query did so yet.
+     * @param id node identifier, such as {@code dependency:org.slf4j:slf4j-api:jar}.
+     * @return entries in collection order; empty when no pom references the node.
+     */
+    public List<ParsedPom> users(String id) {
+        Set<String> pomNodes = new HashSet<>();
+        for (GraphNode user : workspace.users(id)) {
+            pomNodes.add(user.id());
+        }
+        if (pomNodes.isEmpty()) {
+            return List.of();
+        }
+        return entries.stream().filter(entry -> pomNodes.contains(pomNodeId(entry))).toList();
+    }
+
+    /**
+     * Identifier of the pom node {@code PomGraphBuilder} gives the entry: its directory.
+     */
+    private static String pomNodeId(ParsedPom entry) {
+        Path directory = Path.of(entry.pomPath()).getParent();
+        return directory == null ? "" : "pom:" + directory;
     }
 }
@@ -28,6 +28,17 @@ public class ParsedPomRepository {
         storage.set(parsedPomCollection);
     }
 
+    /**
+     * Replaces the stored collection only if it is still the expected one, so a change computed
+     * from one snapshot is never published over a newer one.
+     * @param expected collection the change was computed from, or {@code null} when nothing was stored.
+     * @param updated collection to publish, or {@code null} to clear the repository.
+     * @return {@code true} when the collection was replaced.
+     */
+    public boolean replace(ParsedPomCollection expected, ParsedPomCollection updated) {
+        return storage.compareAndSet(expected, updated);
+    }
+
     /**
      * Removes any stored parsed pom.
      */
@@ -1,8 +1,12 @@
 package com.pompot.server.parser;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pompot.server.pomgraph.TextGraph;
+import java.nio.file.Path;
+import java.util.List;
 import org.apache.maven.model.io.DefaultModelReader;
 import org.apache.maven.model.io.ModelReader;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -25,20 +29,103 @@ public class ParserConfiguration {
      * Creates the {@link PomFileParser} using Spring managed collaborators.
      * @param modelReader reader capable of parsing pom.xml files.
      * @param objectMapper mapper that converts the parsed model into JSON.
+     * @param modelCacheSize number of lazily built JSON models kept in memory.
      * @return a configured {@link PomFileParser}.
      */
     @Bean
-    PomFileParser pomFileParser(ModelReader modelReader, ObjectMapper objectMapper) {
-        return new PomFileParser(modelReader, objectMapper);
+    PomFileParser pomFileParser(
+        ModelReader modelReader,
+        ObjectMapper objectMapper,
+        @Value("${pompot.model.cache-size:" + PomFileParser.DEFAULT_MODEL_CACHE_SIZE + "}") int modelCacheSize
+    ) {
+        return new PomFileParser(modelReader, objectMapper, modelCacheSize);
+    }
+
+    /**
+     * Selects how pom.xml files are discovered under the scan root.
+     * @param mode {@link PomDiscovery.Mode#WALK} to walk the directory tree or
+     *     {@link PomDiscovery.Mode#MODULES} to follow the modules declared by the root pom.
+     * @param includes globs a pom.xml path must match (relative to the scan root); empty accepts all.
+     * @param excludes globs pruning directories or skipping files (relative to the scan root).
+     * @param respectGitignore whether {@code .gitignore} files are honored during the walk.
+     * @param maxDepth maximum walk depth below the scan root; zero or negative means unlimited.
+     * @return configured {@link PomDiscovery} strategy.
+     */
+    @Bean
+    PomDiscovery pomDiscovery(
+        @Value("${pompot.scan.discovery:walk}") PomDiscovery.Mode mode,
+        @Value("${pompot.scan.include:}") List<String> includes,
+        @Value("${pompot.scan.exclude:}") List<String> excludes,
+        @Value("${pompot.scan.gitignore:true}") boolean respectGitignore,
+        @Value("${pompot.scan.max-depth:0}") int maxDepth
+    ) {
+        if (mode == PomDiscovery.Mode.MODULES) {
+            return new PomModuleDiscovery();
+        }
+
+        return new PomDirectoryWalker(new PomDirectoryWalker.Options(
+            PomDirectoryWalker.DEFAULT_IGNORED_DIRECTORIES,
+            includes,
+            excludes,
+            respectGitignore,
+            maxDepth > 0 ? maxDepth : Integer.MAX_VALUE
+        ));
+    }
+
+    /**
+     * Creates the persistent parse cache.
+     * @param directory directory holding cache entries; blank disables the cache.
+     * @param objectMapper mapper used to read and write cache entries.
+     * @return configured {@link PomParseCache}.
+     */
+    @Bean
+    PomParseCache pomParseCache(
+        @Value("${pompot.cache.directory:}") String directory,
+        ObjectMapper objectMapper
+    ) {
+        if (directory == null || directory.isBlank()) {
+            return PomParseCache.disabled();
+        }
+        return new PomParseCache(Path.of(directory.trim()), objectMapper);
+    }
+
+    /**
+     * Creates the workspace snapshot written after scans.
+     * @param file snapshot file; blank disables snapshots.
+     * @return configured {@link WorkspaceSnapshot}.
+     */
+    @Bean
+    WorkspaceSnapshot workspaceSnapshot(@Value("${pompot.snapshot.file:}") String file) {
+        if (file == null || file.isBlank()) {
+            return WorkspaceSnapshot.disabled();
+        }
+        return new WorkspaceSnapshot(Path.of(file.trim()));
     }
 
     /**
      * Provides a directory scanner that reuses the shared {@link PomFileParser}.
      * @param pomFileParser parser used to read pom.xml files.
+     * @param pomDiscovery strategy used to discover pom.xml files.
+     * @param pomParseCache cache consulted before parsing each pom.xml.
+     * @param parallelism number of worker threads used to parse pom files; zero or negative values
+     *     fall back to {@link PomDirectoryScanner#defaultParallelism()}.
+     * @param parseMode {@link PomFileParser.Mode#FULL} to build every JSON model while scanning or
+     *     {@link PomFileParser.Mode#LAZY_MODEL} to build them on first access.
+     * @param graphStorage {@link TextGraph.Storage#COMPACT} to keep every pom graph in primitive
+     *     arrays.
      * @return configured {@link PomDirectoryScanner} instance.
      */
     @Bean
-    PomDirectoryScanner pomDirectoryScanner(PomFileParser pomFileParser) {
-        return new PomDirectoryScanner(pomFileParser);
+    PomDirectoryScanner pomDirectoryScanner(
+        PomFileParser pomFileParser,
+        PomDiscovery pomDiscovery,
+        PomParseCache pomParseCache,
+        @Value("${pompot.scan.parallelism:0}") int parallelism,
+        @Value("${pompot.scan.parse-mode:full}") PomFileParser.Mode parseMode,
+        @Value("${pompot.graph.storage:linked}") TextGraph.Storage graphStorage
+    ) {
+        int effectiveParallelism = parallelism > 0 ? parallelism : PomDirectoryScanner.defaultParallelism();
+        return new PomDirectoryScanner(pomFileParser, new PomDirectoryScanner.Options(
+            pomDiscovery, pomParseCache, effectiveParallelism, parseMode, graphStorage));
     }
 }
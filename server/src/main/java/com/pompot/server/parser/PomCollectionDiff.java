@@ -0,0 +1,115 @@
+package com.pompot.server.parser;
+
+import com.pompot.server.pomgraph.GraphDiff;
+import com.pompot.server.pomgraph.TextGraph;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Differences between two {@link ParsedPomCollection}s, pom by pom. Entries are matched by
+ * {@link ParsedPom#pomPath()}. A matched entry holding the same graph, or a graph with the same
+ * {@linkplain TextGraph#fingerprint() fingerprint}, is skipped without being walked, so the cost
+ * follows the number of changed poms rather than the size of the workspace.
+ */
+public final class PomCollectionDiff {
+
+    private final List<ParsedPom> added;
+    private final List<ParsedPom> removed;
+    private final Map<String, GraphDiff> changed;
+    private final int unchanged;
+
+    private PomCollectionDiff(List<ParsedPom> added, List<ParsedPom> removed, Map<String, GraphDiff> changed, int unchanged) {
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+        this.changed = Collections.unmodifiableMap(changed);
+        this.unchanged = unchanged;
+    }
+
+    /**
+     * Compares two collections.
+     * @param before earlier collection; {@code null} when nothing was stored.
+     * @param after later collection; {@code null} when nothing is stored anymore.
+     * @return differences from {@code before} to {@code after}.
+     */
+    public static PomCollectionDiff between(ParsedPomCollection before, ParsedPomCollection after) {
+        Map<String, ParsedPom> earlier = new LinkedHashMap<>();
+        if (before != null) {
+            for (ParsedPom entry : before.entries()) {
+                earlier.put(entry.pomPath(), entry);
+            }
+        }
+
+        List<ParsedPom> added = new ArrayList<>();
+        Map<String, GraphDiff> changed = new LinkedHashMap<>();
+        int unchanged = 0;
+        if (after != null) {
+            for (ParsedPom entry : after.entries()) {
+                ParsedPom previous = earlier.remove(entry.pomPath());
+                if (previous == null) {
+                    added.add(entry);
+                    continue;
+                }
+                GraphDiff diff = GraphDiff.between(previous.graph(), entry.graph());
+                if (diff.isEmpty()) {
+                    unchanged += 1;
+                } else {
+                    changed.put(entry.pomPath(), diff);
+                }
+            }
+        }
+        return new PomCollectionDiff(added, new ArrayList<>(earlier.values()), changed, unchanged);
+    }
+
+    /**
+     * Entries only present in the later collection.
+     * @return entries in the later collection's order.
+     */
+    public List<ParsedPom> added() {
+        return added;
+    }
+
+    /**
+     * Entries only present in the earlier collection.
+     * @return entries in the earlier collection's order.
+     */
+    public List<ParsedPom> removed() {
+        return removed;
+    }
+
+    /**
+     * Graph differences of the entries present in both collections whose content changed.
+     * @return differences by pom path, in the later collection's order.
+     */
+    public Map<String, GraphDiff> changed() {
+        return changed;
+    }
+
+    /**
+     * Number of entries present in both collections with the same content.
+     * @return unchanged entry count.
+     */
+    public int unchanged() {
+        return unchanged;
+    }
+
+    /**
+     * Whether both collections hold the same poms with the same content.
+     * @return {@code true} when no pom was added, removed or changed.
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+
+    /**
+     * One-line summary for logs and reports.
+     * @return counts of added, removed, changed and unchanged poms.
+     */
+    @Override
+    public String toString() {
+        return added.size() + " added, " + removed.size() + " removed, " + changed.size()
+            + " changed, " + unchanged + " unchanged";
+    }
+}
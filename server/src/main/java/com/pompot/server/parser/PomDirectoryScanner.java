@@ -1,30 +1,94 @@
 package com.pompot.server.parser;
 
+import com.pompot.server.pomgraph.TextGraph;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Traverses a directory looking for pom.xml files and converts them into {@link ParsedPom}
- * entries using the provided {@link PomFileParser}.
+ * entries using the provided {@link PomFileParser}. Files can be parsed sequentially or by a
+ * bounded pool of worker threads; {@link #scan(Path)} returns the same order in both cases while
+ * {@link #stream(Path)} emits entries as soon as they are parsed.
  */
 public class PomDirectoryScanner {
 
+    /**
+     * Ordering applied to scan results: groupId, artifactId (both case-insensitive, missing values
+     * last) and then relative path.
+     */
+    public static final Comparator<ParsedPom> ENTRY_ORDER = Comparator
+        .comparing(ParsedPom::groupId, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+        .thenComparing(ParsedPom::artifactId, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+        .thenComparing(ParsedPom::relativePath);
+
     private static final Logger LOGGER = LoggerFactory.getLogger(PomDirectoryScanner.class);
 
     private final PomFileParser pomFileParser;
+    private final PomDiscovery pomDiscovery;
+    private final PomParseCache parseCache;
+    private final int parallelism;
+    private final PomFileParser.Mode parseMode;
+    private final TextGraph.Storage graphStorage;
 
+    /**
+     * Creates a scanner using {@link Options#defaults()}: sequential, uncached {@code FULL}
+     * parses of the poms found by a default {@link PomDirectoryWalker}.
+     *
+     * @param pomFileParser parser used to read each discovered pom.xml.
+     */
     public PomDirectoryScanner(PomFileParser pomFileParser) {
+        this(pomFileParser, Options.defaults());
+    }
+
+    /**
+     * Creates a scanner with the provided options.
+     *
+     * @param pomFileParser parser used to read each discovered pom.xml.
+     * @param options discovery, caching, parallelism, parse mode and graph storage.
+     */
+    public PomDirectoryScanner(PomFileParser pomFileParser, Options options) {
         this.pomFileParser = Objects.requireNonNull(pomFileParser, "pomFileParser");
+        Objects.requireNonNull(options, "options");
+        this.pomDiscovery = options.discovery();
+        this.parseCache = options.parseCache();
+        this.parallelism = options.parallelism();
+        this.parseMode = options.parseMode();
+        this.graphStorage = options.graphStorage();
+    }
+
+    /**
+     * Parallelism used when no explicit value is configured.
+     *
+     * @return number of processors available to the JVM.
+     */
+    public static int defaultParallelism() {
+        return Runtime.getRuntime().availableProcessors();
     }
 
     /**
@@ -34,83 +98,223 @@ public class PomDirectoryScanner {
      * @return scan outcome describing the parsed pom entries.
      */
     public ScanResult scan(Path root) {
+        return scan(root, pomFiles -> { });
+    }
+
+    /**
+     * Scans like {@link #scan(Path)} and hands the discovered pom files to {@code discovered}
+     * before parsing them, so a watcher can start following them before they are read.
+     *
+     * @param root directory that contains the pom files to parse.
+     * @param discovered receives the discovered pom files, in discovery order, when discovery succeeds.
+     * @return scan outcome describing the parsed pom entries.
+     */
+    public ScanResult scan(Path root, Consumer<List<Path>> discovered) {
         if (root == null) {
             return new ScanResult(null, false, List.of());
         }
 
         Path normalizedRoot = root.toAbsolutePath().normalize();
-        if (!Files.isDirectory(normalizedRoot)) {
-            LOGGER.error("Provided path is not a directory: {}", normalizedRoot);
-            return new ScanResult(normalizedRoot, false, List.of());
-        }
-
-        List<Path> pomFiles;
-        try (Stream<Path> walker = Files.walk(normalizedRoot)) {
-            pomFiles = walker
-                .filter(Files::isRegularFile)
-                .filter(this::isPomXmlFile)
-                .collect(Collectors.toList());
-        } catch (IOException exception) {
-            LOGGER.error("Failed to traverse {}", normalizedRoot, exception);
+        Optional<Discovery> discovery = discover(normalizedRoot, Map.of());
+        if (discovery.isEmpty()) {
             return new ScanResult(normalizedRoot, false, List.of());
         }
 
+        List<Path> pomFiles = discovery.get().pomFiles();
+        discovered.accept(pomFiles);
+        int pruned = discovery.get().prunedDirectories();
         boolean foundPomFiles = !pomFiles.isEmpty();
         if (!foundPomFiles) {
-            return new ScanResult(normalizedRoot, false, List.of());
+            return new ScanResult(normalizedRoot, false, List.of(), pruned);
+        }
+
+        List<ParsedPom> parsedPoms;
+        try (Stream<ParsedPom> parsing = parse(normalizedRoot, discovery.get())) {
+            parsedPoms = parsing.collect(Collectors.toCollection(ArrayList::new));
+        }
+        if (parsedPoms.isEmpty()) {
+            LOGGER.warn("Failed to parse pom.xml files under {}", normalizedRoot);
+            return new ScanResult(normalizedRoot, true, List.of(), pruned);
         }
 
-        List<ParsedPom> parsedPoms = new ArrayList<>();
+        parsedPoms.sort(ENTRY_ORDER);
 
-        for (Path pomFile : pomFiles) {
-            Path projectRoot = pomFile.getParent();
-            if (projectRoot == null) {
-                continue;
-            }
+        return new ScanResult(normalizedRoot, true, List.copyOf(parsedPoms), pruned);
+    }
+
+    /**
+     * Discovers the pom files under the root and parses them lazily, emitting each entry as soon
+     * as it is ready instead of waiting for the whole tree.
+     *
+     * <p>Entries arrive in completion order, not in {@link #ENTRY_ORDER}, and files that fail to
+     * parse are skipped. Parsing only advances while the stream is consumed: at most twice the
+     * configured parallelism is in flight at any time. Closing the stream cancels outstanding work,
+     * so callers that may stop early should use try-with-resources.
+     *
+     * @param root directory that contains the pom files to parse.
+     * @return lazy stream of parsed entries; empty when the root is invalid or cannot be traversed.
+     */
+    public Stream<ParsedPom> stream(Path root) {
+        if (root == null) {
+            return Stream.empty();
+        }
+
+        Path normalizedRoot = root.toAbsolutePath().normalize();
+        return discover(normalizedRoot, Map.of())
+            .map(discovery -> parse(normalizedRoot, discovery))
+            .orElseGet(Stream::empty);
+    }
+
+    /**
+     * Runs the configured {@link PomDiscovery} for a root. Poms the discovery has to read, such as
+     * the aggregators whose modules {@link PomModuleDiscovery} follows, are read through their
+     * parsed graphs: known entries are reused and the other poms are parsed once and returned with
+     * the result, so they need not be parsed again.
+     *
+     * @param root absolute, normalized scan root.
+     * @param known entries parsed earlier and still current, keyed by absolute, normalized pom path.
+     * @return discovered files and the poms parsed while discovering them; empty when the root is
+     *     not a directory or cannot be traversed.
+     */
+    public Optional<Discovery> discover(Path root, Map<Path, ParsedPom> known) {
+        if (!Files.isDirectory(root)) {
+            LOGGER.error("Provided path is not a directory: {}", root);
+            return Optional.empty();
+        }
+
+        Map<Path, Optional<ParsedPom>> parsed = new LinkedHashMap<>();
+        PomDiscovery.Result discovery;
+        try {
+            discovery = pomDiscovery.discover(root, new ParsedModules(root, known, parsed));
+        } catch (IOException exception) {
+            LOGGER.error("Failed to traverse {}", root, exception);
+            return Optional.empty();
+        }
+
+        LOGGER.debug(
+            "Found {} pom.xml files under {} ({} directories pruned)",
+            discovery.pomFiles().size(),
+            root,
+            discovery.prunedDirectories()
+        );
+        return Optional.of(new Discovery(discovery.pomFiles(), discovery.prunedDirectories(), parsed));
+    }
+
+    /**
+     * Tells whether the configured {@link PomDiscovery} prunes a directory, so no pom under it is
+     * ever discovered.
+     *
+     * @param root absolute, normalized scan root.
+     * @param directory absolute, normalized directory under the root.
+     * @return {@code true} when discovery would not look inside {@code directory}.
+     */
+    public boolean prunes(Path root, Path directory) {
+        return pomDiscovery.prunes(root, directory);
+    }
+
+    /**
+     * Reads modules from the module edges of parsed graphs during discovery. Poms that are not
+     * {@code known} are parsed, in parallel when several are asked for at once, and recorded in
+     * {@code parsed}.
+     */
+    private final class ParsedModules implements PomDiscovery.ModuleReader {
+        private final Path root;
+        private final Map<Path, ParsedPom> known;
+        private final Map<Path, Optional<ParsedPom>> parsed;
+
+        private ParsedModules(Path root, Map<Path, ParsedPom> known, Map<Path, Optional<ParsedPom>> parsed) {
+            this.root = root;
+            this.known = known;
+            this.parsed = parsed;
+        }
+
+        @Override
+        public List<String> modules(Path pomFile) {
+            return modules(List.of(pomFile)).get(0);
+        }
 
-            Optional<PomParseResult> parseResult = pomFileParser.parse(projectRoot);
-            if (parseResult.isEmpty()) {
-                continue;
+        @Override
+        public List<List<String>> modules(List<Path> pomFiles) {
+            List<Path> unknown = pomFiles.stream()
+                .filter(pomFile -> !known.containsKey(pomFile) && !parsed.containsKey(pomFile))
+                .distinct()
+                .toList();
+            try (Stream<ParsedPom> parsing = parse(root, unknown)) {
+                parsing.forEach(entry -> parsed.put(Path.of(entry.pomPath()), Optional.of(entry)));
             }
+            unknown.forEach(pomFile -> parsed.putIfAbsent(pomFile, Optional.empty()));
+            return pomFiles.stream().map(this::entry).map(entry -> entry.map(ParsedPom::modules).orElse(List.of())).toList();
+        }
 
-            Path absolutePom = pomFile.toAbsolutePath().normalize();
-            String relativePath = deriveRelativePath(normalizedRoot, absolutePom);
-            PomParseResult result = parseResult.get();
-            ParsedPom parsedPom = new ParsedPom(
-                absolutePom.toString(),
-                relativePath,
-                emptyToNull(result.groupId()),
-                emptyToNull(result.artifactId()),
-                result.model(),
-                result.graph()
-            );
-            parsedPoms.add(parsedPom);
+        private Optional<ParsedPom> entry(Path pomFile) {
+            ParsedPom entry = known.get(pomFile);
+            return entry != null ? Optional.of(entry) : parsed.getOrDefault(pomFile, Optional.empty());
         }
+    }
 
-        if (parsedPoms.isEmpty()) {
-            LOGGER.warn("Failed to parse pom.xml files under {}", normalizedRoot);
-            return new ScanResult(normalizedRoot, true, List.of());
+    /**
+     * Parses the discovered files, reusing the poms already parsed during discovery.
+     */
+    private Stream<ParsedPom> parse(Path root, Discovery discovery) {
+        Map<Path, Optional<ParsedPom>> parsed = discovery.parsed();
+        if (parsed.isEmpty()) {
+            return parse(root, discovery.pomFiles());
         }
 
-        parsedPoms.sort(Comparator
-            .comparing(ParsedPom::groupId, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
-            .thenComparing(ParsedPom::artifactId, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
-            .thenComparing(ParsedPom::relativePath));
+        List<Path> remaining = discovery.pomFiles().stream().filter(pomFile -> !parsed.containsKey(pomFile)).toList();
+        Stream<ParsedPom> reused = parsed.values().stream().flatMap(Optional::stream);
+        return Stream.concat(reused, parse(root, remaining));
+    }
 
-        return new ScanResult(normalizedRoot, true, List.copyOf(parsedPoms));
+    private Stream<ParsedPom> parse(Path root, List<Path> pomFiles) {
+        if (parallelism == 1 || pomFiles.size() < 2) {
+            return pomFiles.stream().map(pomFile -> parsePom(root, pomFile)).flatMap(Optional::stream);
+        }
+
+        ParallelParse parallelParse = new ParallelParse(root, pomFiles);
+        return StreamSupport.stream(parallelParse, false).onClose(parallelParse::close);
     }
 
-    private boolean isPomXmlFile(Path candidate) {
-        if (candidate == null) {
-            return false;
+    /**
+     * Parses a single pom file the same way {@link #scan(Path)} does, including the parse cache.
+     *
+     * @param root absolute, normalized scan root used to derive the relative path.
+     * @param pomFile pom file to parse; read as is, even when a module names a file other than
+     *     pom.xml.
+     * @return parsed entry, or {@link Optional#empty()} when the file is missing or invalid.
+     */
+    public Optional<ParsedPom> parsePom(Path root, Path pomFile) {
+        if (pomFile.getParent() == null) {
+            return Optional.empty();
         }
 
-        Path fileName = candidate.getFileName();
-        if (fileName == null) {
-            return false;
+        Optional<PomParseResult> parseResult;
+        try {
+            parseResult = parseCache.getOrParse(pomFile, parseMode, () -> pomFileParser.parseFile(pomFile, parseMode));
+        } catch (RuntimeException exception) {
+            LOGGER.error("Unexpected failure while parsing {}", pomFile, exception);
+            return Optional.empty();
+        }
+        if (parseResult.isEmpty()) {
+            return Optional.empty();
         }
 
-        return "pom.xml".equalsIgnoreCase(fileName.toString());
+        Path absolutePom = pomFile.toAbsolutePath().normalize();
+        String relativePath = deriveRelativePath(root, absolutePom);
+        PomParseResult result = parseResult.get();
+        PomModel model = result.model();
+        if (parseMode == PomFileParser.Mode.LAZY_MODEL && (model == null || !model.isLazy())) {
+            // Cache hits carry no model or an eager one; keep only the raw bytes in this mode.
+            model = pomFileParser.lazyModel(absolutePom).orElse(null);
+        }
+        return Optional.of(new ParsedPom(
+            absolutePom.toString(),
+            relativePath,
+            emptyToNull(result.groupId()),
+            emptyToNull(result.artifactId()),
+            model,
+            result.graph().stored(graphStorage)
+        ));
     }
 
     private String deriveRelativePath(Path root, Path pomFile) {
@@ -139,18 +343,211 @@ public class PomDirectoryScanner {
         return trimmed;
     }
 
+    /**
+     * Parses pom files on a bounded pool, submitting new work only as the consumer pulls results.
+     */
+    private final class ParallelParse extends Spliterators.AbstractSpliterator<ParsedPom> {
+
+        private final Path root;
+        private final Iterator<Path> remaining;
+        private final int window;
+        private final int workers;
+        private ExecutorService executor;
+        private CompletionService<Optional<ParsedPom>> completion;
+        private int inFlight;
+        private boolean closed;
+
+        ParallelParse(Path root, List<Path> pomFiles) {
+            super(pomFiles.size(), Spliterator.NONNULL);
+            this.root = root;
+            this.remaining = List.copyOf(pomFiles).iterator();
+            this.workers = Math.min(parallelism, pomFiles.size());
+            this.window = workers * 2;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super ParsedPom> action) {
+            if (closed) {
+                return false;
+            }
+            if (executor == null) {
+                executor = Executors.newFixedThreadPool(workers, new ScanThreadFactory());
+                completion = new ExecutorCompletionService<>(executor);
+            }
+
+            try {
+                while (true) {
+                    while (inFlight < window && remaining.hasNext()) {
+                        Path pomFile = remaining.next();
+                        completion.submit(() -> parsePom(root, pomFile));
+                        inFlight += 1;
+                    }
+                    if (inFlight == 0) {
+                        close();
+                        return false;
+                    }
+
+                    Future<Optional<ParsedPom>> done = completion.take();
+                    inFlight -= 1;
+                    try {
+                        Optional<ParsedPom> parsed = done.get();
+                        if (parsed.isPresent()) {
+                            action.accept(parsed.get());
+                            return true;
+                        }
+                    } catch (ExecutionException exception) {
+                        LOGGER.error("Unexpected failure while parsing a pom.xml under {}", root, exception.getCause());
+                    }
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                LOGGER.warn("Interrupted while parsing pom.xml files under {}", root);
+                close();
+                return false;
+            }
+        }
+
+        void close() {
+            closed = true;
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Creates daemon worker threads so an abandoned scan never keeps the JVM alive.
+     */
+    private static final class ScanThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "pompot-scan-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * Outcome of {@link #discover(Path, Map)}.
+     *
+     * @param pomFiles pom.xml files found, in discovery order.
+     * @param prunedDirectories number of directories skipped without descending into them.
+     * @param parsed parse outcome of every pom read while discovering, keyed by its entry in
+     *     {@code pomFiles}; empty when the pom could not be parsed.
+     */
+    public record Discovery(List<Path> pomFiles, int prunedDirectories, Map<Path, Optional<ParsedPom>> parsed) {
+
+        public Discovery {
+            pomFiles = List.copyOf(pomFiles);
+            parsed = Collections.unmodifiableMap(new LinkedHashMap<>(parsed));
+        }
+    }
+
+    /**
+     * How a scanner finds, parses and stores pom files.
+     *
+     * @param discovery strategy deciding which pom files are parsed.
+     * @param parseCache cache consulted before parsing each pom.xml.
+     * @param parallelism maximum number of pom files parsed concurrently; values lower than 2 keep
+     *     parsing on the calling thread.
+     * @param parseMode {@link PomFileParser.Mode#GRAPH_ONLY} when callers never read
+     *     {@link ParsedPom#model()}, {@link PomFileParser.Mode#LAZY_MODEL} to build models on first
+     *     access.
+     * @param graphStorage {@link TextGraph.Storage#COMPACT} to pack every graph into primitive
+     *     arrays, trading traversal speed for heap on very large workspaces.
+     */
+    public record Options(
+        PomDiscovery discovery,
+        PomParseCache parseCache,
+        int parallelism,
+        PomFileParser.Mode parseMode,
+        TextGraph.Storage graphStorage) {
+
+        public Options {
+            Objects.requireNonNull(discovery, "discovery");
+            Objects.requireNonNull(parseCache, "parseCache");
+            parallelism = Math.max(1, parallelism);
+            Objects.requireNonNull(parseMode, "parseMode");
+            Objects.requireNonNull(graphStorage, "graphStorage");
+        }
+
+        /**
+         * Default options: a default {@link PomDirectoryWalker}, no parse cache, one thread,
+         * {@link PomFileParser.Mode#FULL} parses and {@link TextGraph.Storage#LINKED} graphs.
+         *
+         * @return default scanner options.
+         */
+        public static Options defaults() {
+            return new Options(
+                new PomDirectoryWalker(), PomParseCache.disabled(), 1, PomFileParser.Mode.FULL, TextGraph.Storage.LINKED);
+        }
+
+        /**
+         * Same options with another discovery strategy.
+         * @param discovery replacement value.
+         * @return updated copy.
+         */
+        public Options withDiscovery(PomDiscovery discovery) {
+            return new Options(discovery, parseCache, parallelism, parseMode, graphStorage);
+        }
+
+        /**
+         * Same options with another parse cache.
+         * @param parseCache replacement value.
+         * @return updated copy.
+         */
+        public Options withParseCache(PomParseCache parseCache) {
+            return new Options(discovery, parseCache, parallelism, parseMode, graphStorage);
+        }
+
+        /**
+         * Same options with another parallelism.
+         * @param parallelism replacement value.
+         * @return updated copy.
+         */
+        public Options withParallelism(int parallelism) {
+            return new Options(discovery, parseCache, parallelism, parseMode, graphStorage);
+        }
+
+        /**
+         * Same options with another parse mode.
+         * @param parseMode replacement value.
+         * @return updated copy.
+         */
+        public Options withParseMode(PomFileParser.Mode parseMode) {
+            return new Options(discovery, parseCache, parallelism, parseMode, graphStorage);
+        }
+
+        /**
+         * Same options with another graph storage.
+         * @param graphStorage replacement value.
+         * @return updated copy.
+         */
+        public Options withGraphStorage(TextGraph.Storage graphStorage) {
+            return new Options(discovery, parseCache, parallelism, parseMode, graphStorage);
+        }
+    }
+
     /**
      * Result produced by {@link #scan(Path)} describing the parsed poms.
      *
      * @param root directory that was scanned.
      * @param foundPomFiles whether at least one pom.xml file was discovered.
      * @param parsedPoms immutable list with the parsed entries.
+     * @param prunedDirectories number of directories skipped by the discovery without descending.
      */
-    public record ScanResult(Path root, boolean foundPomFiles, List<ParsedPom> parsedPoms) {
+    public record ScanResult(Path root, boolean foundPomFiles, List<ParsedPom> parsedPoms, int prunedDirectories) {
 
         public ScanResult {
             root = root == null ? null : root.toAbsolutePath().normalize();
             parsedPoms = List.copyOf(parsedPoms);
         }
+
+        public ScanResult(Path root, boolean foundPomFiles, List<ParsedPom> parsedPoms) {
+            this(root, foundPomFiles, parsedPoms, 0);
+        }
     }
 }
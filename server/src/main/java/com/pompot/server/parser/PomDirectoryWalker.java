@@ -0,0 +1,330 @@
+package com.pompot.server.parser;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Walks a directory tree looking for pom.xml files while pruning whole subtrees that cannot
+ * contain project descriptors, such as build output or version control metadata.
+ */
+public class PomDirectoryWalker implements PomDiscovery {
+
+    /**
+     * Directory names skipped by default. They hold build output, dependencies, IDE settings or
+     * VCS metadata and may contain copied pom.xml files that do not describe real projects.
+     */
+    public static final Set<String> DEFAULT_IGNORED_DIRECTORIES = Set.of(
+        ".git",
+        ".hg",
+        ".svn",
+        ".idea",
+        ".vscode",
+        ".gradle",
+        "target",
+        "node_modules"
+    );
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PomDirectoryWalker.class);
+
+    private final Options options;
+
+    /**
+     * Creates a walker using {@link Options#defaults()}.
+     */
+    public PomDirectoryWalker() {
+        this(Options.defaults());
+    }
+
+    /**
+     * Creates a walker with the provided pruning options.
+     *
+     * @param options rules deciding which directories and files are visited.
+     */
+    public PomDirectoryWalker(Options options) {
+        this.options = Objects.requireNonNull(options, "options");
+    }
+
+    /**
+     * Collects every pom.xml under the provided root that survives the configured rules.
+     *
+     * @param root absolute, normalized directory to walk.
+     * @return discovered pom files in traversal order and the number of pruned directories.
+     * @throws IOException when the root itself cannot be traversed.
+     */
+    @Override
+    public Result discover(Path root) throws IOException {
+        Path normalizedRoot = Objects.requireNonNull(root, "root").toAbsolutePath().normalize();
+        Visitor visitor = new Visitor(normalizedRoot, options, normalizedRoot.getFileSystem());
+        Files.walkFileTree(normalizedRoot, EnumSet.noneOf(FileVisitOption.class), options.maxDepth(), visitor);
+        return new Result(visitor.pomFiles, visitor.prunedDirectories);
+    }
+
+    /**
+     * Applies the pruning rules of the walk to a single directory: the depth limit, ignored and
+     * excluded directories, {@code META-INF/maven} and the {@code .gitignore} files of the root
+     * and of every directory down to it.
+     *
+     * @param root absolute, normalized directory selected by the user.
+     * @param directory absolute, normalized directory to check.
+     * @return {@code true} when the walk would not list the pom files of {@code directory}.
+     */
+    @Override
+    public boolean prunes(Path root, Path directory) {
+        Path normalizedRoot = Objects.requireNonNull(root, "root").toAbsolutePath().normalize();
+        Path normalizedDirectory = Objects.requireNonNull(directory, "directory").toAbsolutePath().normalize();
+        if (!normalizedDirectory.startsWith(normalizedRoot)) {
+            return true;
+        }
+        if (normalizedDirectory.equals(normalizedRoot)) {
+            return false;
+        }
+
+        Path relative = normalizedRoot.relativize(normalizedDirectory);
+        // A pom inside the directory sits one level deeper than the directory itself.
+        if (relative.getNameCount() >= options.maxDepth()) {
+            return true;
+        }
+        Visitor visitor = new Visitor(normalizedRoot, options, normalizedRoot.getFileSystem());
+        Path current = normalizedRoot;
+        visitor.preVisitDirectory(current, null);
+        for (Path name : relative) {
+            current = current.resolve(name);
+            if (visitor.preVisitDirectory(current, null) == FileVisitResult.SKIP_SUBTREE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Pruning rules applied while walking.
+     *
+     * @param ignoredDirectories directory names skipped wherever they appear.
+     * @param includes glob patterns, relative to the root, that a pom.xml path must match; an
+     *     empty list accepts every pom.xml.
+     * @param excludes glob patterns, relative to the root, that prune matching directories and
+     *     skip matching files.
+     * @param respectGitignore whether {@code .gitignore} files found during the walk are honored.
+     * @param maxDepth maximum number of path elements below the root that are visited; {@code 1}
+     *     only sees the pom.xml stored directly in the root.
+     */
+    public record Options(
+        Set<String> ignoredDirectories,
+        List<String> includes,
+        List<String> excludes,
+        boolean respectGitignore,
+        int maxDepth) {
+
+        public Options {
+            ignoredDirectories = Set.copyOf(Objects.requireNonNull(ignoredDirectories, "ignoredDirectories"));
+            includes = List.copyOf(withoutBlanks(includes));
+            excludes = List.copyOf(withoutBlanks(excludes));
+            if (maxDepth < 1) {
+                throw new IllegalArgumentException("maxDepth must be positive");
+            }
+        }
+
+        /**
+         * Default options: skip {@link #DEFAULT_IGNORED_DIRECTORIES}, honor {@code .gitignore}
+         * files and walk without a depth limit.
+         *
+         * @return default walker options.
+         */
+        public static Options defaults() {
+            return new Options(DEFAULT_IGNORED_DIRECTORIES, List.of(), List.of(), true, Integer.MAX_VALUE);
+        }
+
+        private static List<String> withoutBlanks(List<String> patterns) {
+            if (patterns == null) {
+                return List.of();
+            }
+            return patterns
+                .stream()
+                .filter(Objects::nonNull)
+                .map(String::trim)
+                .filter(pattern -> !pattern.isEmpty())
+                .collect(Collectors.toList());
+        }
+    }
+
+    private static final class Visitor extends SimpleFileVisitor<Path> {
+
+        private final Path root;
+        private final Options options;
+        private final List<PathMatcher> includes;
+        private final List<PathMatcher> excludes;
+        private final Deque<GitIgnoreRules> gitIgnores = new ArrayDeque<>();
+        private final Deque<Path> gitIgnoreOwners = new ArrayDeque<>();
+        private final List<Path> pomFiles = new ArrayList<>();
+        private int prunedDirectories;
+
+        Visitor(Path root, Options options, FileSystem fileSystem) {
+            this.root = root;
+            this.options = options;
+            this.includes = compile(fileSystem, options.includes());
+            this.excludes = compile(fileSystem, options.excludes());
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) {
+            if (!directory.equals(root) && shouldPrune(directory)) {
+                prunedDirectories += 1;
+                return FileVisitResult.SKIP_SUBTREE;
+            }
+
+            if (options.respectGitignore()) {
+                try {
+                    GitIgnoreRules rules = GitIgnoreRules.load(directory);
+                    if (!rules.isEmpty()) {
+                        gitIgnores.push(rules);
+                        gitIgnoreOwners.push(directory);
+                    }
+                } catch (IOException exception) {
+                    LOGGER.warn("Could not read .gitignore under {}", directory, exception);
+                }
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path directory, IOException exception) {
+            if (!gitIgnoreOwners.isEmpty() && gitIgnoreOwners.peek().equals(directory)) {
+                gitIgnoreOwners.pop();
+                gitIgnores.pop();
+            }
+            if (exception != null) {
+                LOGGER.warn("Failed to list {}", directory, exception);
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+            if (attributes.isDirectory()) {
+                // Directories beyond maxDepth are reported as files and never descended into.
+                prunedDirectories += 1;
+                return FileVisitResult.CONTINUE;
+            }
+            if (!isPomXml(file) || !isRegularFile(file, attributes)) {
+                return FileVisitResult.CONTINUE;
+            }
+
+            Path relative = root.relativize(file);
+            if (matchesAny(excludes, relative) || isGitIgnored(file, false)) {
+                return FileVisitResult.CONTINUE;
+            }
+            if (!includes.isEmpty() && !matchesAny(includes, relative)) {
+                return FileVisitResult.CONTINUE;
+            }
+
+            pomFiles.add(file);
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException exception) {
+            LOGGER.warn("Skipping unreadable path {}", file, exception);
+            return FileVisitResult.CONTINUE;
+        }
+
+        private boolean shouldPrune(Path directory) {
+            Path name = directory.getFileName();
+            if (name != null && options.ignoredDirectories().contains(name.toString())) {
+                return true;
+            }
+            if (isPackagedMavenMetadata(directory)) {
+                return true;
+            }
+            return matchesAny(excludes, root.relativize(directory)) || isGitIgnored(directory, true);
+        }
+
+        /**
+         * Archives and exploded artifacts store a copy of their pom under META-INF/maven.
+         */
+        private boolean isPackagedMavenMetadata(Path directory) {
+            Path name = directory.getFileName();
+            Path parent = directory.getParent();
+            Path parentName = parent == null ? null : parent.getFileName();
+            return name != null
+                && parentName != null
+                && "maven".equals(name.toString())
+                && "META-INF".equals(parentName.toString());
+        }
+
+        private boolean isGitIgnored(Path path, boolean directory) {
+            if (gitIgnores.isEmpty()) {
+                return false;
+            }
+
+            Boolean ignored = null;
+            Iterator<GitIgnoreRules> rules = gitIgnores.descendingIterator();
+            Iterator<Path> owners = gitIgnoreOwners.descendingIterator();
+            while (rules.hasNext()) {
+                GitIgnoreRules current = rules.next();
+                Path owner = owners.next();
+                Boolean outcome = current.match(separatorsToSlash(owner.relativize(path)), directory);
+                if (outcome != null) {
+                    ignored = outcome;
+                }
+            }
+            return Boolean.TRUE.equals(ignored);
+        }
+
+        /**
+         * The walk does not follow links, so a symlinked pom.xml arrives with the attributes of the
+         * link itself. It is kept when its target is a regular file, as a plain listing would.
+         * Symlinked directories are still not descended into, which also rules out cycles.
+         */
+        private static boolean isRegularFile(Path file, BasicFileAttributes attributes) {
+            if (attributes.isSymbolicLink()) {
+                return Files.isRegularFile(file);
+            }
+            return attributes.isRegularFile();
+        }
+
+        private static boolean isPomXml(Path file) {
+            Path name = file.getFileName();
+            return name != null && "pom.xml".equals(name.toString().toLowerCase(Locale.ROOT));
+        }
+
+        private static boolean matchesAny(List<PathMatcher> matchers, Path relative) {
+            for (PathMatcher matcher : matchers) {
+                if (matcher.matches(relative)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static List<PathMatcher> compile(FileSystem fileSystem, List<String> patterns) {
+            List<PathMatcher> matchers = new ArrayList<>(patterns.size());
+            for (String pattern : patterns) {
+                matchers.add(fileSystem.getPathMatcher("glob:" + pattern));
+            }
+            return List.copyOf(matchers);
+        }
+
+        private static String separatorsToSlash(Path path) {
+            return path.toString().replace('\\', '/');
+        }
+    }
+}
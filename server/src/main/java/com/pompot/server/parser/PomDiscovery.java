@@ -0,0 +1,104 @@
+package com.pompot.server.parser;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Strategy used by {@link PomDirectoryScanner} to locate the pom.xml files that should be parsed.
+ */
+public interface PomDiscovery {
+
+    /**
+     * Locates pom.xml files for the provided root.
+     *
+     * @param root absolute, normalized directory selected by the user.
+     * @return discovered pom files together with traversal statistics.
+     * @throws IOException when the root itself cannot be read.
+     */
+    Result discover(Path root) throws IOException;
+
+    /**
+     * Locates pom.xml files for the provided root, reading module declarations through the caller.
+     * Strategies that follow {@code <modules>} use {@code modules} instead of reading poms
+     * themselves, so a caller that parses every discovered pom anyway reads each file once. The
+     * default ignores {@code modules}.
+     *
+     * @param root absolute, normalized directory selected by the user.
+     * @param modules source of the modules declared by a pom.
+     * @return discovered pom files together with traversal statistics.
+     * @throws IOException when the root itself cannot be read.
+     */
+    default Result discover(Path root, ModuleReader modules) throws IOException {
+        return discover(root);
+    }
+
+    /**
+     * Tells whether a directory under the root is one discovery would not descend into, so
+     * {@code PomWorkspaceWatcher} does not watch a directory created later that can never hold a
+     * discovered pom. The default prunes {@link PomDirectoryWalker#DEFAULT_IGNORED_DIRECTORIES}
+     * wherever they appear, since any other directory may become a module.
+     *
+     * @param root absolute, normalized directory selected by the user.
+     * @param directory absolute, normalized directory to check.
+     * @return {@code true} when no pom under {@code directory} would be discovered.
+     */
+    default boolean prunes(Path root, Path directory) {
+        if (!directory.startsWith(root)) {
+            return true;
+        }
+        for (Path name : root.relativize(directory)) {
+            if (PomDirectoryWalker.DEFAULT_IGNORED_DIRECTORIES.contains(name.toString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the modules a pom declares.
+     */
+    @FunctionalInterface
+    interface ModuleReader {
+
+        /**
+         * Lists the modules declared by a pom, profile modules included.
+         * @param pomFile pom.xml to read.
+         * @return module entries as written in the pom; empty when the pom cannot be read.
+         */
+        List<String> modules(Path pomFile);
+
+        /**
+         * Lists the modules declared by several poms, which implementations may read
+         * concurrently.
+         * @param pomFiles pom.xml files to read.
+         * @return module entries of each pom, in the order of {@code pomFiles}.
+         */
+        default List<List<String>> modules(List<Path> pomFiles) {
+            return pomFiles.stream().map(this::modules).toList();
+        }
+    }
+
+    /**
+     * Available discovery strategies.
+     */
+    enum Mode {
+        /** Walks the directory tree with {@link PomDirectoryWalker}. */
+        WALK,
+        /** Follows the {@code <modules>} declared by the root pom with {@link PomModuleDiscovery}. */
+        MODULES
+    }
+
+    /**
+     * Outcome of a discovery run.
+     *
+     * @param pomFiles pom.xml files found, in discovery order.
+     * @param prunedDirectories number of directories skipped without descending into them.
+     */
+    record Result(List<Path> pomFiles, int prunedDirectories) {
+
+        public Result {
+            pomFiles = List.copyOf(pomFiles);
+        }
+    }
+}
@@ -2,47 +2,56 @@ package com.pompot.server.parser;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.pompot.server.pomgraph.GraphNode;
-import com.pompot.server.pomgraph.GraphValue;
+import com.fasterxml.jackson.databind.node.NullNode;
 import com.pompot.server.pomgraph.TextGraph;
-import com.pompot.server.pomgraph.TextReference;
-import java.io.File;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.Properties;
-import java.util.StringJoiner;
-import org.apache.maven.model.Parent;
-import org.apache.maven.model.Dependency;
-import org.apache.maven.model.DependencyManagement;
-import org.apache.maven.model.Build;
-import org.apache.maven.model.BuildBase;
+import javax.xml.stream.XMLStreamException;
+import org.apache.maven.model.InputLocation;
+import org.apache.maven.model.InputSource;
 import org.apache.maven.model.Model;
-import org.apache.maven.model.Plugin;
-import org.apache.maven.model.PluginExecution;
-import org.apache.maven.model.PluginManagement;
-import org.apache.maven.model.Profile;
-import org.apache.maven.model.ReportPlugin;
-import org.apache.maven.model.ReportSet;
-import org.apache.maven.model.Reporting;
 import org.apache.maven.model.io.ModelReader;
-import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+
 /**
  * Parses pom.xml files from a project root into JSON representations so the UI can render them.
  */
 public class PomFileParser {
 
+    /**
+     * How much of a pom is produced.
+     */
+    public enum Mode {
+        /** Reads the full Maven model, converts it to JSON and builds the graph. */
+        FULL,
+        /** Streams only the elements the graph needs; the result carries no JSON model. */
+        GRAPH_ONLY,
+        /**
+         * Builds the graph like {@link #GRAPH_ONLY} and keeps the raw pom bytes; the JSON model is
+         * built on first access and retained in a bounded least-recently-used cache.
+         */
+        LAZY_MODEL
+    }
+
+    /**
+     * Number of lazily built JSON models kept in memory when no explicit size is configured.
+     */
+    public static final int DEFAULT_MODEL_CACHE_SIZE = 128;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(PomFileParser.class);
 
+    private static final Map<String, ?> READ_OPTIONS = Map.of(ModelReader.IS_STRICT, Boolean.FALSE);
+
     private final ModelReader modelReader;
     private final ObjectMapper objectMapper;
+    private final PomOutlineReader outlineReader = new PomOutlineReader();
+    private final PomModelCache modelCache;
 
     /**
      * Creates a parser using the provided Maven model reader and JSON mapper.
@@ -50,8 +59,22 @@ public class PomFileParser {
      * @param objectMapper mapper used to convert the parsed model into JSON.
      */
     public PomFileParser(ModelReader modelReader, ObjectMapper objectMapper) {
+        this(modelReader, objectMapper, DEFAULT_MODEL_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a parser whose lazily built models share a cache of the provided size.
+     * @param modelReader reader capable of interpreting pom.xml files.
+     * @param objectMapper mapper used to convert the parsed model into JSON; a copy is used, with
+     *     {@link Xpp3DomModule} registered for plugin configurations.
+     * @param modelCacheSize maximum number of JSON trees kept for {@link Mode#LAZY_MODEL} results.
+     */
+    public PomFileParser(ModelReader modelReader, ObjectMapper objectMapper, int modelCacheSize) {
         this.modelReader = Objects.requireNonNull(modelReader, "modelReader");
-        this.objectMapper = Objects.requireNonNull(objectMapper, "objectMapper").copy();
+        this.objectMapper = Objects.requireNonNull(objectMapper, "objectMapper")
+            .copy()
+            .registerModule(new Xpp3DomModule());
+        this.modelCache = new PomModelCache(modelCacheSize, this::materialize);
     }
 
     /**
@@ -60,27 +83,63 @@ public class PomFileParser {
      * @return the parsed pom as JSON when successful, otherwise {@link Optional#empty()}.
      */
     public Optional<PomParseResult> parse(Path projectRoot) {
+        return parse(projectRoot, Mode.FULL);
+    }
+
+    /**
+     * Parses the pom.xml located inside the provided project root.
+     * @param projectRoot path to the project that contains the pom.xml file.
+     * @param mode whether the JSON model is produced or only the graph.
+     * @return the parsed pom when successful, otherwise {@link Optional#empty()}. In
+     *     {@link Mode#GRAPH_ONLY} the result has no model; in {@link Mode#LAZY_MODEL} the model is
+     *     built on first access.
+     */
+    public Optional<PomParseResult> parse(Path projectRoot, Mode mode) {
         if (projectRoot == null) {
             return Optional.empty();
         }
+        return parseFile(projectRoot.resolve("pom.xml"), mode);
+    }
 
-        Path pomLocation = projectRoot.resolve("pom.xml");
+    /**
+     * Parses a pom file that may have another name than pom.xml, such as one a
+     * {@code <module>} entry names directly. The directory holding it is the project root.
+     * @param pomLocation pom file to read.
+     * @param mode whether the JSON model is produced or only the graph.
+     * @return the parsed pom when successful, otherwise {@link Optional#empty()}; see
+     *     {@link #parse(Path, Mode)}.
+     */
+    public Optional<PomParseResult> parseFile(Path pomLocation, Mode mode) {
+        Path projectRoot = pomLocation == null ? null : pomLocation.getParent();
+        if (projectRoot == null) {
+            return Optional.empty();
+        }
         if (!Files.isRegularFile(pomLocation)) {
             LOGGER.warn("pom.xml not found at {}", pomLocation.toAbsolutePath());
             return Optional.empty();
         }
 
         try {
-            File pomFile = pomLocation.toFile();
-            Map<String, ?> options = Map.of(ModelReader.IS_STRICT, Boolean.FALSE);
-            Model model = modelReader.read(pomFile, options);
-            removeRecursiveParentPointers(model);
-            JsonNode asJson = objectMapper.valueToTree(model);
-            String groupId = resolveGroupId(model);
-            String artifactId = resolveArtifactId(model);
-            TextGraph graph = buildGraph(projectRoot, model, groupId, artifactId);
-            return Optional.of(new PomParseResult(groupId, artifactId, asJson, graph));
-        } catch (IOException exception) {
+            byte[] source = Files.readAllBytes(pomLocation);
+            PomOutline outline;
+            PomModel pomModel = null;
+            if (Objects.requireNonNull(mode, "mode") == Mode.FULL) {
+                Model model = modelReader.read(new ByteArrayInputStream(source), locatedReadOptions());
+                model.setPomFile(pomLocation.toFile());
+                pomModel = PomModel.of(objectMapper.valueToTree(model));
+                String file = pomLocation.toAbsolutePath().normalize().toString();
+                outline = PomOutline.from(model, SourceIndex.of(file, source, model.getModelEncoding()));
+            } else {
+                outline = outlineReader.read(source, pomLocation);
+                if (mode == Mode.LAZY_MODEL) {
+                    pomModel = PomModel.lazy(source, pomLocation, modelCache);
+                }
+            }
+            String groupId = PomGraphBuilder.resolveGroupId(outline);
+            String artifactId = PomGraphBuilder.resolveArtifactId(outline);
+            TextGraph graph = PomGraphBuilder.build(projectRoot, outline);
+            return Optional.of(new PomParseResult(groupId, artifactId, pomModel, graph));
+        } catch (IOException | XMLStreamException exception) {
             LOGGER.error("Failed to parse pom.xml at {}", pomLocation.toAbsolutePath(), exception);
             return Optional.empty();
         } catch (RuntimeException exception) {
@@ -91,430 +150,37 @@ public class PomFileParser {
     }
 
     /**
-     * Determines the most appropriate group identifier for the provided Maven model.
-     * @param model parsed Maven model.
-     * @return resolved group identifier or an empty string when none is available.
-     */
-    private String resolveGroupId(Model model) {
-        if (model == null) {
-            return "";
-        }
-
-        String groupId = normalize(model.getGroupId());
-        if (!groupId.isEmpty()) {
-            return groupId;
-        }
-
-        Parent parent = model.getParent();
-        if (parent != null) {
-            return normalize(parent.getGroupId());
-        }
-
-        return "";
-    }
-
-    /**
-     * Resolves the artifact identifier for the provided Maven model.
-     * @param model parsed Maven model.
-     * @return artifact identifier or an empty string when unavailable.
-     */
-    private String resolveArtifactId(Model model) {
-        if (model == null) {
-            return "";
-        }
-
-        return normalize(model.getArtifactId());
-    }
-
-    private TextGraph buildGraph(Path projectRoot, Model model, String groupId, String artifactId) {
-        TextGraph graph = new TextGraph();
-        GraphNode pomNode = graph.addNode("pom:" + projectRoot.toAbsolutePath().normalize());
-
-        attachAttribute(graph, pomNode, "groupId", groupId);
-        attachAttribute(graph, pomNode, "artifactId", artifactId);
-        attachAttribute(graph, pomNode, "version", model == null ? null : model.getVersion());
-        attachAttribute(graph, pomNode, "packaging", model == null ? null : model.getPackaging());
-
-        if (model == null) {
-            return graph;
-        }
-
-        Parent parent = model.getParent();
-        if (parent != null) {
-            GraphNode parentNode = graph.addNode(nodeId("parent:", parent.getGroupId(), parent.getArtifactId()));
-            attachEdge(graph, pomNode, parentNode, "parent", parent.getVersion());
-        }
-
-        Properties properties = model.getProperties();
-        if (properties != null) {
-            for (String name : properties.stringPropertyNames()) {
-                GraphNode propertyNode = graph.addNode("property:" + name);
-                attachEdge(graph, pomNode, propertyNode, "property", properties.getProperty(name));
-            }
-        }
-
-        attachDependencies(graph, pomNode, "dependency", model.getDependencies());
-
-        DependencyManagement dependencyManagement = model.getDependencyManagement();
-        if (dependencyManagement != null) {
-            attachDependencies(graph, pomNode, "managedDependency", dependencyManagement.getDependencies());
-        }
-
-        Build build = model.getBuild();
-        if (build != null) {
-            attachPlugins(graph, pomNode, "plugin", build.getPlugins());
-
-            PluginManagement pluginManagement = build.getPluginManagement();
-            if (pluginManagement != null) {
-                attachPlugins(graph, pomNode, "managedPlugin", pluginManagement.getPlugins());
-            }
-        }
-
-        List<String> modules = model.getModules();
-        if (modules != null) {
-            for (String module : modules) {
-                GraphNode moduleNode = graph.addNode("module:" + module);
-                attachEdge(graph, pomNode, moduleNode, "module", module);
-            }
-        }
-
-        return graph;
-    }
-
-    private void attachDependencies(TextGraph graph, GraphNode pomNode, String relationship, List<Dependency> dependencies) {
-        if (dependencies == null) {
-            return;
-        }
-
-        for (Dependency dependency : dependencies) {
-            if (dependency == null) {
-                continue;
-            }
-
-            GraphNode dependencyNode = graph.addNode(
-                nodeId("dependency:", dependency.getGroupId(), dependency.getArtifactId(), dependency.getType(), dependency.getClassifier()));
-            GraphValue value = buildDependencyValue(graph, dependency);
-            if (value == null) {
-                continue;
-            }
-
-            pomNode.connect(relationship, dependencyNode, value);
-            if ("managedDependency".equals(relationship) && isBom(dependency)) {
-                GraphNode bomNode = graph.addNode(
-                    nodeId("bom:", dependency.getGroupId(), dependency.getArtifactId(), dependency.getType(), dependency.getClassifier()));
-                pomNode.connect("bom", bomNode, value);
-            }
-        }
-    }
-
-    private GraphValue buildDependencyValue(TextGraph graph, Dependency dependency) {
-        TextReference version = createText(graph, dependency.getVersion());
-        if (version == null) {
-            return null;
-        }
-
-        Map<String, GraphValue> payload = new LinkedHashMap<>();
-        payload.put("version", GraphValue.text(version));
-        addGraphValue(payload, graph, "groupId", dependency.getGroupId());
-        addGraphValue(payload, graph, "artifactId", dependency.getArtifactId());
-        addGraphValue(payload, graph, "type", dependency.getType());
-        addGraphValue(payload, graph, "classifier", dependency.getClassifier());
-        addGraphValue(payload, graph, "scope", dependency.getScope());
-        return GraphValue.composite(payload);
-    }
-
-    private void addGraphValue(Map<String, GraphValue> payload, TextGraph graph, String name, String rawValue) {
-        String normalized = normalize(rawValue);
-        if (normalized.isEmpty()) {
-            return;
-        }
-
-        TextReference reference = graph.createText(normalized);
-        payload.put(name, GraphValue.text(reference));
-    }
-
-    private void attachPlugins(TextGraph graph, GraphNode pomNode, String relationship, List<Plugin> plugins) {
-        if (plugins == null) {
-            return;
-        }
-
-        for (Plugin plugin : plugins) {
-            if (plugin == null) {
-                continue;
-            }
-
-            GraphValue value = buildPluginValue(graph, plugin);
-            if (value != null) {
-                GraphNode pluginNode = graph.addNode(nodeId("plugin:", plugin.getGroupId(), plugin.getArtifactId()));
-                pomNode.connect(relationship, pluginNode, value);
-            }
-
-            attachTiles(graph, pomNode, plugin.getConfiguration());
-            for (PluginExecution execution : plugin.getExecutions()) {
-                if (execution != null) {
-                    attachTiles(graph, pomNode, execution.getConfiguration());
-                }
-            }
-        }
-    }
-
-    private GraphValue buildPluginValue(TextGraph graph, Plugin plugin) {
-        TextReference version = createText(graph, plugin.getVersion());
-        if (version == null) {
-            return null;
-        }
-
-        Map<String, GraphValue> payload = new LinkedHashMap<>();
-        payload.put("version", GraphValue.text(version));
-        addGraphValue(payload, graph, "groupId", plugin.getGroupId());
-        addGraphValue(payload, graph, "artifactId", plugin.getArtifactId());
-        return GraphValue.composite(payload);
-    }
-
-    private void attachTiles(TextGraph graph, GraphNode pomNode, Object configuration) {
-        if (!(configuration instanceof Xpp3Dom dom)) {
-            return;
-        }
-
-        Xpp3Dom tiles = dom.getChild("tiles");
-        if (tiles == null) {
-            return;
-        }
-
-        Xpp3Dom[] children = tiles.getChildren();
-        if (children == null) {
-            return;
-        }
-
-        for (Xpp3Dom tile : children) {
-            if (tile == null || !"tile".equals(tile.getName())) {
-                continue;
-            }
-
-            String value = normalize(tile.getValue());
-            if (value.isEmpty()) {
-                continue;
-            }
-
-            GraphNode tileNode = graph.addNode(nodeId("tile:", value));
-            TextReference reference = graph.createText(value);
-            pomNode.connect("tile", tileNode, reference);
-        }
-    }
-
-    private void attachAttribute(TextGraph graph, GraphNode source, String name, String value) {
-        TextReference reference = createText(graph, value);
-        if (reference == null) {
-            return;
-        }
-
-        GraphNode attributeNode = graph.addNode("attribute:" + name);
-        source.connect(name, attributeNode, reference);
-    }
-
-    private void attachEdge(TextGraph graph, GraphNode source, GraphNode target, String relationship, String value) {
-        TextReference reference = createText(graph, value);
-        if (reference == null) {
-            return;
-        }
-
-        source.connect(relationship, target, reference);
-    }
-
-    private boolean isBom(Dependency dependency) {
-        if (dependency == null) {
-            return false;
-        }
-
-        String type = normalize(dependency.getType());
-        String scope = normalize(dependency.getScope());
-        return "pom".equalsIgnoreCase(type) && "import".equalsIgnoreCase(scope);
-    }
-
-    private TextReference createText(TextGraph graph, String value) {
-        String normalized = normalize(value);
-        if (normalized.isEmpty()) {
-            return null;
-        }
-        return graph.createText(normalized);
-    }
-
-    private String nodeId(String prefix, String... parts) {
-        StringJoiner joiner = new StringJoiner(":");
-        for (String part : parts) {
-            String normalized = normalize(part);
-            if (!normalized.isEmpty()) {
-                joiner.add(normalized);
-            }
-        }
-        String joined = joiner.toString();
-        if (joined.isEmpty()) {
-            return prefix.substring(0, prefix.length() - 1);
-        }
-        return prefix + joined;
-    }
-
-    /**
-     * Converts {@code null} values into empty strings while trimming whitespace.
-     * @param value value to normalize.
-     * @return trimmed value or empty string when {@code null}.
+     * Options that make Maven record an {@link InputLocation} for every value, so the graph gets
+     * its source positions from the same read as the JSON model instead of a second StAX pass.
      */
-    private String normalize(String value) {
-        if (value == null) {
-            return "";
-        }
-
-        return value.trim();
-    }
-
-    /**
-     * Removes parent pointers from XML DOM objects embedded in the Maven model to avoid cycles.
-     * @param model the parsed Maven model that may contain {@link Xpp3Dom} instances with parent references.
-     */
-    private void removeRecursiveParentPointers(Model model) {
-        if (model == null) {
-            return;
-        }
-
-        sanitizeBuild(model.getBuild());
-        sanitizeReporting(model.getReporting());
-        sanitizeProfiles(model.getProfiles());
+    private static Map<String, ?> locatedReadOptions() {
+        return Map.of(ModelReader.IS_STRICT, Boolean.FALSE, ModelReader.INPUT_SOURCE, new InputSource());
     }
 
     /**
-     * Sanitizes the build section to guarantee plugin configurations have no parent cycles.
-     * @param build build definition from the Maven model; may be {@code null} when the pom omits the block.
+     * Reads the pom file into a model whose JSON tree is built on first access.
+     * @param pomFile pom.xml file to read.
+     * @return lazy model, or {@link Optional#empty()} when the file cannot be read.
      */
-    private void sanitizeBuild(Build build) {
-        if (build == null) {
-            return;
-        }
-
-        sanitizeBuildBase(build);
-    }
-
-    /**
-     * Removes parent references from plugin configurations contained in the provided build base.
-     * @param buildBase build configuration that stores plugin definitions.
-     */
-    private void sanitizeBuildBase(BuildBase buildBase) {
-        if (buildBase == null) {
-            return;
-        }
-
-        sanitizePlugins(buildBase.getPlugins());
-
-        PluginManagement pluginManagement = buildBase.getPluginManagement();
-        if (pluginManagement != null) {
-            sanitizePlugins(pluginManagement.getPlugins());
-        }
-    }
-
-    /**
-     * Strips recursive parent pointers from plugin configurations and executions.
-     * @param plugins plugins declared in the pom; the list may be {@code null}.
-     */
-    private void sanitizePlugins(List<Plugin> plugins) {
-        if (plugins == null) {
-            return;
-        }
-
-        for (Plugin plugin : plugins) {
-            if (plugin == null) {
-                continue;
-            }
-
-            sanitizeConfiguration(plugin.getConfiguration());
-
-            for (PluginExecution execution : plugin.getExecutions()) {
-                if (execution != null) {
-                    sanitizeConfiguration(execution.getConfiguration());
-                }
-            }
-        }
-    }
-
-    /**
-     * Handles profiles declared in the pom so their build sections are safe to serialize.
-     * @param profiles profiles configured by the pom author; may be {@code null}.
-     */
-    private void sanitizeProfiles(List<Profile> profiles) {
-        if (profiles == null) {
-            return;
-        }
-
-        for (Profile profile : profiles) {
-            if (profile == null) {
-                continue;
-            }
-            sanitizeBuildBase(profile.getBuild());
-            sanitizeReporting(profile.getReporting());
-        }
-    }
-
-    /**
-     * Sanitizes reporting plugins to remove recursive parent pointers from their configurations.
-     * @param reporting reporting configuration of the pom; may be {@code null}.
-     */
-    private void sanitizeReporting(Reporting reporting) {
-        if (reporting == null) {
-            return;
-        }
-
-        sanitizeReportPlugins(reporting.getPlugins());
-    }
-
-    /**
-     * Removes cycles from the configuration of reporting plugins and their report sets.
-     * @param reportPlugins reporting plugins defined in the pom; the list may be {@code null}.
-     */
-    private void sanitizeReportPlugins(List<ReportPlugin> reportPlugins) {
-        if (reportPlugins == null) {
-            return;
-        }
-
-        for (ReportPlugin reportPlugin : reportPlugins) {
-            if (reportPlugin == null) {
-                continue;
-            }
-
-            sanitizeConfiguration(reportPlugin.getConfiguration());
-
-            for (ReportSet reportSet : reportPlugin.getReportSets()) {
-                if (reportSet != null) {
-                    sanitizeConfiguration(reportSet.getConfiguration());
-                }
-            }
-        }
-    }
-
-    /**
-     * Removes parent pointers from a Maven configuration object when it is expressed as {@link Xpp3Dom}.
-     * @param configuration Maven configuration object extracted from the model.
-     */
-    private void sanitizeConfiguration(Object configuration) {
-        if (configuration instanceof Xpp3Dom dom) {
-            removeParentPointers(dom);
+    public Optional<PomModel> lazyModel(Path pomFile) {
+        try {
+            return Optional.of(PomModel.lazy(Files.readAllBytes(pomFile), pomFile, modelCache));
+        } catch (IOException exception) {
+            LOGGER.warn("Could not read {} for lazy model access", pomFile, exception);
+            return Optional.empty();
         }
     }
 
-    /**
-     * Recursively sets the parent of the provided node and its children to {@code null} so Jackson cannot loop forever.
-     * @param dom configuration node that may contain parent relationships.
-     */
-    private void removeParentPointers(Xpp3Dom dom) {
-        if (dom == null) {
-            return;
-        }
-
-        dom.setParent(null);
-        Xpp3Dom[] children = dom.getChildren();
-        if (children == null) {
-            return;
-        }
-
-        for (Xpp3Dom child : children) {
-            removeParentPointers(child);
+    private JsonNode materialize(PomModel lazyModel) {
+        try {
+            Model model = modelReader.read(new ByteArrayInputStream(lazyModel.source()), READ_OPTIONS);
+            if (lazyModel.pomFile() != null) {
+                model.setPomFile(lazyModel.pomFile().toFile());
+            }
+            return objectMapper.valueToTree(model);
+        } catch (IOException | RuntimeException exception) {
+            LOGGER.error("Failed to build the JSON model of a lazily parsed pom.xml", exception);
+            return NullNode.getInstance();
         }
     }
 }
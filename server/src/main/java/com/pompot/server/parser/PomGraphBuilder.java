@@ -0,0 +1,248 @@
+package com.pompot.server.parser;
+
+import com.pompot.server.pomgraph.GraphNode;
+import com.pompot.server.pomgraph.GraphValue;
+import com.pompot.server.pomgraph.TextGraph;
+import com.pompot.server.pomgraph.TextReference;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+/**
+ * Builds the {@link TextGraph} describing a pom from a {@link PomOutline}. Shared by every parse
+ * mode so the graph does not depend on how the pom was read.
+ */
+final class PomGraphBuilder {
+
+    private PomGraphBuilder() {
+    }
+
+    /**
+     * Resolves the group identifier of a pom, falling back to its parent.
+     * @param outline pom contents.
+     * @return resolved group identifier or an empty string when none is available.
+     */
+    static String resolveGroupId(PomOutline outline) {
+        return normalize(groupIdSource(outline));
+    }
+
+    private static PomOutline.SourceText groupIdSource(PomOutline outline) {
+        if (!normalize(outline.groupId).isEmpty() || outline.parent == null) {
+            return outline.groupId;
+        }
+        return outline.parent.groupId();
+    }
+
+    /**
+     * Resolves the artifact identifier of a pom.
+     * @param outline pom contents.
+     * @return artifact identifier or an empty string when unavailable.
+     */
+    static String resolveArtifactId(PomOutline outline) {
+        return normalize(outline.artifactId);
+    }
+
+    /**
+     * Builds the graph for the pom stored in {@code projectRoot}.
+     * @param projectRoot directory holding the pom.xml.
+     * @param outline pom contents.
+     * @return graph with one node per pom attribute, parent, property, dependency, plugin, tile and
+     *     module.
+     */
+    static TextGraph build(Path projectRoot, PomOutline outline) {
+        TextGraph.Builder graph = TextGraph.builder();
+        GraphNode pomNode = graph.addNode("pom:" + projectRoot.toAbsolutePath().normalize());
+
+        attachAttribute(graph, pomNode, "groupId", groupIdSource(outline));
+        attachAttribute(graph, pomNode, "artifactId", outline.artifactId);
+        attachAttribute(graph, pomNode, "version", outline.version);
+        attachAttribute(graph, pomNode, "packaging", outline.packaging);
+
+        PomOutline.Coordinates parent = outline.parent;
+        if (parent != null) {
+            GraphNode parentNode = graph.addNode(nodeId("parent:", parent.groupId(), parent.artifactId()));
+            attachEdge(graph, pomNode, parentNode, "parent", parent.version());
+        }
+
+        // Sorted so the graph does not depend on the iteration order of java.util.Properties.
+        for (Map.Entry<String, PomOutline.SourceText> property : new TreeMap<>(outline.properties).entrySet()) {
+            GraphNode propertyNode = graph.addNode("property:" + property.getKey());
+            attachEdge(graph, pomNode, propertyNode, "property", property.getValue());
+        }
+
+        attachDependencies(graph, pomNode, "dependency", outline.dependencies);
+        attachDependencies(graph, pomNode, "managedDependency", outline.managedDependencies);
+        attachPlugins(graph, pomNode, "plugin", outline.plugins);
+        attachPlugins(graph, pomNode, "managedPlugin", outline.managedPlugins);
+
+        for (PomOutline.SourceText module : outline.modules) {
+            GraphNode moduleNode = graph.addNode("module:" + module.text());
+            attachEdge(graph, pomNode, moduleNode, "module", module);
+        }
+
+        return graph.build();
+    }
+
+    private static void attachDependencies(
+        TextGraph.Builder graph,
+        GraphNode pomNode,
+        String relationship,
+        List<PomOutline.DependencyOutline> dependencies
+    ) {
+        for (PomOutline.DependencyOutline dependency : dependencies) {
+            GraphNode dependencyNode = graph.addNode(
+                nodeId("dependency:", dependency.groupId, dependency.artifactId, dependency.type, dependency.classifier));
+            GraphValue value = buildDependencyValue(graph, dependency);
+            if (value == null) {
+                continue;
+            }
+
+            pomNode.connect(relationship, dependencyNode, value);
+            if ("managedDependency".equals(relationship) && isBom(dependency)) {
+                GraphNode bomNode = graph.addNode(
+                    nodeId("bom:", dependency.groupId, dependency.artifactId, dependency.type, dependency.classifier));
+                pomNode.connect("bom", bomNode, value);
+            }
+        }
+    }
+
+    private static GraphValue buildDependencyValue(TextGraph.Builder graph, PomOutline.DependencyOutline dependency) {
+        TextReference version = createText(graph, dependency.version);
+        if (version == null) {
+            return null;
+        }
+
+        Map<String, GraphValue> payload = new LinkedHashMap<>();
+        payload.put("version", GraphValue.text(version));
+        addGraphValue(payload, graph, "groupId", dependency.groupId);
+        addGraphValue(payload, graph, "artifactId", dependency.artifactId);
+        addGraphValue(payload, graph, "type", dependency.type);
+        addGraphValue(payload, graph, "classifier", dependency.classifier);
+        addGraphValue(payload, graph, "scope", dependency.scope);
+        return GraphValue.composite(payload);
+    }
+
+    private static void attachPlugins(
+        TextGraph.Builder graph,
+        GraphNode pomNode,
+        String relationship,
+        List<PomOutline.PluginOutline> plugins
+    ) {
+        for (PomOutline.PluginOutline plugin : plugins) {
+            GraphValue value = buildPluginValue(graph, plugin);
+            if (value != null) {
+                GraphNode pluginNode = graph.addNode(nodeId("plugin:", plugin.groupId, plugin.artifactId));
+                pomNode.connect(relationship, pluginNode, value);
+            }
+
+            for (PomOutline.SourceText tile : plugin.tiles) {
+                TextReference reference = createText(graph, tile);
+                if (reference == null) {
+                    continue;
+                }
+
+                GraphNode tileNode = graph.addNode(nodeId("tile:", tile));
+                pomNode.connect("tile", tileNode, reference);
+            }
+        }
+    }
+
+    private static GraphValue buildPluginValue(TextGraph.Builder graph, PomOutline.PluginOutline plugin) {
+        TextReference version = createText(graph, plugin.version);
+        if (version == null) {
+            return null;
+        }
+
+        Map<String, GraphValue> payload = new LinkedHashMap<>();
+        payload.put("version", GraphValue.text(version));
+        addGraphValue(payload, graph, "groupId", plugin.groupId);
+        addGraphValue(payload, graph, "artifactId", plugin.artifactId);
+        return GraphValue.composite(payload);
+    }
+
+    private static void addGraphValue(
+        Map<String, GraphValue> payload,
+        TextGraph.Builder graph,
+        String name,
+        PomOutline.SourceText rawValue
+    ) {
+        TextReference reference = createText(graph, rawValue);
+        if (reference != null) {
+            payload.put(name, GraphValue.text(reference));
+        }
+    }
+
+    private static void attachAttribute(
+        TextGraph.Builder graph,
+        GraphNode source,
+        String name,
+        PomOutline.SourceText value
+    ) {
+        TextReference reference = createText(graph, value);
+        if (reference == null) {
+            return;
+        }
+
+        GraphNode attributeNode = graph.addNode("attribute:" + name);
+        source.connect(name, attributeNode, reference);
+    }
+
+    private static void attachEdge(
+        TextGraph.Builder graph,
+        GraphNode source,
+        GraphNode target,
+        String relationship,
+        PomOutline.SourceText value
+    ) {
+        TextReference reference = createText(graph, value);
+        if (reference == null) {
+            return;
+        }
+
+        source.connect(relationship, target, reference);
+    }
+
+    private static boolean isBom(PomOutline.DependencyOutline dependency) {
+        return "pom".equalsIgnoreCase(normalize(dependency.type))
+            && "import".equalsIgnoreCase(normalize(dependency.scope));
+    }
+
+    private static TextReference createText(TextGraph.Builder graph, PomOutline.SourceText value) {
+        String normalized = normalize(value);
+        if (normalized.isEmpty()) {
+            return null;
+        }
+        return graph.createText(normalized, value.position());
+    }
+
+    private static String nodeId(String prefix, PomOutline.SourceText... parts) {
+        StringJoiner joiner = new StringJoiner(":");
+        for (PomOutline.SourceText part : parts) {
+            String normalized = normalize(part);
+            if (!normalized.isEmpty()) {
+                joiner.add(normalized);
+            }
+        }
+        String joined = joiner.toString();
+        if (joined.isEmpty()) {
+            return prefix.substring(0, prefix.length() - 1);
+        }
+        return prefix + joined;
+    }
+
+    /**
+     * Converts {@code null} values into empty strings while trimming whitespace.
+     * @param value value to normalize.
+     * @return trimmed value or empty string when {@code null}.
+     */
+    static String normalize(PomOutline.SourceText value) {
+        if (value == null || value.text() == null) {
+            return "";
+        }
+
+        return value.text().trim();
+    }
+}
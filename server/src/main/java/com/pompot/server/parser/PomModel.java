@@ -0,0 +1,80 @@
+package com.pompot.server.parser;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * JSON representation of a pom's Maven model. It either wraps a tree built while parsing or keeps
+ * the raw pom bytes and builds the tree on first access through a {@link PomModelCache}, which
+ * bounds how many trees stay in memory.
+ */
+public final class PomModel {
+
+    private final JsonNode json;
+    private final byte[] source;
+    private final Path pomFile;
+    private final PomModelCache cache;
+
+    private PomModel(JsonNode json, byte[] source, Path pomFile, PomModelCache cache) {
+        this.json = json;
+        this.source = source;
+        this.pomFile = pomFile;
+        this.cache = cache;
+    }
+
+    /**
+     * Wraps an already built JSON tree.
+     * @param json JSON representation of the model.
+     * @return eager model.
+     */
+    public static PomModel of(JsonNode json) {
+        return new PomModel(Objects.requireNonNull(json, "json"), null, null, null);
+    }
+
+    /**
+     * Creates a model that is only converted to JSON when requested.
+     * @param source raw pom.xml bytes.
+     * @param pomFile file the bytes were read from; recorded in the model like a full parse does.
+     * @param cache cache that builds and retains the JSON trees.
+     * @return lazy model.
+     */
+    static PomModel lazy(byte[] source, Path pomFile, PomModelCache cache) {
+        return new PomModel(
+            null,
+            Objects.requireNonNull(source, "source").clone(),
+            pomFile,
+            Objects.requireNonNull(cache, "cache")
+        );
+    }
+
+    /**
+     * JSON tree of the model, built from the raw pom when this model is lazy and the tree is not
+     * cached. Serialized in place of the model itself.
+     * @return JSON representation of the Maven model.
+     */
+    @JsonValue
+    public JsonNode json() {
+        if (json != null) {
+            return json;
+        }
+        return cache.materialize(this);
+    }
+
+    /**
+     * Indicates whether the tree is built on demand.
+     * @return {@code true} for models created from raw pom bytes.
+     */
+    public boolean isLazy() {
+        return json == null;
+    }
+
+    byte[] source() {
+        return source.clone();
+    }
+
+    Path pomFile() {
+        return pomFile;
+    }
+}
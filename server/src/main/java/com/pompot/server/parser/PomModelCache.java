@@ -0,0 +1,69 @@
+package com.pompot.server.parser;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Least-recently-used cache of JSON trees built for lazy {@link PomModel} instances. Only the
+ * trees are evicted; the models keep their raw bytes and rebuild the tree when accessed again.
+ */
+final class PomModelCache {
+
+    private final int maxEntries;
+    private final Function<PomModel, JsonNode> loader;
+    private final Map<PomModel, JsonNode> entries;
+
+    /**
+     * Creates the cache.
+     * @param maxEntries maximum number of trees kept in memory; zero disables caching.
+     * @param loader converts the raw bytes of a lazy model into a JSON tree.
+     */
+    PomModelCache(int maxEntries, Function<PomModel, JsonNode> loader) {
+        this.maxEntries = Math.max(0, maxEntries);
+        this.loader = Objects.requireNonNull(loader, "loader");
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PomModel, JsonNode> eldest) {
+                return this.size() > PomModelCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached tree for the model or builds it from its raw bytes.
+     * @param model lazy model to materialize.
+     * @return JSON tree of the model.
+     */
+    JsonNode materialize(PomModel model) {
+        synchronized (entries) {
+            JsonNode cached = entries.get(model);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        // Built outside the lock so one slow pom does not block readers of other models.
+        JsonNode built = loader.apply(model);
+        synchronized (entries) {
+            JsonNode raced = entries.get(model);
+            if (raced != null) {
+                return raced;
+            }
+            entries.put(model, built);
+        }
+        return built;
+    }
+
+    /**
+     * Number of trees currently kept in memory.
+     * @return cached entry count.
+     */
+    int cachedCount() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.pompot.server.parser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import javax.xml.stream.XMLStreamException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Discovers pom files by starting from the root pom.xml and following the {@code <modules>}
+ * it declares, including modules declared inside profiles, instead of walking the disk.
+ */
+public class PomModuleDiscovery implements PomDiscovery {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PomModuleDiscovery.class);
+
+    private final PomOutlineReader outlineReader = new PomOutlineReader();
+
+    /**
+     * Follows the module tree declared by {@code root/pom.xml}.
+     *
+     * @param root directory holding the aggregator pom.
+     * @return every reachable pom file, level by level; an empty result when the root has
+     *     no pom.xml.
+     * @throws IOException when the root pom cannot be read.
+     */
+    @Override
+    public Result discover(Path root) throws IOException {
+        return discover(root, this::readModules);
+    }
+
+    /**
+     * Follows the module tree declared by {@code root/pom.xml}, asking {@code modules} for the
+     * modules of each pom.
+     *
+     * @param root directory holding the aggregator pom.
+     * @param modules source of the modules declared by a pom, such as the module edges of its
+     *     parsed graph.
+     * @return every reachable pom file, level by level; an empty result when the root has
+     *     no pom.xml.
+     * @throws IOException when the root pom cannot be read.
+     */
+    @Override
+    public Result discover(Path root, ModuleReader modules) throws IOException {
+        Path rootPom = Objects.requireNonNull(root, "root").toAbsolutePath().normalize().resolve("pom.xml");
+        if (!Files.isRegularFile(rootPom)) {
+            LOGGER.warn("Module discovery requires a pom.xml at {}", rootPom);
+            return new Result(List.of(), 0);
+        }
+
+        List<Path> pomFiles = new ArrayList<>(List.of(rootPom));
+        Map<Path, Path> declaredBy = new HashMap<>();
+        Path rootIdentity = rootPom.toRealPath();
+        declaredBy.put(rootIdentity, null);
+        List<Path> level = List.of(rootPom);
+        List<Path> identities = List.of(rootIdentity);
+        while (!level.isEmpty()) {
+            List<List<String>> declared = modules.modules(level);
+            List<Path> next = new ArrayList<>();
+            List<Path> nextIdentities = new ArrayList<>();
+            for (int index = 0; index < level.size(); index += 1) {
+                Path pomFile = level.get(index);
+                Path identity = identities.get(index);
+                Path baseDirectory = pomFile.getParent();
+                if (baseDirectory == null) {
+                    continue;
+                }
+                for (String module : declared.get(index)) {
+                    if (module.isBlank()) {
+                        continue;
+                    }
+                    Path modulePom = resolveModulePom(baseDirectory, module);
+                    if (modulePom == null) {
+                        LOGGER.warn("Module {} declared by {} has no pom.xml", module, pomFile);
+                        continue;
+                    }
+                    Path moduleIdentity = realPath(modulePom);
+                    if (moduleIdentity == null) {
+                        continue;
+                    }
+                    if (declaredBy.containsKey(moduleIdentity)) {
+                        if (isAncestor(moduleIdentity, identity, declaredBy)) {
+                            LOGGER.warn("Module cycle detected: {} is declared by one of its own modules", modulePom);
+                        }
+                        continue;
+                    }
+                    declaredBy.put(moduleIdentity, identity);
+                    pomFiles.add(modulePom);
+                    next.add(modulePom);
+                    nextIdentities.add(moduleIdentity);
+                }
+            }
+            level = next;
+            identities = nextIdentities;
+        }
+        return new Result(pomFiles, 0);
+    }
+
+    /**
+     * Whether {@code candidate} is {@code pom} itself or one of the poms that declared it,
+     * directly or through other modules.
+     */
+    private static boolean isAncestor(Path candidate, Path pom, Map<Path, Path> declaredBy) {
+        for (Path current = pom; current != null; current = declaredBy.get(current)) {
+            if (current.equals(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Resolves links so a module reachable through several paths is followed once. A module that
+     * disappears or turns into a dangling link after it was found is skipped, like a file the
+     * walker fails to visit.
+     */
+    private static Path realPath(Path modulePom) {
+        try {
+            return modulePom.toRealPath();
+        } catch (IOException exception) {
+            LOGGER.warn("Skipping module {} that can no longer be read", modulePom, exception);
+            return null;
+        }
+    }
+
+    private Path resolveModulePom(Path baseDirectory, String module) {
+        Path candidate = baseDirectory.resolve(module).normalize();
+        if (Files.isRegularFile(candidate)) {
+            return candidate;
+        }
+
+        Path modulePom = candidate.resolve("pom.xml");
+        if (Files.isRegularFile(modulePom)) {
+            return modulePom;
+        }
+        return null;
+    }
+
+    /**
+     * Reads the modules of a pom for callers that do not parse it themselves.
+     */
+    private List<String> readModules(Path pomFile) {
+        try {
+            return outlineReader.read(pomFile).modules.stream().map(PomOutline.SourceText::text).toList();
+        } catch (IOException | XMLStreamException exception) {
+            LOGGER.warn("Could not read modules declared by {}", pomFile, exception);
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.pompot.server.parser;
+
+import com.pompot.server.pomgraph.SourcePosition;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.DependencyManagement;
+import org.apache.maven.model.InputLocation;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.model.PluginManagement;
+import org.apache.maven.model.Profile;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+/**
+ * The subset of a pom.xml that {@link PomGraphBuilder} turns into a graph. It is filled by
+ * {@link PomOutlineReader}, which keeps the {@link SourcePosition} of every value, or from a Maven
+ * {@link Model}, which locates values through the {@link InputLocation}s Maven recorded; both apply
+ * the same Maven defaults so the resulting graphs are identical.
+ */
+final class PomOutline {
+
+    static final SourceText DEFAULT_PACKAGING = SourceText.of("jar");
+    static final SourceText DEFAULT_DEPENDENCY_TYPE = SourceText.of("jar");
+    static final SourceText DEFAULT_PLUGIN_GROUP_ID = SourceText.of("org.apache.maven.plugins");
+
+    SourceText groupId;
+    SourceText artifactId;
+    SourceText version;
+    SourceText packaging = DEFAULT_PACKAGING;
+    Coordinates parent;
+    final Map<String, SourceText> properties = new LinkedHashMap<>();
+    final List<DependencyOutline> dependencies = new ArrayList<>();
+    final List<DependencyOutline> managedDependencies = new ArrayList<>();
+    final List<PluginOutline> plugins = new ArrayList<>();
+    final List<PluginOutline> managedPlugins = new ArrayList<>();
+    final List<SourceText> modules = new ArrayList<>();
+
+    /**
+     * Copies the relevant parts of a Maven model. The values carry no source position.
+     * @param model model read by Maven's {@code ModelReader}.
+     * @return outline holding the same values.
+     */
+    static PomOutline from(Model model) {
+        return from(model, null);
+    }
+
+    /**
+     * Copies the relevant parts of a Maven model, locating each value through the
+     * {@link InputLocation} Maven recorded for it, so a pom read once by Maven gets the same
+     * positions {@link PomOutlineReader} would record.
+     * @param model model read by Maven's {@code ModelReader} with an {@code INPUT_SOURCE} option.
+     * @param index line table of the bytes the model was read from; {@code null} leaves every
+     *     value without a position.
+     * @return outline holding the same values.
+     */
+    static PomOutline from(Model model, SourceIndex index) {
+        PomOutline outline = new PomOutline();
+        outline.groupId = text(index, model.getGroupId(), model.getLocation("groupId"));
+        outline.artifactId = text(index, model.getArtifactId(), model.getLocation("artifactId"));
+        outline.version = text(index, model.getVersion(), model.getLocation("version"));
+        outline.packaging = text(index, model.getPackaging(), model.getLocation("packaging"));
+
+        Parent parent = model.getParent();
+        if (parent != null) {
+            outline.parent = new Coordinates(
+                text(index, parent.getGroupId(), parent.getLocation("groupId")),
+                text(index, parent.getArtifactId(), parent.getLocation("artifactId")),
+                text(index, parent.getVersion(), parent.getLocation("version"))
+            );
+        }
+
+        Properties properties = model.getProperties();
+        if (properties != null) {
+            InputLocation locations = model.getLocation("properties");
+            for (String name : properties.stringPropertyNames()) {
+                InputLocation location = locations == null ? null : locations.getLocation(name);
+                outline.properties.put(name, text(index, properties.getProperty(name), location));
+            }
+        }
+
+        copyDependencies(index, model.getDependencies(), outline.dependencies);
+        DependencyManagement dependencyManagement = model.getDependencyManagement();
+        if (dependencyManagement != null) {
+            copyDependencies(index, dependencyManagement.getDependencies(), outline.managedDependencies);
+        }
+
+        Build build = model.getBuild();
+        if (build != null) {
+            copyPlugins(index, build.getPlugins(), outline.plugins);
+            PluginManagement pluginManagement = build.getPluginManagement();
+            if (pluginManagement != null) {
+                copyPlugins(index, pluginManagement.getPlugins(), outline.managedPlugins);
+            }
+        }
+
+        copyModules(index, model.getModules(), model.getLocation("modules"), outline.modules);
+        if (model.getProfiles() != null) {
+            for (Profile profile : model.getProfiles()) {
+                copyModules(index, profile.getModules(), profile.getLocation("modules"), outline.modules);
+            }
+        }
+        return outline;
+    }
+
+    private static void copyModules(
+        SourceIndex index,
+        List<String> source,
+        InputLocation locations,
+        List<SourceText> target
+    ) {
+        if (source == null) {
+            return;
+        }
+
+        for (int position = 0; position < source.size(); position++) {
+            String module = source.get(position);
+            if (module != null) {
+                target.add(text(index, module, locations == null ? null : locations.getLocation(position)));
+            }
+        }
+    }
+
+    private static void copyDependencies(SourceIndex index, List<Dependency> source, List<DependencyOutline> target) {
+        if (source == null) {
+            return;
+        }
+
+        for (Dependency dependency : source) {
+            if (dependency == null) {
+                continue;
+            }
+
+            DependencyOutline outline = new DependencyOutline();
+            outline.groupId = text(index, dependency.getGroupId(), dependency.getLocation("groupId"));
+            outline.artifactId = text(index, dependency.getArtifactId(), dependency.getLocation("artifactId"));
+            outline.version = text(index, dependency.getVersion(), dependency.getLocation("version"));
+            outline.type = text(index, dependency.getType(), dependency.getLocation("type"));
+            outline.classifier = text(index, dependency.getClassifier(), dependency.getLocation("classifier"));
+            outline.scope = text(index, dependency.getScope(), dependency.getLocation("scope"));
+            target.add(outline);
+        }
+    }
+
+    private static void copyPlugins(SourceIndex index, List<Plugin> source, List<PluginOutline> target) {
+        if (source == null) {
+            return;
+        }
+
+        for (Plugin plugin : source) {
+            if (plugin == null) {
+                continue;
+            }
+
+            PluginOutline outline = new PluginOutline();
+            outline.groupId = text(index, plugin.getGroupId(), plugin.getLocation("groupId"));
+            outline.artifactId = text(index, plugin.getArtifactId(), plugin.getLocation("artifactId"));
+            outline.version = text(index, plugin.getVersion(), plugin.getLocation("version"));
+            copyTiles(index, plugin.getConfiguration(), outline.tiles);
+            for (PluginExecution execution : plugin.getExecutions()) {
+                if (execution != null) {
+                    copyTiles(index, execution.getConfiguration(), outline.tiles);
+                }
+            }
+            target.add(outline);
+        }
+    }
+
+    private static void copyTiles(SourceIndex index, Object configuration, List<SourceText> target) {
+        if (!(configuration instanceof Xpp3Dom dom)) {
+            return;
+        }
+
+        Xpp3Dom tiles = dom.getChild("tiles");
+        if (tiles == null || tiles.getChildren() == null) {
+            return;
+        }
+
+        for (Xpp3Dom tile : tiles.getChildren()) {
+            if (tile != null && "tile".equals(tile.getName())) {
+                Object location = tile.getInputLocation();
+                target.add(text(index, tile.getValue(), location instanceof InputLocation found ? found : null));
+            }
+        }
+    }
+
+    /**
+     * Wraps a model value with the position Maven recorded for it. Maven records the mark right
+     * after the start tag, and values it filled in as defaults have no location.
+     */
+    private static SourceText text(SourceIndex index, String value, InputLocation location) {
+        if (value == null || index == null || location == null) {
+            return SourceText.of(value);
+        }
+        return new SourceText(value, index.content(location.getLineNumber(), location.getColumnNumber()));
+    }
+
+    /**
+     * Value read from the pom together with where it was found.
+     *
+     * @param text trimmed value.
+     * @param position location in the pom; {@code null} for defaults or when unknown.
+     */
+    record SourceText(String text, SourcePosition position) {
+
+        /**
+         * Wraps a value that has no known location.
+         * @param text value to wrap; may be {@code null}.
+         * @return wrapped value, or {@code null} when {@code text} is {@code null}.
+         */
+        static SourceText of(String text) {
+            return text == null ? null : new SourceText(text, null);
+        }
+    }
+
+    /**
+     * Coordinates of the parent pom.
+     *
+     * @param groupId parent group identifier.
+     * @param artifactId parent artifact identifier.
+     * @param version parent version.
+     */
+    record Coordinates(SourceText groupId, SourceText artifactId, SourceText version) {
+    }
+
+    /**
+     * Dependency declared directly or under {@code dependencyManagement}.
+     */
+    static final class DependencyOutline {
+
+        SourceText groupId;
+        SourceText artifactId;
+        SourceText version;
+        SourceText type = DEFAULT_DEPENDENCY_TYPE;
+        SourceText classifier;
+        SourceText scope;
+    }
+
+    /**
+     * Build plugin together with the tiles declared in its configuration or executions.
+     */
+    static final class PluginOutline {
+
+        SourceText groupId = DEFAULT_PLUGIN_GROUP_ID;
+        SourceText artifactId;
+        SourceText version;
+        final List<SourceText> tiles = new ArrayList<>();
+    }
+}
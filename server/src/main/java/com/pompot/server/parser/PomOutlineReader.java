@@ -0,0 +1,286 @@
+package com.pompot.server.parser;
+
+import com.pompot.server.pomgraph.SourcePosition;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Streams a pom.xml with StAX and fills a {@link PomOutline} with the coordinates, parent,
+ * properties, dependencies, plugins, tiles and modules (profile modules included), skipping
+ * everything else. It avoids
+ * building a Maven {@code Model} when only the graph is needed, and records where each value sits
+ * in the file through a {@link SourceIndex}.
+ */
+final class PomOutlineReader {
+
+    private static final String PROJECT = "/project";
+    private static final String PARENT = PROJECT + "/parent";
+    private static final String PROPERTIES = PROJECT + "/properties";
+    private static final String DEPENDENCY = PROJECT + "/dependencies/dependency";
+    private static final String MANAGED_DEPENDENCY = PROJECT + "/dependencyManagement/dependencies/dependency";
+    private static final String PLUGIN = PROJECT + "/build/plugins/plugin";
+    private static final String MANAGED_PLUGIN = PROJECT + "/build/pluginManagement/plugins/plugin";
+    private static final String MODULE = PROJECT + "/modules/module";
+    private static final String PROFILE_MODULE = PROJECT + "/profiles/profile/modules/module";
+    private static final String CONFIGURATION = "/configuration";
+    private static final String EXECUTION_CONFIGURATION = "/executions/execution/configuration";
+
+    private final XMLInputFactory xmlInputFactory;
+
+    PomOutlineReader() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        this.xmlInputFactory = factory;
+    }
+
+    /**
+     * Reads the pom file.
+     * @param pomFile pom.xml to read.
+     * @return outline of the pom.
+     * @throws IOException when the file cannot be read.
+     * @throws XMLStreamException when the file is not well-formed XML.
+     */
+    PomOutline read(Path pomFile) throws IOException, XMLStreamException {
+        return read(Files.readAllBytes(pomFile), pomFile);
+    }
+
+    /**
+     * Reads a pom already loaded in memory.
+     * @param source raw pom.xml bytes.
+     * @param pomFile file the bytes were read from, recorded in each {@link SourcePosition}.
+     * @return outline of the pom.
+     * @throws XMLStreamException when the content is not well-formed XML.
+     */
+    PomOutline read(byte[] source, Path pomFile) throws XMLStreamException {
+        XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(new ByteArrayInputStream(source));
+        try {
+            return new Pass(reader, source, pomFile.toAbsolutePath().normalize().toString()).run();
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * State of a single read. Element paths are kept as {@code /project/...} strings so each end
+     * tag is dispatched with a handful of string comparisons. StAX reports the location right
+     * after each tag, so the content of a leaf element lies between the mark taken at its start
+     * tag and its end tag.
+     */
+    private static final class Pass {
+
+        private final XMLStreamReader reader;
+        private final byte[] source;
+        private final String file;
+        private final PomOutline outline = new PomOutline();
+        private final StringBuilder path = new StringBuilder();
+        private final List<Integer> pathLengths = new ArrayList<>();
+        private final List<Boolean> hasChildren = new ArrayList<>();
+        private final List<Mark> contentStarts = new ArrayList<>();
+        private final StringBuilder text = new StringBuilder();
+        private SourceIndex sourceIndex;
+        private boolean sourceIndexed;
+        private Mark contentStart;
+        private Mark contentEnd;
+        private PomOutline.Coordinates parent;
+        private PomOutline.DependencyOutline dependency;
+        private PomOutline.PluginOutline plugin;
+        private String pluginPath;
+        private int configurationTiles;
+        private boolean readingTiles;
+
+        Pass(XMLStreamReader reader, byte[] source, String file) {
+            this.reader = reader;
+            this.source = source;
+            this.file = file;
+        }
+
+        PomOutline run() throws XMLStreamException {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    start(reader.getLocalName());
+                } else if (event == XMLStreamConstants.CHARACTERS
+                    || event == XMLStreamConstants.CDATA
+                    || event == XMLStreamConstants.SPACE) {
+                    text.append(reader.getText());
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    end();
+                }
+            }
+            if (parent != null) {
+                outline.parent = parent;
+            }
+            return outline;
+        }
+
+        private void start(String name) {
+            if (!hasChildren.isEmpty()) {
+                hasChildren.set(hasChildren.size() - 1, Boolean.TRUE);
+            }
+            pathLengths.add(path.length());
+            hasChildren.add(Boolean.FALSE);
+            contentStarts.add(mark());
+            path.append('/').append(name);
+            text.setLength(0);
+
+            String current = path.toString();
+            if (PARENT.equals(current)) {
+                parent = new PomOutline.Coordinates(null, null, null);
+            } else if (DEPENDENCY.equals(current)) {
+                dependency = new PomOutline.DependencyOutline();
+                outline.dependencies.add(dependency);
+            } else if (MANAGED_DEPENDENCY.equals(current)) {
+                dependency = new PomOutline.DependencyOutline();
+                outline.managedDependencies.add(dependency);
+            } else if (PLUGIN.equals(current) || MANAGED_PLUGIN.equals(current)) {
+                plugin = new PomOutline.PluginOutline();
+                pluginPath = current;
+                (PLUGIN.equals(current) ? outline.plugins : outline.managedPlugins).add(plugin);
+            } else if (plugin != null && isConfiguration(current)) {
+                configurationTiles = plugin.tiles.size();
+            } else if (plugin != null && isTiles(current)) {
+                // A repeated <tiles> element replaces the previous one, as in Maven's Xpp3Dom.
+                plugin.tiles.subList(configurationTiles, plugin.tiles.size()).clear();
+                readingTiles = true;
+            }
+        }
+
+        private void end() {
+            String current = path.toString();
+            boolean leaf = !hasChildren.remove(hasChildren.size() - 1);
+            contentStart = contentStarts.remove(contentStarts.size() - 1);
+            contentEnd = mark();
+            String value = leaf ? text.toString() : null;
+            int depth = pathLengths.size();
+            String name = current.substring(current.lastIndexOf('/') + 1);
+            String container = current.substring(0, current.lastIndexOf('/'));
+
+            if (depth == 2 && PROJECT.equals(container)) {
+                project(name, value);
+            } else if (PARENT.equals(container)) {
+                parent(name, value);
+            } else if (PROPERTIES.equals(container)) {
+                outline.properties.put(name, value == null ? new PomOutline.SourceText("", null) : located(value));
+            } else if (dependency != null && (DEPENDENCY.equals(container) || MANAGED_DEPENDENCY.equals(container))) {
+                dependency(name, value);
+            } else if (dependency != null && (DEPENDENCY.equals(current) || MANAGED_DEPENDENCY.equals(current))) {
+                dependency = null;
+            } else if (plugin != null && current.equals(pluginPath)) {
+                plugin = null;
+                pluginPath = null;
+            } else if (plugin != null && container.equals(pluginPath)) {
+                plugin(name, value);
+            } else if (plugin != null && readingTiles && "tile".equals(name) && isTiles(container)) {
+                plugin.tiles.add(located(value));
+            } else if (plugin != null && isTiles(current)) {
+                readingTiles = false;
+            } else if ((MODULE.equals(current) || PROFILE_MODULE.equals(current)) && value != null) {
+                outline.modules.add(located(value));
+            }
+
+            path.setLength(pathLengths.remove(pathLengths.size() - 1));
+            text.setLength(0);
+        }
+
+        private void project(String name, String value) {
+            switch (name) {
+                case "groupId" -> outline.groupId = located(value);
+                case "artifactId" -> outline.artifactId = located(value);
+                case "version" -> outline.version = located(value);
+                case "packaging" -> outline.packaging = located(value);
+                default -> {
+                }
+            }
+        }
+
+        private void parent(String name, String value) {
+            switch (name) {
+                case "groupId" -> parent = new PomOutline.Coordinates(
+                    located(value), parent.artifactId(), parent.version());
+                case "artifactId" -> parent = new PomOutline.Coordinates(
+                    parent.groupId(), located(value), parent.version());
+                case "version" -> parent = new PomOutline.Coordinates(
+                    parent.groupId(), parent.artifactId(), located(value));
+                default -> {
+                }
+            }
+        }
+
+        private void dependency(String name, String value) {
+            switch (name) {
+                case "groupId" -> dependency.groupId = located(value);
+                case "artifactId" -> dependency.artifactId = located(value);
+                case "version" -> dependency.version = located(value);
+                case "type" -> dependency.type = located(value);
+                case "classifier" -> dependency.classifier = located(value);
+                case "scope" -> dependency.scope = located(value);
+                default -> {
+                }
+            }
+        }
+
+        private void plugin(String name, String value) {
+            switch (name) {
+                case "groupId" -> plugin.groupId = located(value);
+                case "artifactId" -> plugin.artifactId = located(value);
+                case "version" -> plugin.version = located(value);
+                default -> {
+                }
+            }
+        }
+
+        private boolean isConfiguration(String current) {
+            return current.equals(pluginPath + CONFIGURATION) || current.equals(pluginPath + EXECUTION_CONFIGURATION);
+        }
+
+        private boolean isTiles(String current) {
+            return current.equals(pluginPath + CONFIGURATION + "/tiles")
+                || current.equals(pluginPath + EXECUTION_CONFIGURATION + "/tiles");
+        }
+
+        /**
+         * Trims the value of the element that just ended and attaches its position.
+         */
+        private PomOutline.SourceText located(String value) {
+            if (value == null) {
+                return null;
+            }
+            return new PomOutline.SourceText(value.trim(), position());
+        }
+
+        private SourcePosition position() {
+            if (!sourceIndexed) {
+                String encoding = reader.getCharacterEncodingScheme();
+                sourceIndex = SourceIndex.of(file, source, encoding == null ? reader.getEncoding() : encoding);
+                sourceIndexed = true;
+            }
+            if (sourceIndex == null) {
+                return null;
+            }
+            return sourceIndex.element(
+                contentStart.line(), contentStart.column(), contentEnd.line(), contentEnd.column());
+        }
+
+        private Mark mark() {
+            Location location = reader.getLocation();
+            return new Mark(location.getLineNumber(), location.getColumnNumber());
+        }
+
+        /**
+         * Line and column reported by the reader right after a tag.
+         */
+        private record Mark(int line, int column) {
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.pompot.server.parser;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.pompot.server.pomgraph.TextGraph;
+import com.pompot.server.pomgraph.TextGraphCodec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent cache of {@link PomParseResult} entries stored on disk, one JSON file per pom.
+ * An entry is reused while the pom keeps the same size and modification time, or when its
+ * content hash still matches after either of them changed.
+ */
+public class PomParseCache {
+
+    /**
+     * Version of the cache entry layout. Bump it whenever {@link PomFileParser} produces
+     * different results for the same input so stale entries are discarded.
+     */
+    public static final int FORMAT_VERSION = 3;
+
+    /**
+     * Modification times this close to the moment an entry was written are not trusted on their
+     * own, since a file could be rewritten within the timestamp granularity without changing size.
+     */
+    private static final long RACY_WINDOW_MILLIS = 2_000L;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PomParseCache.class);
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Creates a cache storing its entries in the provided directory.
+     *
+     * @param directory directory holding cache entries; created on first write.
+     * @param objectMapper mapper used to read and write entries.
+     */
+    public PomParseCache(Path directory, ObjectMapper objectMapper) {
+        this.directory = directory == null ? null : directory.toAbsolutePath().normalize();
+        this.objectMapper = Objects.requireNonNull(objectMapper, "objectMapper").copy();
+    }
+
+    /**
+     * Cache that never stores anything and always delegates to the parser.
+     *
+     * @return disabled cache.
+     */
+    public static PomParseCache disabled() {
+        return new PomParseCache(null, new ObjectMapper());
+    }
+
+    /**
+     * Indicates whether entries are persisted.
+     *
+     * @return {@code true} when a cache directory is configured.
+     */
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Returns the cached result for the pom file or parses it and stores the outcome.
+     *
+     * @param pomFile pom.xml file to look up.
+     * @param parser parses the pom when no valid entry exists.
+     * @return cached or freshly parsed result; empty when parsing fails.
+     */
+    public Optional<PomParseResult> getOrParse(Path pomFile, Supplier<Optional<PomParseResult>> parser) {
+        return getOrParse(pomFile, PomFileParser.Mode.FULL, parser);
+    }
+
+    /**
+     * Returns the cached result for the pom file or parses it and stores the outcome. Entries
+     * written without a model ({@link PomFileParser.Mode#GRAPH_ONLY} or
+     * {@link PomFileParser.Mode#LAZY_MODEL}) are not reused when a full result is requested.
+     *
+     * @param pomFile pom.xml file to look up.
+     * @param mode parse mode the caller needs.
+     * @param parser parses the pom when no valid entry exists.
+     * @return cached or freshly parsed result; empty when parsing fails.
+     */
+    public Optional<PomParseResult> getOrParse(
+        Path pomFile,
+        PomFileParser.Mode mode,
+        Supplier<Optional<PomParseResult>> parser
+    ) {
+        if (directory == null) {
+            return parser.get();
+        }
+
+        Path absolutePom = pomFile.toAbsolutePath().normalize();
+        FileState state;
+        try {
+            state = FileState.of(absolutePom);
+        } catch (IOException exception) {
+            LOGGER.debug("Could not stat {}; bypassing the parse cache", absolutePom, exception);
+            return parser.get();
+        }
+
+        Path entryFile = entryFile(absolutePom);
+        Optional<PomParseResult> cached = read(entryFile, absolutePom, state)
+            .filter(result -> mode != PomFileParser.Mode.FULL || result.model() != null);
+        if (cached.isPresent()) {
+            return cached;
+        }
+
+        String hash;
+        try {
+            // Hash before parsing so a concurrent edit can only make the entry look stale.
+            hash = state.hash();
+        } catch (IOException exception) {
+            LOGGER.debug("Could not hash {}; bypassing the parse cache", absolutePom, exception);
+            return parser.get();
+        }
+
+        Optional<PomParseResult> parsed = parser.get();
+        parsed.ifPresent(result -> save(entryFile, absolutePom, state, hash, result));
+        return parsed;
+    }
+
+    private Optional<PomParseResult> read(Path entryFile, Path pomFile, FileState state) {
+        if (!Files.isRegularFile(entryFile)) {
+            return Optional.empty();
+        }
+
+        try {
+            JsonNode entry = objectMapper.readTree(entryFile.toFile());
+            if (entry.path("version").asInt() != FORMAT_VERSION
+                || entry.path("graphVersion").asInt() != TextGraphCodec.FORMAT_VERSION
+                || !pomFile.toString().equals(entry.path("path").asText())) {
+                return Optional.empty();
+            }
+
+            boolean sameStat = entry.path("size").asLong() == state.size()
+                && entry.path("modified").asLong() == state.modifiedMillis();
+            boolean racy = state.modifiedMillis() + RACY_WINDOW_MILLIS >= entry.path("cachedAt").asLong();
+            if (!sameStat || racy) {
+                if (!state.hash().equals(entry.path("hash").asText())) {
+                    return Optional.empty();
+                }
+                refresh(entryFile, (ObjectNode) entry, state);
+            }
+
+            TextGraph graph = TextGraphCodec.decode(entry.path("graph"));
+            JsonNode model = entry.get("model");
+            return Optional.of(new PomParseResult(
+                entry.path("groupId").asText(""),
+                entry.path("artifactId").asText(""),
+                model == null || model.isNull() ? null : model,
+                graph
+            ));
+        } catch (IOException | RuntimeException exception) {
+            LOGGER.debug("Ignoring unreadable parse cache entry {}", entryFile, exception);
+            return Optional.empty();
+        }
+    }
+
+    private void save(Path entryFile, Path pomFile, FileState state, String hash, PomParseResult result) {
+        try {
+            ObjectNode entry = objectMapper.createObjectNode();
+            entry.put("version", FORMAT_VERSION);
+            entry.put("graphVersion", TextGraphCodec.FORMAT_VERSION);
+            entry.put("path", pomFile.toString());
+            entry.put("size", state.size());
+            entry.put("modified", state.modifiedMillis());
+            entry.put("hash", hash);
+            entry.put("cachedAt", System.currentTimeMillis());
+            entry.put("groupId", result.groupId());
+            entry.put("artifactId", result.artifactId());
+            PomModel model = result.model();
+            entry.set("model", model == null || model.isLazy() ? null : model.json());
+            entry.set("graph", TextGraphCodec.encode(result.graph()));
+            persist(entryFile, entry);
+        } catch (IOException | RuntimeException exception) {
+            LOGGER.warn("Could not store parse cache entry for {}", pomFile, exception);
+        }
+    }
+
+    private void refresh(Path entryFile, ObjectNode entry, FileState state) {
+        entry.put("size", state.size());
+        entry.put("modified", state.modifiedMillis());
+        entry.put("cachedAt", System.currentTimeMillis());
+        try {
+            persist(entryFile, entry);
+        } catch (IOException exception) {
+            LOGGER.debug("Could not refresh parse cache entry {}", entryFile, exception);
+        }
+    }
+
+    private void persist(Path entryFile, JsonNode entry) throws IOException {
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, "entry-", ".tmp");
+        try {
+            objectMapper.writeValue(temporary.toFile(), entry);
+            try {
+                Files.move(temporary, entryFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException exception) {
+                Files.move(temporary, entryFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private Path entryFile(Path pomFile) {
+        return directory.resolve(sha256(pomFile.toString().getBytes(StandardCharsets.UTF_8)) + ".json");
+    }
+
+    private static String sha256(byte[] content) {
+        return HexFormat.of().formatHex(digest().digest(content));
+    }
+
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 is not available", exception);
+        }
+    }
+
+    /**
+     * Size, modification time and lazily computed content hash of a pom file.
+     */
+    private static final class FileState {
+
+        private final Path file;
+        private final long size;
+        private final long modifiedMillis;
+        private String hash;
+
+        private FileState(Path file, long size, long modifiedMillis) {
+            this.file = file;
+            this.size = size;
+            this.modifiedMillis = modifiedMillis;
+        }
+
+        static FileState of(Path file) throws IOException {
+            return new FileState(file, Files.size(file), Files.getLastModifiedTime(file).toMillis());
+        }
+
+        long size() {
+            return size;
+        }
+
+        long modifiedMillis() {
+            return modifiedMillis;
+        }
+
+        String hash() throws IOException {
+            if (hash == null) {
+                MessageDigest digest = digest();
+                try (InputStream input = Files.newInputStream(file)) {
+                    byte[] buffer = new byte[8192];
+                    int read;
+                    while ((read = input.read(buffer)) >= 0) {
+                        digest.update(buffer, 0, read);
+                    }
+                }
+                hash = HexFormat.of().formatHex(digest.digest());
+            }
+            return hash;
+        }
+    }
+}
@@ -9,17 +9,16 @@ import java.util.Objects;
  *
  * @param groupId Maven group identifier resolved for the pom.
  * @param artifactId Maven artifact identifier resolved for the pom.
- * @param model JSON representation of the Maven model.
+ * @param model JSON representation of the Maven model; {@code null} for graph-only parses.
  * @param graph graph representation populated from the Maven model.
  */
-public record PomParseResult(String groupId, String artifactId, JsonNode model, TextGraph graph) {
+public record PomParseResult(String groupId, String artifactId, PomModel model, TextGraph graph) {
 
     public PomParseResult {
-        graph = Objects.requireNonNull(graph, "graph").copy();
+        graph = Objects.requireNonNull(graph, "graph");
     }
 
-    @Override
-    public TextGraph graph() {
-        return graph.copy();
+    public PomParseResult(String groupId, String artifactId, JsonNode model, TextGraph graph) {
+        this(groupId, artifactId, model == null ? null : PomModel.of(model), graph);
     }
 }
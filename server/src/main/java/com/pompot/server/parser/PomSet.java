@@ -0,0 +1,160 @@
+package com.pompot.server.parser;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Immutable set of poms, stored as a bitset over their ordinals: the positions of the poms in the
+ * entry list a {@link CommonValue} was extracted from, such as {@link ParsedPomCollection#entries()}.
+ * A set costs one bit per ordinal up to its highest member, so thousands of poms fit in a few
+ * hundred bytes. Serialized to JSON as the array of ordinals.
+ */
+public final class PomSet {
+
+    private static final long[] NO_WORDS = new long[0];
+
+    private final long[] words;
+    private final int size;
+
+    private PomSet(long[] words) {
+        int length = words.length;
+        while (length > 0 && words[length - 1] == 0L) {
+            length -= 1;
+        }
+        this.words = length == 0 ? NO_WORDS : Arrays.copyOf(words, length);
+        int count = 0;
+        for (long word : this.words) {
+            count += Long.bitCount(word);
+        }
+        this.size = count;
+    }
+
+    /**
+     * Set without any pom.
+     * @return empty set.
+     */
+    public static PomSet empty() {
+        return new PomSet(NO_WORDS);
+    }
+
+    /**
+     * Set of the given ordinals.
+     * @param ordinals pom ordinals; duplicates are ignored.
+     * @return set holding the ordinals.
+     * @throws IllegalArgumentException when an ordinal is negative.
+     */
+    public static PomSet of(int... ordinals) {
+        BitSet bits = new BitSet();
+        for (int ordinal : ordinals) {
+            if (ordinal < 0) {
+                throw new IllegalArgumentException("Pom ordinal " + ordinal + " is negative");
+            }
+            bits.set(ordinal);
+        }
+        return of(bits);
+    }
+
+    static PomSet of(BitSet bits) {
+        return new PomSet(bits.toLongArray());
+    }
+
+    static PomSet ofWords(long[] words) {
+        return new PomSet(words);
+    }
+
+    /**
+     * Bits of the set, 64 ordinals per word with ordinal 0 in the lowest bit of the first word.
+     * @return copy of the words, without trailing empty words.
+     */
+    long[] words() {
+        return words.clone();
+    }
+
+    /**
+     * Whether the pom at an ordinal belongs to the set.
+     * @param ordinal pom ordinal.
+     * @return {@code true} when the ordinal is a member.
+     */
+    public boolean contains(int ordinal) {
+        int word = ordinal >>> 6;
+        return ordinal >= 0 && word < words.length && (words[word] & (1L << ordinal)) != 0L;
+    }
+
+    /**
+     * Number of poms in the set.
+     * @return member count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Whether the set holds no pom.
+     * @return {@code true} when empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Poms present in both sets, such as the poms sharing two common values.
+     * @param other set over the same entry list.
+     * @return intersection of both sets.
+     */
+    public PomSet intersect(PomSet other) {
+        long[] common = new long[Math.min(words.length, Objects.requireNonNull(other, "other").words.length)];
+        for (int index = 0; index < common.length; index++) {
+            common[index] = words[index] & other.words[index];
+        }
+        return new PomSet(common);
+    }
+
+    /**
+     * Members in ascending order.
+     * @return stream of ordinals.
+     */
+    public IntStream ordinals() {
+        return BitSet.valueOf(words).stream();
+    }
+
+    /**
+     * Resolves the members against the entry list the set was built for. Entries are looked up
+     * one at a time as the stream is consumed.
+     * @param entries entry list the ordinals refer to.
+     * @return stream of the member entries in ordinal order.
+     * @throws IndexOutOfBoundsException on consumption, when an ordinal is outside {@code entries}.
+     */
+    public Stream<ParsedPom> expand(List<ParsedPom> entries) {
+        Objects.requireNonNull(entries, "entries");
+        return ordinals().mapToObj(entries::get);
+    }
+
+    /**
+     * Members in ascending order, as serialized to JSON.
+     * @return array of ordinals.
+     */
+    @JsonValue
+    public int[] toArray() {
+        return ordinals().toArray();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof PomSet set && Arrays.equals(words, set.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
@@ -0,0 +1,224 @@
+package com.pompot.server.parser;
+
+import com.pompot.server.pomgraph.TextGraph;
+import com.pompot.server.pomgraph.TextReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Set of {@link TextReference} updates applied together across the poms of a
+ * {@link ParsedPomCollection}, for example moving one version to a new value in every pom that
+ * declares it. Applying a batch never touches the collection it was prepared on: every affected
+ * graph is copied with {@link TextGraph#replaceTexts(Map)} and the result is a new collection, so
+ * readers see either none or all of the updates and publishing costs one
+ * {@link ParsedPomRepository#replace} call. The result carries an ordered change log that can be
+ * turned back into a rollback batch.
+ */
+public final class PomTextBatch {
+
+    private final ParsedPomCollection collection;
+    private final Map<String, Integer> positions = new HashMap<>();
+    private final Map<Integer, Map<String, TextReference>> textsById = new HashMap<>();
+    private final Map<Integer, Map<TextReference, Update>> updates = new TreeMap<>();
+
+    private PomTextBatch(ParsedPomCollection collection) {
+        this.collection = Objects.requireNonNull(collection, "collection");
+        List<ParsedPom> entries = collection.entries();
+        for (int index = 0; index < entries.size(); index++) {
+            positions.put(entries.get(index).pomPath(), index);
+        }
+    }
+
+    /**
+     * Starts an empty batch over a collection.
+     * @param collection collection the updates are computed from.
+     * @return batch without updates.
+     */
+    public static PomTextBatch on(ParsedPomCollection collection) {
+        return new PomTextBatch(collection);
+    }
+
+    /**
+     * Sets a reference of one pom to a new value, whatever its current value.
+     * @param pomPath absolute path of the pom, as in {@link ParsedPom#pomPath()}.
+     * @param textId identifier of the reference in the pom graph.
+     * @param newValue value to store.
+     * @return this batch.
+     * @throws IllegalArgumentException when the pom or the reference is unknown.
+     */
+    public PomTextBatch set(String pomPath, String textId, String newValue) {
+        return set(pomPath, textId, null, newValue);
+    }
+
+    /**
+     * Sets a reference of one pom to a new value if it still holds the expected one when the
+     * batch is applied. A later call for the same reference replaces this one.
+     * @param pomPath absolute path of the pom, as in {@link ParsedPom#pomPath()}.
+     * @param textId identifier of the reference in the pom graph.
+     * @param expectedValue value the reference must hold; {@code null} to skip the check.
+     * @param newValue value to store.
+     * @return this batch.
+     * @throws IllegalArgumentException when the pom or the reference is unknown.
+     */
+    public PomTextBatch set(String pomPath, String textId, String expectedValue, String newValue) {
+        Integer position = positions.get(Objects.requireNonNull(pomPath, "pomPath"));
+        if (position == null) {
+            throw new IllegalArgumentException("Unknown pom " + pomPath);
+        }
+        TextReference reference = textsById
+            .computeIfAbsent(position, this::indexTexts)
+            .get(Objects.requireNonNull(textId, "textId"));
+        if (reference == null) {
+            throw new IllegalArgumentException("Unknown text " + textId + " in " + pomPath);
+        }
+        add(position, reference, expectedValue, newValue);
+        return this;
+    }
+
+    /**
+     * Sets every reference of every pom currently holding a value to a new value.
+     * @param currentValue value to look for.
+     * @param newValue value to store.
+     * @return this batch.
+     */
+    public PomTextBatch replaceAll(String currentValue, String newValue) {
+        Objects.requireNonNull(currentValue, "currentValue");
+        List<ParsedPom> entries = collection.entries();
+        for (int index = 0; index < entries.size(); index++) {
+            for (TextReference reference : entries.get(index).graph().texts()) {
+                if (reference.value().value().equals(currentValue)) {
+                    add(index, reference, currentValue, newValue);
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Checks every expected value, then builds the updated collection. Nothing is built when a
+     * check fails.
+     * @param commonValueExtractor component that recomputes the repeated values of the result.
+     * @return result holding both collections and the change log.
+     * @throws IllegalStateException when a reference no longer holds its expected value.
+     */
+    public Result apply(CommonValueExtractor commonValueExtractor) {
+        List<ParsedPom> entries = new ArrayList<>(collection.entries());
+        List<Change> changes = new ArrayList<>();
+        for (Map.Entry<Integer, Map<TextReference, Update>> pom : updates.entrySet()) {
+            ParsedPom entry = entries.get(pom.getKey());
+            Map<TextReference, String> values = new LinkedHashMap<>();
+            for (Map.Entry<TextReference, Update> update : pom.getValue().entrySet()) {
+                TextReference reference = update.getKey();
+                String oldValue = reference.value().value();
+                String expected = update.getValue().expectedValue();
+                if (expected != null && !expected.equals(oldValue)) {
+                    throw new IllegalStateException(
+                        "Text " + reference.id() + " in " + entry.pomPath() + " holds " + oldValue + " instead of " + expected
+                    );
+                }
+                String newValue = update.getValue().newValue();
+                if (!newValue.equals(oldValue)) {
+                    values.put(reference, newValue);
+                    changes.add(new Change(entry.pomPath(), reference.id(), oldValue, newValue));
+                }
+            }
+            if (!values.isEmpty()) {
+                entries.set(pom.getKey(), new ParsedPom(
+                    entry.pomPath(),
+                    entry.relativePath(),
+                    entry.groupId(),
+                    entry.artifactId(),
+                    entry.model(),
+                    entry.graph().replaceTexts(values)
+                ));
+            }
+        }
+
+        if (changes.isEmpty()) {
+            return new Result(collection, collection, List.of());
+        }
+        ParsedPomCollection updated = new ParsedPomCollection(
+            collection.scannedRoot(),
+            entries,
+            commonValueExtractor.analyze(entries)
+        );
+        return new Result(collection, updated, changes);
+    }
+
+    private void add(int position, TextReference reference, String expectedValue, String newValue) {
+        updates
+            .computeIfAbsent(position, key -> new LinkedHashMap<>())
+            .put(reference, new Update(expectedValue, Objects.requireNonNull(newValue, "newValue")));
+    }
+
+    private Map<String, TextReference> indexTexts(int position) {
+        Map<String, TextReference> texts = new HashMap<>();
+        for (TextReference reference : collection.entries().get(position).graph().texts()) {
+            texts.put(reference.id(), reference);
+        }
+        return texts;
+    }
+
+    private record Update(String expectedValue, String newValue) {
+    }
+
+    /**
+     * One applied update.
+     *
+     * @param pomPath absolute path of the pom holding the reference.
+     * @param textId identifier of the reference in the pom graph.
+     * @param oldValue value before the batch.
+     * @param newValue value after the batch.
+     */
+    public record Change(String pomPath, String textId, String oldValue, String newValue) {
+    }
+
+    /**
+     * Outcome of {@link PomTextBatch#apply}.
+     *
+     * @param before collection the batch was prepared on, left untouched.
+     * @param after collection holding the updates; {@code before} when nothing changed.
+     * @param changes applied updates in pom order, then in the order the batch listed them.
+     */
+    public record Result(ParsedPomCollection before, ParsedPomCollection after, List<Change> changes) {
+
+        public Result {
+            Objects.requireNonNull(before, "before");
+            Objects.requireNonNull(after, "after");
+            changes = List.copyOf(changes);
+        }
+
+        /**
+         * Publishes {@code after} if the repository still holds {@code before}.
+         * @param repository repository serving the collection.
+         * @return {@code true} when published; {@code false} when the repository changed since the
+         *     batch was prepared, in which case the batch has to be prepared again.
+         */
+        public boolean publish(ParsedPomRepository repository) {
+            return changes.isEmpty() || repository.replace(before, after);
+        }
+
+        /**
+         * Batch restoring the old values, with the new values as expected ones so it fails
+         * instead of overwriting a later edit.
+         * @param current collection to roll back, usually the published {@code after} or a later
+         *     collection keeping the same poms.
+         * @return rollback batch, ready to {@link PomTextBatch#apply apply}.
+         * @throws IllegalArgumentException when a changed pom or reference is missing from
+         *     {@code current}.
+         */
+        public PomTextBatch rollback(ParsedPomCollection current) {
+            PomTextBatch rollback = PomTextBatch.on(current);
+            for (int index = changes.size() - 1; index >= 0; index--) {
+                Change change = changes.get(index);
+                rollback.set(change.pomPath(), change.textId(), change.newValue(), change.oldValue());
+            }
+            return rollback;
+        }
+    }
+}
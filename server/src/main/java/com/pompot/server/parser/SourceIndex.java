@@ -0,0 +1,180 @@
+package com.pompot.server.parser;
+
+import com.pompot.server.pomgraph.SourcePosition;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Line table of a decoded pom that turns the line and column marks reported by StAX or recorded
+ * in Maven {@code InputLocation}s into {@link SourcePosition} byte spans. Only encodings that keep markup characters in one byte
+ * (UTF-8 and single-byte charsets) are supported.
+ */
+final class SourceIndex {
+
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    private final String file;
+    private final String text;
+    private final Charset charset;
+    private final int[] lineStarts;
+    private final long[] lineByteStarts;
+
+    private SourceIndex(String file, String text, Charset charset, long firstByte) {
+        this.file = file;
+        this.text = text;
+        this.charset = charset;
+
+        int[] starts = new int[16];
+        int lines = 1;
+        for (int index = 0; index < text.length(); index += 1) {
+            char current = text.charAt(index);
+            if (current == '\r' && index + 1 < text.length() && text.charAt(index + 1) == '\n') {
+                index += 1;
+            } else if (current != '\r' && current != '\n') {
+                continue;
+            }
+            if (lines == starts.length) {
+                starts = Arrays.copyOf(starts, lines * 2);
+            }
+            starts[lines] = index + 1;
+            lines += 1;
+        }
+        this.lineStarts = Arrays.copyOf(starts, lines);
+
+        this.lineByteStarts = new long[lines];
+        lineByteStarts[0] = firstByte;
+        for (int line = 1; line < lines; line += 1) {
+            lineByteStarts[line] = lineByteStarts[line - 1] + encodedLength(lineStarts[line - 1], lineStarts[line]);
+        }
+    }
+
+    /**
+     * Indexes the raw bytes of a pom.
+     * @param file absolute path recorded in every position.
+     * @param source raw pom bytes.
+     * @param encoding encoding reported by the XML reader; {@code null} means UTF-8.
+     * @return index, or {@code null} when the encoding is not supported.
+     */
+    static SourceIndex of(String file, byte[] source, String encoding) {
+        Charset charset;
+        try {
+            charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+        } catch (IllegalArgumentException exception) {
+            return null;
+        }
+        if (!StandardCharsets.UTF_8.equals(charset) && charset.newEncoder().maxBytesPerChar() != 1.0f) {
+            return null;
+        }
+
+        int firstByte = 0;
+        if (StandardCharsets.UTF_8.equals(charset)
+            && source.length >= UTF8_BOM.length
+            && Arrays.equals(source, 0, UTF8_BOM.length, UTF8_BOM, 0, UTF8_BOM.length)) {
+            firstByte = UTF8_BOM.length;
+        }
+        String text = new String(source, firstByte, source.length - firstByte, charset);
+        return new SourceIndex(file, text, charset, firstByte);
+    }
+
+    /**
+     * Locates the content of an element, without surrounding whitespace.
+     * @param startLine line right after the start tag.
+     * @param startColumn column right after the start tag.
+     * @param endLine line right after the end tag.
+     * @param endColumn column right after the end tag.
+     * @return position of the content, or {@code null} when the element is empty or the marks do
+     *     not fit the source.
+     */
+    SourcePosition element(int startLine, int startColumn, int endLine, int endColumn) {
+        int start = charOffset(startLine, startColumn);
+        int afterEndTag = charOffset(endLine, endColumn);
+        if (start < 0 || afterEndTag < 0) {
+            return null;
+        }
+
+        return span(start, text.lastIndexOf("</", afterEndTag - 1));
+    }
+
+    /**
+     * Locates the content of a leaf element from its start mark alone, such as a Maven
+     * {@code InputLocation}; the content ends at the next end tag.
+     * @param startLine line right after the start tag.
+     * @param startColumn column right after the start tag.
+     * @return position of the content, or {@code null} when the element is empty or the mark does
+     *     not fit the source.
+     */
+    SourcePosition content(int startLine, int startColumn) {
+        int start = charOffset(startLine, startColumn);
+        if (start < 0) {
+            return null;
+        }
+        return span(start, text.indexOf("</", start));
+    }
+
+    /**
+     * Trims the whitespace around the content between two character offsets.
+     */
+    private SourcePosition span(int start, int end) {
+        if (end < start) {
+            return null;
+        }
+        while (start < end && isWhitespace(text.charAt(start))) {
+            start += 1;
+        }
+        while (end > start && isWhitespace(text.charAt(end - 1))) {
+            end -= 1;
+        }
+        if (start == end) {
+            return null;
+        }
+
+        int line = lineOf(start);
+        long offset = byteOffset(line, start);
+        long length = byteOffset(lineOf(end), end) - offset;
+        return new SourcePosition(file, offset, Math.toIntExact(length), line + 1, start - lineStarts[line] + 1);
+    }
+
+    private int charOffset(int line, int column) {
+        if (line < 1 || line > lineStarts.length || column < 1) {
+            return -1;
+        }
+        int offset = lineStarts[line - 1] + column - 1;
+        return offset > text.length() ? -1 : offset;
+    }
+
+    private int lineOf(int offset) {
+        int found = Arrays.binarySearch(lineStarts, offset);
+        return found >= 0 ? found : -found - 2;
+    }
+
+    private long byteOffset(int line, int offset) {
+        return lineByteStarts[line] + encodedLength(lineStarts[line], offset);
+    }
+
+    private long encodedLength(int from, int to) {
+        if (!StandardCharsets.UTF_8.equals(charset)) {
+            return to - from;
+        }
+
+        long length = 0;
+        for (int index = from; index < to; index += 1) {
+            char current = text.charAt(index);
+            if (current < 0x80) {
+                length += 1;
+            } else if (current < 0x800) {
+                length += 2;
+            } else if (Character.isSurrogate(current)) {
+                // Each half of a pair accounts for two of the four bytes.
+                length += 2;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static boolean isWhitespace(char value) {
+        return value == ' ' || value == '\t' || value == '\n' || value == '\r';
+    }
+}
@@ -0,0 +1,17 @@
+package com.pompot.server.parser;
+
+import java.util.List;
+
+/**
+ * Everything {@link CommonValueExtractor} derives from one counting pass over a set of poms.
+ *
+ * @param commonValues values repeated across the poms.
+ * @param drift coordinates found with more than one value.
+ */
+public record ValueAnalysis(List<CommonValue> commonValues, List<ValueDrift> drift) {
+
+    public ValueAnalysis {
+        commonValues = List.copyOf(commonValues);
+        drift = List.copyOf(drift);
+    }
+}
@@ -0,0 +1,52 @@
+package com.pompot.server.parser;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import org.apache.maven.artifact.versioning.ComparableVersion;
+
+/**
+ * Coordinate whose value differs across parsed pom files, such as a dependency pinned to several
+ * versions. Built by {@link CommonValueExtractor} in the same pass as the {@link CommonValue}s.
+ *
+ * @param category logical group of the coordinate (for example {@code dependency}).
+ * @param identifier human readable name of the coordinate.
+ * @param values every distinct value found for the coordinate, in Maven version order; at least two.
+ */
+public record ValueDrift(String category, String identifier, List<Variant> values) {
+
+    /**
+     * Maven version order, as used by {@code versions:display-dependency-updates}; values that
+     * compare as equal, such as {@code utf-8} and {@code UTF-8}, are ordered by their text.
+     */
+    static final Comparator<Variant> VERSION_ORDER = Comparator
+        .comparing((Variant variant) -> new ComparableVersion(variant.value()))
+        .thenComparing(Variant::value);
+
+    public ValueDrift {
+        Objects.requireNonNull(category, "category");
+        Objects.requireNonNull(identifier, "identifier");
+        values = List.copyOf(values);
+        if (values.size() < 2) {
+            throw new IllegalArgumentException("A drift needs at least two values");
+        }
+    }
+
+    /**
+     * One value of a drifting coordinate.
+     *
+     * @param value value found in the poms.
+     * @param occurrences number of times the value appeared.
+     * @param poms ordinals of the poms holding the value, like {@link CommonValue#poms()}.
+     */
+    public record Variant(String value, int occurrences, PomSet poms) {
+
+        public Variant {
+            Objects.requireNonNull(value, "value");
+            Objects.requireNonNull(poms, "poms");
+            if (occurrences < 1) {
+                throw new IllegalArgumentException("occurrences must be positive");
+            }
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.pompot.server.parser;
+
+import com.pompot.server.pomgraph.GraphSnapshot;
+import com.pompot.server.pomgraph.TextGraph;
+import com.pompot.server.pomgraph.WorkspaceGraph;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Binary snapshot of a {@link ParsedPomCollection} written after a scan, so a restart or a CLI
+ * report can open the workspace without parsing any pom. Graphs, the strings and text references
+ * they use, coordinates, relative paths and common values are stored in one
+ * {@link GraphSnapshot} file that is memory-mapped on load; the graphs of a loaded collection
+ * read the mapped file directly. Snapshots carry no Maven models.
+ *
+ * <p>Each entry records the size and modification time its pom had, like a
+ * {@link PomParseCache} entry, and a snapshot is only loaded while every pom still matches.
+ */
+public class WorkspaceSnapshot {
+
+    /**
+     * Version of the record layout stored after the graphs. Bump it whenever
+     * {@link ParsedPomCollection} gains or loses persisted fields.
+     */
+    public static final int FORMAT_VERSION = 4;
+
+    /**
+     * Modification times this close to the start of the scan that wrote a snapshot are not
+     * trusted, since the pom could have changed while it was being parsed or within the timestamp
+     * granularity without changing size.
+     */
+    private static final long RACY_WINDOW_MILLIS = 2_000L;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkspaceSnapshot.class);
+
+    private final Path file;
+
+    /**
+     * Creates a snapshot stored in the provided file.
+     *
+     * @param file snapshot file; created on first save.
+     */
+    public WorkspaceSnapshot(Path file) {
+        this.file = file == null ? null : file.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Snapshot that is never written and never found.
+     *
+     * @return disabled snapshot.
+     */
+    public static WorkspaceSnapshot disabled() {
+        return new WorkspaceSnapshot(null);
+    }
+
+    /**
+     * Indicates whether collections are persisted.
+     *
+     * @return {@code true} when a snapshot file is configured.
+     */
+    public boolean isEnabled() {
+        return file != null;
+    }
+
+    /**
+     * Loads the collection stored for a scan root.
+     *
+     * @param root directory the collection must have been scanned from.
+     * @return stored collection; empty when disabled, missing, unreadable, written by another
+     *     version, scanned from another root, or when a pom it holds was modified or deleted
+     *     since.
+     */
+    public Optional<ParsedPomCollection> load(Path root) {
+        if (file == null || !Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+
+        try {
+            Stored stored = read(GraphSnapshot.open(file));
+            ParsedPomCollection collection = stored.collection();
+            if (!collection.scannedRoot().equals(root.toAbsolutePath().normalize().toString())) {
+                LOGGER.info("Ignoring snapshot {} of {}", file, collection.scannedRoot());
+                return Optional.empty();
+            }
+            String changed = stored.firstChangedPom();
+            if (changed != null) {
+                LOGGER.info("Ignoring snapshot {}: {} changed since it was written", file, changed);
+                return Optional.empty();
+            }
+            return Optional.of(collection);
+        } catch (IOException | RuntimeException exception) {
+            LOGGER.warn("Could not read snapshot {}; it will be rewritten after the next scan", file, exception);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Replaces the stored snapshot. Failures are logged and otherwise ignored, like a parse cache
+     * write.
+     *
+     * @param collection collection to store.
+     * @param scanStartedMillis time the scan that produced the collection started, in epoch
+     *     milliseconds; poms modified after it, or shortly before, make the snapshot stale.
+     */
+    public void save(ParsedPomCollection collection, long scanStartedMillis) {
+        if (file == null) {
+            return;
+        }
+
+        try {
+            GraphSnapshot.Writer writer = GraphSnapshot.writer();
+            List<Integer> records = new ArrayList<>();
+            records.add(FORMAT_VERSION);
+            records.add(writer.string(collection.scannedRoot()));
+            writeLong(scanStartedMillis, records);
+            records.add(collection.entries().size());
+            for (ParsedPom entry : collection.entries()) {
+                records.add(writer.string(entry.pomPath()));
+                records.add(writer.string(entry.relativePath()));
+                records.add(writer.string(entry.groupId()));
+                records.add(writer.string(entry.artifactId()));
+                records.add(writer.graph(entry.graph()));
+                writeFileState(Path.of(entry.pomPath()), records);
+            }
+            records.add(collection.commonValues().size());
+            for (CommonValue value : collection.commonValues()) {
+                records.add(writer.string(value.category()));
+                records.add(writer.string(value.identifier()));
+                records.add(writer.string(value.value()));
+                records.add(value.occurrences());
+                writePoms(value.poms(), records);
+            }
+            records.add(collection.drift().size());
+            for (ValueDrift drift : collection.drift()) {
+                records.add(writer.string(drift.category()));
+                records.add(writer.string(drift.identifier()));
+                records.add(drift.values().size());
+                for (ValueDrift.Variant variant : drift.values()) {
+                    records.add(writer.string(variant.value()));
+                    records.add(variant.occurrences());
+                    writePoms(variant.poms(), records);
+                }
+            }
+            writer.write(file, records.stream().mapToInt(Integer::intValue).toArray());
+        } catch (IOException | RuntimeException exception) {
+            LOGGER.warn("Could not write snapshot {}", file, exception);
+        }
+    }
+
+    private static Stored read(GraphSnapshot snapshot) {
+        IntBuffer records = snapshot.records();
+        int version = records.get();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported workspace snapshot version " + version);
+        }
+        String scannedRoot = snapshot.string(records.get());
+        long scanStartedMillis = readLong(records);
+
+        int entryCount = records.get();
+        List<ParsedPom> entries = new ArrayList<>(entryCount);
+        List<TextGraph> graphs = new ArrayList<>(entryCount);
+        List<FileState> states = new ArrayList<>(entryCount);
+        for (int index = 0; index < entryCount; index += 1) {
+            String pomPath = snapshot.string(records.get());
+            String relativePath = snapshot.string(records.get());
+            String groupId = snapshot.string(records.get());
+            String artifactId = snapshot.string(records.get());
+            TextGraph graph = snapshot.graph(records.get());
+            states.add(new FileState(pomPath, readLong(records), readLong(records)));
+            entries.add(new ParsedPom(pomPath, relativePath, groupId, artifactId, (PomModel) null, graph));
+            graphs.add(graph);
+        }
+
+        int valueCount = records.get();
+        List<CommonValue> commonValues = new ArrayList<>(valueCount);
+        for (int index = 0; index < valueCount; index += 1) {
+            String category = snapshot.string(records.get());
+            String identifier = snapshot.string(records.get());
+            String value = snapshot.string(records.get());
+            int occurrences = records.get();
+            commonValues.add(new CommonValue(category, identifier, value, occurrences, readPoms(records)));
+        }
+
+        int driftCount = records.get();
+        List<ValueDrift> drift = new ArrayList<>(driftCount);
+        for (int index = 0; index < driftCount; index += 1) {
+            String category = snapshot.string(records.get());
+            String identifier = snapshot.string(records.get());
+            int variantCount = records.get();
+            List<ValueDrift.Variant> variants = new ArrayList<>(variantCount);
+            for (int variant = 0; variant < variantCount; variant += 1) {
+                String value = snapshot.string(records.get());
+                int occurrences = records.get();
+                variants.add(new ValueDrift.Variant(value, occurrences, readPoms(records)));
+            }
+            drift.add(new ValueDrift(category, identifier, variants));
+        }
+        ParsedPomCollection collection =
+            new ParsedPomCollection(scannedRoot, entries, commonValues, drift, WorkspaceGraph.deferred(graphs));
+        return new Stored(collection, scanStartedMillis, states);
+    }
+
+    /**
+     * Records the size and modification time of a pom; a pom that cannot be read is recorded
+     * with a size of {@code -1}, so the snapshot is never loaded.
+     */
+    private static void writeFileState(Path pomFile, List<Integer> records) {
+        long size;
+        long modifiedMillis;
+        try {
+            size = Files.size(pomFile);
+            modifiedMillis = Files.getLastModifiedTime(pomFile).toMillis();
+        } catch (IOException exception) {
+            size = -1;
+            modifiedMillis = 0;
+        }
+        writeLong(size, records);
+        writeLong(modifiedMillis, records);
+    }
+
+    private static void writeLong(long value, List<Integer> records) {
+        records.add((int) (value >>> 32));
+        records.add((int) value);
+    }
+
+    private static long readLong(IntBuffer records) {
+        return ((long) records.get() << 32) | (records.get() & 0xFFFFFFFFL);
+    }
+
+    private static void writePoms(PomSet poms, List<Integer> records) {
+        long[] words = poms.words();
+        records.add(words.length);
+        for (long word : words) {
+            writeLong(word, records);
+        }
+    }
+
+    private static PomSet readPoms(IntBuffer records) {
+        long[] words = new long[records.get()];
+        for (int word = 0; word < words.length; word += 1) {
+            words[word] = readLong(records);
+        }
+        return PomSet.ofWords(words);
+    }
+
+    /**
+     * Collection read from a snapshot with the state its poms had when it was written.
+     */
+    private record Stored(ParsedPomCollection collection, long scanStartedMillis, List<FileState> states) {
+
+        /**
+         * Checks the recorded size and modification time of every entry against its pom.
+         * @return path of the first pom that is missing, differs or was modified too close to the
+         *     scan; {@code null} when every pom matches.
+         */
+        String firstChangedPom() {
+            for (FileState state : states) {
+                if (state.modifiedMillis() + RACY_WINDOW_MILLIS >= scanStartedMillis || !state.matchesDisk()) {
+                    return state.pomPath();
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Size and modification time a pom had when the snapshot was written.
+     */
+    private record FileState(String pomPath, long size, long modifiedMillis) {
+
+        boolean matchesDisk() {
+            Path pomFile = Path.of(pomPath);
+            try {
+                return Files.size(pomFile) == size && Files.getLastModifiedTime(pomFile).toMillis() == modifiedMillis;
+            } catch (IOException exception) {
+                return false;
+            }
+        }
+    }
+}
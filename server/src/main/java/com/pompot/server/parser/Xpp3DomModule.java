@@ -0,0 +1,97 @@
+package com.pompot.server.parser;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+/**
+ * Jackson module that writes plugin configurations ({@link Xpp3Dom}) directly to JSON. The output
+ * matches Jackson's bean serialization of a configuration with no parent links, but the tree is
+ * walked iteratively and the parent pointers are neither followed nor modified.
+ */
+final class Xpp3DomModule extends SimpleModule {
+
+    private static final long serialVersionUID = 1L;
+
+    Xpp3DomModule() {
+        super("pompot-xpp3dom");
+        addSerializer(Xpp3Dom.class, new Xpp3DomSerializer());
+    }
+
+    /**
+     * Writes each node as {@code name}, {@code value}, {@code parent} and {@code inputLocation}
+     * (both always {@code null}), {@code children}, {@code childCount} and {@code attributeNames}.
+     * Locations Maven records for {@link PomFileParser.Mode#FULL} graphs stay out of the JSON, so
+     * it matches a model read without them.
+     */
+    static final class Xpp3DomSerializer extends StdSerializer<Xpp3Dom> {
+
+        private static final long serialVersionUID = 1L;
+
+        Xpp3DomSerializer() {
+            super(Xpp3Dom.class);
+        }
+
+        @Override
+        public void serialize(Xpp3Dom root, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            Deque<Frame> open = new ArrayDeque<>();
+            open.push(start(root, generator));
+            while (!open.isEmpty()) {
+                Frame frame = open.peek();
+                if (frame.next < frame.children.length) {
+                    Xpp3Dom child = frame.children[frame.next++];
+                    if (child == null) {
+                        generator.writeNull();
+                    } else {
+                        open.push(start(child, generator));
+                    }
+                } else {
+                    finish(frame.node, generator);
+                    open.pop();
+                }
+            }
+        }
+
+        private static Frame start(Xpp3Dom node, JsonGenerator generator) throws IOException {
+            generator.writeStartObject(node);
+            generator.writeStringField("name", node.getName());
+            generator.writeStringField("value", node.getValue());
+            generator.writeNullField("parent");
+            generator.writeNullField("inputLocation");
+            generator.writeArrayFieldStart("children");
+            Xpp3Dom[] children = node.getChildren();
+            return new Frame(node, children == null ? new Xpp3Dom[0] : children);
+        }
+
+        private static void finish(Xpp3Dom node, JsonGenerator generator) throws IOException {
+            generator.writeEndArray();
+            generator.writeNumberField("childCount", node.getChildCount());
+            generator.writeArrayFieldStart("attributeNames");
+            for (String attributeName : node.getAttributeNames()) {
+                generator.writeString(attributeName);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Node whose {@code children} array is still open, with the index of the next child to write.
+     */
+    private static final class Frame {
+
+        private final Xpp3Dom node;
+        private final Xpp3Dom[] children;
+        private int next;
+
+        Frame(Xpp3Dom node, Xpp3Dom[] children) {
+            this.node = node;
+            this.children = children;
+        }
+    }
+}
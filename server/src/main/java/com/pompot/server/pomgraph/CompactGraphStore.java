@@ -0,0 +1,619 @@
+package com.pompot.server.pomgraph;
+
+import java.nio.IntBuffer;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * {@link GraphStore} packing a graph into one block of ints. Nodes are numbered in insertion order
+ * and their outgoing edges are stored in compressed sparse row form: the edges of node {@code n}
+ * occupy {@code edgeOffsets[n]} to {@code edgeOffsets[n + 1]} of the parallel edge sections.
+ * Relationship names and composite keys are interned into one string table and edges refer to
+ * them by index.
+ *
+ * <p>Edge payloads are encoded as ints: a value {@code v >= 0} is the text at index {@code v}; a
+ * negative value is the composite {@code -v - 1}, whose children are stored in the same CSR form.
+ * {@link GraphNode}, {@link GraphEdge} and {@link GraphValue} objects are created on access and
+ * not retained, so callers must compare nodes with {@code equals} rather than identity.
+ *
+ * <p>Strings and references are not part of the block: node ids, strings and texts are resolved
+ * through lookup functions by number. A packed graph resolves them against its own arrays. An
+ * {@linkplain #export exported} block is followed by name and text codes, which a
+ * {@link GraphSnapshot} resolves against the tables of the snapshot file whose mapped bytes back
+ * the block directly.
+ */
+final class CompactGraphStore implements GraphStore {
+
+    private static final int NODE_COUNT = 0;
+    private static final int EDGE_COUNT = 1;
+    private static final int STRING_COUNT = 2;
+    private static final int COMPOSITE_COUNT = 3;
+    private static final int SLOT_COUNT = 4;
+    private static final int TEXT_COUNT = 5;
+    private static final int REGISTERED_TEXTS = 6;
+    private static final int HEADER = 7;
+
+    private final IntBuffer data;
+    private final IntFunction<String> nodeIds;
+    private final IntFunction<TextReference> references;
+    private final int nodeCount;
+    private final int stringCount;
+    private final int textCount;
+    private final int registeredTexts;
+    private final int nodesById;
+    private final int edgeOffsets;
+    private final int edgeSources;
+    private final int edgeTargets;
+    private final int edgeRelationships;
+    private final int edgeValues;
+    private final int incomingOffsets;
+    private final int incomingEdges;
+    private final int relationshipOffsets;
+    private final int relationshipEdges;
+    private final int compositeOffsets;
+    private final int compositeKeys;
+    private final int compositeValues;
+    private final String[] strings;
+
+    private CompactGraphStore(
+        IntBuffer data,
+        IntFunction<String> nodeIds,
+        IntFunction<String> strings,
+        IntFunction<TextReference> references
+    ) {
+        this.data = data;
+        this.nodeIds = nodeIds;
+        this.references = references;
+        this.nodeCount = data.get(NODE_COUNT);
+        this.stringCount = data.get(STRING_COUNT);
+        this.textCount = data.get(TEXT_COUNT);
+        this.registeredTexts = data.get(REGISTERED_TEXTS);
+        int edgeCount = data.get(EDGE_COUNT);
+        int compositeCount = data.get(COMPOSITE_COUNT);
+        int slotCount = data.get(SLOT_COUNT);
+
+        this.nodesById = HEADER;
+        this.edgeOffsets = nodesById + nodeCount;
+        this.edgeSources = edgeOffsets + nodeCount + 1;
+        this.edgeTargets = edgeSources + edgeCount;
+        this.edgeRelationships = edgeTargets + edgeCount;
+        this.edgeValues = edgeRelationships + edgeCount;
+        this.incomingOffsets = edgeValues + edgeCount;
+        this.incomingEdges = incomingOffsets + nodeCount + 1;
+        this.relationshipOffsets = incomingEdges + edgeCount;
+        this.relationshipEdges = relationshipOffsets + stringCount + 1;
+        this.compositeOffsets = relationshipEdges + edgeCount;
+        this.compositeKeys = compositeOffsets + compositeCount + 1;
+        this.compositeValues = compositeKeys + slotCount;
+        if (compositeValues + slotCount != data.limit()) {
+            throw new IllegalArgumentException("Graph block has " + data.limit() + " ints, expected " + (compositeValues + slotCount));
+        }
+
+        // Relationship names and composite keys are read on every edge, and a graph only has a
+        // few of them, so they are resolved once instead of through the lookup each time.
+        this.strings = new String[stringCount];
+        for (int code = 0; code < stringCount; code += 1) {
+            this.strings[code] = strings.apply(code);
+        }
+    }
+
+    /**
+     * Packs the nodes, edges and references of a graph.
+     * @param nodes nodes in insertion order.
+     * @param texts references registered with the graph.
+     * @return compact copy of the graph sharing the {@link TextReference} instances.
+     */
+    static CompactGraphStore of(Collection<GraphNode> nodes, Collection<TextReference> texts) {
+        Packer packer = new Packer(nodes, texts);
+        String[] nodeIds = packer.nodeIds;
+        String[] strings = packer.strings.toArray(new String[0]);
+        TextReference[] references = packer.texts.toArray(new TextReference[0]);
+        return new CompactGraphStore(
+            IntBuffer.wrap(packer.block()),
+            node -> nodeIds[node],
+            code -> strings[code],
+            index -> references[index]
+        );
+    }
+
+    /**
+     * Reads ints written by {@link #export}. The buffer is used as is, so ints mapped from a file
+     * are never copied.
+     *
+     * @param exported ints of one graph, starting at index zero.
+     * @param names resolves the recorded name codes.
+     * @param references resolves the recorded text codes.
+     * @return store viewing the buffer.
+     * @throws IllegalArgumentException when the buffer length does not match its header.
+     */
+    static CompactGraphStore view(IntBuffer exported, IntFunction<String> names, IntFunction<TextReference> references) {
+        if (exported.limit() < HEADER) {
+            throw new IllegalArgumentException("Graph block is truncated");
+        }
+        int nodeCount = exported.get(NODE_COUNT);
+        int stringCount = exported.get(STRING_COUNT);
+        int textCount = exported.get(TEXT_COUNT);
+        int blockLength = exported.limit() - nodeCount - stringCount - textCount;
+        if (nodeCount < 0 || stringCount < 0 || textCount < 0 || blockLength < HEADER) {
+            throw new IllegalArgumentException("Graph block is truncated");
+        }
+        IntBuffer codes = exported.slice(blockLength, exported.limit() - blockLength);
+        return new CompactGraphStore(
+            exported.slice(0, blockLength),
+            node -> names.apply(codes.get(node)),
+            code -> names.apply(codes.get(nodeCount + code)),
+            index -> references.apply(codes.get(nodeCount + stringCount + index))
+        );
+    }
+
+    /**
+     * Copies the block followed by a code for every node id, string and text, so it can be read
+     * back by {@link #view} against other tables.
+     *
+     * @param nameCodes code to record for each node id and string.
+     * @param textCodes code to record for each reference.
+     * @return ints of the graph.
+     */
+    int[] export(ToIntFunction<String> nameCodes, ToIntFunction<TextReference> textCodes) {
+        int[] exported = new int[data.limit() + nodeCount + stringCount + textCount];
+        data.get(0, exported, 0, data.limit());
+        int position = data.limit();
+        for (int node = 0; node < nodeCount; node += 1) {
+            exported[position++] = nameCodes.applyAsInt(nodeId(node));
+        }
+        for (int code = 0; code < stringCount; code += 1) {
+            exported[position++] = nameCodes.applyAsInt(string(code));
+        }
+        for (int index = 0; index < textCount; index += 1) {
+            exported[position++] = textCodes.applyAsInt(text(index));
+        }
+        return exported;
+    }
+
+    /**
+     * Counting sort of edge indexes by a per-edge key, writing each key's run start to
+     * {@code block[offsets..]} and the grouped edges to {@code block[grouped..]}. Edges keep their
+     * order within a run.
+     */
+    private static void groupEdges(int[] block, int keys, int edgeCount, int offsets, int keyCount, int grouped) {
+        for (int edge = 0; edge < edgeCount; edge += 1) {
+            block[offsets + block[keys + edge] + 1] += 1;
+        }
+        for (int key = 1; key <= keyCount; key += 1) {
+            block[offsets + key] += block[offsets + key - 1];
+        }
+        int[] next = Arrays.copyOfRange(block, offsets, offsets + keyCount);
+        for (int edge = 0; edge < edgeCount; edge += 1) {
+            block[grouped + next[block[keys + edge]]++] = edge;
+        }
+    }
+
+    @Override
+    public GraphNode node(String id) {
+        int low = 0;
+        int high = nodeCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int node = data.get(nodesById + middle);
+            int comparison = nodeId(node).compareTo(id);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return node(node);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Collection<GraphNode> nodes() {
+        return new AbstractList<>() {
+            @Override
+            public GraphNode get(int index) {
+                return node(index);
+            }
+
+            @Override
+            public int size() {
+                return nodeCount;
+            }
+        };
+    }
+
+    @Override
+    public Collection<TextReference> texts() {
+        return new AbstractList<>() {
+            @Override
+            public TextReference get(int index) {
+                return text(index);
+            }
+
+            @Override
+            public int size() {
+                return registeredTexts;
+            }
+        };
+    }
+
+    @Override
+    public List<GraphEdge> edges(String relationship) {
+        int code = stringCode(relationship);
+        if (code < 0) {
+            return List.of();
+        }
+        return edgeList(relationshipEdges, at(relationshipOffsets, code), at(relationshipOffsets, code + 1), null);
+    }
+
+    @Override
+    public List<GraphEdge> edgesReferencing(Set<TextReference> references) {
+        BitSet wanted = new BitSet(textCount);
+        for (int index = 0; index < textCount; index += 1) {
+            if (references.contains(text(index))) {
+                wanted.set(index);
+            }
+        }
+        if (wanted.isEmpty()) {
+            return List.of();
+        }
+
+        List<GraphEdge> found = new ArrayList<>();
+        for (int node = 0; node < nodeCount; node += 1) {
+            GraphNode source = null;
+            for (int edge = at(edgeOffsets, node); edge < at(edgeOffsets, node + 1); edge += 1) {
+                if (holdsAny(at(edgeValues, edge), wanted)) {
+                    source = source == null ? node(node) : source;
+                    found.add(edge(edge, source));
+                }
+            }
+        }
+        return Collections.unmodifiableList(found);
+    }
+
+    /**
+     * Outgoing edges of a node view.
+     * @param source view of the node.
+     * @param node node number.
+     * @return edges in insertion order.
+     */
+    List<GraphEdge> outgoing(GraphNode source, int node) {
+        int from = at(edgeOffsets, node);
+        int to = at(edgeOffsets, node + 1);
+        List<GraphEdge> edges = new ArrayList<>(to - from);
+        for (int edge = from; edge < to; edge += 1) {
+            edges.add(edge(edge, source));
+        }
+        return Collections.unmodifiableList(edges);
+    }
+
+    /**
+     * Outgoing edges of a node view with one relationship.
+     * @param source view of the node.
+     * @param node node number.
+     * @param relationship relationship to keep.
+     * @return matching edges in insertion order.
+     */
+    List<GraphEdge> outgoing(GraphNode source, int node, String relationship) {
+        int code = stringCode(relationship);
+        if (code < 0) {
+            return List.of();
+        }
+        List<GraphEdge> edges = new ArrayList<>();
+        for (int edge = at(edgeOffsets, node); edge < at(edgeOffsets, node + 1); edge += 1) {
+            if (at(edgeRelationships, edge) == code) {
+                edges.add(edge(edge, source));
+            }
+        }
+        return Collections.unmodifiableList(edges);
+    }
+
+    /**
+     * Edges pointing at a node.
+     * @param node node number.
+     * @return edges in the order their sources were added.
+     */
+    List<GraphEdge> incoming(int node) {
+        return edgeList(incomingEdges, at(incomingOffsets, node), at(incomingOffsets, node + 1), null);
+    }
+
+    private List<GraphEdge> edgeList(int section, int from, int to, GraphNode source) {
+        List<GraphEdge> edges = new ArrayList<>(to - from);
+        for (int position = from; position < to; position += 1) {
+            edges.add(edge(at(section, position), source));
+        }
+        return Collections.unmodifiableList(edges);
+    }
+
+    private GraphEdge edge(int edge, GraphNode source) {
+        GraphNode from = source == null ? node(at(edgeSources, edge)) : source;
+        return new GraphEdge(
+            from,
+            node(at(edgeTargets, edge)),
+            string(at(edgeRelationships, edge)),
+            value(at(edgeValues, edge))
+        );
+    }
+
+    private GraphNode node(int node) {
+        return new GraphNode(this, node, nodeId(node));
+    }
+
+    private GraphValue value(int code) {
+        if (code >= 0) {
+            return GraphValue.text(text(code));
+        }
+        return new GraphValue.Composite(new Children(-code - 1), true);
+    }
+
+    private boolean holdsAny(int code, BitSet wanted) {
+        if (code >= 0) {
+            return wanted.get(code);
+        }
+        int composite = -code - 1;
+        for (int child = at(compositeOffsets, composite); child < at(compositeOffsets, composite + 1); child += 1) {
+            if (holdsAny(at(compositeValues, child), wanted)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int at(int section, int index) {
+        return data.get(section + index);
+    }
+
+    private String nodeId(int node) {
+        return nodeIds.apply(node);
+    }
+
+    private String string(int code) {
+        return strings[code];
+    }
+
+    private int stringCode(Object value) {
+        for (int code = 0; code < strings.length; code += 1) {
+            if (strings[code].equals(value)) {
+                return code;
+            }
+        }
+        return -1;
+    }
+
+    private TextReference text(int index) {
+        return references.apply(index);
+    }
+
+    /**
+     * Read-only map over the children of one composite. Lookups scan the composite's slice of the
+     * key section instead of materializing every child.
+     */
+    private final class Children extends AbstractMap<String, GraphValue> {
+
+        private final int composite;
+
+        Children(int composite) {
+            this.composite = composite;
+        }
+
+        @Override
+        public GraphValue get(Object key) {
+            int code = key instanceof String ? stringCode(key) : -1;
+            if (code < 0) {
+                return null;
+            }
+            for (int child = at(compositeOffsets, composite); child < at(compositeOffsets, composite + 1); child += 1) {
+                if (at(compositeKeys, child) == code) {
+                    return value(at(compositeValues, child));
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return at(compositeOffsets, composite + 1) - at(compositeOffsets, composite);
+        }
+
+        @Override
+        public Set<Map.Entry<String, GraphValue>> entrySet() {
+            Map<String, GraphValue> children = new LinkedHashMap<>();
+            for (int child = at(compositeOffsets, composite); child < at(compositeOffsets, composite + 1); child += 1) {
+                children.put(string(at(compositeKeys, child)), value(at(compositeValues, child)));
+            }
+            return Collections.unmodifiableMap(children).entrySet();
+        }
+    }
+
+    /**
+     * Converts the object graph into the block read by the store.
+     */
+    private static final class Packer {
+
+        private final String[] nodeIds;
+        private final int[] edgeOffsets;
+        private final IntList edgeTargets = new IntList();
+        private final IntList edgeRelationships = new IntList();
+        private final IntList edgeValues = new IntList();
+        private final IntList compositeOffsets = new IntList();
+        private final IntList compositeKeys = new IntList();
+        private final IntList compositeValues = new IntList();
+        private final List<String> strings = new ArrayList<>();
+        private final Map<String, Integer> stringCodes = new HashMap<>();
+        private final List<TextReference> texts = new ArrayList<>();
+        private final Map<TextReference, Integer> textCodes = new IdentityHashMap<>();
+        private final int registeredTexts;
+
+        Packer(Collection<GraphNode> nodes, Collection<TextReference> registered) {
+            for (TextReference text : registered) {
+                textCode(text);
+            }
+            this.registeredTexts = texts.size();
+
+            Map<String, Integer> nodeNumbers = new HashMap<>();
+            this.nodeIds = new String[nodes.size()];
+            for (GraphNode node : nodes) {
+                nodeIds[nodeNumbers.size()] = node.id();
+                nodeNumbers.put(node.id(), nodeNumbers.size());
+            }
+
+            this.edgeOffsets = new int[nodeIds.length + 1];
+            compositeOffsets.add(0);
+            int number = 0;
+            for (GraphNode node : nodes) {
+                for (GraphEdge edge : node.edges()) {
+                    Integer target = nodeNumbers.get(edge.target().id());
+                    if (target == null) {
+                        throw new IllegalArgumentException("Edge target " + edge.target().id() + " is not in the graph");
+                    }
+                    edgeTargets.add(target);
+                    edgeRelationships.add(stringCode(edge.relationship()));
+                    edgeValues.add(valueCode(edge.value()));
+                }
+                number += 1;
+                edgeOffsets[number] = edgeTargets.size();
+            }
+        }
+
+        /**
+         * Lays out the block: header, nodes sorted by id, outgoing edges, the incoming and
+         * relationship indexes, then composites.
+         */
+        int[] block() {
+            int nodeCount = nodeIds.length;
+            int edgeCount = edgeTargets.size();
+            int stringCount = strings.size();
+            int compositeCount = compositeOffsets.size() - 1;
+            int slotCount = compositeKeys.size();
+            int[] block = new int[HEADER
+                + nodeCount
+                + nodeCount + 1 + 4 * edgeCount
+                + nodeCount + 1 + edgeCount + stringCount + 1 + edgeCount
+                + compositeCount + 1 + 2 * slotCount];
+            block[NODE_COUNT] = nodeCount;
+            block[EDGE_COUNT] = edgeCount;
+            block[STRING_COUNT] = stringCount;
+            block[COMPOSITE_COUNT] = compositeCount;
+            block[SLOT_COUNT] = slotCount;
+            block[TEXT_COUNT] = texts.size();
+            block[REGISTERED_TEXTS] = registeredTexts;
+
+            int position = HEADER;
+            Integer[] order = new Integer[nodeCount];
+            for (int node = 0; node < nodeCount; node += 1) {
+                order[node] = node;
+            }
+            Arrays.sort(order, (left, right) -> nodeIds[left].compareTo(nodeIds[right]));
+            for (Integer node : order) {
+                block[position++] = node;
+            }
+
+            System.arraycopy(edgeOffsets, 0, block, position, nodeCount + 1);
+            position += nodeCount + 1;
+            int sources = position;
+            for (int node = 0; node < nodeCount; node += 1) {
+                Arrays.fill(block, sources + edgeOffsets[node], sources + edgeOffsets[node + 1], node);
+            }
+            position += edgeCount;
+            int targets = position;
+            position = edgeTargets.copyTo(block, position);
+            int relationships = position;
+            position = edgeRelationships.copyTo(block, position);
+            position = edgeValues.copyTo(block, position);
+
+            groupEdges(block, targets, edgeCount, position, nodeCount, position + nodeCount + 1);
+            position += nodeCount + 1 + edgeCount;
+            groupEdges(block, relationships, edgeCount, position, stringCount, position + stringCount + 1);
+            position += stringCount + 1 + edgeCount;
+
+            position = compositeOffsets.copyTo(block, position);
+            position = compositeKeys.copyTo(block, position);
+            compositeValues.copyTo(block, position);
+            return block;
+        }
+
+        private int valueCode(GraphValue value) {
+            if (value.text().isPresent()) {
+                return textCode(value.text().get());
+            }
+
+            Map<String, GraphValue> children = value.children();
+            int composite = compositeOffsets.size() - 1;
+            int start = compositeKeys.size();
+            compositeOffsets.add(start + children.size());
+            for (int child = 0; child < children.size(); child += 1) {
+                compositeKeys.add(0);
+                compositeValues.add(0);
+            }
+            int slot = start;
+            for (Map.Entry<String, GraphValue> child : children.entrySet()) {
+                compositeKeys.set(slot, stringCode(child.getKey()));
+                compositeValues.set(slot, valueCode(child.getValue()));
+                slot += 1;
+            }
+            return -composite - 1;
+        }
+
+        private int stringCode(String value) {
+            return stringCodes.computeIfAbsent(value, key -> {
+                strings.add(key);
+                return strings.size() - 1;
+            });
+        }
+
+        private int textCode(TextReference text) {
+            return textCodes.computeIfAbsent(text, key -> {
+                texts.add(key);
+                return texts.size() - 1;
+            });
+        }
+    }
+
+    /**
+     * Growable int array.
+     */
+    private static final class IntList {
+
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size] = value;
+            size += 1;
+        }
+
+        void set(int index, int value) {
+            values[index] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int copyTo(int[] target, int position) {
+            System.arraycopy(values, 0, target, position, size);
+            return position + size;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.pompot.server.pomgraph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Differences between two {@link TextGraph}s: nodes and edges that were added or removed and
+ * payload values that changed. Equal {@linkplain TextGraph#fingerprint() fingerprints} are only a
+ * hint: such graphs are confirmed by walking both in lockstep, which allocates nothing, and fall
+ * back to the full comparison when a collision hid a difference.
+ *
+ * <p>Nodes are matched by identifier. Edges are matched by source, relationship and target; when
+ * a node has several such edges, they are paired in order. A matched edge whose payload differs
+ * reports one {@link ValueChange} per differing text, addressed by its path in the payload.
+ */
+public final class GraphDiff {
+
+    private final List<String> addedNodes;
+    private final List<String> removedNodes;
+    private final List<GraphEdge> addedEdges;
+    private final List<GraphEdge> removedEdges;
+    private final List<ValueChange> changedValues;
+
+    private GraphDiff(
+        List<String> addedNodes,
+        List<String> removedNodes,
+        List<GraphEdge> addedEdges,
+        List<GraphEdge> removedEdges,
+        List<ValueChange> changedValues
+    ) {
+        this.addedNodes = Collections.unmodifiableList(addedNodes);
+        this.removedNodes = Collections.unmodifiableList(removedNodes);
+        this.addedEdges = Collections.unmodifiableList(addedEdges);
+        this.removedEdges = Collections.unmodifiableList(removedEdges);
+        this.changedValues = Collections.unmodifiableList(changedValues);
+    }
+
+    /**
+     * Compares two graphs.
+     * @param before earlier graph.
+     * @param after later graph.
+     * @return differences from {@code before} to {@code after}.
+     */
+    public static GraphDiff between(TextGraph before, TextGraph after) {
+        Objects.requireNonNull(before, "before");
+        Objects.requireNonNull(after, "after");
+        if (before == after || before.fingerprint() == after.fingerprint() && sameContent(before, after)) {
+            return new GraphDiff(List.of(), List.of(), List.of(), List.of(), List.of());
+        }
+
+        Set<String> beforeIds = new LinkedHashSet<>();
+        for (GraphNode node : before.nodes()) {
+            beforeIds.add(node.id());
+        }
+        List<String> addedNodes = new ArrayList<>();
+        for (GraphNode node : after.nodes()) {
+            if (!beforeIds.remove(node.id())) {
+                addedNodes.add(node.id());
+            }
+        }
+        List<String> removedNodes = new ArrayList<>(beforeIds);
+
+        Map<EdgeKey, List<GraphEdge>> beforeEdges = group(before);
+        Map<EdgeKey, List<GraphEdge>> afterEdges = group(after);
+        List<GraphEdge> addedEdges = new ArrayList<>();
+        List<GraphEdge> removedEdges = new ArrayList<>();
+        List<ValueChange> changedValues = new ArrayList<>();
+        for (Map.Entry<EdgeKey, List<GraphEdge>> entry : beforeEdges.entrySet()) {
+            List<GraphEdge> earlier = entry.getValue();
+            List<GraphEdge> later = afterEdges.getOrDefault(entry.getKey(), List.of());
+            int paired = Math.min(earlier.size(), later.size());
+            for (int index = 0; index < paired; index++) {
+                compare(earlier.get(index), later.get(index), changedValues);
+            }
+            removedEdges.addAll(earlier.subList(paired, earlier.size()));
+        }
+        for (Map.Entry<EdgeKey, List<GraphEdge>> entry : afterEdges.entrySet()) {
+            List<GraphEdge> later = entry.getValue();
+            int paired = Math.min(beforeEdges.getOrDefault(entry.getKey(), List.of()).size(), later.size());
+            addedEdges.addAll(later.subList(paired, later.size()));
+        }
+        return new GraphDiff(addedNodes, removedNodes, addedEdges, removedEdges, changedValues);
+    }
+
+    /**
+     * Identifiers of the nodes only present in the later graph.
+     * @return identifiers in the later graph's order.
+     */
+    public List<String> addedNodes() {
+        return addedNodes;
+    }
+
+    /**
+     * Identifiers of the nodes only present in the earlier graph.
+     * @return identifiers in the earlier graph's order.
+     */
+    public List<String> removedNodes() {
+        return removedNodes;
+    }
+
+    /**
+     * Edges of the later graph without a counterpart in the earlier one.
+     * @return edges in node order.
+     */
+    public List<GraphEdge> addedEdges() {
+        return addedEdges;
+    }
+
+    /**
+     * Edges of the earlier graph without a counterpart in the later one.
+     * @return edges in node order.
+     */
+    public List<GraphEdge> removedEdges() {
+        return removedEdges;
+    }
+
+    /**
+     * Texts that differ between matched edges.
+     * @return changes in the earlier graph's edge order.
+     */
+    public List<ValueChange> changedValues() {
+        return changedValues;
+    }
+
+    /**
+     * Whether both graphs hold the same content.
+     * @return {@code true} when nothing was added, removed or changed.
+     */
+    public boolean isEmpty() {
+        return addedNodes.isEmpty()
+            && removedNodes.isEmpty()
+            && addedEdges.isEmpty()
+            && removedEdges.isEmpty()
+            && changedValues.isEmpty();
+    }
+
+    /**
+     * Whether both graphs hold the same nodes, edges in order and payload values, the content a
+     * {@link TextGraph#fingerprint()} hashes.
+     * @param before earlier graph.
+     * @param after later graph.
+     * @return {@code true} when the graphs cannot be told apart by content.
+     */
+    static boolean sameContent(TextGraph before, TextGraph after) {
+        if (before.nodes().size() != after.nodes().size()) {
+            return false;
+        }
+        Iterator<GraphNode> later = after.nodes().iterator();
+        for (GraphNode earlier : before.nodes()) {
+            GraphNode node = later.next();
+            if (!earlier.id().equals(node.id())) {
+                return false;
+            }
+            if (earlier.edges().size() != node.edges().size()) {
+                return false;
+            }
+            Iterator<GraphEdge> laterEdges = node.edges().iterator();
+            for (GraphEdge edge : earlier.edges()) {
+                GraphEdge other = laterEdges.next();
+                if (!edge.relationship().equals(other.relationship())
+                    || !edge.target().id().equals(other.target().id())
+                    || !sameValue(edge.value(), other.value())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameValue(GraphValue before, GraphValue after) {
+        Optional<TextReference> text = before.text();
+        Optional<TextReference> other = after.text();
+        if (text.isPresent() || other.isPresent()) {
+            return text.isPresent() && other.isPresent() && text.get().value().equals(other.get().value());
+        }
+        Map<String, GraphValue> children = before.children();
+        Map<String, GraphValue> otherChildren = after.children();
+        if (children.size() != otherChildren.size()) {
+            return false;
+        }
+        Iterator<Map.Entry<String, GraphValue>> later = otherChildren.entrySet().iterator();
+        for (Map.Entry<String, GraphValue> child : children.entrySet()) {
+            Map.Entry<String, GraphValue> otherChild = later.next();
+            if (!child.getKey().equals(otherChild.getKey()) || !sameValue(child.getValue(), otherChild.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Map<EdgeKey, List<GraphEdge>> group(TextGraph graph) {
+        Map<EdgeKey, List<GraphEdge>> grouped = new LinkedHashMap<>();
+        for (GraphNode node : graph.nodes()) {
+            for (GraphEdge edge : node.edges()) {
+                EdgeKey key = new EdgeKey(node.id(), edge.relationship(), edge.target().id());
+                grouped.computeIfAbsent(key, ignored -> new ArrayList<>()).add(edge);
+            }
+        }
+        return grouped;
+    }
+
+    private static void compare(GraphEdge before, GraphEdge after, List<ValueChange> changes) {
+        Map<String, String> earlier = new LinkedHashMap<>();
+        flatten("", before.value(), earlier);
+        Map<String, String> later = new LinkedHashMap<>();
+        flatten("", after.value(), later);
+        if (earlier.equals(later)) {
+            return;
+        }
+        for (Map.Entry<String, String> value : earlier.entrySet()) {
+            String newValue = later.get(value.getKey());
+            if (!value.getValue().equals(newValue)) {
+                changes.add(new ValueChange(before, after, value.getKey(), value.getValue(), newValue));
+            }
+        }
+        for (Map.Entry<String, String> value : later.entrySet()) {
+            if (!earlier.containsKey(value.getKey())) {
+                changes.add(new ValueChange(before, after, value.getKey(), null, value.getValue()));
+            }
+        }
+    }
+
+    private static void flatten(String path, GraphValue value, Map<String, String> values) {
+        Optional<TextReference> text = value.text();
+        if (text.isPresent()) {
+            values.put(path, text.get().value().value());
+            return;
+        }
+        for (Map.Entry<String, GraphValue> child : value.children().entrySet()) {
+            flatten(path.isEmpty() ? child.getKey() : path + "." + child.getKey(), child.getValue(), values);
+        }
+    }
+
+    private record EdgeKey(String source, String relationship, String target) {
+    }
+
+    /**
+     * One text that differs between two matched edges.
+     *
+     * @param before edge of the earlier graph.
+     * @param after edge of the later graph.
+     * @param path dot-separated keys leading to the text in the payload, such as {@code version};
+     *     empty for a textual payload.
+     * @param oldValue earlier value; {@code null} when the path is new.
+     * @param newValue later value; {@code null} when the path was removed.
+     */
+    public record ValueChange(GraphEdge before, GraphEdge after, String path, String oldValue, String newValue) {
+    }
+}
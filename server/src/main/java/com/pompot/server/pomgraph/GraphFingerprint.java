@@ -0,0 +1,70 @@
+package com.pompot.server.pomgraph;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 64-bit FNV-1a hash of the content of a graph: node identifiers, edges in order and the current
+ * values of their payloads. Reference identifiers and source positions are left out, so a pom
+ * parsed again without content changes hashes the same.
+ */
+final class GraphFingerprint {
+
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+    private static final int NODE = 1;
+    private static final int EDGE = 2;
+    private static final int TEXT = 3;
+    private static final int COMPOSITE = 4;
+
+    private long hash = OFFSET_BASIS;
+
+    private GraphFingerprint() {
+    }
+
+    /**
+     * Hashes nodes and their outgoing edges.
+     * @param nodes nodes of a graph in insertion order.
+     * @return content fingerprint.
+     */
+    static long of(Collection<GraphNode> nodes) {
+        GraphFingerprint fingerprint = new GraphFingerprint();
+        for (GraphNode node : nodes) {
+            fingerprint.mix(NODE).add(node.id());
+            for (GraphEdge edge : node.edges()) {
+                fingerprint.mix(EDGE).add(edge.relationship()).add(edge.target().id()).add(edge.value());
+            }
+        }
+        return fingerprint.hash;
+    }
+
+    private GraphFingerprint add(GraphValue value) {
+        Optional<TextReference> text = value.text();
+        if (text.isPresent()) {
+            return mix(TEXT).add(text.get().value().value());
+        }
+        Map<String, GraphValue> children = value.children();
+        mix(COMPOSITE).mix(children.size());
+        for (Map.Entry<String, GraphValue> child : children.entrySet()) {
+            add(child.getKey()).add(child.getValue());
+        }
+        return this;
+    }
+
+    /**
+     * Strings are prefixed with their length so adjacent strings cannot shift into each other.
+     */
+    private GraphFingerprint add(String value) {
+        mix(value.length());
+        for (int index = 0; index < value.length(); index++) {
+            mix(value.charAt(index));
+        }
+        return this;
+    }
+
+    private GraphFingerprint mix(int value) {
+        hash = (hash ^ value) * PRIME;
+        return this;
+    }
+}
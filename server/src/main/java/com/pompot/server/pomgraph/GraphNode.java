@@ -10,16 +10,54 @@ import java.util.Objects;
 
 /**
  * Node stored in the {@link TextGraph}. It keeps track of outgoing edges grouped
- * by relationship name.
+ * by relationship name and of the edges pointing at it. Edges can only be added
+ * while the owning graph is being built; afterwards the node is frozen.
+ *
+ * <p>Nodes of a {@link TextGraph.ConcurrentBuilder} receive their edges when the graph is
+ * built; until then they reject {@link #connect} since edges are recorded by the builder's
+ * parts instead.
+ *
+ * <p>Nodes of a compact graph are views over its arrays, created on access; two
+ * views of the same node are {@link #equals(Object) equal} but not identical.
  */
 public final class GraphNode {
 
     private final String id;
     private final Map<String, List<GraphEdge>> edges;
+    private List<GraphEdge> incoming;
+    private List<GraphEdge> frozenEdges;
+    private Pending owner;
+    private final CompactGraphStore compact;
+    private final int index;
 
     GraphNode(String id) {
         this.id = Objects.requireNonNull(id, "id").trim();
         this.edges = new LinkedHashMap<>();
+        this.incoming = new ArrayList<>();
+        this.compact = null;
+        this.index = -1;
+    }
+
+    /**
+     * Creates a node owned by a concurrent builder. It rejects {@link #connect} and reports no
+     * edges until the builder installs them and freezes it.
+     * @param id identifier of the node.
+     * @param owner token of the owning builder.
+     * @return pending node.
+     */
+    static GraphNode pending(String id, Pending owner) {
+        GraphNode node = new GraphNode(id);
+        node.owner = owner;
+        return node;
+    }
+
+    GraphNode(CompactGraphStore compact, int index, String id) {
+        this.id = id;
+        this.edges = Map.of();
+        this.incoming = List.of();
+        this.frozenEdges = List.of();
+        this.compact = compact;
+        this.index = index;
     }
 
     /**
@@ -50,10 +88,14 @@ public final class GraphNode {
      * @param target node that receives the connection.
      * @param value payload shared by the edge.
      * @return created edge instance.
+     * @throws UnsupportedOperationException when this node or the target belongs to a built graph.
      */
     public GraphEdge connect(String relationship, GraphNode target, GraphValue value) {
+        ensureOpen();
         GraphEdge edge = new GraphEdge(this, target, relationship, value);
+        target.ensureOpen();
         edges.computeIfAbsent(edge.relationship(), key -> new ArrayList<>()).add(edge);
+        target.incoming.add(edge);
         return edge;
     }
 
@@ -62,6 +104,12 @@ public final class GraphNode {
      * @return immutable snapshot of outgoing edges.
      */
     public Collection<GraphEdge> edges() {
+        if (compact != null) {
+            return compact.outgoing(this, index);
+        }
+        if (frozenEdges != null) {
+            return frozenEdges;
+        }
         List<GraphEdge> collected = new ArrayList<>();
         for (List<GraphEdge> group : edges.values()) {
             collected.addAll(group);
@@ -75,10 +123,91 @@ public final class GraphNode {
      * @return immutable view of the edges associated with the relationship.
      */
     public Collection<GraphEdge> edges(String relationship) {
+        if (compact != null) {
+            return compact.outgoing(this, index, Objects.requireNonNull(relationship, "relationship"));
+        }
         List<GraphEdge> group = edges.get(Objects.requireNonNull(relationship, "relationship"));
         if (group == null) {
             return List.of();
         }
         return Collections.unmodifiableList(group);
     }
+
+    /**
+     * Retrieves the edges pointing at this node, in the order they were added. In a pom graph
+     * their sources are the pom node; in a {@link WorkspaceGraph} they are the poms using it.
+     * @return immutable view of incoming edges.
+     */
+    public List<GraphEdge> incoming() {
+        if (compact != null) {
+            return compact.incoming(index);
+        }
+        return Collections.unmodifiableList(incoming);
+    }
+
+    /**
+     * Makes the edge lists immutable. Called by {@link TextGraph.Builder#build()}.
+     */
+    void freeze() {
+        List<GraphEdge> collected = new ArrayList<>();
+        for (Map.Entry<String, List<GraphEdge>> group : edges.entrySet()) {
+            group.setValue(List.copyOf(group.getValue()));
+            collected.addAll(group.getValue());
+        }
+        incoming = List.copyOf(incoming);
+        frozenEdges = List.copyOf(collected);
+        owner = null;
+    }
+
+    /**
+     * Whether the node was created by {@link #pending(String, Pending)} for this owner and not
+     * frozen yet.
+     */
+    boolean pendingIn(Pending owner) {
+        return owner != null && this.owner == owner;
+    }
+
+    /**
+     * Adds an edge between two pending nodes, grouped by relationship exactly as {@link #connect}
+     * groups it. Called by {@link TextGraph.ConcurrentBuilder#build()} from one thread, before
+     * {@link #freeze()}.
+     */
+    static void install(GraphEdge edge) {
+        edge.source().edges.computeIfAbsent(edge.relationship(), key -> new ArrayList<>()).add(edge);
+        edge.target().incoming.add(edge);
+    }
+
+    private void ensureOpen() {
+        if (owner != null) {
+            throw new UnsupportedOperationException("Node " + id + " belongs to a concurrent builder; connect it through a part");
+        }
+        if (frozenEdges != null) {
+            throw new UnsupportedOperationException("Node " + id + " belongs to a built graph");
+        }
+    }
+
+    /**
+     * Views of the same compact node are equal; other nodes are only equal to themselves.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        return compact != null
+            && other instanceof GraphNode node
+            && node.compact == compact
+            && node.index == index;
+    }
+
+    @Override
+    public int hashCode() {
+        return compact == null ? System.identityHashCode(this) : 31 * System.identityHashCode(compact) + index;
+    }
+
+    /**
+     * Token of one concurrent builder, marking its nodes until it builds. Compared by identity.
+     */
+    static final class Pending {
+    }
 }
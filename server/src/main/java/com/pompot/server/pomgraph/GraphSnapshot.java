@@ -0,0 +1,371 @@
+package com.pompot.server.pomgraph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.CRC32;
+
+/**
+ * Binary file holding {@linkplain TextGraph#compact() compact} graphs, one table of every string
+ * they use and their {@link TextReference}s, followed by caller-defined int records. The file is
+ * opened with {@link FileChannel#map}: graphs read back are {@link CompactGraphStore} views over
+ * the mapped ints, and strings and references are only decoded when first accessed.
+ *
+ * <p>Layout, little endian: a 24 byte header with a magic number, {@link #FORMAT_VERSION}, the
+ * payload length and a CRC32 of the payload, then the payload as ints: the string table, the
+ * text table, the graphs and the records. Files with another version, a wrong length or a
+ * checksum mismatch are rejected.
+ */
+public final class GraphSnapshot {
+
+    /**
+     * Version of the file layout. Bump it whenever the header, the tables or the exported
+     * {@link CompactGraphStore} block change, so older files are rejected instead of misread.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC = 0x50_4F_4D_53;
+    private static final int HEADER_BYTES = 24;
+    private static final int TEXT_INTS = 8;
+    private static final int NO_STRING = -1;
+
+    private final ByteBuffer payload;
+    private final IntBuffer ints;
+    private final int stringOffsets;
+    private final int stringBytes;
+    private final String[] strings;
+    private final int textEntries;
+    private final AtomicReferenceArray<TextReference> texts;
+    private final int graphOffsets;
+    private final int graphCount;
+    private final int records;
+
+    private GraphSnapshot(ByteBuffer payload) {
+        this.payload = payload;
+        this.ints = payload.asIntBuffer();
+        int stringCount = ints.get(0);
+        this.stringOffsets = 1;
+        int stringInts = ints.get(stringOffsets + stringCount + 1);
+        this.stringBytes = (stringOffsets + stringCount + 2) * Integer.BYTES;
+        this.strings = new String[stringCount];
+
+        int textTable = stringOffsets + stringCount + 2 + stringInts;
+        int textCount = ints.get(textTable);
+        this.textEntries = textTable + 1;
+        this.texts = new AtomicReferenceArray<>(textCount);
+
+        int graphTable = textEntries + textCount * TEXT_INTS;
+        this.graphCount = ints.get(graphTable);
+        this.graphOffsets = graphTable + 1;
+        this.records = ints.get(graphOffsets + graphCount);
+        // Slicing checks that the records, and so every table before them, fit in the payload.
+        ints.slice(records + 1, ints.get(records));
+    }
+
+    /**
+     * Starts a new snapshot.
+     * @return empty writer.
+     */
+    public static Writer writer() {
+        return new Writer();
+    }
+
+    /**
+     * Maps a snapshot file and validates its header and checksum. The file is not read further
+     * until graphs, strings or records are accessed.
+     *
+     * @param file snapshot file.
+     * @return snapshot backed by the mapped file.
+     * @throws IOException when the file cannot be read.
+     * @throws IllegalArgumentException when the file is not a snapshot of this version or is
+     *     corrupt.
+     */
+    public static GraphSnapshot open(Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Not a graph snapshot: " + file);
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (mapped.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a graph snapshot: " + file);
+        }
+        int version = mapped.getInt(4);
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported graph snapshot version " + version + ": " + file);
+        }
+        long length = mapped.getLong(8);
+        if (length != mapped.capacity() - HEADER_BYTES) {
+            throw new IllegalArgumentException("Truncated graph snapshot: " + file);
+        }
+        ByteBuffer payload = mapped.slice(HEADER_BYTES, (int) length).order(ByteOrder.LITTLE_ENDIAN);
+        CRC32 checksum = new CRC32();
+        checksum.update(payload.duplicate());
+        if (checksum.getValue() != mapped.getLong(16)) {
+            throw new IllegalArgumentException("Graph snapshot checksum mismatch: " + file);
+        }
+
+        try {
+            return new GraphSnapshot(payload);
+        } catch (IndexOutOfBoundsException exception) {
+            throw new IllegalArgumentException("Malformed graph snapshot: " + file, exception);
+        }
+    }
+
+    /**
+     * Number of graphs in the snapshot.
+     * @return graph count.
+     */
+    public int graphCount() {
+        return graphCount;
+    }
+
+    /**
+     * Graph written at the provided index. Each call returns a new {@link TextGraph} over the
+     * same mapped ints and the same {@link TextReference} instances.
+     *
+     * @param index value returned by {@link Writer#graph(TextGraph)}.
+     * @return compact graph viewing the snapshot.
+     */
+    public TextGraph graph(int index) {
+        Objects.checkIndex(index, graphCount);
+        int start = ints.get(graphOffsets + index);
+        int end = ints.get(graphOffsets + index + 1);
+        IntBuffer block = ints.slice(start + 1, end - start - 1);
+        return TextGraph.of(CompactGraphStore.view(block, this::string, this::text), ints.get(start));
+    }
+
+    /**
+     * String recorded with {@link Writer#string(String)}.
+     * @param code value returned by the writer.
+     * @return decoded string; {@code null} for the code of {@code null}.
+     */
+    public String string(int code) {
+        if (code == NO_STRING) {
+            return null;
+        }
+        String value = strings[code];
+        if (value == null) {
+            int from = ints.get(stringOffsets + code);
+            int to = ints.get(stringOffsets + code + 1);
+            byte[] bytes = new byte[to - from];
+            payload.get(stringBytes + from, bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            strings[code] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Ints passed to {@link Writer#write(Path, int[])}.
+     * @return read-only view of the records.
+     */
+    public IntBuffer records() {
+        return ints.slice(records + 1, ints.get(records)).asReadOnlyBuffer();
+    }
+
+    /**
+     * References shared by several graphs, or by several edges of one graph, are written once
+     * and resolved to one instance, so updates stay visible everywhere they were visible before
+     * the snapshot was written.
+     */
+    private TextReference text(int code) {
+        TextReference text = texts.get(code);
+        if (text == null) {
+            int entry = textEntries + code * TEXT_INTS;
+            int file = ints.get(entry + 2);
+            SourcePosition position = file == NO_STRING ? null : new SourcePosition(
+                string(file),
+                ((long) ints.get(entry + 3) << 32) | (ints.get(entry + 4) & 0xFFFF_FFFFL),
+                ints.get(entry + 5),
+                ints.get(entry + 6),
+                ints.get(entry + 7)
+            );
+            TextReference created = new TextReference(
+                string(ints.get(entry)),
+                TextPool.SHARED.intern(string(ints.get(entry + 1))),
+                position
+            );
+            text = texts.compareAndSet(code, null, created) ? created : texts.get(code);
+        }
+        return text;
+    }
+
+    /**
+     * Collects graphs and strings, then writes them as one snapshot file.
+     */
+    public static final class Writer {
+
+        private final List<String> strings = new ArrayList<>();
+        private final Map<String, Integer> stringCodes = new HashMap<>();
+        private final List<TextReference> texts = new ArrayList<>();
+        private final Map<TextReference, Integer> textCodes = new IdentityHashMap<>();
+        private final List<int[]> graphs = new ArrayList<>();
+
+        private Writer() {
+        }
+
+        /**
+         * Adds a string to the string table.
+         * @param value string to store; may be {@code null}.
+         * @return code to pass to {@link GraphSnapshot#string(int)}.
+         */
+        public int string(String value) {
+            if (value == null) {
+                return NO_STRING;
+            }
+            return stringCodes.computeIfAbsent(value, key -> {
+                strings.add(key);
+                return strings.size() - 1;
+            });
+        }
+
+        /**
+         * Adds a graph, packing it when it is not compact yet. References are matched by identity
+         * across graphs, so a reference shared by two graphs is stored once.
+         *
+         * @param graph graph to store.
+         * @return index to pass to {@link GraphSnapshot#graph(int)}.
+         */
+        public int graph(TextGraph graph) {
+            int[] exported = graph.compactStore().export(this::string, this::text);
+            int[] block = new int[exported.length + 1];
+            block[0] = graph.nextTextId();
+            System.arraycopy(exported, 0, block, 1, exported.length);
+            graphs.add(block);
+            return graphs.size() - 1;
+        }
+
+        /**
+         * Writes the snapshot. The file is written next to its destination and moved into place,
+         * so readers never map a partial file.
+         *
+         * @param file destination file; parent directories are created.
+         * @param records caller-defined ints, typically codes returned by this writer.
+         * @throws IOException when the file cannot be written.
+         */
+        public void write(Path file, int[] records) throws IOException {
+            ByteBuffer payload = payload(Objects.requireNonNull(records, "records"));
+            CRC32 checksum = new CRC32();
+            checksum.update(payload.duplicate());
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(payload.limit()).putLong(checksum.getValue()).flip();
+
+            Path target = file.toAbsolutePath().normalize();
+            Path parent = target.getParent();
+            if (parent == null) {
+                throw new IOException("Snapshot file has no parent directory: " + target);
+            }
+            Files.createDirectories(parent);
+            Path temporary = Files.createTempFile(parent, "snapshot-", ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                    ByteBuffer[] buffers = {header, payload};
+                    while (header.hasRemaining() || payload.hasRemaining()) {
+                        channel.write(buffers);
+                    }
+                }
+                try {
+                    Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException exception) {
+                    Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        }
+
+        private int text(TextReference text) {
+            return textCodes.computeIfAbsent(text, key -> {
+                texts.add(key);
+                return texts.size() - 1;
+            });
+        }
+
+        /**
+         * Lays out the payload. Text entries are encoded first since they add strings to the
+         * table.
+         */
+        private ByteBuffer payload(int[] records) {
+            int[] textTable = new int[1 + texts.size() * TEXT_INTS];
+            textTable[0] = texts.size();
+            for (int code = 0; code < texts.size(); code += 1) {
+                TextReference text = texts.get(code);
+                int entry = 1 + code * TEXT_INTS;
+                textTable[entry] = string(text.id());
+                textTable[entry + 1] = string(text.value().value());
+                textTable[entry + 2] = NO_STRING;
+                text.position().ifPresent(position -> {
+                    textTable[entry + 2] = string(position.file());
+                    textTable[entry + 3] = (int) (position.offset() >>> 32);
+                    textTable[entry + 4] = (int) position.offset();
+                    textTable[entry + 5] = position.length();
+                    textTable[entry + 6] = position.line();
+                    textTable[entry + 7] = position.column();
+                });
+            }
+
+            List<byte[]> encoded = new ArrayList<>(strings.size());
+            int[] stringTable = new int[strings.size() + 3];
+            stringTable[0] = strings.size();
+            int byteLength = 0;
+            for (int code = 0; code < strings.size(); code += 1) {
+                byte[] bytes = strings.get(code).getBytes(StandardCharsets.UTF_8);
+                encoded.add(bytes);
+                byteLength += bytes.length;
+                stringTable[code + 2] = byteLength;
+            }
+            int stringInts = (byteLength + Integer.BYTES - 1) / Integer.BYTES;
+            stringTable[strings.size() + 2] = stringInts;
+
+            int graphTableStart = stringTable.length + stringInts + textTable.length;
+            int[] graphTable = new int[graphs.size() + 2];
+            graphTable[0] = graphs.size();
+            int position = graphTableStart + graphTable.length;
+            for (int index = 0; index < graphs.size(); index += 1) {
+                graphTable[index + 1] = position;
+                position += graphs.get(index).length;
+            }
+            graphTable[graphs.size() + 1] = position;
+
+            ByteBuffer payload = ByteBuffer.allocate((position + 1 + records.length) * Integer.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+            IntBuffer ints = payload.asIntBuffer();
+            ints.put(stringTable);
+            int bytePosition = ints.position() * Integer.BYTES;
+            for (byte[] bytes : encoded) {
+                payload.put(bytePosition, bytes);
+                bytePosition += bytes.length;
+            }
+            ints.position(ints.position() + stringInts);
+            ints.put(textTable);
+            ints.put(graphTable);
+            for (int[] graph : graphs) {
+                ints.put(graph);
+            }
+            ints.put(records.length);
+            ints.put(records);
+            return payload;
+        }
+    }
+}
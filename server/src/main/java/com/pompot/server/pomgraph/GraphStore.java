@@ -0,0 +1,46 @@
+package com.pompot.server.pomgraph;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Storage behind a built {@link TextGraph}. {@link LinkedGraphStore} keeps the node and edge
+ * objects created by the builder; {@link CompactGraphStore} packs them into primitive arrays and
+ * hands out views on access.
+ */
+interface GraphStore {
+
+    /**
+     * Looks up a node.
+     * @param id identifier to look up; never {@code null}.
+     * @return node, or {@code null} when absent.
+     */
+    GraphNode node(String id);
+
+    /**
+     * Every node in insertion order.
+     * @return immutable view of the nodes.
+     */
+    Collection<GraphNode> nodes();
+
+    /**
+     * Every reference registered with the graph.
+     * @return immutable view of the references.
+     */
+    Collection<TextReference> texts();
+
+    /**
+     * Every edge of one relationship.
+     * @param relationship relationship to look up.
+     * @return immutable list of edges in node order.
+     */
+    List<GraphEdge> edges(String relationship);
+
+    /**
+     * Edges whose payload holds one of the references, directly or in a composite child.
+     * @param references references to look for, compared by identity.
+     * @return edges listed once each.
+     */
+    List<GraphEdge> edgesReferencing(Set<TextReference> references);
+}
@@ -62,6 +62,16 @@ public sealed interface GraphValue permits GraphValue.Textual, GraphValue.Compos
             this.reference = Objects.requireNonNull(reference, "reference");
         }
 
+        /**
+         * Wrapped reference, for callers that already matched this type and want to skip the
+         * {@link Optional} of {@link #text()}.
+         *
+         * @return wrapped reference.
+         */
+        public TextReference reference() {
+            return reference;
+        }
+
         @Override
         public Optional<TextReference> text() {
             return Optional.of(reference);
@@ -81,6 +91,19 @@ public sealed interface GraphValue permits GraphValue.Textual, GraphValue.Compos
         private final Map<String, GraphValue> entries;
 
         Composite(Map<String, GraphValue> entries) {
+            this(entries, false);
+        }
+
+        /**
+         * @param entries child values.
+         * @param trusted {@code true} when {@code entries} is already read-only and free of blank
+         *     keys, such as the children view of a compact graph; it is then wrapped, not copied.
+         */
+        Composite(Map<String, GraphValue> entries, boolean trusted) {
+            this.entries = Collections.unmodifiableMap(trusted ? entries : copyOf(entries));
+        }
+
+        private static Map<String, GraphValue> copyOf(Map<String, GraphValue> entries) {
             Map<String, GraphValue> copy = new LinkedHashMap<>();
             for (Map.Entry<String, GraphValue> entry : entries.entrySet()) {
                 String key = Objects.requireNonNull(entry.getKey(), "entryKey").trim();
@@ -90,7 +113,7 @@ public sealed interface GraphValue permits GraphValue.Textual, GraphValue.Compos
                 GraphValue value = Objects.requireNonNull(entry.getValue(), "entryValue");
                 copy.put(key, value);
             }
-            this.entries = Collections.unmodifiableMap(copy);
+            return copy;
         }
 
         @Override
@@ -0,0 +1,91 @@
+package com.pompot.server.pomgraph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link GraphStore} holding the frozen {@link GraphNode}s of a {@link TextGraph.Builder}, with
+ * maps from relationship and from reference to edges built once.
+ */
+final class LinkedGraphStore implements GraphStore {
+
+    private final Map<String, GraphNode> nodes;
+    private final Map<String, TextReference> texts;
+    private final Map<String, List<GraphEdge>> relationships;
+    private final Map<TextReference, List<GraphEdge>> referencingEdges;
+
+    LinkedGraphStore(Map<String, GraphNode> nodes, Map<String, TextReference> texts) {
+        this.nodes = Collections.unmodifiableMap(nodes);
+        this.texts = Collections.unmodifiableMap(texts);
+
+        Map<String, List<GraphEdge>> byRelationship = new HashMap<>();
+        Map<TextReference, List<GraphEdge>> byReference = new HashMap<>();
+        for (GraphNode node : nodes.values()) {
+            for (GraphEdge edge : node.edges()) {
+                byRelationship.computeIfAbsent(edge.relationship(), key -> new ArrayList<>()).add(edge);
+                indexReferences(edge, byReference);
+            }
+        }
+        byRelationship.replaceAll((relationship, edges) -> List.copyOf(edges));
+        byReference.replaceAll((reference, edges) -> List.copyOf(edges));
+        this.relationships = byRelationship;
+        this.referencingEdges = byReference;
+    }
+
+    private static void indexReferences(GraphEdge edge, Map<TextReference, List<GraphEdge>> byReference) {
+        Deque<GraphValue> pending = new ArrayDeque<>();
+        pending.push(edge.value());
+        while (!pending.isEmpty()) {
+            GraphValue value = pending.pop();
+            value.text().ifPresent(reference -> {
+                List<GraphEdge> edges = byReference.computeIfAbsent(reference, key -> new ArrayList<>());
+                if (edges.isEmpty() || edges.get(edges.size() - 1) != edge) {
+                    edges.add(edge);
+                }
+            });
+            value.children().values().forEach(pending::push);
+        }
+    }
+
+    @Override
+    public GraphNode node(String id) {
+        return nodes.get(id);
+    }
+
+    @Override
+    public Collection<GraphNode> nodes() {
+        return nodes.values();
+    }
+
+    @Override
+    public Collection<TextReference> texts() {
+        return texts.values();
+    }
+
+    @Override
+    public List<GraphEdge> edges(String relationship) {
+        return relationships.getOrDefault(relationship, List.of());
+    }
+
+    @Override
+    public List<GraphEdge> edgesReferencing(Set<TextReference> references) {
+        List<GraphEdge> found = new ArrayList<>();
+        Set<GraphEdge> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (TextReference reference : references) {
+            for (GraphEdge edge : referencingEdges.getOrDefault(reference, List.of())) {
+                if (seen.add(edge)) {
+                    found.add(edge);
+                }
+            }
+        }
+        return Collections.unmodifiableList(found);
+    }
+}
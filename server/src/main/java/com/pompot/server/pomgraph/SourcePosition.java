@@ -0,0 +1,26 @@
+package com.pompot.server.pomgraph;
+
+import java.util.Objects;
+
+/**
+ * Location of a value in the file it was read from.
+ *
+ * @param file absolute path of the source file.
+ * @param offset byte offset of the first byte of the value.
+ * @param length number of bytes the value spans in the file.
+ * @param line 1-based line of the first character.
+ * @param column 1-based column of the first character, counted in UTF-16 code units.
+ */
+public record SourcePosition(String file, long offset, int length, int line, int column) {
+
+    /**
+     * Validates the position.
+     */
+    public SourcePosition {
+        Objects.requireNonNull(file, "file");
+        if (offset < 0 || length < 0 || line < 1 || column < 1) {
+            throw new IllegalArgumentException(
+                "Invalid source position " + offset + "+" + length + " at " + line + ":" + column);
+        }
+    }
+}
@@ -1,64 +1,141 @@
 package com.pompot.server.pomgraph;
 
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Directed graph where edges carry {@link TextReference} payloads.
+ * Directed graph where edges carry {@link TextReference} payloads. A graph is frozen once built:
+ * its nodes and edges cannot change, so it can be shared between threads and snapshots without
+ * copying. Structure is edited through a {@link Builder}, either a new one or one seeded from an
+ * existing graph with {@link #toBuilder()}. Reference identifiers are issued sequentially per
+ * graph and the {@link Text} values are interned in a shared pool. Several threads can build one
+ * graph together through a {@link ConcurrentBuilder}.
+ *
+ * <p>Building indexes the graph by relationship, by incoming edge and by value, so the query
+ * methods answer without walking every node. The value index follows
+ * {@link TextReference#update(String)}. A built graph can be packed into primitive arrays with
+ * {@link #compact()} for very large workspaces.
  */
 public final class TextGraph {
 
-    private final Map<String, GraphNode> nodes;
-    private final Map<String, TextReference> texts;
+    private static final String TEXT_ID_PREFIX = "t";
 
-    public TextGraph() {
-        this.nodes = new LinkedHashMap<>();
-        this.texts = new LinkedHashMap<>();
+    private final GraphStore store;
+    private final int nextTextId;
+    private volatile TextValueIndex values;
+    private volatile FingerprintCache fingerprint;
+
+    private TextGraph(GraphStore store, int nextTextId) {
+        this.store = store;
+        this.nextTextId = nextTextId;
+    }
+
+    /**
+     * Starts an empty graph.
+     * @return builder for a new graph.
+     */
+    public static Builder builder() {
+        return new Builder();
     }
 
     /**
-     * Copy constructor used to create a structural clone of an existing graph.
-     * The cloned graph reuses the {@link TextReference} instances so updates to
-     * the shared textual values remain visible across copies.
+     * Starts an empty graph that several threads can build at once, each through its own
+     * {@link ConcurrentBuilder.Part}.
+     * @return concurrent builder for a new graph.
+     */
+    public static ConcurrentBuilder concurrentBuilder() {
+        return new ConcurrentBuilder();
+    }
+
+    /**
+     * Starts an edit of this graph. The builder holds fresh nodes and edges with the same
+     * structure and reuses the {@link TextReference} instances, so updates to the shared textual
+     * values remain visible in both graphs. This graph is left untouched.
      *
-     * @param source graph to copy.
+     * @return builder seeded with this graph.
      */
-    public TextGraph(TextGraph source) {
-        this();
-        TextGraph other = Objects.requireNonNull(source, "source");
+    public Builder toBuilder() {
+        return copy(Map.of());
+    }
 
-        Map<String, GraphNode> clonedNodes = new LinkedHashMap<>();
-        for (GraphNode node : other.nodes.values()) {
-            GraphNode clone = new GraphNode(node.id());
-            nodes.put(clone.id(), clone);
-            clonedNodes.put(clone.id(), clone);
+    /**
+     * Copy of this graph where some references hold new values. Each listed reference is replaced
+     * by a new one with the same identifier and source position, so this graph, and every other
+     * graph sharing the old reference, keeps the old value. Unlisted references are shared.
+     *
+     * @param values new value per reference of this graph.
+     * @return graph with the same structure and storage, or this graph when nothing is listed.
+     */
+    public TextGraph replaceTexts(Map<TextReference, String> values) {
+        if (Objects.requireNonNull(values, "values").isEmpty()) {
+            return this;
         }
+        Map<TextReference, TextReference> replacements = new IdentityHashMap<>();
+        values.forEach((reference, value) -> replacements.put(
+            reference,
+            new TextReference(reference.id(), TextPool.SHARED.intern(value), reference.position().orElse(null))
+        ));
+        return copy(replacements).build().stored(storage());
+    }
 
-        for (Map.Entry<String, TextReference> entry : other.texts.entrySet()) {
-            texts.put(entry.getKey(), entry.getValue());
+    private Builder copy(Map<TextReference, TextReference> replacements) {
+        Builder builder = new Builder();
+        for (GraphNode node : store.nodes()) {
+            builder.addNode(node.id());
         }
+        for (TextReference text : store.texts()) {
+            builder.texts.put(text.id(), replacements.getOrDefault(text, text));
+        }
+        builder.nextTextId = nextTextId;
 
-        for (GraphNode node : other.nodes.values()) {
-            GraphNode clonedSource = clonedNodes.get(node.id());
+        for (GraphNode node : store.nodes()) {
+            GraphNode clonedSource = builder.nodes.get(node.id());
             for (GraphEdge edge : node.edges()) {
-                GraphNode clonedTarget = clonedNodes.get(edge.target().id());
-                clonedSource.connect(edge.relationship(), clonedTarget, edge.value());
+                GraphNode clonedTarget = builder.nodes.get(edge.target().id());
+                clonedSource.connect(edge.relationship(), clonedTarget, replace(edge.value(), replacements));
             }
         }
+        return builder;
     }
 
     /**
-     * Creates or returns the node with the provided identifier.
-     * @param id identifier of the node to look up.
-     * @return existing or newly created node.
+     * Rewrites a payload with replaced references, keeping untouched payloads and children as they
+     * are.
      */
-    public GraphNode addNode(String id) {
-        return nodes.computeIfAbsent(Objects.requireNonNull(id, "id"), GraphNode::new);
+    private static GraphValue replace(GraphValue value, Map<TextReference, TextReference> replacements) {
+        if (replacements.isEmpty()) {
+            return value;
+        }
+        Optional<TextReference> text = value.text();
+        if (text.isPresent()) {
+            TextReference replacement = replacements.get(text.get());
+            return replacement == null ? value : GraphValue.text(replacement);
+        }
+        Map<String, GraphValue> children = null;
+        for (Map.Entry<String, GraphValue> child : value.children().entrySet()) {
+            GraphValue replaced = replace(child.getValue(), replacements);
+            if (replaced != child.getValue()) {
+                if (children == null) {
+                    children = new LinkedHashMap<>(value.children());
+                }
+                children.put(child.getKey(), replaced);
+            }
+        }
+        return children == null ? value : GraphValue.composite(children);
     }
 
     /**
@@ -70,7 +147,7 @@ public final class TextGraph {
         if (id == null) {
             return Optional.empty();
         }
-        return Optional.ofNullable(nodes.get(id));
+        return Optional.ofNullable(store.node(id));
     }
 
     /**
@@ -78,37 +155,537 @@ public final class TextGraph {
      * @return nodes sorted by insertion order.
      */
     public Collection<GraphNode> nodes() {
-        return Collections.unmodifiableCollection(nodes.values());
+        return store.nodes();
     }
 
     /**
-     * Creates a new {@link TextReference} containing the provided value.
-     * @param value raw string to wrap.
-     * @return reference managed by the graph.
+     * All {@link TextReference} instances managed by the graph.
+     * @return immutable view of registered text references.
      */
-    public TextReference createText(String value) {
-        String identifier = UUID.randomUUID().toString();
-        TextReference reference = new TextReference(identifier, new Text(value));
-        texts.put(identifier, reference);
-        return reference;
+    public Collection<TextReference> texts() {
+        return store.texts();
     }
 
     /**
-     * All {@link TextReference} instances managed by the graph.
-     * @return immutable snapshot of registered text references.
+     * Edges pointing at a node, for example every pom edge to a dependency or property node.
+     * @param nodeId identifier of the target node.
+     * @return immutable list of incoming edges, empty when the node is unknown.
      */
-    public Collection<TextReference> texts() {
-        return Collections.unmodifiableCollection(texts.values());
+    public List<GraphEdge> incoming(String nodeId) {
+        return findNode(nodeId).map(GraphNode::incoming).orElse(List.of());
+    }
+
+    /**
+     * Edges of one relationship pointing at a node.
+     * @param nodeId identifier of the target node.
+     * @param relationship relationship to keep.
+     * @return immutable list of matching incoming edges.
+     */
+    public List<GraphEdge> incoming(String nodeId, String relationship) {
+        Objects.requireNonNull(relationship, "relationship");
+        return incoming(nodeId).stream().filter(edge -> edge.relationship().equals(relationship)).toList();
+    }
+
+    /**
+     * Every edge of a relationship, whatever node it starts from.
+     * @param relationship relationship to look up, for example {@code managedDependency}.
+     * @return immutable list of edges in node order.
+     */
+    public List<GraphEdge> edges(String relationship) {
+        return store.edges(Objects.requireNonNull(relationship, "relationship"));
+    }
+
+    /**
+     * References whose current value equals the provided one. Updates made through
+     * {@link TextReference#update(String)} are reflected immediately.
+     * @param value value to look up.
+     * @return snapshot of matching references.
+     */
+    public Set<TextReference> findTexts(String value) {
+        return valueIndex().find(new Text(value));
+    }
+
+    /**
+     * Edges whose payload, or a child of a composite payload, holds a reference with the provided
+     * current value.
+     * @param value value to look up.
+     * @return edges in no particular order; an edge holding several matching references is listed once.
+     */
+    public List<GraphEdge> edgesWithValue(String value) {
+        Set<TextReference> matches = findTexts(value);
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+        return store.edgesReferencing(matches);
+    }
+
+    /**
+     * Hash of the content of this graph: node identifiers, edges in order and the current values
+     * of their payloads, but not reference identifiers or source positions. Two graphs with equal
+     * content have equal fingerprints, so a {@link GraphDiff} skips them without walking either.
+     * Equal fingerprints are only a hint: graphs with different content may collide. The hash is
+     * computed once and kept until a {@link TextReference#update(Text)} changes a value of this
+     * graph, so repeated calls cost a counter read and updates to other graphs do not discard it.
+     *
+     * @return 64-bit content fingerprint.
+     */
+    public long fingerprint() {
+        FingerprintCache cache = fingerprint;
+        if (cache == null) {
+            synchronized (this) {
+                cache = fingerprint;
+                if (cache == null) {
+                    cache = new FingerprintCache(store.texts());
+                    fingerprint = cache;
+                }
+            }
+        }
+        return cache.value(store);
+    }
+
+    /**
+     * JSON form of this graph as written by {@link TextGraphCodec#encode(TextGraph)}. Serialized in
+     * place of the graph itself, so {@code /api/pom} can return graphs.
+     * @return encoded graph.
+     */
+    @JsonValue
+    public ObjectNode toJson() {
+        return TextGraphCodec.encode(this);
+    }
+
+    /**
+     * How this graph is stored.
+     * @return {@link Storage#COMPACT} for graphs returned by {@link #compact()}.
+     */
+    public Storage storage() {
+        return store instanceof CompactGraphStore ? Storage.COMPACT : Storage.LINKED;
     }
 
     /**
-     * Creates a structural clone of the graph sharing the {@link TextReference}
-     * instances with the original graph. It allows exposing the graph without
-     * leaking the internal node maps.
+     * Packs this graph into primitive arrays: int node numbers, CSR edge arrays, relationship
+     * codes and a string table. The result answers every query like this graph and shares its
+     * {@link TextReference} instances, but hands out {@link GraphNode} and {@link GraphEdge} views
+     * created on access, so nodes must be compared with {@code equals}.
      *
-     * @return cloned graph with identical structure.
+     * @return compact graph, or this graph when it already is one.
+     */
+    public TextGraph compact() {
+        if (storage() == Storage.COMPACT) {
+            return this;
+        }
+        return new TextGraph(CompactGraphStore.of(store.nodes(), store.texts()), nextTextId);
+    }
+
+    /**
+     * Wraps a store read from outside a builder, such as a {@link GraphSnapshot}.
+     * @param store store holding the graph.
+     * @param nextTextId next sequential text identifier of the graph.
+     * @return graph backed by the store.
      */
-    public TextGraph copy() {
-        return new TextGraph(this);
+    static TextGraph of(GraphStore store, int nextTextId) {
+        return new TextGraph(store, nextTextId);
+    }
+
+    /**
+     * Packed store of this graph, packing it first when needed.
+     * @return compact store.
+     */
+    CompactGraphStore compactStore() {
+        return (CompactGraphStore) compact().store;
+    }
+
+    int nextTextId() {
+        return nextTextId;
+    }
+
+    /**
+     * Applies a storage choice.
+     * @param storage storage to use.
+     * @return this graph for {@link Storage#LINKED}, {@link #compact()} otherwise.
+     */
+    public TextGraph stored(Storage storage) {
+        return Objects.requireNonNull(storage, "storage") == Storage.COMPACT ? compact() : this;
+    }
+
+    /**
+     * Fingerprint of one graph, registered with the references of that graph so it counts their
+     * value changes and is recomputed only after one of them.
+     */
+    private static final class FingerprintCache implements TextReference.Watcher {
+
+        private final AtomicLong changes = new AtomicLong();
+        private volatile Fingerprint computed;
+
+        FingerprintCache(Collection<TextReference> texts) {
+            for (TextReference text : texts) {
+                text.watch(this);
+            }
+        }
+
+        @Override
+        public void moved(TextReference reference, Text from, Text to) {
+            if (from != null) {
+                changes.incrementAndGet();
+            }
+        }
+
+        long value(GraphStore store) {
+            long seen = changes.get();
+            Fingerprint cached = computed;
+            if (cached == null || cached.changes() != seen) {
+                cached = new Fingerprint(seen, GraphFingerprint.of(store.nodes()));
+                computed = cached;
+            }
+            return cached.value();
+        }
+    }
+
+    /**
+     * Fingerprint with the number of value changes of its graph it was computed at.
+     */
+    private record Fingerprint(long changes, long value) {
+    }
+
+    /**
+     * Memory layout of a built graph.
+     */
+    public enum Storage {
+        /** Node, edge and payload objects as assembled by the builder; fastest to traverse. */
+        LINKED,
+        /** Primitive arrays; several times smaller, with views created on access. */
+        COMPACT
+    }
+
+    /**
+     * The value index is built on the first value query, since most graphs are never searched by
+     * value and the index costs more heap than the graph itself.
+     */
+    private TextValueIndex valueIndex() {
+        TextValueIndex index = values;
+        if (index == null) {
+            synchronized (this) {
+                index = values;
+                if (index == null) {
+                    index = new TextValueIndex(store.texts());
+                    values = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Mutable stage of a {@link TextGraph}. Nodes returned by the builder accept new edges until
+     * {@link #build()} freezes them; the builder cannot be used afterwards.
+     */
+    public static final class Builder {
+
+        private final Map<String, GraphNode> nodes = new LinkedHashMap<>();
+        private final Map<String, TextReference> texts = new LinkedHashMap<>();
+        private int nextTextId;
+        private boolean built;
+
+        private Builder() {
+        }
+
+        /**
+         * Creates or returns the node with the provided identifier.
+         * @param id identifier of the node to look up.
+         * @return existing or newly created node.
+         */
+        public GraphNode addNode(String id) {
+            ensureOpen();
+            return nodes.computeIfAbsent(Objects.requireNonNull(id, "id"), GraphNode::new);
+        }
+
+        /**
+         * Retrieves a node added to the builder.
+         * @param id identifier to look up.
+         * @return optional containing the node when present.
+         */
+        public Optional<GraphNode> findNode(String id) {
+            if (id == null) {
+                return Optional.empty();
+            }
+            return Optional.ofNullable(nodes.get(id));
+        }
+
+        /**
+         * Creates a new {@link TextReference} containing the provided value.
+         * @param value raw string to wrap.
+         * @return reference managed by the graph.
+         */
+        public TextReference createText(String value) {
+            return createText(value, null);
+        }
+
+        /**
+         * Creates a new {@link TextReference} for a value read from a file.
+         * @param value raw string to wrap.
+         * @param position where the value was read from; {@code null} when unknown.
+         * @return reference managed by the graph.
+         */
+        public TextReference createText(String value, SourcePosition position) {
+            ensureOpen();
+            String identifier = TEXT_ID_PREFIX + Integer.toString(nextTextId++, Character.MAX_RADIX);
+            TextReference reference = new TextReference(identifier, TextPool.SHARED.intern(value), position);
+            texts.put(identifier, reference);
+            return reference;
+        }
+
+        /**
+         * Registers a reference with a previously issued identifier. Used when a graph is rebuilt
+         * from a serialized form so identifiers stay stable across restarts.
+         *
+         * @param id identifier recorded when the graph was serialized.
+         * @param value raw string stored by the reference.
+         * @param position recorded source location; {@code null} when unknown.
+         * @return reference managed by the graph.
+         */
+        TextReference restoreText(String id, String value, SourcePosition position) {
+            ensureOpen();
+            TextReference reference = new TextReference(id, TextPool.SHARED.intern(value), position);
+            texts.put(reference.id(), reference);
+            reserveTextId(id);
+            return reference;
+        }
+
+        /**
+         * Freezes the nodes and edges added so far into a graph. Nothing is copied.
+         * @return immutable graph.
+         * @throws IllegalStateException when the builder was already built.
+         */
+        public TextGraph build() {
+            ensureOpen();
+            built = true;
+            for (GraphNode node : nodes.values()) {
+                node.freeze();
+            }
+            return new TextGraph(new LinkedGraphStore(nodes, texts), nextTextId);
+        }
+
+        /**
+         * Keeps identifiers issued after a restore from colliding with restored ones.
+         */
+        private void reserveTextId(String id) {
+            if (!id.startsWith(TEXT_ID_PREFIX)) {
+                return;
+            }
+            try {
+                int restored = Integer.parseInt(id.substring(TEXT_ID_PREFIX.length()), Character.MAX_RADIX);
+                nextTextId = Math.max(nextTextId, restored + 1);
+            } catch (NumberFormatException exception) {
+                // Identifiers from other schemes cannot collide with sequential ones.
+            }
+        }
+
+        private void ensureOpen() {
+            if (built) {
+                throw new IllegalStateException("The graph was already built");
+            }
+        }
+    }
+
+    /**
+     * Builder shared by several threads. Each thread works through its own {@link Part}, which
+     * records edges and references without locking; nodes live in a concurrent map so parts can
+     * share them. {@link #build()} then assembles the parts in their order, so the node, edge and
+     * reference order of the graph does not depend on thread scheduling: it is the order a
+     * {@link Builder} would produce by running the parts one after the other. Only the reference
+     * identifiers depend on scheduling, since parts draw them from one counter.
+     */
+    public static final class ConcurrentBuilder {
+
+        private final GraphNode.Pending owner = new GraphNode.Pending();
+        private final Map<String, Slot> nodes = new ConcurrentHashMap<>();
+        private final Map<Integer, Part> parts = new ConcurrentHashMap<>();
+        private final AtomicInteger nextTextId = new AtomicInteger();
+        private final AtomicBoolean built = new AtomicBoolean();
+
+        private ConcurrentBuilder() {
+        }
+
+        /**
+         * Opens a part. A part is confined to the thread using it; parts of one builder can be
+         * used from different threads at the same time.
+         *
+         * @param order position of the part in the built graph, for example the index of a pom.
+         * @return new part.
+         * @throws IllegalArgumentException when a part with the same order was already opened.
+         */
+        public Part part(int order) {
+            ensureOpen();
+            Part part = new Part(order);
+            if (parts.putIfAbsent(order, part) != null) {
+                throw new IllegalArgumentException("Part " + order + " was already opened");
+            }
+            return part;
+        }
+
+        /**
+         * Freezes the nodes and edges recorded by every part into a graph. Must be called once
+         * the parts are done, for example after the parallel stream that filled them returns.
+         *
+         * @return immutable graph.
+         * @throws IllegalStateException when the builder was already built.
+         */
+        public TextGraph build() {
+            List<Part> ordered = close();
+            Map<String, TextReference> texts = new LinkedHashMap<>();
+            for (Part part : ordered) {
+                for (TextReference text : part.texts) {
+                    texts.put(text.id(), text);
+                }
+            }
+            return new TextGraph(new LinkedGraphStore(freezeNodes(ordered), texts), nextTextId.get());
+        }
+
+        /**
+         * Freezes the recorded nodes and edges without assembling a graph, for callers such as
+         * {@link WorkspaceGraph} that only need the nodes.
+         *
+         * @return frozen nodes in order of first appearance.
+         */
+        Map<String, GraphNode> buildNodes() {
+            return freezeNodes(close());
+        }
+
+        private List<Part> close() {
+            if (!built.compareAndSet(false, true)) {
+                throw new IllegalStateException("The graph was already built");
+            }
+            List<Part> ordered = new ArrayList<>(parts.values());
+            ordered.sort(Comparator.comparingInt(part -> part.order));
+            return ordered;
+        }
+
+        private Map<String, GraphNode> freezeNodes(List<Part> ordered) {
+            for (Part part : ordered) {
+                for (GraphEdge edge : part.edges) {
+                    GraphNode.install(edge);
+                }
+            }
+            List<Slot> slots = new ArrayList<>(nodes.values());
+            slots.sort(Comparator.comparingLong(slot -> slot.firstSeen.get()));
+            Map<String, GraphNode> frozen = new LinkedHashMap<>();
+            for (Slot slot : slots) {
+                slot.node.freeze();
+                frozen.put(slot.key, slot.node);
+            }
+            return frozen;
+        }
+
+        private void ensureOpen() {
+            if (built.get()) {
+                throw new IllegalStateException("The graph was already built");
+            }
+        }
+
+        /**
+         * A node with the earliest part and position that added it.
+         */
+        private static final class Slot {
+
+            private final String key;
+            private final GraphNode node;
+            private final AtomicLong firstSeen;
+
+            private Slot(String key, GraphNode node, long firstSeen) {
+                this.key = key;
+                this.node = node;
+                this.firstSeen = new AtomicLong(firstSeen);
+            }
+        }
+
+        /**
+         * Thread-confined share of a {@link ConcurrentBuilder}. Nodes are shared with the other
+         * parts; edges and references are kept in the part until the builder builds.
+         */
+        public final class Part {
+
+            private final int order;
+            private final List<GraphEdge> edges = new ArrayList<>();
+            private final List<TextReference> texts = new ArrayList<>();
+            private int added;
+
+            private Part(int order) {
+                this.order = order;
+            }
+
+            /**
+             * Creates or returns the node with the provided identifier. The node is placed in the
+             * graph where the earliest part, and within it the earliest call, added it.
+             *
+             * @param id identifier of the node to look up.
+             * @return node shared by every part.
+             */
+            public GraphNode addNode(String id) {
+                ensureOpen();
+                Objects.requireNonNull(id, "id");
+                long position = ((long) order << Integer.SIZE) | Integer.toUnsignedLong(added++);
+                Slot slot = nodes.computeIfAbsent(id, key -> new Slot(key, GraphNode.pending(key, owner), position));
+                if (slot.firstSeen.get() > position) {
+                    slot.firstSeen.accumulateAndGet(position, Math::min);
+                }
+                return slot.node;
+            }
+
+            /**
+             * Creates a new {@link TextReference} containing the provided value.
+             * @param value raw string to wrap.
+             * @return reference managed by the graph.
+             */
+            public TextReference createText(String value) {
+                return createText(value, null);
+            }
+
+            /**
+             * Creates a new {@link TextReference} for a value read from a file.
+             * @param value raw string to wrap.
+             * @param position where the value was read from; {@code null} when unknown.
+             * @return reference managed by the graph.
+             */
+            public TextReference createText(String value, SourcePosition position) {
+                ensureOpen();
+                String identifier = TEXT_ID_PREFIX + Integer.toString(nextTextId.getAndIncrement(), Character.MAX_RADIX);
+                TextReference reference = new TextReference(identifier, TextPool.SHARED.intern(value), position);
+                texts.add(reference);
+                return reference;
+            }
+
+            /**
+             * Records an edge between two nodes of this builder.
+             * @param source node the edge starts from.
+             * @param relationship name of the relationship represented by the edge.
+             * @param target node that receives the connection.
+             * @param value payload shared by the edge.
+             * @return created edge, attached to its nodes when the builder builds.
+             */
+            public GraphEdge connect(GraphNode source, String relationship, GraphNode target, TextReference value) {
+                if (value == null) {
+                    throw new NullPointerException("value");
+                }
+                return connect(source, relationship, target, GraphValue.text(value));
+            }
+
+            /**
+             * Records an edge with an arbitrary payload between two nodes of this builder.
+             * @param source node the edge starts from.
+             * @param relationship name of the relationship represented by the edge.
+             * @param target node that receives the connection.
+             * @param value payload shared by the edge.
+             * @return created edge, attached to its nodes when the builder builds.
+             * @throws IllegalArgumentException when a node was not added through this builder.
+             */
+            public GraphEdge connect(GraphNode source, String relationship, GraphNode target, GraphValue value) {
+                ensureOpen();
+                GraphEdge edge = new GraphEdge(source, target, relationship, value);
+                if (!source.pendingIn(owner) || !target.pendingIn(owner)) {
+                    throw new IllegalArgumentException("Edges can only connect nodes added through this builder");
+                }
+                edges.add(edge);
+                return edge;
+            }
+        }
     }
 }
@@ -0,0 +1,195 @@
+package com.pompot.server.pomgraph;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Converts {@link TextGraph} instances to and from a compact JSON tree so graphs can be
+ * persisted and restored with their {@link TextReference} identifiers intact.
+ */
+public final class TextGraphCodec {
+
+    /**
+     * Version of the JSON layout produced by {@link #encode(TextGraph)}. Bump it whenever the
+     * layout changes so persisted graphs written by older versions are discarded.
+     */
+    public static final int FORMAT_VERSION = 3;
+
+    private TextGraphCodec() {
+    }
+
+    /**
+     * Encodes the graph. Nodes are stored once and edges refer to them by index; text values are
+     * stored once and edge payloads refer to them by identifier.
+     *
+     * @param graph graph to encode.
+     * @return JSON tree describing the graph.
+     */
+    public static ObjectNode encode(TextGraph graph) {
+        Objects.requireNonNull(graph, "graph");
+        JsonNodeFactory factory = JsonNodeFactory.instance;
+        ObjectNode root = factory.objectNode();
+
+        Map<String, Integer> nodeIndexes = new HashMap<>();
+        ArrayNode nodes = root.putArray("nodes");
+        for (GraphNode node : graph.nodes()) {
+            nodeIndexes.put(node.id(), nodeIndexes.size());
+            nodes.add(node.id());
+        }
+
+        Map<String, TextReference> texts = new LinkedHashMap<>();
+        for (TextReference reference : graph.texts()) {
+            texts.put(reference.id(), reference);
+        }
+
+        ArrayNode edges = factory.arrayNode();
+        for (GraphNode node : graph.nodes()) {
+            for (GraphEdge edge : node.edges()) {
+                ObjectNode encoded = edges.addObject();
+                encoded.put("source", nodeIndexes.get(edge.source().id()));
+                encoded.put("target", nodeIndexes.get(edge.target().id()));
+                encoded.put("relationship", edge.relationship());
+                encoded.set("value", encodeValue(edge.value(), texts, factory));
+            }
+        }
+
+        Map<String, Integer> fileIndexes = new LinkedHashMap<>();
+        ArrayNode encodedTexts = root.putArray("texts");
+        for (TextReference reference : texts.values()) {
+            ObjectNode text = encodedTexts.addObject()
+                .put("id", reference.id())
+                .put("value", reference.value().value());
+            reference.position().ifPresent(position -> {
+                Integer file = fileIndexes.computeIfAbsent(position.file(), key -> fileIndexes.size());
+                text.putArray("position")
+                    .add(file)
+                    .add(position.offset())
+                    .add(position.length())
+                    .add(position.line())
+                    .add(position.column());
+            });
+        }
+        ArrayNode files = root.putArray("files");
+        fileIndexes.keySet().forEach(files::add);
+        root.set("edges", edges);
+        return root;
+    }
+
+    /**
+     * Rebuilds a graph previously produced by {@link #encode(TextGraph)}.
+     *
+     * @param encoded JSON tree to decode.
+     * @return graph with the same nodes, edges and text identifiers.
+     * @throws IllegalArgumentException when the tree does not follow the expected layout.
+     */
+    public static TextGraph decode(JsonNode encoded) {
+        Objects.requireNonNull(encoded, "encoded");
+        TextGraph.Builder graph = TextGraph.builder();
+
+        JsonNode nodes = require(encoded, "nodes");
+        List<GraphNode> byIndex = new ArrayList<>(nodes.size());
+        for (JsonNode node : nodes) {
+            byIndex.add(graph.addNode(node.asText()));
+        }
+
+        List<String> files = new ArrayList<>();
+        for (JsonNode file : require(encoded, "files")) {
+            files.add(file.asText());
+        }
+
+        Map<String, TextReference> texts = new HashMap<>();
+        for (JsonNode text : require(encoded, "texts")) {
+            String id = require(text, "id").asText();
+            SourcePosition position = decodePosition(text.get("position"), files);
+            texts.put(id, graph.restoreText(id, require(text, "value").asText(), position));
+        }
+
+        for (JsonNode edge : require(encoded, "edges")) {
+            GraphNode source = nodeAt(byIndex, require(edge, "source").asInt(-1));
+            GraphNode target = nodeAt(byIndex, require(edge, "target").asInt(-1));
+            GraphValue value = decodeValue(require(edge, "value"), texts);
+            source.connect(require(edge, "relationship").asText(), target, value);
+        }
+        return graph.build();
+    }
+
+    private static JsonNode encodeValue(GraphValue value, Map<String, TextReference> texts, JsonNodeFactory factory) {
+        ObjectNode encoded = factory.objectNode();
+        if (value.text().isPresent()) {
+            TextReference reference = value.text().get();
+            texts.putIfAbsent(reference.id(), reference);
+            encoded.put("text", reference.id());
+            return encoded;
+        }
+
+        ObjectNode children = encoded.putObject("children");
+        for (Map.Entry<String, GraphValue> child : value.children().entrySet()) {
+            children.set(child.getKey(), encodeValue(child.getValue(), texts, factory));
+        }
+        return encoded;
+    }
+
+    private static GraphValue decodeValue(JsonNode encoded, Map<String, TextReference> texts) {
+        JsonNode text = encoded.get("text");
+        if (text != null) {
+            TextReference reference = texts.get(text.asText());
+            if (reference == null) {
+                throw new IllegalArgumentException("Unknown text reference " + text.asText());
+            }
+            return GraphValue.text(reference);
+        }
+
+        Map<String, GraphValue> children = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = require(encoded, "children").fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            children.put(field.getKey(), decodeValue(field.getValue(), texts));
+        }
+        return GraphValue.composite(children);
+    }
+
+    private static SourcePosition decodePosition(JsonNode encoded, List<String> files) {
+        if (encoded == null || encoded.isNull()) {
+            return null;
+        }
+        if (!encoded.isArray() || encoded.size() != 5) {
+            throw new IllegalArgumentException("Malformed text position " + encoded);
+        }
+
+        int file = encoded.get(0).asInt(-1);
+        if (file < 0 || file >= files.size()) {
+            throw new IllegalArgumentException("Unknown file index " + file);
+        }
+        return new SourcePosition(
+            files.get(file),
+            encoded.get(1).asLong(),
+            encoded.get(2).asInt(),
+            encoded.get(3).asInt(),
+            encoded.get(4).asInt()
+        );
+    }
+
+    private static GraphNode nodeAt(List<GraphNode> nodes, int index) {
+        if (index < 0 || index >= nodes.size()) {
+            throw new IllegalArgumentException("Unknown node index " + index);
+        }
+        return nodes.get(index);
+    }
+
+    private static JsonNode require(JsonNode parent, String field) {
+        JsonNode value = parent.get(field);
+        if (value == null || value.isNull()) {
+            throw new IllegalArgumentException("Missing field " + field);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,71 @@
+package com.pompot.server.pomgraph;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Interns {@link Text} values so identical strings such as {@code "test"}, {@code "jar"} or
+ * {@code "${project.version}"} share one instance within a graph and across the workspace.
+ * Entries are weakly held and disappear once no graph uses the value any more. Lookups are
+ * striped so parallel scans rarely contend on the same lock.
+ */
+final class TextPool {
+
+    /**
+     * Pool shared by every {@link TextGraph}.
+     */
+    static final TextPool SHARED = new TextPool();
+
+    private static final int STRIPES = 32;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    TextPool() {
+        for (int index = 0; index < STRIPES; index += 1) {
+            stripes[index] = new Stripe();
+        }
+    }
+
+    /**
+     * Returns the pooled text for the value, creating it on first use.
+     * @param value raw string; {@code null} is treated as the empty string.
+     * @return shared text instance.
+     */
+    Text intern(String value) {
+        String key = value == null ? "" : value;
+        Stripe stripe = stripes[(key.hashCode() & Integer.MAX_VALUE) % STRIPES];
+        synchronized (stripe) {
+            WeakReference<Text> existing = stripe.texts.get(key);
+            Text text = existing == null ? null : existing.get();
+            if (text == null) {
+                text = new Text(key);
+                // Keyed by the text's own string so the entry lives exactly as long as the text.
+                stripe.texts.put(text.value(), new WeakReference<>(text));
+            }
+            return text;
+        }
+    }
+
+    /**
+     * Number of distinct values currently pooled.
+     * @return live entry count.
+     */
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.texts.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * One lock-protected segment of the pool.
+     */
+    private static final class Stripe {
+
+        private final Map<String, WeakReference<Text>> texts = new WeakHashMap<>();
+    }
+}
@@ -1,6 +1,10 @@
 package com.pompot.server.pomgraph;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * Mutable handle that allows sharing {@link Text} instances across graph edges.
@@ -8,16 +12,23 @@ import java.util.Objects;
 public final class TextReference {
 
     private final String id;
-    private Text value;
+    private final SourcePosition position;
+    private volatile Text value;
+    private List<WeakReference<Watcher>> watchers;
 
     TextReference(String id, Text value) {
+        this(id, value, null);
+    }
+
+    TextReference(String id, Text value, SourcePosition position) {
         this.id = Objects.requireNonNull(id, "id");
         this.value = Objects.requireNonNull(value, "value");
+        this.position = position;
     }
 
     /**
-     * Identifier assigned by the owning graph. It stays stable even if the
-     * underlying text changes.
+     * Identifier assigned by the owning graph, unique within that graph. It
+     * stays stable even if the underlying text changes.
      * @return unique identifier for this reference.
      */
     public String id() {
@@ -32,13 +43,37 @@ public final class TextReference {
         return value;
     }
 
+    /**
+     * Where the value was read from. The position keeps pointing at the original span after
+     * {@link #update(Text)}, which is the span an edit has to replace.
+     * @return source location, or empty when the value was not read from a file.
+     */
+    public Optional<SourcePosition> position() {
+        return Optional.ofNullable(position);
+    }
+
     /**
      * Replaces the stored text with a new value.
      * @param newValue text that should be visible to every consumer holding
      *     this reference.
      */
     public void update(Text newValue) {
-        value = Objects.requireNonNull(newValue, "newValue");
+        Objects.requireNonNull(newValue, "newValue");
+        synchronized (this) {
+            Text previous = value;
+            value = newValue;
+            if (watchers == null || previous.equals(newValue)) {
+                return;
+            }
+            watchers.removeIf(watcher -> {
+                Watcher live = watcher.get();
+                if (live == null) {
+                    return true;
+                }
+                live.moved(this, previous, newValue);
+                return false;
+            });
+        }
     }
 
     /**
@@ -47,6 +82,37 @@ public final class TextReference {
      * @param newValue raw text to store.
      */
     public void update(String newValue) {
-        update(new Text(newValue));
+        update(TextPool.SHARED.intern(newValue));
+    }
+
+    /**
+     * Keeps the watcher informed of later updates. The watcher is weakly held, so graphs that are
+     * no longer used do not stay reachable through references they shared with newer graphs.
+     * @param watcher index or cache of a built graph containing this reference.
+     */
+    void watch(Watcher watcher) {
+        synchronized (this) {
+            if (watchers == null) {
+                watchers = new ArrayList<>(1);
+            }
+            watchers.removeIf(existing -> existing.get() == null);
+            watchers.add(new WeakReference<>(watcher));
+            watcher.moved(this, null, value);
+        }
+    }
+
+    /**
+     * Value derived from the references of one graph, such as {@link TextValueIndex}, that has to
+     * follow their updates.
+     */
+    interface Watcher {
+
+        /**
+         * Called once when the watcher is registered and after every value-changing update.
+         * @param reference reference whose value changed.
+         * @param from previous value; {@code null} when the watcher is first registered.
+         * @param to current value.
+         */
+        void moved(TextReference reference, Text from, Text to);
     }
 }
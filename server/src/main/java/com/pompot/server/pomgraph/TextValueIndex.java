@@ -0,0 +1,53 @@
+package com.pompot.server.pomgraph;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index from current value to the {@link TextReference}s of one graph holding it. References
+ * report every {@link TextReference#update(Text)} to the indexes watching them, so lookups stay
+ * exact without scanning the graph.
+ */
+final class TextValueIndex implements TextReference.Watcher {
+
+    private final Map<Text, Set<TextReference>> references = new ConcurrentHashMap<>();
+
+    TextValueIndex(Collection<TextReference> texts) {
+        for (TextReference text : texts) {
+            text.watch(this);
+        }
+    }
+
+    /**
+     * References whose current value equals the provided one.
+     * @param value value to look up.
+     * @return snapshot of matching references.
+     */
+    Set<TextReference> find(Text value) {
+        Set<TextReference> found = references.get(value);
+        return found == null ? Set.of() : Set.copyOf(found);
+    }
+
+    /**
+     * Moves a reference between value buckets.
+     * @param reference reference whose value changed.
+     * @param from previous value; {@code null} when the reference is first indexed.
+     * @param to current value.
+     */
+    @Override
+    public void moved(TextReference reference, Text from, Text to) {
+        if (from != null) {
+            references.computeIfPresent(from, (key, bucket) -> {
+                bucket.remove(reference);
+                return bucket.isEmpty() ? null : bucket;
+            });
+        }
+        references.compute(to, (key, bucket) -> {
+            Set<TextReference> target = bucket == null ? ConcurrentHashMap.newKeySet() : bucket;
+            target.add(reference);
+            return target;
+        });
+    }
+}
@@ -0,0 +1,170 @@
+package com.pompot.server.pomgraph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Single graph merging the per-pom {@link TextGraph}s of a workspace. Nodes with the same
+ * identifier, such as {@code dependency:org.slf4j:slf4j-api} or {@code property:java.version}, are
+ * stored once and every edge keeps the pom node it starts from, so "who uses X" is answered from
+ * the incoming edges of one node instead of scanning every graph. Edge payloads reuse the
+ * {@link TextReference} instances of the source graphs, which are copied in parallel. The graph is frozen like a built
+ * {@link TextGraph}; its incoming edges come from {@link GraphNode#incoming()}. A
+ * {@linkplain #deferred deferred} workspace merges on its first query instead.
+ */
+public final class WorkspaceGraph {
+
+    private static final WorkspaceGraph EMPTY = new WorkspaceGraph(Map.of());
+
+    private final List<TextGraph> pending;
+    private volatile Map<String, GraphNode> nodes;
+
+    private WorkspaceGraph(Map<String, GraphNode> nodes) {
+        this.pending = List.of();
+        this.nodes = Collections.unmodifiableMap(nodes);
+    }
+
+    private WorkspaceGraph(List<TextGraph> pending) {
+        this.pending = pending;
+    }
+
+    /**
+     * Workspace without any pom.
+     * @return shared empty graph.
+     */
+    public static WorkspaceGraph empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Merges the provided graphs. Nodes are matched by identifier; edges are copied in the order of
+     * the graphs so the merged edges of a node follow the order of the poms.
+     *
+     * @param graphs per-pom graphs to merge; {@code null} entries are skipped.
+     * @return merged workspace graph.
+     */
+    public static WorkspaceGraph merge(Collection<TextGraph> graphs) {
+        if (graphs == null || graphs.isEmpty()) {
+            return EMPTY;
+        }
+        return new WorkspaceGraph(mergeNodes(graphs));
+    }
+
+    /**
+     * Workspace that merges the provided graphs on its first query, for callers that may never
+     * query it, such as a collection loaded from a snapshot.
+     *
+     * @param graphs per-pom graphs to merge; {@code null} entries are skipped.
+     * @return workspace graph answering like {@link #merge(Collection)}.
+     */
+    public static WorkspaceGraph deferred(Collection<TextGraph> graphs) {
+        if (graphs == null || graphs.isEmpty()) {
+            return EMPTY;
+        }
+        return new WorkspaceGraph(graphs.stream().filter(Objects::nonNull).toList());
+    }
+
+    /**
+     * Copies every graph through its own part of a {@link TextGraph.ConcurrentBuilder}, in
+     * parallel; the parts follow the order of the graphs, so the result does not depend on
+     * scheduling.
+     */
+    private static Map<String, GraphNode> mergeNodes(Collection<TextGraph> graphs) {
+        List<TextGraph> ordered = new ArrayList<>(graphs);
+        TextGraph.ConcurrentBuilder builder = TextGraph.concurrentBuilder();
+        IntStream.range(0, ordered.size()).parallel().forEach(index -> {
+            TextGraph graph = ordered.get(index);
+            if (graph == null) {
+                return;
+            }
+            TextGraph.ConcurrentBuilder.Part part = builder.part(index);
+            for (GraphNode node : graph.nodes()) {
+                GraphNode source = part.addNode(node.id());
+                for (GraphEdge edge : node.edges()) {
+                    GraphNode target = part.addNode(edge.target().id());
+                    part.connect(source, edge.relationship(), target, edge.value());
+                }
+            }
+        });
+        return builder.buildNodes();
+    }
+
+    /**
+     * Retrieves a node by identifier.
+     * @param id identifier to look up.
+     * @return optional containing the node when present.
+     */
+    public Optional<GraphNode> findNode(String id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(merged().get(id));
+    }
+
+    /**
+     * Immutable view of every node in the workspace.
+     * @return nodes sorted by first appearance.
+     */
+    public Collection<GraphNode> nodes() {
+        return merged().values();
+    }
+
+    /**
+     * Edges pointing at the node with the provided identifier. Each edge's source is the pom node
+     * that declared it.
+     *
+     * @param id identifier of the target node.
+     * @return immutable list of incoming edges, empty when the node is unknown.
+     */
+    public List<GraphEdge> incoming(String id) {
+        return findNode(id).map(GraphNode::incoming).orElse(List.of());
+    }
+
+    /**
+     * Edges of one relationship pointing at the node with the provided identifier.
+     * @param id identifier of the target node.
+     * @param relationship relationship to keep, for example {@code dependency}.
+     * @return immutable list of matching incoming edges.
+     */
+    public List<GraphEdge> incoming(String id, String relationship) {
+        Objects.requireNonNull(relationship, "relationship");
+        return incoming(id).stream().filter(edge -> edge.relationship().equals(relationship)).toList();
+    }
+
+    /**
+     * Nodes that reference the node with the provided identifier, such as the poms depending on
+     * an artifact.
+     *
+     * @param id identifier of the target node.
+     * @return distinct source nodes in pom order.
+     */
+    public Set<GraphNode> users(String id) {
+        Set<GraphNode> users = new LinkedHashSet<>();
+        for (GraphEdge edge : incoming(id)) {
+            users.add(edge.source());
+        }
+        return Collections.unmodifiableSet(users);
+    }
+
+    private Map<String, GraphNode> merged() {
+        Map<String, GraphNode> merged = nodes;
+        if (merged == null) {
+            synchronized (this) {
+                merged = nodes;
+                if (merged == null) {
+                    merged = Collections.unmodifiableMap(mergeNodes(pending));
+                    nodes = merged;
+                }
+            }
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,308 @@
+package com.pompot.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pompot.server.parser.CommonValueExtractor;
+import com.pompot.server.parser.ParsedPom;
+import com.pompot.server.parser.ParsedPomCollection;
+import com.pompot.server.parser.ParsedPomRepository;
+import com.pompot.server.parser.PomDirectoryScanner;
+import com.pompot.server.parser.PomDirectoryWalker;
+import com.pompot.server.parser.PomFileParser;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import org.apache.maven.model.io.DefaultModelReader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PomWorkspaceWatcherTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000L;
+
+    @TempDir
+    Path workspace;
+
+    private ParsedPomRepository repository;
+    private CommonValueExtractor extractor;
+    private PomDirectoryScanner scanner;
+    private PomWorkspaceWatcher watcher;
+
+    @BeforeEach
+    void setUp() {
+        PomFileParser parser = new PomFileParser(new DefaultModelReader(), new ObjectMapper());
+        repository = new ParsedPomRepository();
+        extractor = new CommonValueExtractor();
+        scanner = new PomDirectoryScanner(parser);
+        watcher = new PomWorkspaceWatcher(repository, extractor, scanner, true, 50L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        watcher.close();
+    }
+
+    @Test
+    void applyReparsesOnlyModifiedPom() throws IOException {
+        writePom(workspace.resolve("alpha"), "alpha", "1.0");
+        writePom(workspace.resolve("beta"), "beta", "1.0");
+        storeInitialScan();
+        ParsedPom untouched = entry("beta");
+
+        writePom(workspace.resolve("alpha"), "alpha-renamed", "1.0");
+        PomWorkspaceWatcher.Changes changes = new PomWorkspaceWatcher.Changes();
+        changes.modified(workspace.resolve("alpha/pom.xml"));
+        watcher.apply(workspace, changes);
+
+        assertEquals(List.of("alpha-renamed", "beta"), artifactIds());
+        assertTrue(untouched == entry("beta"), "Unchanged poms should keep their parsed entry");
+    }
+
+    @Test
+    void applyRediscoversAddedAndDeletedPoms() throws IOException {
+        writePom(workspace.resolve("alpha"), "alpha", "1.0");
+        writePom(workspace.resolve("beta"), "beta", "1.0");
+        storeInitialScan();
+
+        Files.delete(workspace.resolve("alpha/pom.xml"));
+        writePom(workspace.resolve("gamma"), "gamma", "1.0");
+        PomWorkspaceWatcher.Changes changes = new PomWorkspaceWatcher.Changes();
+        changes.structureChanged();
+        watcher.apply(workspace, changes);
+
+        assertEquals(List.of("beta", "gamma"), artifactIds());
+    }
+
+    @Test
+    void applyIgnoresModifiedPomsThatDiscoveryExcludes() throws IOException {
+        Files.writeString(workspace.resolve(".gitignore"), "/generated/\n");
+        writePom(workspace.resolve("alpha"), "alpha", "1.0");
+        writePom(workspace.resolve("generated"), "generated", "1.0");
+        storeInitialScan();
+        assertEquals(List.of("alpha"), artifactIds());
+
+        writePom(workspace.resolve("generated"), "generated", "2.0");
+        PomWorkspaceWatcher.Changes changes = new PomWorkspaceWatcher.Changes();
+        changes.modified(workspace.resolve("generated/pom.xml"));
+        watcher.apply(workspace, changes);
+
+        assertEquals(List.of("alpha"), artifactIds());
+    }
+
+    @Test
+    void changesHeldDuringTheStartupScanAreAppliedOnTopOfIt() throws IOException {
+        writePom(workspace.resolve("alpha"), "alpha", "1.0");
+        watcher.holdChanges();
+        PomDirectoryScanner.ScanResult scan = scanner.scan(workspace);
+
+        writePom(workspace.resolve("alpha"), "alpha-edited", "1.0");
+        PomWorkspaceWatcher.Changes changes = new PomWorkspaceWatcher.Changes();
+        changes.modified(workspace.resolve("alpha/pom.xml"));
+        watcher.apply(workspace, changes);
+        assertTrue(repository.fetch().isEmpty(), "Held changes are not published before the scan");
+
+        watcher.publishScan(workspace, new ParsedPomCollection(
+            scan.root().toString(),
+            scan.parsedPoms(),
+            extractor.extract(scan.parsedPoms())
+        ));
+
+        assertEquals(List.of("alpha-edited"), artifactIds());
+    }
+
+    @Test
+    void applyRecomputesWhenAnotherWriterPublishesFirst() throws IOException {
+        ParsedPomCollection[] concurrent = new ParsedPomCollection[1];
+        repository = new ParsedPomRepository() {
+            private boolean raced;
+
+            @Override
+            public boolean replace(ParsedPomCollection expected, ParsedPomCollection updated) {
+                if (!raced && concurrent[0] != null) {
+                    raced = true;
+                    store(concurrent[0]);
+                }
+                return super.replace(expected, updated);
+            }
+        };
+        watcher.close();
+        watcher = new PomWorkspaceWatcher(repository, extractor, scanner, true, 50L);
+        writePom(workspace.resolve("alpha"), "alpha", "1.0");
+        writePom(workspace.resolve("beta"), "beta", "1.0");
+        storeInitialScan();
+        PomDirectoryScanner.ScanResult rescan = scanner.scan(workspace);
+        concurrent[0] = new ParsedPomCollection(
+            rescan.root().toString(),
+            rescan.parsedPoms(),
+            extractor.extract(rescan.parsedPoms())
+        );
+
+        writePom(workspace.resolve("alpha"), "alpha-renamed", "1.0");
+        PomWorkspaceWatcher.Changes changes = new PomWorkspaceWatcher.Changes();
+        changes.modified(workspace.resolve("alpha/pom.xml"));
+        watcher.apply(workspace, changes);
+
+        assertEquals(List.of("alpha-renamed", "beta"), artifactIds());
+        assertTrue(rescan.parsedPoms().get(1) == entry("beta"), "The refresh is recomputed on top of the other publication");
+    }
+
+    @Test
+    void applyKeepsCommonValuesInStepWithTheWorkspace() throws IOException {
+        writePomWithJavaVersion(workspace.resolve("alpha"), "alpha", "17");
+        writePomWithJavaVersion(workspace.resolve("beta"), "beta", "17");
+        writePomWithJavaVersion(workspace.resolve("gamma"), "gamma", "21");
+        storeInitialScan();
+
+        writePomWithJavaVersion(workspace.resolve("gamma"), "gamma", "17");
+        PomWorkspaceWatcher.Changes first = new PomWorkspaceWatcher.Changes();
+        first.modified(workspace.resolve("gamma/pom.xml"));
+        watcher.apply(workspace, first);
+        assertEquals(List.of("java.version 17 x3"), commonValues());
+
+        writePomWithJavaVersion(workspace.resolve("alpha"), "alpha", "21");
+        PomWorkspaceWatcher.Changes second = new PomWorkspaceWatcher.Changes();
+        second.modified(workspace.resolve("alpha/pom.xml"));
+        watcher.apply(workspace, second);
+        assertEquals(List.of("java.version 17 x2"), commonValues());
+
+        Files.delete(workspace.resolve("beta/pom.xml"));
+        PomWorkspaceWatcher.Changes third = new PomWorkspaceWatcher.Changes();
+        third.structureChanged();
+        watcher.apply(workspace, third);
+        assertEquals(List.of(), commonValues());
+    }
+
+    @Test
+    void watchPublishesFileSystemChanges() throws Exception {
+        writePom(workspace.resolve("alpha"), "alpha", "1.0");
+        watcher.watch(workspace);
+        storeInitialScan();
+
+        writePom(workspace.resolve("alpha"), "alpha", "2.0");
+        awaitCollection(collection -> collection.entries().get(0).model().json().path("version").asText().equals("2.0"));
+
+        writePom(workspace.resolve("nested/beta"), "beta", "1.0");
+        awaitCollection(collection -> collection.entries().size() == 2);
+
+        Files.delete(workspace.resolve("alpha/pom.xml"));
+        awaitCollection(collection -> collection.entries().size() == 1);
+        assertEquals(List.of("beta"), artifactIds());
+    }
+
+    @Test
+    void watchSkipsDirectoriesDiscoveryPrunes() throws Exception {
+        Files.writeString(workspace.resolve(".gitignore"), "generated/\n", StandardCharsets.UTF_8);
+        writePom(workspace.resolve("alpha"), "alpha", "1.0");
+        writePom(workspace.resolve("generated"), "generated", "1.0");
+        writePom(workspace.resolve("excluded/nested"), "excluded", "1.0");
+        Files.createDirectories(workspace.resolve("docs/images"));
+        PomDirectoryWalker.Options walkerOptions = new PomDirectoryWalker.Options(
+            PomDirectoryWalker.DEFAULT_IGNORED_DIRECTORIES, List.of(), List.of("excluded"), true, Integer.MAX_VALUE);
+        scanner = new PomDirectoryScanner(
+            new PomFileParser(new DefaultModelReader(), new ObjectMapper()),
+            PomDirectoryScanner.Options.defaults().withDiscovery(new PomDirectoryWalker(walkerOptions))
+        );
+        watcher.close();
+        watcher = new PomWorkspaceWatcher(repository, extractor, scanner, true, 50L);
+        watcher.watch(workspace);
+        storeInitialScan();
+
+        assertEquals(Set.of(workspace, workspace.resolve("alpha")), watcher.watchedDirectories());
+
+        Files.createDirectories(workspace.resolve("excluded/other"));
+        Files.createDirectories(workspace.resolve("generated/more"));
+        Files.createDirectories(workspace.resolve("target"));
+        Files.createDirectories(workspace.resolve("beta/nested"));
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!watcher.watchedDirectories().contains(workspace.resolve("beta/nested"))) {
+            assertTrue(System.currentTimeMillis() < deadline, "Created directory was not watched in time");
+            Thread.sleep(25L);
+        }
+        assertEquals(
+            Set.of(workspace, workspace.resolve("alpha"), workspace.resolve("beta"), workspace.resolve("beta/nested")),
+            watcher.watchedDirectories()
+        );
+    }
+
+    private void storeInitialScan() {
+        PomDirectoryScanner.ScanResult result = scanner.scan(workspace, pomFiles -> watcher.watchPoms(workspace, pomFiles));
+        repository.store(new ParsedPomCollection(
+            result.root().toString(),
+            result.parsedPoms(),
+            extractor.extract(result.parsedPoms())
+        ));
+    }
+
+    private void awaitCollection(Predicate<ParsedPomCollection> condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            if (repository.fetch().filter(condition).isPresent()) {
+                return;
+            }
+            Thread.sleep(25L);
+        }
+        throw new AssertionError("Watcher did not publish the expected change in time");
+    }
+
+    private ParsedPom entry(String artifactId) {
+        return repository.fetch().orElseThrow().entries().stream()
+            .filter(entry -> artifactId.equals(entry.artifactId()))
+            .findFirst()
+            .orElseThrow();
+    }
+
+    private List<String> artifactIds() {
+        return repository.fetch().orElseThrow().entries().stream()
+            .map(ParsedPom::artifactId)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Common values of the stored collection, checked against a full extraction of its entries.
+     */
+    private List<String> commonValues() {
+        ParsedPomCollection collection = repository.fetch().orElseThrow();
+        assertEquals(extractor.extract(collection.entries()), collection.commonValues());
+        return collection.commonValues().stream()
+            .map(value -> value.identifier() + " " + value.value() + " x" + value.occurrences())
+            .collect(Collectors.toList());
+    }
+
+    private void writePomWithJavaVersion(Path directory, String artifactId, String javaVersion) throws IOException {
+        Files.createDirectories(directory);
+        String content = """
+            <project xmlns="http://maven.apache.org/POM/4.0.0">
+              <modelVersion>4.0.0</modelVersion>
+              <groupId>com.example</groupId>
+              <artifactId>%s</artifactId>
+              <version>1.0</version>
+              <properties>
+                <java.version>%s</java.version>
+              </properties>
+            </project>
+            """.formatted(artifactId, javaVersion);
+        Files.writeString(directory.resolve("pom.xml"), content, StandardCharsets.UTF_8);
+    }
+
+    private void writePom(Path directory, String artifactId, String version) throws IOException {
+        Files.createDirectories(directory);
+        String content = """
+            <project xmlns="http://maven.apache.org/POM/4.0.0">
+              <modelVersion>4.0.0</modelVersion>
+              <groupId>com.example</groupId>
+              <artifactId>%s</artifactId>
+              <version>%s</version>
+            </project>
+            """.formatted(artifactId, version);
+        Files.writeString(directory.resolve("pom.xml"), content, StandardCharsets.UTF_8);
+    }
+}
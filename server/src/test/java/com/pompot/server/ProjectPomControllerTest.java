@@ -0,0 +1,166 @@
+package com.pompot.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pompot.server.parser.CommonValue;
+import com.pompot.server.parser.CommonValueExtractor;
+import com.pompot.server.parser.ParsedPomCollection;
+import com.pompot.server.parser.ParsedPomRepository;
+import com.pompot.server.parser.PomDirectoryScanner;
+import com.pompot.server.parser.PomFileParser;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.maven.model.io.DefaultModelReader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+class ProjectPomControllerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ParsedPomRepository repository;
+    private ProjectPomController controller;
+
+    @BeforeEach
+    void setUp() {
+        repository = new ParsedPomRepository();
+        controller = new ProjectPomController(repository);
+    }
+
+    @Test
+    void returnsTheWholeCollectionWithoutParameters() {
+        repository.store(scan());
+
+        ResponseEntity<?> response = controller.fetchParsedPom(null, null, null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        JsonNode json = objectMapper.valueToTree(response.getBody());
+        assertEquals(2, json.get("entries").size());
+        JsonNode first = json.get("entries").get(0);
+        assertTrue(first.get("model").isObject(), "Models are part of the full collection");
+        assertTrue(first.get("graph").get("nodes").isArray(), "Graphs are written in their codec form");
+    }
+
+    @Test
+    void summaryPageHoldsCoordinatesVersionAndCounts() {
+        repository.store(scan());
+
+        JsonNode page = body(controller.fetchParsedPom(0, 1, "summary", null));
+
+        assertEquals(0, page.get("page").asInt());
+        assertEquals(1, page.get("size").asInt());
+        assertEquals(2, page.get("totalEntries").asInt());
+        assertEquals(2, page.get("totalPages").asInt());
+        assertEquals(1, page.get("entries").size());
+        JsonNode entry = page.get("entries").get(0);
+        assertEquals(
+            List.of("pomPath", "relativePath", "groupId", "artifactId", "version", "counts"),
+            fieldNames(entry)
+        );
+        assertEquals("alpha-app", entry.get("artifactId").asText());
+        assertEquals("1.0.0", entry.get("version").asText());
+        assertEquals(2, entry.get("counts").get("property").asInt());
+        assertEquals(1, entry.get("counts").get("dependency").asInt());
+        assertEquals(1, entry.get("counts").get("parent").asInt());
+    }
+
+    @Test
+    void fieldsSelectOnlyTheRequestedValues() {
+        repository.store(scan());
+
+        JsonNode page = body(controller.fetchParsedPom(1, 1, "summary", " artifactId, version "));
+
+        assertEquals(1, page.get("entries").size());
+        JsonNode entry = page.get("entries").get(0);
+        assertEquals(List.of("artifactId", "version"), fieldNames(entry));
+        assertEquals("beta-app", entry.get("artifactId").asText());
+
+        JsonNode pastTheEnd = body(controller.fetchParsedPom(5, null, null, "graph"));
+        assertEquals(ProjectPomController.DEFAULT_PAGE_SIZE, pastTheEnd.get("size").asInt());
+        assertEquals(0, pastTheEnd.get("entries").size());
+    }
+
+    @Test
+    void rejectsInvalidParameters() {
+        repository.store(scan());
+
+        assertBadRequest(-1, null, null, null);
+        assertBadRequest(null, 0, null, null);
+        assertBadRequest(null, ProjectPomController.MAX_PAGE_SIZE + 1, null, null);
+        assertBadRequest(null, null, "compact", null);
+        assertBadRequest(null, null, null, "artifactId,checksum");
+        assertBadRequest(null, null, null, " , ");
+    }
+
+    @Test
+    void commonValuesAreServedApartFromThePages() {
+        ParsedPomCollection collection = scan();
+        repository.store(collection);
+
+        ResponseEntity<List<CommonValue>> response = controller.fetchCommonValues();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(collection.commonValues(), response.getBody());
+        assertTrue(!collection.commonValues().isEmpty(), "The fixture poms share values");
+        assertTrue(body(controller.fetchParsedPom(0, 1, "summary", null)).get("commonValues") == null);
+    }
+
+    @Test
+    void usersListThePomsReferencingANode() {
+        repository.store(scan());
+
+        ResponseEntity<List<String>> shared = controller.fetchUsers("dependency:com.example:shared-library:jar");
+        assertEquals(HttpStatus.OK, shared.getStatusCode());
+        assertEquals(List.of("alpha/pom.xml", "beta/pom.xml"), relativePaths(shared.getBody()));
+        assertEquals(List.of(), controller.fetchUsers("dependency:com.example:missing").getBody());
+    }
+
+    @Test
+    void returnsNotFoundWhenNothingIsStored() {
+        assertEquals(HttpStatus.NOT_FOUND, controller.fetchParsedPom(null, null, null, null).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, controller.fetchParsedPom(0, 10, "summary", null).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, controller.fetchCommonValues().getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, controller.fetchUsers("dependency:com.example:shared-library:jar").getStatusCode());
+    }
+
+    private void assertBadRequest(Integer page, Integer size, String view, String fields) {
+        ResponseStatusException error = assertThrows(
+            ResponseStatusException.class,
+            () -> controller.fetchParsedPom(page, size, view, fields)
+        );
+        assertEquals(HttpStatus.BAD_REQUEST, error.getStatusCode());
+    }
+
+    private JsonNode body(ResponseEntity<?> response) {
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return objectMapper.valueToTree(response.getBody());
+    }
+
+    private static List<String> relativePaths(List<String> paths) {
+        return paths.stream().map(path -> path.replace('\\', '/')).toList();
+    }
+
+    private static List<String> fieldNames(JsonNode entry) {
+        List<String> names = new ArrayList<>();
+        entry.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+
+    private static ParsedPomCollection scan() {
+        Path root = Path.of("src", "test", "resources", "cli-report").toAbsolutePath().normalize();
+        PomFileParser parser = new PomFileParser(new DefaultModelReader(), new ObjectMapper());
+        PomDirectoryScanner.ScanResult scan = new PomDirectoryScanner(parser).scan(root);
+        return new ParsedPomCollection(
+            scan.root().toString(),
+            scan.parsedPoms(),
+            new CommonValueExtractor().analyze(scan.parsedPoms())
+        );
+    }
+}
@@ -9,6 +9,7 @@ import com.pompot.server.parser.ParsedPomCollection;
 import com.pompot.server.parser.ParsedPomRepository;
 import com.pompot.server.parser.PomDirectoryScanner;
 import com.pompot.server.parser.PomFileParser;
+import com.pompot.server.parser.WorkspaceSnapshot;
 import java.io.IOException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
@@ -36,7 +37,11 @@ class ProjectPomInitializerTest {
         PomFileParser parser = new PomFileParser(new DefaultModelReader(), objectMapper);
         parsedPomRepository = new ParsedPomRepository();
         PomDirectoryScanner scanner = new PomDirectoryScanner(parser);
-        initializer = new ProjectPomInitializer(parsedPomRepository, new CommonValueExtractor(), scanner);
+        CommonValueExtractor extractor = new CommonValueExtractor();
+        PomWorkspaceWatcher watcher = new PomWorkspaceWatcher(
+            parsedPomRepository, extractor, scanner, false, 0L);
+        initializer = new ProjectPomInitializer(
+            parsedPomRepository, extractor, scanner, watcher, WorkspaceSnapshot.disabled());
     }
 
     @AfterEach
@@ -58,6 +63,11 @@ class ProjectPomInitializerTest {
         assertTrue(storedPom.isPresent(), "Expected parsed poms to be stored");
         assertEquals(2, storedPom.get().entries().size(), "Expected both sample projects to be parsed");
         assertTrue(storedPom.get().commonValues().isEmpty(), "Sample projects should not yield common values");
+        assertEquals(
+            2,
+            storedPom.get().workspace().nodes().stream().filter(node -> node.id().startsWith("pom:")).count(),
+            "Both poms should be merged into the workspace graph"
+        );
     }
 
     @Test
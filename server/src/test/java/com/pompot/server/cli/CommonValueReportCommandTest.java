@@ -1,18 +1,31 @@
 package com.pompot.server.cli;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pompot.server.parser.CommonValueExtractor;
 import com.pompot.server.parser.PomDirectoryScanner;
 import com.pompot.server.parser.PomFileParser;
+import com.pompot.server.parser.PomParseResult;
+import com.pompot.server.parser.WorkspaceSnapshot;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 import org.apache.maven.model.io.DefaultModelReader;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class CommonValueReportCommandTest {
 
@@ -42,9 +55,70 @@ class CommonValueReportCommandTest {
         assertTrue(report.contains("plugin"), "Plugin entries should be listed");
         assertTrue(report.contains("managed plugin"), "Managed plugin entries should be listed");
         assertTrue(report.contains("tile"), "Tile entries should be listed");
+        assertTrue(report.contains("Values that drift under"), "Drift header should be present");
+        assertTrue(report.contains("slf4j.version  2.0.9 (1), 2.0.12 (1)"), "Drifting values should be listed in version order");
         assertTrue(errorOutput.toString(StandardCharsets.UTF_8).isEmpty(), "No errors expected for valid runs");
     }
 
+    @Test
+    void reportsFromTheSnapshotUntilAPomChanges(@TempDir Path workspace) throws IOException {
+        Path projects = workspace.resolve("projects");
+        Path source = Path.of("src", "test", "resources", "cli-report");
+        FileTime beforeTheScan = FileTime.fromMillis(System.currentTimeMillis() - 60_000);
+        try (Stream<Path> files = Files.walk(source)) {
+            for (Path file : files.toList()) {
+                Path target = projects.resolve(source.relativize(file).toString());
+                if (Files.isDirectory(file)) {
+                    Files.createDirectories(target);
+                } else {
+                    Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+                    Files.setLastModifiedTime(target, beforeTheScan);
+                }
+            }
+        }
+        List<Path> parsed = Collections.synchronizedList(new ArrayList<>());
+        PomFileParser countingParser = new PomFileParser(new DefaultModelReader(), new ObjectMapper()) {
+            @Override
+            public Optional<PomParseResult> parseFile(Path pomLocation, Mode mode) {
+                parsed.add(pomLocation);
+                return super.parseFile(pomLocation, mode);
+            }
+        };
+        WorkspaceSnapshot snapshot = new WorkspaceSnapshot(workspace.resolve("workspace.snapshot"));
+        CommonValueReportCommand command =
+            new CommonValueReportCommand(new PomDirectoryScanner(countingParser), new CommonValueExtractor(), snapshot);
+
+        String scanned = report(command, projects);
+        assertEquals(2, parsed.size());
+        assertTrue(scanned.contains("slf4j.version  2.0.9 (1), 2.0.12 (1)"));
+        assertEquals(scanned, report(command, projects), "The second run reports from the snapshot");
+        assertEquals(2, parsed.size(), "Nothing is parsed while the snapshot matches the poms");
+
+        Path beta = projects.resolve("beta").resolve("pom.xml");
+        Files.writeString(beta, Files.readString(beta).replace("2.0.9", "2.0.12"));
+        String edited = report(command, projects);
+        assertEquals(4, parsed.size(), "An edited pom makes the command scan again");
+        assertFalse(edited.contains("Values that drift"), edited);
+
+        Files.delete(beta);
+        String deleted = report(command, projects);
+        assertEquals(5, parsed.size(), "A deleted pom makes the command scan again");
+        assertFalse(deleted.contains("beta"), deleted);
+
+        Path gamma = projects.resolve("gamma").resolve("pom.xml");
+        Files.createDirectories(gamma.getParent());
+        Files.copy(projects.resolve("alpha").resolve("pom.xml"), gamma);
+        report(command, projects);
+        assertEquals(7, parsed.size(), "An added pom makes the command scan again");
+    }
+
+    private static String report(CommonValueReportCommand command, Path projects) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        int exitCode = command.run(projects.toString(), new PrintStream(output), new PrintStream(new ByteArrayOutputStream()));
+        assertEquals(0, exitCode);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
     @Test
     void reportsInvalidDirectory() {
         ObjectMapper objectMapper = new ObjectMapper();
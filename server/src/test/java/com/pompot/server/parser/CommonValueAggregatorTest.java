@@ -0,0 +1,129 @@
+package com.pompot.server.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.pompot.server.pomgraph.GraphNode;
+import com.pompot.server.pomgraph.GraphValue;
+import com.pompot.server.pomgraph.TextGraph;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class CommonValueAggregatorTest {
+
+    private static final String[] VERSIONS = {"17", "21", "2.0.9", "2.0.12", "utf-8", "UTF-8"};
+
+    private final CommonValueExtractor extractor = new CommonValueExtractor();
+
+    @Test
+    void matchesAFullExtractionAfterEveryChange() {
+        Random random = new Random(42);
+        Map<String, ParsedPom> tracked = new LinkedHashMap<>();
+        CommonValueAggregator aggregator = extractor.aggregator();
+
+        for (int step = 0; step < 300; step++) {
+            String path = "/work/module" + random.nextInt(12) + "/pom.xml";
+            ParsedPom current = tracked.get(path);
+            int action = random.nextInt(3);
+            if (current == null) {
+                ParsedPom added = pom(path, random);
+                aggregator.add(added);
+                tracked.put(path, added);
+            } else if (action == 0) {
+                aggregator.remove(current);
+                tracked.remove(path);
+            } else {
+                ParsedPom reparsed = pom(path, random);
+                aggregator.replace(current, reparsed);
+                tracked.put(path, reparsed);
+            }
+
+            List<ParsedPom> order = new ArrayList<>(tracked.values());
+            if (step % 2 == 1) {
+                Collections.reverse(order);
+            }
+            assertEquals(extractor.analyze(order), aggregator.analysis(order), "Step " + step);
+            assertEquals(tracked.size(), aggregator.size());
+        }
+    }
+
+    @Test
+    void rejectsUnknownAndDuplicatePoms() {
+        Random random = new Random(7);
+        ParsedPom app = pom("/work/app/pom.xml", random);
+        ParsedPom lib = pom("/work/lib/pom.xml", random);
+        CommonValueAggregator aggregator = extractor.aggregator();
+        aggregator.add(app);
+        aggregator.add(lib);
+        List<ParsedPom> order = List.of(app, lib);
+        List<CommonValue> values = aggregator.commonValues(order);
+
+        assertThrows(IllegalArgumentException.class, () -> aggregator.add(pom("/work/app/pom.xml", random)));
+        assertThrows(IllegalArgumentException.class, () -> aggregator.remove(pom("/work/other/pom.xml", random)));
+        assertThrows(IllegalArgumentException.class, () -> aggregator.replace(app, lib));
+        assertEquals(values, aggregator.commonValues(order), "Rejected changes must leave the counts untouched");
+        assertThrows(IllegalArgumentException.class, () -> aggregator.commonValues(List.of(app)));
+        assertThrows(IllegalArgumentException.class, () -> aggregator.commonValues(List.of(app, pom("/work/other/pom.xml", random))));
+    }
+
+    @Test
+    void rebuildsOnlyTheValuesAChangeTouched() {
+        ParsedPom app = properties("/work/app/pom.xml", "encoding", "utf-8", "java.version", "17");
+        ParsedPom lib = properties("/work/lib/pom.xml", "encoding", "utf-8", "java.version", "17");
+        ParsedPom tool = properties("/work/tool/pom.xml", "java.version", "17");
+        CommonValueAggregator aggregator = extractor.aggregator();
+        List.of(app, lib, tool).forEach(aggregator::add);
+        List<CommonValue> before = aggregator.commonValues(List.of(app, lib, tool));
+
+        ParsedPom edited = properties("/work/tool/pom.xml", "java.version", "21");
+        aggregator.replace(tool, edited);
+        List<ParsedPom> order = List.of(app, lib, edited);
+        ValueAnalysis after = aggregator.analysis(order);
+
+        assertEquals(extractor.analyze(order), after);
+        assertSame(before.get(0), after.commonValues().get(0), "Values the edited pom never held are reused");
+
+        ParsedPom first = properties("/work/aaa/pom.xml", "encoding", "utf-8");
+        aggregator.add(first);
+        List<ParsedPom> shifted = List.of(first, app, lib, edited);
+        assertEquals(extractor.analyze(shifted), aggregator.analysis(shifted), "Ordinals move with an insertion");
+    }
+
+    private static ParsedPom properties(String path, String... namesAndValues) {
+        TextGraph.Builder builder = TextGraph.builder();
+        GraphNode pom = builder.addNode("pom:" + path);
+        for (int index = 0; index < namesAndValues.length; index += 2) {
+            pom.connect("property", builder.addNode("property:" + namesAndValues[index]), builder.createText(namesAndValues[index + 1]));
+        }
+        return new ParsedPom(path, path, "org.example", path, (PomModel) null, builder.build());
+    }
+
+    private static ParsedPom pom(String path, Random random) {
+        TextGraph.Builder builder = TextGraph.builder();
+        GraphNode pom = builder.addNode("pom:" + path);
+        for (int property = 0; property < 3; property++) {
+            if (random.nextBoolean()) {
+                pom.connect("property", builder.addNode("property:p" + property), builder.createText(version(random)));
+            }
+        }
+        for (int dependency = 0; dependency < 3; dependency++) {
+            String relationship = random.nextBoolean() ? "dependency" : "managedDependency";
+            Map<String, GraphValue> payload = new LinkedHashMap<>();
+            payload.put("groupId", GraphValue.text(builder.createText("org.example")));
+            payload.put("artifactId", GraphValue.text(builder.createText("lib" + dependency)));
+            payload.put("version", GraphValue.text(builder.createText(version(random))));
+            pom.connect(relationship, builder.addNode("dependency:org.example:lib" + dependency), GraphValue.composite(payload));
+        }
+        return new ParsedPom(path, path, "org.example", path, (PomModel) null, builder.build());
+    }
+
+    private static String version(Random random) {
+        return VERSIONS[random.nextInt(VERSIONS.length)];
+    }
+}
@@ -12,9 +12,12 @@ import com.pompot.server.pomgraph.GraphValue;
 import com.pompot.server.pomgraph.TextGraph;
 import com.pompot.server.pomgraph.TextReference;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 import org.apache.maven.model.io.DefaultModelReader;
 import org.junit.jupiter.api.Test;
 
@@ -86,6 +89,9 @@ class CommonValueExtractorTest {
         assertEquals("java.version", propertyValue.identifier());
         assertEquals("17", propertyValue.value());
         assertEquals(2, propertyValue.occurrences());
+        assertEquals(PomSet.of(0, 1), propertyValue.poms());
+        ParsedPomCollection collection = new ParsedPomCollection("/projects", List.of(first, second), values);
+        assertEquals(List.of(first, second), collection.pomsWith(propertyValue).toList());
     }
 
     @Test
@@ -195,6 +201,14 @@ class CommonValueExtractorTest {
 
         CommonValue tileValue = findValue(values, "tile", "com.example.tiles:java-conventions:1.0.0");
         assertEquals("com.example.tiles:java-conventions:1.0.0", tileValue.value());
+
+        CommonValueExtractor selective = new CommonValueExtractor(EnumSet.of(CommonValueCategory.TILE, CommonValueCategory.PARENT));
+        assertEquals(
+            List.of("parent", "tile"),
+            selective.extract(List.of(first, second)).stream().map(CommonValue::category).toList(),
+            "Only the enabled categories should be counted"
+        );
+        assertEquals(List.of(), new CommonValueExtractor(EnumSet.noneOf(CommonValueCategory.class)).extract(List.of(first, second)));
     }
 
     @Test
@@ -250,11 +264,72 @@ class CommonValueExtractorTest {
         assertDependencyEdge(betaRoot, betaGraph, "dependency:com.example:managed-shared:jar", "managedDependency", "9.9.9");
     }
 
-    private ParsedPom createParsedPom(String pomPath, java.util.function.Consumer<TextGraph> graphPopulator) {
-        TextGraph graph = new TextGraph();
+    @Test
+    void analyzeListsDriftingCoordinatesInVersionOrder() {
+        CommonValueExtractor extractor = new CommonValueExtractor();
+        List<ParsedPom> entries = new ArrayList<>();
+        String[] versions = {"2.0.12", "1.7.36", "2.0.9", "2.0.12"};
+        for (int index = 0; index < versions.length; index++) {
+            String version = versions[index];
+            entries.add(createParsedPom("/projects/p" + index + "/pom.xml", graph -> {
+                GraphNode pom = graph.addNode("pom");
+                pom.connect("property", graph.addNode("property:java.version"), graph.createText("17"));
+                pom.connect("dependency", graph.addNode("dependency:org.slf4j:slf4j-api"),
+                    dependencyValue(graph, "org.slf4j", "slf4j-api", version, null));
+            }));
+        }
+
+        ValueAnalysis analysis = extractor.analyze(entries);
+
+        assertEquals(extractor.extract(entries), analysis.commonValues());
+        assertEquals(
+            List.of(new ValueDrift("dependency", "org.slf4j:slf4j-api", List.of(
+                new ValueDrift.Variant("1.7.36", 1, PomSet.of(1)),
+                new ValueDrift.Variant("2.0.9", 1, PomSet.of(2)),
+                new ValueDrift.Variant("2.0.12", 2, PomSet.of(0, 3))
+            ))),
+            analysis.drift(),
+            "Only the coordinate with several values drifts, and its values follow Maven version order"
+        );
+    }
+
+    @Test
+    void parallelExtractionMatchesTheSequentialOne() {
+        CommonValueExtractor extractor = new CommonValueExtractor();
+        String[] versions = {"17", "21", "utf-8", "UTF-8"};
+        List<ParsedPom> entries = new ArrayList<>();
+        for (int index = 0; index < CommonValueExtractor.PARALLEL_THRESHOLD * 5 + 7; index++) {
+            String version = versions[index % versions.length];
+            int library = index % 11;
+            entries.add(createParsedPom("/projects/p" + index + "/pom.xml", graph -> {
+                GraphNode pom = graph.addNode("pom");
+                pom.connect("property", graph.addNode("property:java.version"), graph.createText(version));
+                pom.connect("dependency", graph.addNode("dependency:com.example:lib" + library),
+                    dependencyValue(graph, "com.example", "lib" + library, "1." + (library % 3), null));
+            }));
+            if (index % 50 == 0) {
+                entries.add(null);
+            }
+        }
+
+        ForkJoinPool sequential = new ForkJoinPool(1);
+        ForkJoinPool parallel = new ForkJoinPool(4);
+        try {
+            ValueAnalysis expected = extractor.analyze(entries, sequential);
+            assertEquals(15, expected.commonValues().size());
+            assertEquals(expected, extractor.analyze(entries, parallel));
+            assertEquals(expected.commonValues(), extractor.extract(entries));
+        } finally {
+            sequential.shutdown();
+            parallel.shutdown();
+        }
+    }
+
+    private ParsedPom createParsedPom(String pomPath, java.util.function.Consumer<TextGraph.Builder> graphPopulator) {
+        TextGraph.Builder graph = TextGraph.builder();
         graphPopulator.accept(graph);
         JsonNode emptyModel = objectMapper.createObjectNode();
-        return new ParsedPom(pomPath, pomPath, null, null, emptyModel, graph);
+        return new ParsedPom(pomPath, pomPath, null, null, emptyModel, graph.build());
     }
 
     private ParsedPom parsedPom(Path projectRoot, PomParseResult result, TextGraph graph, String relativePath) {
@@ -310,7 +385,7 @@ class CommonValueExtractorTest {
     }
 
     private GraphValue dependencyValue(
-        TextGraph graph,
+        TextGraph.Builder graph,
         String groupId,
         String artifactId,
         String version,
@@ -320,7 +395,7 @@ class CommonValueExtractorTest {
     }
 
     private GraphValue dependencyValue(
-        TextGraph graph,
+        TextGraph.Builder graph,
         String groupId,
         String artifactId,
         String version,
@@ -348,7 +423,7 @@ class CommonValueExtractorTest {
         return GraphValue.composite(payload);
     }
 
-    private GraphValue pluginValue(TextGraph graph, String groupId, String artifactId, String version) {
+    private GraphValue pluginValue(TextGraph.Builder graph, String groupId, String artifactId, String version) {
         LinkedHashMap<String, GraphValue> payload = new LinkedHashMap<>();
         payload.put("version", GraphValue.text(graph.createText(version)));
         payload.put("groupId", GraphValue.text(graph.createText(groupId)));
@@ -0,0 +1,59 @@
+package com.pompot.server.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.pompot.server.pomgraph.GraphDiff;
+import com.pompot.server.pomgraph.GraphNode;
+import com.pompot.server.pomgraph.TextGraph;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PomCollectionDiffTest {
+
+    @Test
+    void comparesEntriesByPomPath() {
+        ParsedPom app = pom("/work/app", "17");
+        ParsedPomCollection before = collection(app, pom("/work/lib", "17"), pom("/work/old", "17"));
+        ParsedPomCollection after = collection(
+            app,
+            pom("/work/lib", "21"),
+            pom("/work/new", "17")
+        );
+
+        PomCollectionDiff diff = PomCollectionDiff.between(before, after);
+
+        assertEquals(List.of("/work/new/pom.xml"), diff.added().stream().map(ParsedPom::pomPath).toList());
+        assertEquals(List.of("/work/old/pom.xml"), diff.removed().stream().map(ParsedPom::pomPath).toList());
+        assertEquals(List.of("/work/lib/pom.xml"), List.copyOf(diff.changed().keySet()));
+        GraphDiff.ValueChange change = diff.changed().get("/work/lib/pom.xml").changedValues().get(0);
+        assertEquals("17", change.oldValue());
+        assertEquals("21", change.newValue());
+        assertEquals(1, diff.unchanged());
+        assertEquals("1 added, 1 removed, 1 changed, 1 unchanged", diff.toString());
+    }
+
+    @Test
+    void reparsedPomsWithTheSameContentAreUnchanged() {
+        ParsedPomCollection before = collection(pom("/work/app", "17"), pom("/work/lib", "17"));
+        ParsedPomCollection after = collection(pom("/work/app", "17"), pom("/work/lib", "17"));
+
+        PomCollectionDiff diff = PomCollectionDiff.between(before, after);
+
+        assertTrue(diff.isEmpty());
+        assertEquals(2, diff.unchanged());
+        assertEquals(2, PomCollectionDiff.between(null, after).added().size());
+        assertEquals(2, PomCollectionDiff.between(before, null).removed().size());
+    }
+
+    private static ParsedPomCollection collection(ParsedPom... entries) {
+        return new ParsedPomCollection("/work", List.of(entries), List.of());
+    }
+
+    private static ParsedPom pom(String directory, String javaVersion) {
+        TextGraph.Builder builder = TextGraph.builder();
+        GraphNode pom = builder.addNode("pom:" + directory);
+        pom.connect("property", builder.addNode("property:java.version"), builder.createText(javaVersion));
+        return new ParsedPom(directory + "/pom.xml", directory.substring(6), "com.example", directory.substring(6), (PomModel) null, builder.build());
+    }
+}
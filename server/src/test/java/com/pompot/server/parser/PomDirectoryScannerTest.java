@@ -0,0 +1,219 @@
+package com.pompot.server.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pompot.server.pomgraph.TextGraph;
+import com.pompot.server.pomgraph.TextGraphCodec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.maven.model.io.DefaultModelReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PomDirectoryScannerTest {
+
+    private final PomFileParser parser = new PomFileParser(new DefaultModelReader(), new ObjectMapper());
+
+    @TempDir
+    Path workspace;
+
+    @Test
+    void parallelScanMatchesSequentialOrdering() throws IOException {
+        writePom(workspace.resolve("zeta"), "com.example", "zeta");
+        writePom(workspace.resolve("alpha"), "com.example", "alpha");
+        writePom(workspace.resolve("other/alpha"), "com.example", "alpha");
+        writePom(workspace.resolve("beta"), "org.example", "beta");
+        writePom(workspace.resolve("nested/gamma"), "com.example", "gamma");
+
+        PomDirectoryScanner.ScanResult sequential = new PomDirectoryScanner(parser).scan(workspace);
+        PomDirectoryScanner.ScanResult parallel = new PomDirectoryScanner(parser, PomDirectoryScanner.Options.defaults().withParallelism(4)).scan(workspace);
+
+        assertEquals(5, sequential.parsedPoms().size(), "Every pom should be parsed sequentially");
+        assertEquals(relativePaths(sequential), relativePaths(parallel), "Parallel scan should keep the same ordering");
+        assertEquals(
+            List.of("alpha/pom.xml", "other/alpha/pom.xml", "nested/gamma/pom.xml", "zeta/pom.xml", "beta/pom.xml"),
+            relativePaths(parallel).stream().map(path -> path.replace('\\', '/')).collect(Collectors.toList())
+        );
+    }
+
+    @Test
+    void parallelScanSkipsPomsThatFailToParse() throws IOException {
+        writePom(workspace.resolve("valid"), "com.example", "valid");
+        Path broken = workspace.resolve("broken");
+        Files.createDirectories(broken);
+        Files.writeString(broken.resolve("pom.xml"), "<project><artifactId>", StandardCharsets.UTF_8);
+
+        PomDirectoryScanner.ScanResult result = new PomDirectoryScanner(parser, PomDirectoryScanner.Options.defaults().withParallelism(4)).scan(workspace);
+
+        assertTrue(result.foundPomFiles(), "Both pom files should be discovered");
+        assertEquals(1, result.parsedPoms().size(), "Only the valid pom should be returned");
+        assertEquals("valid", result.parsedPoms().get(0).artifactId());
+    }
+
+    @Test
+    void streamEmitsEveryParsedEntry() throws IOException {
+        for (int index = 0; index < 12; index += 1) {
+            writePom(workspace.resolve("module-" + index), "com.example", "module-" + index);
+        }
+        Path broken = workspace.resolve("broken");
+        Files.createDirectories(broken);
+        Files.writeString(broken.resolve("pom.xml"), "<project><artifactId>", StandardCharsets.UTF_8);
+
+        List<String> streamed;
+        try (Stream<ParsedPom> entries = new PomDirectoryScanner(parser, PomDirectoryScanner.Options.defaults().withParallelism(4)).stream(workspace)) {
+            streamed = entries.map(ParsedPom::relativePath).sorted().collect(Collectors.toList());
+        }
+
+        List<String> scanned = relativePaths(new PomDirectoryScanner(parser).scan(workspace));
+        assertEquals(12, streamed.size(), "Every valid pom should be streamed");
+        assertEquals(scanned.stream().sorted().collect(Collectors.toList()), streamed);
+    }
+
+    @Test
+    void closingStreamEarlyStopsWorkers() throws Exception {
+        for (int index = 0; index < 40; index += 1) {
+            writePom(workspace.resolve("module-" + index), "com.example", "module-" + index);
+        }
+
+        try (Stream<ParsedPom> entries = new PomDirectoryScanner(parser, PomDirectoryScanner.Options.defaults().withParallelism(2)).stream(workspace)) {
+            assertEquals(1, entries.limit(1).count(), "The first entry should be emitted before the rest are parsed");
+        }
+
+        long deadline = System.currentTimeMillis() + 5_000L;
+        while (scanThreadsAlive() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(25L);
+        }
+        assertFalse(scanThreadsAlive(), "Closing the stream should stop the worker threads");
+    }
+
+    @Test
+    void streamIsEmptyForMissingDirectory() {
+        try (Stream<ParsedPom> entries = new PomDirectoryScanner(parser, PomDirectoryScanner.Options.defaults().withParallelism(4)).stream(workspace.resolve("missing"))) {
+            assertEquals(0, entries.count());
+        }
+    }
+
+    @Test
+    void compactStorageKeepsTheSameGraphs() throws IOException {
+        writePom(workspace.resolve("alpha"), "com.example", "alpha");
+        writePom(workspace.resolve("beta"), "org.example", "beta");
+
+        PomDirectoryScanner.ScanResult linked = new PomDirectoryScanner(parser).scan(workspace);
+        PomDirectoryScanner.ScanResult compact = new PomDirectoryScanner(parser, PomDirectoryScanner.Options.defaults()
+            .withParseMode(PomFileParser.Mode.GRAPH_ONLY)
+            .withGraphStorage(TextGraph.Storage.COMPACT)
+        ).scan(workspace);
+
+        assertEquals(2, compact.parsedPoms().size());
+        for (int index = 0; index < 2; index += 1) {
+            TextGraph expected = linked.parsedPoms().get(index).graph();
+            TextGraph actual = compact.parsedPoms().get(index).graph();
+            assertEquals(TextGraph.Storage.COMPACT, actual.storage());
+            assertEquals(TextGraphCodec.encode(expected), TextGraphCodec.encode(actual));
+        }
+    }
+
+    @Test
+    void moduleDiscoveryParsesEachPomOnce() throws IOException {
+        Files.writeString(
+            workspace.resolve("pom.xml"),
+            "<project><modelVersion>4.0.0</modelVersion><groupId>com.example</groupId>"
+                + "<artifactId>root</artifactId><version>1.0.0</version><packaging>pom</packaging>"
+                + "<modules><module>alpha</module></modules>"
+                + "<profiles><profile><id>extra</id><modules><module>beta</module></modules></profile></profiles>"
+                + "</project>",
+            StandardCharsets.UTF_8
+        );
+        writePom(workspace.resolve("alpha"), "com.example", "alpha");
+        writePom(workspace.resolve("beta"), "com.example", "beta");
+        writePom(workspace.resolve("ignored"), "com.example", "ignored");
+        List<Path> parsed = Collections.synchronizedList(new ArrayList<>());
+        PomFileParser countingParser = new PomFileParser(new DefaultModelReader(), new ObjectMapper()) {
+            @Override
+            public Optional<PomParseResult> parseFile(Path pomLocation, Mode mode) {
+                parsed.add(pomLocation);
+                return super.parseFile(pomLocation, mode);
+            }
+        };
+
+        PomDirectoryScanner.ScanResult result = new PomDirectoryScanner(countingParser, PomDirectoryScanner.Options.defaults()
+            .withDiscovery(new PomModuleDiscovery())
+            .withParallelism(2)
+        ).scan(workspace);
+
+        assertEquals(List.of("alpha", "beta", "root"), result.parsedPoms().stream().map(ParsedPom::artifactId).sorted().toList());
+        assertEquals(3, parsed.size(), "Discovery reads modules from the parsed graphs");
+        assertEquals(3, Set.copyOf(parsed).size());
+    }
+
+    @Test
+    void moduleNamingAFileParsesThatFile() throws IOException {
+        Files.writeString(
+            workspace.resolve("pom.xml"),
+            "<project><modelVersion>4.0.0</modelVersion><groupId>com.example</groupId>"
+                + "<artifactId>root</artifactId><version>1.0.0</version><packaging>pom</packaging>"
+                + "<modules><module>sub/pom-alt.xml</module><module>lib</module></modules>"
+                + "</project>",
+            StandardCharsets.UTF_8
+        );
+        writePom(workspace.resolve("sub"), "com.example", "sub-default");
+        Files.writeString(
+            workspace.resolve("sub").resolve("pom-alt.xml"),
+            Files.readString(workspace.resolve("sub").resolve("pom.xml")).replace("sub-default", "sub-alt"),
+            StandardCharsets.UTF_8
+        );
+        writePom(workspace.resolve("lib"), "com.example", "lib");
+        PomDirectoryScanner.Options options = PomDirectoryScanner.Options.defaults()
+            .withDiscovery(new PomModuleDiscovery())
+            .withParseCache(new PomParseCache(workspace.resolve(".cache"), new ObjectMapper()));
+        PomFileParser parser = new PomFileParser(new DefaultModelReader(), new ObjectMapper());
+
+        for (int run = 0; run < 2; run++) {
+            PomDirectoryScanner.ScanResult result = new PomDirectoryScanner(parser, options).scan(workspace);
+
+            assertEquals(List.of("lib/pom.xml", "pom.xml", "sub/pom-alt.xml"), relativePaths(result).stream().sorted().toList());
+            ParsedPom alternate = result.parsedPoms().stream()
+                .filter(entry -> entry.relativePath().endsWith("pom-alt.xml"))
+                .findFirst()
+                .orElseThrow();
+            assertEquals("sub-alt", alternate.artifactId(), "The named file is parsed, also when cached");
+            assertEquals("lib", result.parsedPoms().stream()
+                .filter(entry -> entry.relativePath().startsWith("lib")).findFirst().orElseThrow().artifactId());
+        }
+    }
+
+    private boolean scanThreadsAlive() {
+        return Thread.getAllStackTraces().keySet().stream()
+            .anyMatch(thread -> thread.isAlive() && thread.getName().startsWith("pompot-scan-"));
+    }
+
+    private List<String> relativePaths(PomDirectoryScanner.ScanResult result) {
+        return result.parsedPoms().stream().map(ParsedPom::relativePath).collect(Collectors.toList());
+    }
+
+    private void writePom(Path directory, String groupId, String artifactId) throws IOException {
+        Files.createDirectories(directory);
+        Files.writeString(
+            directory.resolve("pom.xml"),
+            "<project>"
+                + "<modelVersion>4.0.0</modelVersion>"
+                + "<groupId>" + groupId + "</groupId>"
+                + "<artifactId>" + artifactId + "</artifactId>"
+                + "<version>1.0.0</version>"
+                + "</project>",
+            StandardCharsets.UTF_8
+        );
+    }
+}
@@ -0,0 +1,126 @@
+package com.pompot.server.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PomDirectoryWalkerTest {
+
+    @TempDir
+    Path workspace;
+
+    @Test
+    void prunesBuildOutputAndVcsDirectories() throws IOException {
+        touchPom("pom.xml");
+        touchPom("module/pom.xml");
+        touchPom("module/target/classes/pom.xml");
+        touchPom("node_modules/library/pom.xml");
+        touchPom(".git/pom.xml");
+        touchPom("lib/classes/META-INF/maven/com.example/lib/pom.xml");
+
+        PomDiscovery.Result result = new PomDirectoryWalker().discover(workspace);
+
+        assertEquals(List.of("module/pom.xml", "pom.xml"), relativePaths(result));
+        assertEquals(4, result.prunedDirectories(), "target, node_modules, .git and META-INF/maven should be pruned");
+    }
+
+    @Test
+    void honorsGitignoreAndExcludeGlobs() throws IOException {
+        touchPom("app/pom.xml");
+        touchPom("generated/pom.xml");
+        touchPom("sandbox/keep/pom.xml");
+        touchPom("sandbox/drop/pom.xml");
+        touchPom("legacy/old/pom.xml");
+        Files.writeString(workspace.resolve(".gitignore"), "# build output\n/generated/\nsandbox/*\n!sandbox/keep\n");
+
+        PomDirectoryWalker.Options options = new PomDirectoryWalker.Options(
+            PomDirectoryWalker.DEFAULT_IGNORED_DIRECTORIES,
+            List.of(),
+            List.of("legacy"),
+            true,
+            Integer.MAX_VALUE
+        );
+        PomDiscovery.Result result = new PomDirectoryWalker(options).discover(workspace);
+
+        assertEquals(List.of("app/pom.xml", "sandbox/keep/pom.xml"), relativePaths(result));
+        assertEquals(3, result.prunedDirectories(), "generated, sandbox/drop and legacy should be pruned");
+    }
+
+    @Test
+    void prunesSingleDirectoriesLikeTheWalk() throws IOException {
+        Files.createDirectories(workspace.resolve("sandbox/keep/deep"));
+        Files.createDirectories(workspace.resolve("sandbox/drop"));
+        Files.writeString(workspace.resolve(".gitignore"), "sandbox/*\n!sandbox/keep\n");
+        PomDirectoryWalker walker = new PomDirectoryWalker(new PomDirectoryWalker.Options(
+            PomDirectoryWalker.DEFAULT_IGNORED_DIRECTORIES,
+            List.of(),
+            List.of("legacy"),
+            true,
+            3
+        ));
+
+        assertFalse(walker.prunes(workspace, workspace));
+        assertFalse(walker.prunes(workspace, workspace.resolve("sandbox/keep")));
+        assertTrue(walker.prunes(workspace, workspace.resolve("sandbox/drop")));
+        assertTrue(walker.prunes(workspace, workspace.resolve("legacy/old")));
+        assertTrue(walker.prunes(workspace, workspace.resolve("app/target")));
+        assertTrue(walker.prunes(workspace, workspace.resolve("sandbox/keep/deep")), "its poms are beyond maxDepth");
+        assertTrue(walker.prunes(workspace.resolve("sandbox"), workspace.resolve("other")));
+    }
+
+    @Test
+    void stopsAtMaxDepthAndAppliesIncludes() throws IOException {
+        touchPom("pom.xml");
+        touchPom("services/api/pom.xml");
+        touchPom("services/api/deep/nested/pom.xml");
+        touchPom("tools/pom.xml");
+
+        PomDirectoryWalker.Options options = new PomDirectoryWalker.Options(
+            PomDirectoryWalker.DEFAULT_IGNORED_DIRECTORIES,
+            List.of("services/**"),
+            List.of(),
+            false,
+            3
+        );
+        PomDiscovery.Result result = new PomDirectoryWalker(options).discover(workspace);
+
+        assertEquals(List.of("services/api/pom.xml"), relativePaths(result));
+    }
+
+    @Test
+    void keepsSymlinkedPomsWithoutFollowingDirectoryLinks() throws IOException {
+        touchPom("shared/pom.xml");
+        Files.createDirectories(workspace.resolve("linked"));
+        Files.createSymbolicLink(workspace.resolve("linked/pom.xml"), workspace.resolve("shared/pom.xml"));
+        Files.createSymbolicLink(workspace.resolve("linked/dangling"), workspace.resolve("missing"));
+        Files.createSymbolicLink(workspace.resolve("shared/loop"), workspace);
+
+        PomDiscovery.Result result = new PomDirectoryWalker().discover(workspace);
+
+        assertEquals(List.of("linked/pom.xml", "shared/pom.xml"), relativePaths(result));
+    }
+
+    private List<String> relativePaths(PomDiscovery.Result result) {
+        return result
+            .pomFiles()
+            .stream()
+            .map(path -> workspace.relativize(path).toString().replace('\\', '/'))
+            .sorted()
+            .collect(Collectors.toList());
+    }
+
+    private void touchPom(String relativePath) throws IOException {
+        Path pom = workspace.resolve(relativePath);
+        Files.createDirectories(pom.getParent());
+        Files.writeString(pom, "<project/>", StandardCharsets.UTF_8);
+    }
+}
@@ -1,20 +1,33 @@
 package com.pompot.server.parser;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pompot.server.pomgraph.GraphEdge;
 import com.pompot.server.pomgraph.GraphNode;
+import com.pompot.server.pomgraph.GraphValue;
+import com.pompot.server.pomgraph.SourcePosition;
 import com.pompot.server.pomgraph.TextGraph;
+import com.pompot.server.pomgraph.TextReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
+import org.apache.maven.model.Model;
 import org.apache.maven.model.io.DefaultModelReader;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class PomFileParserTest {
 
@@ -31,12 +44,12 @@ class PomFileParserTest {
         PomParseResult result = parsedModel.orElseThrow();
         assertEquals("com.example", result.groupId());
         assertEquals("demo", result.artifactId());
-        assertEquals("com.example", result.model().path("groupId").asText());
-        assertEquals("demo", result.model().path("artifactId").asText());
+        assertEquals("com.example", result.model().json().path("groupId").asText());
+        assertEquals("demo", result.model().json().path("artifactId").asText());
 
         TextGraph graph = result.graph();
         TextGraph graphSnapshot = result.graph();
-        assertNotSame(graph, graphSnapshot, "Parse result should return a defensive copy of the graph");
+        assertSame(graph, graphSnapshot, "The frozen graph should be shared instead of copied");
         assertNotNull(graph, "Graph should be present in the parse result");
         GraphNode pomNode = graph
             .findNode("pom:" + projectRoot.toAbsolutePath().normalize())
@@ -58,7 +71,7 @@ class PomFileParserTest {
         PomParseResult result = parsedModel.orElseThrow();
         assertEquals("com.example", result.groupId());
         assertEquals("plugin-config-project", result.artifactId());
-        var modelNode = result.model();
+        var modelNode = result.model().json();
 
         JsonNode pluginsNode = modelNode.path("build").path("plugins");
         assertTrue(pluginsNode.isArray(), () -> "Unexpected plugins node: " + pluginsNode.toPrettyString());
@@ -94,11 +107,155 @@ class PomFileParserTest {
 
         TextGraph graph = result.graph();
         TextGraph secondGraph = result.graph();
-        assertNotSame(graph, secondGraph, "Graph access should provide a fresh snapshot each time");
+        assertSame(graph, secondGraph, "Graph access should return the same frozen graph");
         assertNotNull(graph, "Graph should be generated for pom with plugin configuration");
         GraphNode pomNode = graph
             .findNode("pom:" + projectRoot.toAbsolutePath().normalize())
             .orElseThrow(() -> new AssertionError("Pom node not found"));
         assertTrue(pomNode.edges("dependency").isEmpty(), "Sample project should not have direct dependencies");
     }
+
+    @Test
+    void graphOnlyModeBuildsTheSameGraphAsTheModelPath() throws Exception {
+        PomFileParser parser = new PomFileParser(new DefaultModelReader(), objectMapper);
+        List<Path> projectRoots = List.of(
+            Path.of("src", "test", "resources", "graph-equivalence"),
+            Path.of("src", "test", "resources", "projects", "simple"),
+            Path.of("src", "test", "resources", "projects", "with-plugin-config"),
+            Path.of("src", "test", "resources", "projects-with-common-values", "alpha"),
+            Path.of("src", "test", "resources", "projects-with-common-values", "beta")
+        );
+
+        for (Path projectRoot : projectRoots) {
+            PomParseResult full = parser.parse(projectRoot, PomFileParser.Mode.FULL).orElseThrow();
+            PomParseResult graphOnly = parser.parse(projectRoot, PomFileParser.Mode.GRAPH_ONLY).orElseThrow();
+
+            assertEquals(full.groupId(), graphOnly.groupId(), projectRoot::toString);
+            assertEquals(full.artifactId(), graphOnly.artifactId(), projectRoot::toString);
+            assertNull(graphOnly.model(), "Graph-only results should not carry a JSON model");
+            assertEquals(render(full.graph(), true), render(graphOnly.graph(), true), projectRoot::toString);
+
+            Model model = new DefaultModelReader().read(projectRoot.resolve("pom.xml").toFile(), null);
+            TextGraph fromModel = PomGraphBuilder.build(projectRoot, PomOutline.from(model));
+            assertEquals(render(fromModel), render(graphOnly.graph()), projectRoot::toString);
+        }
+    }
+
+    @Test
+    void graphOnlyModeAppliesMavenDefaultsAndSkipsProfiles() {
+        Path projectRoot = Path.of("src", "test", "resources", "graph-equivalence");
+        PomFileParser parser = new PomFileParser(new DefaultModelReader(), objectMapper);
+
+        TextGraph graph = parser.parse(projectRoot, PomFileParser.Mode.GRAPH_ONLY).orElseThrow().graph();
+        String rendered = render(graph);
+
+        assertTrue(rendered.contains("packaging -> attribute:packaging = 'jar'"), rendered);
+        assertTrue(rendered.contains("groupId -> attribute:groupId = 'com.example'"), rendered);
+        assertTrue(rendered.contains("dependency:com.example:natives:jar:linux-x86_64"), rendered);
+        assertTrue(rendered.contains("managedPlugin -> plugin:org.apache.maven.plugins:maven-surefire-plugin"), rendered);
+        assertTrue(rendered.contains("bom -> bom:org.springframework.boot:spring-boot-dependencies:pom"), rendered);
+        assertTrue(rendered.contains("tile -> tile:com.example:lint-tile:2.0"), rendered);
+        assertTrue(rendered.contains("tile -> tile:com.example:execution-tile:1.0"), rendered);
+        assertFalse(rendered.contains("shadowed-tile"), rendered);
+        assertFalse(rendered.contains("profile-only"), rendered);
+        assertFalse(rendered.contains("plugin-only"), rendered);
+    }
+
+    @Test
+    void lazyModelModeBuildsTheSameJsonOnFirstAccess() {
+        Path projectRoot = Path.of("src", "test", "resources", "projects", "with-plugin-config");
+        PomFileParser parser = new PomFileParser(new DefaultModelReader(), objectMapper);
+
+        PomParseResult full = parser.parse(projectRoot, PomFileParser.Mode.FULL).orElseThrow();
+        PomParseResult lazy = parser.parse(projectRoot, PomFileParser.Mode.LAZY_MODEL).orElseThrow();
+
+        assertFalse(full.model().isLazy(), "Full parses should build the model eagerly");
+        assertTrue(lazy.model().isLazy(), "Lazy parses should defer the model");
+        assertEquals(full.model().json(), lazy.model().json());
+        assertEquals(render(full.graph()), render(lazy.graph()));
+    }
+
+    @Test
+    void recordsTheSourcePositionOfEachValue(@TempDir Path projectRoot) throws Exception {
+        String pom = "\uFEFF<?xml version=\"1.0\" encoding=\"UTF-8\"?>\r\n"
+            + "<project>\r\n"
+            + "  <parent>\r\n"
+            + "    <groupId> com.example </groupId>\r\n"
+            + "    <artifactId>parent</artifactId>\r\n"
+            + "    <version>1</version>\r\n"
+            + "  </parent>\r\n"
+            + "  <artifactId>caf\u00e9</artifactId>\r\n"
+            + "  <properties>\r\n"
+            + "    <greeting>h\u00e9llo \uD83D\uDE00</greeting>\r\n"
+            + "    <cdata><![CDATA[1.0]]></cdata>\r\n"
+            + "  </properties>\r\n"
+            + "  <modules>\r\n"
+            + "    <module>\r\n      core\r\n    </module>\r\n"
+            + "  </modules>\r\n"
+            + "</project>\r\n";
+        byte[] source = pom.getBytes(StandardCharsets.UTF_8);
+        Files.write(projectRoot.resolve("pom.xml"), source);
+        PomFileParser parser = new PomFileParser(new DefaultModelReader(), objectMapper);
+
+        for (PomFileParser.Mode mode : PomFileParser.Mode.values()) {
+            TextGraph graph = parser.parse(projectRoot, mode).orElseThrow().graph();
+            Map<String, SourcePosition> positions = new HashMap<>();
+            for (GraphNode node : graph.nodes()) {
+                for (GraphEdge edge : node.edges()) {
+                    TextReference reference = edge.value().text().orElseThrow();
+                    reference.position().ifPresent(position -> positions.put(edge.target().id(), position));
+                }
+            }
+
+            SourcePosition groupId = positions.get("attribute:groupId");
+            assertEquals(projectRoot.resolve("pom.xml").toAbsolutePath().normalize().toString(), groupId.file());
+            assertEquals("com.example", slice(source, groupId), mode::name);
+            assertEquals(4, groupId.line());
+            assertEquals(15, groupId.column());
+            assertEquals("caf\u00e9", slice(source, positions.get("attribute:artifactId")), mode::name);
+            assertEquals(15, positions.get("attribute:artifactId").column());
+            assertEquals("h\u00e9llo \uD83D\uDE00", slice(source, positions.get("property:greeting")), mode::name);
+            assertEquals("<![CDATA[1.0]]>", slice(source, positions.get("property:cdata")), mode::name);
+            assertEquals("core", slice(source, positions.get("module:core")), mode::name);
+            assertEquals(15, positions.get("module:core").line());
+            assertFalse(positions.containsKey("attribute:packaging"), "Defaults have no source position");
+        }
+    }
+
+    private static String slice(byte[] source, SourcePosition position) {
+        return new String(source, (int) position.offset(), position.length(), StandardCharsets.UTF_8);
+    }
+
+    private static String render(TextGraph graph) {
+        return render(graph, false);
+    }
+
+    private static String render(TextGraph graph, boolean positions) {
+        StringBuilder rendered = new StringBuilder();
+        for (GraphNode node : graph.nodes()) {
+            rendered.append(node.id()).append('\n');
+            for (GraphEdge edge : node.edges()) {
+                rendered
+                    .append("  ")
+                    .append(edge.relationship())
+                    .append(" -> ")
+                    .append(edge.target().id())
+                    .append(" = ")
+                    .append(render(edge.value(), positions))
+                    .append('\n');
+            }
+        }
+        return rendered.toString();
+    }
+
+    private static String render(GraphValue value, boolean positions) {
+        if (value.text().isPresent()) {
+            TextReference text = value.text().get();
+            String rendered = "'" + text.value().value() + "'";
+            return positions ? rendered + text.position().map(position -> " @" + position).orElse("") : rendered;
+        }
+        return value.children().entrySet().stream()
+            .map(entry -> entry.getKey() + "=" + render(entry.getValue(), positions))
+            .collect(Collectors.joining(", ", "{", "}"));
+    }
 }
@@ -0,0 +1,58 @@
+package com.pompot.server.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class PomModelCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void reusesTheTreeWhileTheModelStaysCached() {
+        PomModelCache cache = new PomModelCache(2, this::load);
+        PomModel model = PomModel.lazy(bytes("alpha"), null, cache);
+
+        JsonNode first = model.json();
+        JsonNode second = model.json();
+
+        assertSame(first, second, "A cached model should not be rebuilt");
+        assertEquals(1, loads.get());
+        assertEquals("alpha", first.asText());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedTree() {
+        PomModelCache cache = new PomModelCache(2, this::load);
+        PomModel alpha = PomModel.lazy(bytes("alpha"), null, cache);
+        PomModel beta = PomModel.lazy(bytes("beta"), null, cache);
+        PomModel gamma = PomModel.lazy(bytes("gamma"), null, cache);
+
+        alpha.json();
+        beta.json();
+        alpha.json();
+        gamma.json();
+
+        assertEquals(2, cache.cachedCount(), "The cache should stay within its bound");
+        assertEquals(3, loads.get());
+
+        alpha.json();
+        assertEquals(3, loads.get(), "Recently used models should survive eviction");
+        beta.json();
+        assertEquals(4, loads.get(), "Evicted models should be rebuilt from their raw bytes");
+    }
+
+    private JsonNode load(PomModel model) {
+        loads.incrementAndGet();
+        return TextNode.valueOf(new String(model.source(), StandardCharsets.UTF_8));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,87 @@
+package com.pompot.server.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PomModuleDiscoveryTest {
+
+    @TempDir
+    Path workspace;
+
+    @Test
+    void followsModulesAndProfileModulesOnly() throws IOException {
+        writePom("pom.xml", "<modules><module>core</module><module>apps</module></modules>"
+            + "<profiles><profile><id>extra</id><modules><module>extra</module></modules></profile></profiles>");
+        writePom("core/pom.xml", "");
+        writePom("apps/pom.xml", "<modules><module>web</module><module>../core</module></modules>");
+        writePom("apps/web/pom.xml", "");
+        writePom("extra/pom.xml", "");
+        writePom("unlisted/pom.xml", "");
+
+        PomDiscovery.Result result = new PomModuleDiscovery().discover(workspace);
+
+        assertEquals(
+            List.of("apps/pom.xml", "apps/web/pom.xml", "core/pom.xml", "extra/pom.xml", "pom.xml"),
+            relativePaths(result)
+        );
+    }
+
+    @Test
+    void acceptsModulesNamingAFileOrADirectory() throws IOException {
+        writePom("pom.xml", "<modules><module>sub/pom-alt.xml</module><module>lib</module></modules>");
+        writePom("sub/pom.xml", "");
+        writePom("sub/pom-alt.xml", "");
+        writePom("lib/pom.xml", "");
+
+        PomDiscovery.Result result = new PomModuleDiscovery().discover(workspace);
+
+        assertEquals(List.of("lib/pom.xml", "pom.xml", "sub/pom-alt.xml"), relativePaths(result));
+    }
+
+    @Test
+    void stopsAtModuleCycles() throws IOException {
+        writePom("pom.xml", "<modules><module>child</module></modules>");
+        writePom("child/pom.xml", "<modules><module>..</module><module>missing</module></modules>");
+
+        PomDiscovery.Result result = new PomModuleDiscovery().discover(workspace);
+
+        assertEquals(List.of("child/pom.xml", "pom.xml"), relativePaths(result));
+    }
+
+    @Test
+    void returnsEmptyResultWithoutRootPom() throws IOException {
+        writePom("nested/pom.xml", "");
+
+        PomDiscovery.Result result = new PomModuleDiscovery().discover(workspace);
+
+        assertTrue(result.pomFiles().isEmpty(), "Module discovery should not walk the disk");
+    }
+
+    private List<String> relativePaths(PomDiscovery.Result result) {
+        return result
+            .pomFiles()
+            .stream()
+            .map(path -> workspace.toAbsolutePath().normalize().relativize(path).toString().replace('\\', '/'))
+            .sorted()
+            .collect(Collectors.toList());
+    }
+
+    private void writePom(String relativePath, String body) throws IOException {
+        Path pom = workspace.resolve(relativePath);
+        Files.createDirectories(pom.getParent());
+        Files.writeString(
+            pom,
+            "<project><modelVersion>4.0.0</modelVersion><artifactId>demo</artifactId>" + body + "</project>",
+            StandardCharsets.UTF_8
+        );
+    }
+}
@@ -0,0 +1,93 @@
+package com.pompot.server.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pompot.server.pomgraph.GraphNode;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.maven.model.io.DefaultModelReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PomParseCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PomFileParser parser = new PomFileParser(new DefaultModelReader(), objectMapper);
+
+    @TempDir
+    Path workspace;
+
+    @Test
+    void reusesEntryForUnchangedPom() throws IOException {
+        Path project = writePom("1.0.0");
+        PomParseCache cache = new PomParseCache(workspace.resolve("cache"), objectMapper);
+        AtomicInteger parses = new AtomicInteger();
+
+        PomParseResult first = parseThroughCache(cache, project, parses).orElseThrow();
+        PomParseResult second = parseThroughCache(cache, project, parses).orElseThrow();
+
+        assertEquals(1, parses.get(), "Second lookup should be served from the cache");
+        assertEquals(first.groupId(), second.groupId());
+        assertEquals(first.artifactId(), second.artifactId());
+        assertEquals(first.model().json(), second.model().json(), "Cached JSON model should be restored");
+        GraphNode pomNode = second
+            .graph()
+            .findNode("pom:" + project.toAbsolutePath().normalize())
+            .orElseThrow(() -> new AssertionError("Pom node should be restored"));
+        assertEquals("1.0.0", pomNode.edges("version").iterator().next().value().text().orElseThrow().value().value());
+    }
+
+    @Test
+    void reparsesWhenContentChanges() throws IOException {
+        Path project = writePom("1.0.0");
+        PomParseCache cache = new PomParseCache(workspace.resolve("cache"), objectMapper);
+        AtomicInteger parses = new AtomicInteger();
+        parseThroughCache(cache, project, parses);
+
+        writePom("2.0.0");
+        Files.setLastModifiedTime(project.resolve("pom.xml"), FileTime.from(Instant.now().plusSeconds(60)));
+        PomParseResult updated = parseThroughCache(cache, project, parses).orElseThrow();
+
+        assertEquals(2, parses.get(), "Modified pom should be parsed again");
+        assertEquals("2.0.0", updated.model().json().path("version").asText());
+    }
+
+    @Test
+    void disabledCacheAlwaysParses() throws IOException {
+        Path project = writePom("1.0.0");
+        AtomicInteger parses = new AtomicInteger();
+
+        parseThroughCache(PomParseCache.disabled(), project, parses);
+        parseThroughCache(PomParseCache.disabled(), project, parses);
+
+        assertEquals(2, parses.get());
+        assertTrue(!Files.exists(workspace.resolve("cache")), "Disabled cache should not write entries");
+    }
+
+    private Optional<PomParseResult> parseThroughCache(PomParseCache cache, Path project, AtomicInteger parses) {
+        return cache.getOrParse(project.resolve("pom.xml"), () -> {
+            parses.incrementAndGet();
+            return parser.parse(project);
+        });
+    }
+
+    private Path writePom(String version) throws IOException {
+        Path project = workspace.resolve("project");
+        Files.createDirectories(project);
+        Files.writeString(
+            project.resolve("pom.xml"),
+            "<project><modelVersion>4.0.0</modelVersion><groupId>com.example</groupId>"
+                + "<artifactId>cached</artifactId><version>" + version + "</version></project>",
+            StandardCharsets.UTF_8
+        );
+        return project;
+    }
+}
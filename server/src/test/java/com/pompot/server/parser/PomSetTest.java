@@ -0,0 +1,55 @@
+package com.pompot.server.parser;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pompot.server.pomgraph.TextGraph;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class PomSetTest {
+
+    @Test
+    void intersectsAndReportsMembers() {
+        PomSet first = PomSet.of(0, 3, 64, 130, 3);
+        PomSet second = PomSet.of(3, 64, 129, 200);
+
+        assertEquals(4, first.size());
+        assertTrue(first.contains(130));
+        assertFalse(first.contains(129));
+        assertFalse(first.contains(-1));
+        assertFalse(first.contains(5000));
+        assertArrayEquals(new int[] {0, 3, 64, 130}, first.toArray());
+
+        PomSet common = first.intersect(second);
+        assertEquals(PomSet.of(3, 64), common);
+        assertEquals(PomSet.of(3, 64).hashCode(), common.hashCode());
+        assertTrue(PomSet.of(200).intersect(PomSet.of(0)).isEmpty());
+        assertEquals(PomSet.empty(), PomSet.of(200).intersect(PomSet.of(0)), "Empty trailing words must not matter");
+        assertEquals(PomSet.of(3, 64), PomSet.ofWords(common.words()));
+        assertThrows(IllegalArgumentException.class, () -> PomSet.of(-1));
+    }
+
+    @Test
+    void expandsLazilyIntoEntries() throws Exception {
+        List<ParsedPom> entries = IntStream.range(0, 5).mapToObj(PomSetTest::pom).toList();
+
+        assertEquals(List.of(entries.get(1), entries.get(4)), PomSet.of(4, 1).expand(entries).toList());
+        assertEquals(entries.get(1), PomSet.of(1, 9).expand(entries).findFirst().orElseThrow(),
+            "Ordinals past the ones consumed must not be resolved");
+        assertThrows(IndexOutOfBoundsException.class, () -> PomSet.of(1, 9).expand(entries).toList());
+        assertEquals("[1,4]", new ObjectMapper().writeValueAsString(PomSet.of(4, 1)));
+    }
+
+    private static ParsedPom pom(int index) {
+        TextGraph.Builder builder = TextGraph.builder();
+        builder.addNode("pom:" + index);
+        String path = "/work/m" + index + "/pom.xml";
+        return new ParsedPom(path, path, "com.example", "m" + index, (PomModel) null, builder.build());
+    }
+}
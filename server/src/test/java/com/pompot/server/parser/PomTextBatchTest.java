@@ -0,0 +1,116 @@
+package com.pompot.server.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.pompot.server.pomgraph.GraphNode;
+import com.pompot.server.pomgraph.GraphValue;
+import com.pompot.server.pomgraph.SourcePosition;
+import com.pompot.server.pomgraph.TextGraph;
+import com.pompot.server.pomgraph.TextReference;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class PomTextBatchTest {
+
+    private final CommonValueExtractor extractor = new CommonValueExtractor();
+
+    @Test
+    void applyBuildsANewCollectionWithAChangeLog() {
+        ParsedPomCollection before = collection(
+            pom("/work/app", "2.0.9", "17"),
+            pom("/work/lib", "2.0.9", "21"),
+            pom("/work/tool", "1.7.36", "17")
+        );
+        ParsedPomRepository repository = new ParsedPomRepository();
+        repository.store(before);
+
+        PomTextBatch.Result result = PomTextBatch.on(before)
+            .replaceAll("2.0.9", "2.0.12")
+            .set("/work/tool/pom.xml", "t1", "17", "21")
+            .apply(extractor);
+
+        assertEquals(
+            List.of(
+                new PomTextBatch.Change("/work/app/pom.xml", "t0", "2.0.9", "2.0.12"),
+                new PomTextBatch.Change("/work/lib/pom.xml", "t0", "2.0.9", "2.0.12"),
+                new PomTextBatch.Change("/work/tool/pom.xml", "t1", "17", "21")
+            ),
+            result.changes()
+        );
+        assertEquals("2.0.9", version(before, 0), "The prepared collection must not change");
+        assertEquals("2.0.12", version(result.after(), 0));
+        assertEquals("2.0.12", version(result.after(), 1));
+        assertSame(before.entries().get(2).model(), result.after().entries().get(2).model());
+        TextReference updated = result.after().entries().get(0).graph().texts().iterator().next();
+        assertEquals(12L, updated.position().orElseThrow().offset(), "Replaced references keep their position");
+        assertEquals(
+            List.of("2.0.12", "2.0.12", "1.7.36"),
+            result.after().workspace().incoming("dependency:org.slf4j:slf4j-api").stream()
+                .map(edge -> edge.value().children().get("version").text().orElseThrow().value().value())
+                .toList()
+        );
+        assertEquals(
+            List.of("dependency org.slf4j:slf4j-api 2.0.12", "property java.version 21"),
+            result.after().commonValues().stream()
+                .map(value -> value.category() + " " + value.identifier() + " " + value.value())
+                .toList()
+        );
+
+        assertTrue(result.publish(repository));
+        assertSame(result.after(), repository.fetch().orElseThrow());
+        assertFalse(result.publish(repository), "A batch is published over the collection it was prepared on only");
+    }
+
+    @Test
+    void failedChecksLeaveNothingBehindAndRollbackRestoresOldValues() {
+        ParsedPomCollection before = collection(pom("/work/app", "2.0.9", "17"), pom("/work/lib", "2.0.7", "17"));
+
+        PomTextBatch stale = PomTextBatch.on(before)
+            .set("/work/app/pom.xml", "t0", "2.0.9", "2.0.12")
+            .set("/work/lib/pom.xml", "t0", "2.0.9", "2.0.12");
+        assertThrows(IllegalStateException.class, () -> stale.apply(extractor));
+        assertEquals("2.0.9", version(before, 0));
+        assertThrows(IllegalArgumentException.class, () -> PomTextBatch.on(before).set("/work/other/pom.xml", "t0", "1"));
+        assertThrows(IllegalArgumentException.class, () -> PomTextBatch.on(before).set("/work/app/pom.xml", "t9", "1"));
+
+        PomTextBatch.Result applied = PomTextBatch.on(before).replaceAll("17", "21").apply(extractor);
+        PomTextBatch.Result rolledBack = applied.rollback(applied.after()).apply(extractor);
+
+        assertEquals(2, rolledBack.changes().size());
+        assertEquals("17", rolledBack.after().entries().get(1).graph().texts().stream().skip(1).findFirst().orElseThrow().value().value());
+        assertEquals(before.commonValues(), rolledBack.after().commonValues());
+        assertThrows(IllegalStateException.class, () -> applied.rollback(before).apply(extractor), "Rollback expects the new values");
+
+        PomTextBatch.Result unchanged = PomTextBatch.on(before).replaceAll("2.0.9", "2.0.9").apply(extractor);
+        assertTrue(unchanged.changes().isEmpty());
+        assertSame(before, unchanged.after());
+    }
+
+    private ParsedPomCollection collection(ParsedPom... entries) {
+        List<ParsedPom> list = List.of(entries);
+        return new ParsedPomCollection("/work", list, extractor.extract(list));
+    }
+
+    private static ParsedPom pom(String directory, String slf4jVersion, String javaVersion) {
+        TextGraph.Builder builder = TextGraph.builder();
+        GraphNode pom = builder.addNode("pom:" + directory);
+        TextReference version = builder.createText(slf4jVersion, new SourcePosition(directory + "/pom.xml", 12L, 5, 3, 7));
+        TextReference java = builder.createText(javaVersion);
+        pom.connect("dependency", builder.addNode("dependency:org.slf4j:slf4j-api"), GraphValue.composite(Map.of(
+            "groupId", GraphValue.text(builder.createText("org.slf4j")),
+            "artifactId", GraphValue.text(builder.createText("slf4j-api")),
+            "version", GraphValue.text(version)
+        )));
+        pom.connect("property", builder.addNode("property:java.version"), java);
+        return new ParsedPom(directory + "/pom.xml", directory.substring(6), "com.example", directory.substring(6), (PomModel) null, builder.build());
+    }
+
+    private static String version(ParsedPomCollection collection, int entry) {
+        return collection.entries().get(entry).graph().texts().iterator().next().value().value();
+    }
+}
@@ -0,0 +1,113 @@
+package com.pompot.server.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pompot.server.pomgraph.GraphNode;
+import com.pompot.server.pomgraph.TextGraph;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import org.apache.maven.model.io.DefaultModelReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WorkspaceSnapshotTest {
+
+    @TempDir
+    Path workspace;
+
+    @Test
+    void loadsTheSavedCollection() {
+        Path root = Path.of("src", "test", "resources", "cli-report").toAbsolutePath().normalize();
+        ParsedPomCollection scanned = scan(root);
+        WorkspaceSnapshot snapshot = new WorkspaceSnapshot(workspace.resolve("workspace.snapshot"));
+
+        snapshot.save(scanned, System.currentTimeMillis());
+        ParsedPomCollection loaded = snapshot.load(root).orElseThrow();
+
+        assertEquals(scanned.scannedRoot(), loaded.scannedRoot());
+        assertEquals(scanned.commonValues(), loaded.commonValues());
+        assertFalse(scanned.drift().isEmpty());
+        assertEquals(scanned.drift(), loaded.drift());
+        assertEquals(scanned.entries().size(), loaded.entries().size());
+        for (int index = 0; index < scanned.entries().size(); index += 1) {
+            ParsedPom expected = scanned.entries().get(index);
+            ParsedPom actual = loaded.entries().get(index);
+            assertEquals(expected.pomPath(), actual.pomPath());
+            assertEquals(expected.relativePath(), actual.relativePath());
+            assertEquals(expected.groupId(), actual.groupId());
+            assertEquals(expected.artifactId(), actual.artifactId());
+            assertNull(actual.model(), "Snapshots do not store Maven models");
+            assertEquals(TextGraph.Storage.COMPACT, actual.graph().storage());
+            assertEquals(
+                expected.graph().nodes().stream().map(GraphNode::id).toList(),
+                actual.graph().nodes().stream().map(GraphNode::id).toList()
+            );
+            assertEquals(expected.graph().texts().size(), actual.graph().texts().size());
+        }
+        assertEquals(scanned.workspace().nodes().size(), loaded.workspace().nodes().size());
+    }
+
+    @Test
+    void ignoresSnapshotsOfOtherRootsAndUnreadableFiles() throws IOException {
+        Path root = Path.of("src", "test", "resources", "cli-report").toAbsolutePath().normalize();
+        Path file = workspace.resolve("workspace.snapshot");
+        WorkspaceSnapshot snapshot = new WorkspaceSnapshot(file);
+
+        assertTrue(snapshot.load(root).isEmpty(), "Missing snapshots are not an error");
+        snapshot.save(scan(root), System.currentTimeMillis());
+        assertTrue(snapshot.load(workspace).isEmpty(), "Snapshots only apply to the root they were scanned from");
+
+        Files.writeString(file, "not a snapshot");
+        assertTrue(snapshot.load(root).isEmpty());
+        assertFalse(WorkspaceSnapshot.disabled().isEnabled());
+        assertTrue(WorkspaceSnapshot.disabled().load(root).isEmpty());
+    }
+
+    @Test
+    void ignoresSnapshotsWhosePomsChanged() throws IOException {
+        Path root = workspace.resolve("projects");
+        Path alpha = writePom(root.resolve("alpha"), "alpha");
+        Path beta = writePom(root.resolve("beta"), "beta");
+        WorkspaceSnapshot snapshot = new WorkspaceSnapshot(workspace.resolve("workspace.snapshot"));
+
+        snapshot.save(scan(root), System.currentTimeMillis());
+        assertTrue(snapshot.load(root).isPresent());
+
+        Files.writeString(alpha, Files.readString(alpha).replace("1.0.0", "1.0.1"));
+        Files.setLastModifiedTime(alpha, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+        assertTrue(snapshot.load(root).isEmpty(), "An edited pom makes the snapshot stale");
+
+        snapshot.save(scan(root), System.currentTimeMillis());
+        assertTrue(snapshot.load(root).isPresent());
+        Files.delete(beta);
+        assertTrue(snapshot.load(root).isEmpty(), "A deleted pom makes the snapshot stale");
+
+        snapshot.save(scan(root), System.currentTimeMillis() - 60_000);
+        assertTrue(snapshot.load(root).isEmpty(), "Poms modified around the scan start are not trusted");
+    }
+
+    private static Path writePom(Path directory, String artifactId) throws IOException {
+        Files.createDirectories(directory);
+        Path pom = directory.resolve("pom.xml");
+        Files.writeString(pom, "<project><groupId>com.example</groupId><artifactId>" + artifactId
+            + "</artifactId><version>1.0.0</version></project>");
+        Files.setLastModifiedTime(pom, FileTime.fromMillis(System.currentTimeMillis() - 120_000));
+        return pom;
+    }
+
+    private static ParsedPomCollection scan(Path root) {
+        PomFileParser parser = new PomFileParser(new DefaultModelReader(), new ObjectMapper());
+        PomDirectoryScanner.ScanResult scan = new PomDirectoryScanner(parser).scan(root);
+        return new ParsedPomCollection(
+            scan.root().toString(),
+            scan.parsedPoms(),
+            new CommonValueExtractor().analyze(scan.parsedPoms())
+        );
+    }
+}
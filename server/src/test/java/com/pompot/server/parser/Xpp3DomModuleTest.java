@@ -0,0 +1,70 @@
+package com.pompot.server.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.StringReader;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.codehaus.plexus.util.xml.Xpp3DomBuilder;
+import org.junit.jupiter.api.Test;
+
+class Xpp3DomModuleTest {
+
+    private static final String CONFIGURATION = "<configuration skip=\"true\">"
+        + "<tiles><tile>com.example:tile:1.0</tile><tile/></tiles>"
+        + "<source>17</source>"
+        + "</configuration>";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new Xpp3DomModule());
+
+    @Test
+    void writesTheSameJsonAsBeanSerializationWithoutParents() throws Exception {
+        Xpp3Dom configuration = Xpp3DomBuilder.build(new StringReader(CONFIGURATION));
+        JsonNode written = objectMapper.valueToTree(configuration);
+
+        Xpp3Dom detached = Xpp3DomBuilder.build(new StringReader(CONFIGURATION));
+        clearParents(detached);
+        JsonNode expected = new ObjectMapper().valueToTree(detached);
+
+        assertEquals(expected, written);
+    }
+
+    @Test
+    void leavesParentPointersInPlace() throws Exception {
+        Xpp3Dom configuration = Xpp3DomBuilder.build(new StringReader(CONFIGURATION));
+        Xpp3Dom tiles = configuration.getChild("tiles");
+
+        objectMapper.writeValueAsString(configuration);
+
+        assertSame(configuration, tiles.getParent());
+        assertSame(tiles, tiles.getChild(0).getParent());
+    }
+
+    @Test
+    void writesDeeplyNestedConfigurationsIteratively() throws Exception {
+        int depth = 50_000;
+        Xpp3Dom root = new Xpp3Dom("configuration");
+        Xpp3Dom current = root;
+        for (int level = 0; level < depth; level += 1) {
+            Xpp3Dom child = new Xpp3Dom("nested");
+            current.addChild(child);
+            current = child;
+        }
+        current.setValue("leaf");
+
+        String json = objectMapper.writeValueAsString(root);
+
+        assertEquals(depth + 1, json.split("\"name\"", -1).length - 1);
+        assertTrue(json.contains("\"value\":\"leaf\""));
+    }
+
+    private static void clearParents(Xpp3Dom dom) {
+        dom.setParent(null);
+        for (Xpp3Dom child : dom.getChildren()) {
+            clearParents(child);
+        }
+    }
+}
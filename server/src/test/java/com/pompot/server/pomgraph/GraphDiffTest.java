@@ -0,0 +1,127 @@
+package com.pompot.server.pomgraph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class GraphDiffTest {
+
+    @Test
+    void equalContentHasEqualFingerprintsAndNoDifferences() {
+        TextGraph first = pom("2.0.9", "17", true);
+        TextGraph second = pom("2.0.9", "17", true);
+
+        assertEquals(first.fingerprint(), second.fingerprint(), "Reference ids and positions must not matter");
+        assertEquals(first.fingerprint(), first.compact().fingerprint(), "Storage must not matter");
+        assertTrue(GraphDiff.between(first, second).isEmpty());
+
+        TextReference version = second.texts().iterator().next();
+        long before = second.fingerprint();
+        version.update("2.0.12");
+        assertNotEquals(before, second.fingerprint(), "Updates must refresh the cached fingerprint");
+        assertEquals(1, GraphDiff.between(first, second).changedValues().size());
+    }
+
+    @Test
+    void fingerprintsFollowUpdatesOfTheirOwnGraphOnly() {
+        TextGraph original = pom("2.0.9", "17", true);
+        TextGraph shared = original.toBuilder().build();
+        TextGraph other = pom("2.0.9", "17", true);
+        long unchanged = other.fingerprint();
+        long before = shared.fingerprint();
+        assertEquals(before, original.fingerprint());
+
+        original.texts().iterator().next().update("2.0.12");
+
+        assertNotEquals(before, original.fingerprint(), "The updated graph must hash again");
+        assertEquals(original.fingerprint(), shared.fingerprint(), "Graphs sharing the reference must hash again");
+        assertEquals(unchanged, other.fingerprint());
+        assertFalse(GraphDiff.between(other, shared).isEmpty());
+    }
+
+    @Test
+    void sameContentConfirmsWhatTheFingerprintHashes() {
+        TextGraph graph = pom("2.0.9", "17", true);
+
+        assertTrue(GraphDiff.sameContent(graph, pom("2.0.9", "17", true)));
+        assertTrue(GraphDiff.sameContent(graph, graph.compact()));
+        assertFalse(GraphDiff.sameContent(graph, pom("2.0.12", "17", true)), "Values inside composites differ");
+        assertFalse(GraphDiff.sameContent(graph, pom("2.0.9", "21", true)), "Textual values differ");
+        assertFalse(GraphDiff.sameContent(graph, pom("2.0.9", "17", false)), "Edges and nodes differ");
+    }
+
+    @Test
+    void reportsAddedRemovedAndChangedParts() {
+        TextGraph before = pom("2.0.9", "17", true);
+        TextGraph after = pom("2.0.12", "21", false);
+
+        GraphDiff diff = GraphDiff.between(before, after);
+
+        assertEquals(List.of("dependency:junit:junit"), diff.removedNodes());
+        assertEquals(List.of("property:encoding"), diff.addedNodes());
+        assertEquals(List.of("junit:junit"), diff.removedEdges().stream().map(GraphDiffTest::coordinates).toList());
+        assertEquals(List.of("property:encoding"), diff.addedEdges().stream().map(edge -> edge.target().id()).toList());
+        assertEquals(2, diff.changedValues().size());
+
+        GraphDiff.ValueChange version = diff.changedValues().get(0);
+        assertEquals("dependency:org.slf4j:slf4j-api", version.after().target().id());
+        assertEquals("version", version.path());
+        assertEquals("2.0.9", version.oldValue());
+        assertEquals("2.0.12", version.newValue());
+        GraphDiff.ValueChange property = diff.changedValues().get(1);
+        assertEquals("", property.path());
+        assertEquals("21", property.newValue());
+    }
+
+    @Test
+    void pathsPresentOnOneSideOnlyHaveNoValueOnTheOther() {
+        TextGraph.Builder first = TextGraph.builder();
+        first.addNode("pom:/work/app").connect("dependency", first.addNode("dependency:a:b"), dependency(first, "a", "b", "1"));
+        TextGraph.Builder second = TextGraph.builder();
+        GraphValue scoped = GraphValue.composite(Map.of(
+            "artifactId", GraphValue.text(second.createText("b")),
+            "scope", GraphValue.text(second.createText("test"))
+        ));
+        second.addNode("pom:/work/app").connect("dependency", second.addNode("dependency:a:b"), scoped);
+
+        List<GraphDiff.ValueChange> changes = GraphDiff.between(first.build(), second.build()).changedValues();
+
+        assertEquals(List.of("version", "groupId", "scope"), changes.stream().map(GraphDiff.ValueChange::path).toList());
+        assertNull(changes.get(0).newValue());
+        assertNull(changes.get(2).oldValue());
+    }
+
+    private static TextGraph pom(String slf4jVersion, String javaVersion, boolean junit) {
+        TextGraph.Builder builder = TextGraph.builder();
+        GraphNode pom = builder.addNode("pom:/work/app");
+        pom.connect("dependency", builder.addNode("dependency:org.slf4j:slf4j-api"), dependency(builder, "org.slf4j", "slf4j-api", slf4jVersion));
+        if (junit) {
+            pom.connect("dependency", builder.addNode("dependency:junit:junit"), dependency(builder, "junit", "junit", "4.13.2"));
+        } else {
+            pom.connect("property", builder.addNode("property:encoding"), builder.createText("UTF-8"));
+        }
+        pom.connect("property", builder.addNode("property:java.version"), builder.createText(javaVersion));
+        return builder.build();
+    }
+
+    private static GraphValue dependency(TextGraph.Builder builder, String groupId, String artifactId, String version) {
+        Map<String, GraphValue> entries = new LinkedHashMap<>();
+        entries.put("version", GraphValue.text(builder.createText(version)));
+        entries.put("groupId", GraphValue.text(builder.createText(groupId)));
+        entries.put("artifactId", GraphValue.text(builder.createText(artifactId)));
+        return GraphValue.composite(entries);
+    }
+
+    private static String coordinates(GraphEdge edge) {
+        Map<String, GraphValue> children = edge.value().children();
+        return children.get("groupId").text().orElseThrow().value().value() + ":"
+            + children.get("artifactId").text().orElseThrow().value().value();
+    }
+}
@@ -0,0 +1,143 @@
+package com.pompot.server.pomgraph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GraphSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripKeepsGraphsStringsAndRecords() throws IOException {
+        TextGraph.Builder builder = TextGraph.builder();
+        GraphNode pom = builder.addNode("pom:/work/app");
+        GraphNode slf4j = builder.addNode("dependency:org.slf4j:slf4j-api");
+        SourcePosition position = new SourcePosition("/work/app/pom.xml", 5_000_000_000L, 5, 12, 22);
+        TextReference version = builder.createText("2.0.9", position);
+        Map<String, GraphValue> payload = new LinkedHashMap<>();
+        payload.put("version", GraphValue.text(version));
+        payload.put("scope", GraphValue.text(builder.createText("test")));
+        pom.connect("dependency", slf4j, GraphValue.composite(payload));
+        pom.connect("managedDependency", slf4j, version);
+        TextGraph graph = builder.build();
+
+        GraphSnapshot.Writer writer = GraphSnapshot.writer();
+        int index = writer.graph(graph);
+        int name = writer.string("héllo wörld");
+        Path file = directory.resolve("nested").resolve("graphs.snapshot");
+        writer.write(file, new int[]{name, 42, writer.string(null)});
+
+        GraphSnapshot snapshot = GraphSnapshot.open(file);
+        TextGraph loaded = snapshot.graph(index);
+
+        assertEquals(1, snapshot.graphCount());
+        assertEquals(TextGraph.Storage.COMPACT, loaded.storage());
+        assertEquals(render(graph), render(loaded), "The loaded graph should answer like the written one");
+        GraphNode loadedPom = loaded.findNode("pom:/work/app").orElseThrow();
+        TextReference loadedVersion = loadedPom.edges("managedDependency").iterator().next().value().text().orElseThrow();
+        assertSame(
+            loadedVersion,
+            loadedPom.edges("dependency").iterator().next().value().children().get("version").text().orElseThrow(),
+            "Shared references should stay shared"
+        );
+        assertEquals(version.id(), loadedVersion.id());
+        assertEquals(position, loadedVersion.position().orElseThrow());
+        assertEquals(List.of("dependency", "managedDependency"), relationships(loaded.incoming("dependency:org.slf4j:slf4j-api")));
+        assertEquals("t2", loaded.toBuilder().createText("new").id(), "Issued identifiers should continue after the loaded ones");
+
+        IntBuffer records = snapshot.records();
+        assertEquals("héllo wörld", snapshot.string(records.get()));
+        assertEquals(42, records.get());
+        assertNull(snapshot.string(records.get()));
+        assertTrue(records.isReadOnly());
+    }
+
+    @Test
+    void graphsSharingReferencesShareThemAfterLoading() throws IOException {
+        TextGraph.Builder builder = TextGraph.builder();
+        builder.addNode("pom:/work/app").connect("property", builder.addNode("property:java.version"), builder.createText("17"));
+        TextGraph original = builder.build();
+        TextGraph.Builder edited = original.toBuilder();
+        edited.addNode("pom:/work/app").connect("packaging", edited.addNode("attribute:packaging"), edited.createText("jar"));
+
+        GraphSnapshot.Writer writer = GraphSnapshot.writer();
+        int first = writer.graph(original);
+        int second = writer.graph(edited.build());
+        Path file = directory.resolve("graphs.snapshot");
+        writer.write(file, new int[0]);
+
+        GraphSnapshot snapshot = GraphSnapshot.open(file);
+        TextGraph loaded = snapshot.graph(second);
+        assertEquals(1, loaded.findTexts("17").size());
+        snapshot.graph(first).texts().iterator().next().update("21");
+
+        assertEquals(List.of("21", "jar"), loaded.texts().stream().map(text -> text.value().value()).toList());
+        assertTrue(loaded.findTexts("17").isEmpty());
+        assertEquals(1, loaded.findTexts("21").size(), "Value queries should see updates made through another graph");
+    }
+
+    @Test
+    void rejectsCorruptAndForeignFiles() throws IOException {
+        TextGraph.Builder builder = TextGraph.builder();
+        builder.addNode("pom:/work/app").connect("groupId", builder.addNode("attribute:groupId"), builder.createText("com.example"));
+        GraphSnapshot.Writer writer = GraphSnapshot.writer();
+        writer.graph(builder.build());
+        Path file = directory.resolve("graphs.snapshot");
+        writer.write(file, new int[]{7});
+
+        byte[] bytes = Files.readAllBytes(file);
+        byte[] flipped = bytes.clone();
+        flipped[flipped.length - 1] ^= 1;
+        Files.write(file, flipped);
+        assertThrows(IllegalArgumentException.class, () -> GraphSnapshot.open(file), "Checksum mismatches must be rejected");
+
+        byte[] newer = bytes.clone();
+        newer[4] = (byte) (GraphSnapshot.FORMAT_VERSION + 1);
+        Files.write(file, newer);
+        assertThrows(IllegalArgumentException.class, () -> GraphSnapshot.open(file), "Other versions must be rejected");
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 4));
+        assertThrows(IllegalArgumentException.class, () -> GraphSnapshot.open(file), "Truncated files must be rejected");
+
+        Files.writeString(file, "<project/>");
+        assertThrows(IllegalArgumentException.class, () -> GraphSnapshot.open(file));
+
+        Files.write(file, bytes);
+        assertEquals(7, GraphSnapshot.open(file).records().get(), "The intact file should still open");
+    }
+
+    private static List<String> relationships(List<GraphEdge> edges) {
+        return edges.stream().map(GraphEdge::relationship).toList();
+    }
+
+    private static List<String> render(TextGraph graph) {
+        return graph.nodes().stream()
+            .flatMap(node -> node.edges().stream())
+            .map(edge -> edge.source().id() + " -" + edge.relationship() + "-> " + edge.target().id() + " " + render(edge.value()))
+            .toList();
+    }
+
+    private static String render(GraphValue value) {
+        return value.text()
+            .map(text -> text.id() + "=" + text.value().value())
+            .orElseGet(() -> value.children().entrySet().stream()
+                .map(child -> child.getKey() + ":" + render(child.getValue()))
+                .toList()
+                .toString());
+    }
+}
@@ -0,0 +1,63 @@
+package com.pompot.server.pomgraph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class TextGraphCodecTest {
+
+    @Test
+    void roundTripPreservesStructureAndSharedReferences() {
+        TextGraph.Builder graph = TextGraph.builder();
+        GraphNode pom = graph.addNode("pom:project");
+        GraphNode dependency = graph.addNode("dependency:com.example:demo");
+        TextReference version = graph.createText("1.0.0");
+        Map<String, GraphValue> payload = new LinkedHashMap<>();
+        payload.put("version", GraphValue.text(version));
+        payload.put("scope", GraphValue.text(graph.createText("test")));
+        pom.connect("dependency", dependency, GraphValue.composite(payload));
+        pom.connect("managedDependency", dependency, version);
+
+        TextGraph built = graph.build();
+        TextGraph decoded = TextGraphCodec.decode(TextGraphCodec.encode(built));
+
+        GraphNode decodedPom = decoded.findNode("pom:project").orElseThrow();
+        GraphEdge dependencyEdge = decodedPom.edges("dependency").iterator().next();
+        GraphEdge managedEdge = decodedPom.edges("managedDependency").iterator().next();
+        TextReference decodedVersion = dependencyEdge.value().children().get("version").text().orElseThrow();
+        assertEquals(version.id(), decodedVersion.id(), "Identifiers should survive the round trip");
+        assertEquals("test", dependencyEdge.value().children().get("scope").text().orElseThrow().value().value());
+        assertSame(decodedVersion, managedEdge.value().text().orElseThrow(), "Shared references should stay shared");
+        assertEquals(built.texts().size(), decoded.texts().size());
+    }
+
+    @Test
+    void roundTripPreservesSourcePositions() {
+        TextGraph.Builder graph = TextGraph.builder();
+        GraphNode pom = graph.addNode("pom:project");
+        SourcePosition position = new SourcePosition("/work/app/pom.xml", 412L, 11, 14, 14);
+        pom.connect("groupId", graph.addNode("attribute:groupId"), graph.createText("com.example", position));
+        pom.connect("packaging", graph.addNode("attribute:packaging"), graph.createText("jar"));
+
+        TextGraph decoded = TextGraphCodec.decode(TextGraphCodec.encode(graph.build()));
+
+        GraphNode decodedPom = decoded.findNode("pom:project").orElseThrow();
+        TextReference groupId = decodedPom.edges("groupId").iterator().next().value().text().orElseThrow();
+        TextReference packaging = decodedPom.edges("packaging").iterator().next().value().text().orElseThrow();
+        assertEquals(position, groupId.position().orElseThrow());
+        assertTrue(packaging.position().isEmpty(), "Values without a source should stay without one");
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        assertThrows(IllegalArgumentException.class, () -> TextGraphCodec.decode(objectMapper.createObjectNode()));
+    }
+}
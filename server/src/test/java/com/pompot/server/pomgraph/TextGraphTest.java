@@ -3,28 +3,32 @@ package com.pompot.server.pomgraph;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 
 class TextGraphTest {
 
     @Test
     void addNodeReturnsSameInstance() {
-        TextGraph graph = new TextGraph();
+        TextGraph.Builder graph = TextGraph.builder();
 
         GraphNode first = graph.addNode("pom:one");
         GraphNode second = graph.addNode("pom:one");
 
         assertSame(first, second, "Graph should reuse the same node instance");
-        assertEquals(1, graph.nodes().size(), "Only one node should be stored");
+        assertEquals(1, graph.build().nodes().size(), "Only one node should be stored");
     }
 
     @Test
     void connectStoresEdgeWithTextPayload() {
-        TextGraph graph = new TextGraph();
+        TextGraph.Builder graph = TextGraph.builder();
         GraphNode pom = graph.addNode("pom:project");
         GraphNode property = graph.addNode("property:version");
         TextReference version = graph.createText("1.0.0");
@@ -45,7 +49,7 @@ class TextGraphTest {
 
     @Test
     void sharedTextReferenceReflectsUpdatesAcrossEdges() {
-        TextGraph graph = new TextGraph();
+        TextGraph.Builder graph = TextGraph.builder();
         GraphNode pomOne = graph.addNode("pom:one");
         GraphNode pomTwo = graph.addNode("pom:two");
         GraphNode dependency = graph.addNode("dependency:commons-lang3");
@@ -67,26 +71,34 @@ class TextGraphTest {
     }
 
     @Test
-    void copyCreatesIndependentStructureSharingTextReferences() {
-        TextGraph graph = new TextGraph();
-        GraphNode pom = graph.addNode("pom:project");
-        GraphNode property = graph.addNode("property:version");
-        TextReference version = graph.createText("1.0.0");
+    void toBuilderCreatesIndependentStructureSharingTextReferences() {
+        TextGraph.Builder builder = TextGraph.builder();
+        GraphNode pom = builder.addNode("pom:project");
+        GraphNode property = builder.addNode("property:version");
+        TextReference version = builder.createText("1.0.0");
         pom.connect("property", property, version);
+        TextGraph graph = builder.build();
 
-        TextGraph copy = graph.copy();
+        TextGraph.Builder edit = graph.toBuilder();
+        GraphNode editedPom = edit.findNode("pom:project").orElseThrow();
+        GraphNode editedProperty = edit.findNode("property:version").orElseThrow();
 
-        assertNotSame(graph, copy, "Copy should produce a different instance");
-        GraphNode copiedPom = copy.findNode("pom:project").orElseThrow();
-        GraphNode copiedProperty = copy.findNode("property:version").orElseThrow();
+        assertNotSame(pom, editedPom, "Node instances should not be shared with the frozen graph");
+        assertNotSame(property, editedProperty, "Target nodes should be re-created for the edit");
 
-        assertNotSame(pom, copiedPom, "Node instances should not be shared across copies");
-        assertNotSame(property, copiedProperty, "Target nodes should be re-created on copy");
+        GraphEdge editedEdge = editedPom.edges("property").iterator().next();
+        assertSame(version, editedEdge.value().text().orElseThrow(), "Text references must be shared across graphs");
 
-        GraphEdge copiedEdge = copiedPom.edges("property").iterator().next();
-        assertSame(version, copiedEdge.value().text().orElseThrow(), "Text references must be shared across copies");
+        editedPom.connect("module", edit.addNode("module:core"), edit.createText("core"));
+        TextGraph edited = edit.build();
 
-        copiedEdge.value().text().orElseThrow().update("2.0.0");
+        assertEquals(2, graph.nodes().size(), "The original graph must not see nodes added to the edit");
+        assertEquals(1, pom.edges().size(), "The original graph must not see edges added to the edit");
+        assertEquals(3, edited.nodes().size());
+        assertEquals("t1", edited.texts().stream().skip(1).findFirst().orElseThrow().id(),
+            "Identifiers should continue from the original graph");
+
+        editedEdge.value().text().orElseThrow().update("2.0.0");
 
         GraphEdge originalEdge = pom.edges("property").iterator().next();
         assertEquals(
@@ -96,9 +108,25 @@ class TextGraphTest {
         );
     }
 
+    @Test
+    void builtGraphsCannotChange() {
+        TextGraph.Builder builder = TextGraph.builder();
+        GraphNode pom = builder.addNode("pom:project");
+        GraphNode property = builder.addNode("property:version");
+        pom.connect("property", property, builder.createText("1.0.0"));
+
+        TextGraph graph = builder.build();
+        TextReference text = graph.texts().iterator().next();
+
+        assertThrows(UnsupportedOperationException.class, () -> pom.connect("property", property, text));
+        assertThrows(IllegalStateException.class, () -> builder.addNode("pom:other"));
+        assertThrows(IllegalStateException.class, builder::build);
+        assertEquals(1, pom.edges().size(), "A rejected edge must not be stored");
+    }
+
     @Test
     void connectAcceptsCompositePayloads() {
-        TextGraph graph = new TextGraph();
+        TextGraph.Builder graph = TextGraph.builder();
         GraphNode pom = graph.addNode("pom:project");
         GraphNode dependency = graph.addNode("dependency:com.example:demo");
 
@@ -118,4 +146,317 @@ class TextGraphTest {
         assertSame(version, children.get("version").text().orElseThrow(), "Version reference should be stored");
         assertSame(scope, children.get("scope").text().orElseThrow(), "Scope reference should be stored");
     }
+
+    @Test
+    void createTextIssuesSequentialIdsAndPoolsEqualValues() {
+        TextGraph.Builder graph = TextGraph.builder();
+        TextGraph.Builder other = TextGraph.builder();
+
+        TextReference first = graph.createText("test");
+        TextReference second = graph.createText("test");
+        TextReference elsewhere = other.createText("test");
+
+        assertEquals("t0", first.id());
+        assertEquals("t1", second.id());
+        assertNotSame(first, second, "Each value keeps its own editable reference");
+        assertSame(first.value(), second.value(), "Equal values should share one Text within a graph");
+        assertSame(first.value(), elsewhere.value(), "Equal values should share one Text across graphs");
+
+        second.update("compile");
+        assertEquals("test", first.value().value(), "Updating one reference must not affect the other");
+    }
+
+    @Test
+    void restoredIdentifiersAreNotIssuedAgain() {
+        TextGraph.Builder graph = TextGraph.builder();
+        graph.restoreText("t9", "1.0.0", null);
+
+        TextReference created = graph.createText("2.0.0");
+
+        assertEquals("ta", created.id(), "New identifiers should continue after the restored ones");
+        assertEquals(2, graph.build().texts().size());
+    }
+
+    @Test
+    void indexesIncomingEdgesAndRelationships() {
+        TextGraph.Builder builder = TextGraph.builder();
+        GraphNode app = builder.addNode("pom:/work/app");
+        GraphNode lib = builder.addNode("pom:/work/lib");
+        GraphNode slf4j = builder.addNode("dependency:org.slf4j:slf4j-api");
+        app.connect("dependency", slf4j, builder.createText("2.0.9"));
+        lib.connect("managedDependency", slf4j, builder.createText("2.0.9"));
+        lib.connect("dependency", builder.addNode("dependency:junit:junit"), builder.createText("4.13.2"));
+
+        TextGraph graph = builder.build();
+
+        assertEquals(
+            List.of("pom:/work/app", "pom:/work/lib"),
+            graph.incoming("dependency:org.slf4j:slf4j-api").stream().map(edge -> edge.source().id()).toList()
+        );
+        assertEquals(1, graph.incoming("dependency:org.slf4j:slf4j-api", "managedDependency").size());
+        assertTrue(graph.incoming("pom:/work/app").isEmpty());
+        assertTrue(graph.incoming("dependency:missing").isEmpty());
+        assertEquals(
+            List.of("dependency:org.slf4j:slf4j-api", "dependency:junit:junit"),
+            graph.edges("dependency").stream().map(edge -> edge.target().id()).toList()
+        );
+        assertTrue(graph.edges("plugin").isEmpty());
+    }
+
+    @Test
+    void valueIndexFollowsUpdates() {
+        TextGraph.Builder builder = TextGraph.builder();
+        GraphNode pom = builder.addNode("pom:/work/app");
+        TextReference managed = builder.createText("2.0.9");
+        TextReference direct = builder.createText("2.0.9");
+        pom.connect("managedDependency", builder.addNode("dependency:org.slf4j:slf4j-api"), managed);
+        GraphValue payload = GraphValue.composite(Map.of(
+            "version",
+            GraphValue.text(direct),
+            "scope",
+            GraphValue.text(builder.createText("test"))
+        ));
+        pom.connect("dependency", builder.addNode("dependency:org.slf4j:slf4j-simple"), payload);
+        TextGraph graph = builder.build();
+
+        assertEquals(Set.of(managed, direct), graph.findTexts("2.0.9"));
+        assertEquals(2, graph.edgesWithValue("2.0.9").size(), "Composite children should be indexed too");
+
+        direct.update("2.0.12");
+
+        assertEquals(Set.of(managed), graph.findTexts("2.0.9"));
+        assertEquals(Set.of(direct), graph.findTexts("2.0.12"));
+        assertEquals("dependency", graph.edgesWithValue("2.0.12").get(0).relationship());
+        assertTrue(graph.findTexts("1.0.0").isEmpty());
+    }
+
+    @Test
+    void valueIndexesOfSharedReferencesStayIndependent() {
+        TextGraph.Builder builder = TextGraph.builder();
+        TextReference version = builder.createText("1.0.0");
+        builder.addNode("pom:/work/app").connect("property", builder.addNode("property:revision"), version);
+        TextGraph graph = builder.build();
+        TextGraph.Builder edit = graph.toBuilder();
+        TextReference added = edit.createText("1.0.0");
+        edit.findNode("pom:/work/app").orElseThrow().connect("property", edit.addNode("property:next"), added);
+        TextGraph edited = edit.build();
+
+        version.update("1.1.0");
+
+        assertEquals(Set.of(version), graph.findTexts("1.1.0"));
+        assertEquals(Set.of(version), edited.findTexts("1.1.0"));
+        assertEquals(Set.of(added), edited.findTexts("1.0.0"));
+        assertTrue(graph.findTexts("1.0.0").isEmpty());
+    }
+
+    @Test
+    void compactGraphAnswersLikeTheLinkedGraph() {
+        TextGraph linked = sampleGraph();
+        TextGraph compact = linked.compact();
+
+        assertEquals(TextGraph.Storage.COMPACT, compact.storage());
+        assertSame(compact, compact.compact(), "Compacting twice should be a no-op");
+        assertEquals(render(linked), render(compact));
+        assertEquals(
+            TextGraphCodec.encode(linked),
+            TextGraphCodec.encode(compact),
+            "Both layouts should serialize identically"
+        );
+        assertEquals(List.copyOf(linked.texts()), List.copyOf(compact.texts()), "References should be shared");
+        assertEquals(
+            render(linked.incoming("dependency:org.slf4j:slf4j-api")),
+            render(compact.incoming("dependency:org.slf4j:slf4j-api"))
+        );
+        assertEquals(render(linked.edges("managedDependency")), render(compact.edges("managedDependency")));
+        assertEquals(
+            render(linked.edgesWithValue("2.0.9")).stream().sorted().toList(),
+            render(compact.edgesWithValue("2.0.9")).stream().sorted().toList(),
+            "Value lookups list edges in no particular order"
+        );
+        assertTrue(compact.findNode("dependency:missing").isEmpty());
+        assertTrue(compact.edges("missing").isEmpty());
+    }
+
+    @Test
+    void compactNodesAreFrozenViews() {
+        TextGraph compact = sampleGraph().compact();
+        GraphNode pom = compact.findNode("pom:/work/app").orElseThrow();
+        TextReference text = compact.texts().iterator().next();
+
+        assertEquals(pom, compact.findNode("pom:/work/app").orElseThrow(), "Views of one node should be equal");
+        assertEquals(pom, pom.edges("dependency").iterator().next().source());
+        assertThrows(UnsupportedOperationException.class, () -> pom.connect("property", pom, text));
+
+        text.update("2.0.12");
+        assertEquals(Set.of(text), compact.findTexts("2.0.12"), "Value updates should reach compact graphs");
+
+        TextGraph.Builder edit = compact.toBuilder();
+        GraphNode editedPom = edit.findNode("pom:/work/app").orElseThrow();
+        editedPom.connect("module", edit.addNode("module:core"), edit.createText("core"));
+        TextGraph edited = edit.build();
+        assertEquals(TextGraph.Storage.LINKED, edited.storage(), "Edits should produce a linked graph");
+        assertEquals(1, edited.incoming("module:core").size());
+    }
+
+    @Test
+    void replaceTextsCopiesOnlyTheReplacedReferences() {
+        TextGraph graph = sampleGraph();
+        TextGraph compact = graph.compact();
+        List<TextReference> texts = new ArrayList<>(graph.texts());
+        TextReference version = texts.get(0);
+
+        TextGraph replaced = graph.replaceTexts(Map.of(version, "2.0.12"));
+
+        assertEquals("2.0.9", version.value().value(), "The original reference must keep its value");
+        List<TextReference> replacedTexts = new ArrayList<>(replaced.texts());
+        assertEquals(version.id(), replacedTexts.get(0).id());
+        assertEquals("2.0.12", replacedTexts.get(0).value().value());
+        assertSame(texts.get(1), replacedTexts.get(1), "Other references should be shared");
+        GraphEdge dependency = replaced.edges("dependency").get(0);
+        assertSame(replacedTexts.get(0), dependency.value().children().get("version").text().orElseThrow());
+        assertSame(replacedTexts.get(0), replaced.edges("property").get(0).value().text().orElseThrow());
+        assertSame(graph, graph.replaceTexts(Map.of()));
+
+        TextGraph replacedCompact = compact.replaceTexts(Map.of(version, "2.0.12"));
+        assertEquals(TextGraph.Storage.COMPACT, replacedCompact.storage(), "Replacing should keep the storage");
+        assertEquals(1, replacedCompact.findTexts("2.0.12").size());
+        assertEquals(render(replaced), render(replacedCompact.toBuilder().build()));
+    }
+
+    @Test
+    void concurrentBuildOrdersLikeASequentialBuild() throws Exception {
+        int poms = 40;
+        TextGraph.Builder sequential = TextGraph.builder();
+        for (int pom = 0; pom < poms; pom++) {
+            GraphNode source = sequential.addNode("pom:" + pom);
+            for (int dependency = 0; dependency < 5; dependency++) {
+                GraphNode target = sequential.addNode("dependency:lib" + (pom + dependency) % 7);
+                source.connect(dependency % 2 == 0 ? "dependency" : "managedDependency", target, sequential.createText("v" + pom));
+            }
+        }
+        TextGraph expected = sequential.build();
+
+        TextGraph.ConcurrentBuilder concurrent = TextGraph.concurrentBuilder();
+        List<Thread> threads = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            int first = thread;
+            threads.add(new Thread(() -> {
+                for (int pom = poms - 1 - first; pom >= 0; pom -= 4) {
+                    TextGraph.ConcurrentBuilder.Part part = concurrent.part(pom);
+                    GraphNode source = part.addNode("pom:" + pom);
+                    for (int dependency = 0; dependency < 5; dependency++) {
+                        GraphNode target = part.addNode("dependency:lib" + (pom + dependency) % 7);
+                        part.connect(source, dependency % 2 == 0 ? "dependency" : "managedDependency", target, part.createText("v" + pom));
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        TextGraph built = concurrent.build();
+
+        assertEquals(ids(expected.nodes()), ids(built.nodes()), "Nodes should follow the order of the parts");
+        for (GraphNode node : expected.nodes()) {
+            GraphNode other = built.findNode(node.id()).orElseThrow();
+            assertEquals(shape(node.edges()), shape(other.edges()));
+            assertEquals(shape(node.incoming()), shape(other.incoming()));
+            assertEquals(shape(node.edges("managedDependency")), shape(other.edges("managedDependency")));
+        }
+        assertEquals(
+            expected.texts().stream().map(text -> text.value().value()).toList(),
+            built.texts().stream().map(text -> text.value().value()).toList(),
+            "References should follow the order of the parts"
+        );
+        assertEquals(poms * 5, built.texts().stream().map(TextReference::id).distinct().count());
+        assertEquals(expected.edges("dependency").size(), built.edges("dependency").size());
+        assertEquals(5, built.findTexts("v3").size());
+    }
+
+    @Test
+    void concurrentBuilderGuardsItsNodes() {
+        TextGraph.ConcurrentBuilder concurrent = TextGraph.concurrentBuilder();
+        TextGraph.ConcurrentBuilder.Part part = concurrent.part(0);
+        GraphNode pom = part.addNode("pom:project");
+        GraphNode property = concurrent.part(1).addNode("property:version");
+        TextReference text = part.createText("1.0.0");
+        GraphNode foreign = TextGraph.builder().addNode("property:foreign");
+
+        assertSame(pom, concurrent.part(2).addNode("pom:project"), "Parts should share nodes");
+        assertThrows(IllegalArgumentException.class, () -> concurrent.part(0));
+        assertThrows(UnsupportedOperationException.class, () -> pom.connect("property", property, text));
+        assertThrows(IllegalArgumentException.class, () -> part.connect(pom, "property", foreign, text));
+        assertTrue(pom.edges().isEmpty(), "Edges should only appear once the graph is built");
+        part.connect(pom, "property", property, text);
+
+        TextGraph graph = concurrent.build();
+        assertEquals(List.of("pom:project", "property:version"), ids(graph.nodes()));
+        assertEquals(1, graph.incoming("property:version").size());
+        assertThrows(UnsupportedOperationException.class, () -> pom.connect("property", property, text));
+        assertThrows(IllegalStateException.class, () -> part.addNode("pom:other"));
+        assertThrows(IllegalStateException.class, concurrent::build);
+    }
+
+    private static TextGraph sampleGraph() {
+        TextGraph.Builder builder = TextGraph.builder();
+        GraphNode app = builder.addNode("pom:/work/app");
+        GraphNode lib = builder.addNode("pom:/work/lib");
+        GraphNode slf4j = builder.addNode("dependency:org.slf4j:slf4j-api");
+        builder.addNode("attribute:unused");
+        TextReference version = builder.createText("2.0.9");
+        GraphValue payload = GraphValue.composite(Map.of(
+            "version",
+            GraphValue.text(version),
+            "nested",
+            GraphValue.composite(Map.of("scope", GraphValue.text(builder.createText("test"))))
+        ));
+        app.connect("dependency", slf4j, payload);
+        app.connect("property", builder.addNode("property:slf4j.version"), version);
+        lib.connect("managedDependency", slf4j, builder.createText("2.0.9"));
+        lib.connect("parent", app, builder.createText("1.0.0"));
+        return builder.build();
+    }
+
+    private static List<String> render(TextGraph graph) {
+        List<String> lines = new ArrayList<>();
+        for (GraphNode node : graph.nodes()) {
+            lines.add(node.id());
+            lines.addAll(render(node.edges()));
+            lines.add("in " + render(node.incoming()));
+        }
+        return lines;
+    }
+
+    private static List<String> render(Collection<GraphEdge> edges) {
+        return edges.stream()
+            .map(edge -> edge.source().id() + " -" + edge.relationship() + "-> " + edge.target().id() + " "
+                + render(edge.value()))
+            .toList();
+    }
+
+    private static String render(GraphValue value) {
+        if (value.text().isPresent()) {
+            return value.text().get().id() + "=" + value.text().get().value().value();
+        }
+        StringBuilder rendered = new StringBuilder("{");
+        value.children().forEach((key, child) -> rendered.append(key).append(':').append(render(child)).append(' '));
+        return rendered.append('}').toString();
+    }
+
+    private static List<String> ids(Collection<GraphNode> nodes) {
+        return nodes.stream().map(GraphNode::id).toList();
+    }
+
+    /**
+     * Renders edges without reference identifiers, which depend on scheduling in a concurrent build.
+     */
+    private static List<String> shape(Collection<GraphEdge> edges) {
+        return edges.stream()
+            .map(edge -> edge.source().id() + " " + edge.relationship() + " " + edge.target().id() + " "
+                + edge.value().text().orElseThrow().value().value())
+            .toList();
+    }
 }
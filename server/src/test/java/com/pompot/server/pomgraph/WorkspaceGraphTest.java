@@ -0,0 +1,107 @@
+package com.pompot.server.pomgraph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class WorkspaceGraphTest {
+
+    @Test
+    void mergeSharesArtifactNodesAndKeepsTheSourcePom() {
+        TextGraph.Builder first = TextGraph.builder();
+        GraphNode app = first.addNode("pom:/work/app");
+        TextReference appVersion = first.createText("2.0.9");
+        app.connect("dependency", first.addNode("dependency:org.slf4j:slf4j-api"), dependency(appVersion));
+        app.connect("property", first.addNode("property:java.version"), first.createText("17"));
+
+        TextGraph.Builder second = TextGraph.builder();
+        GraphNode lib = second.addNode("pom:/work/lib");
+        GraphNode slf4j = second.addNode("dependency:org.slf4j:slf4j-api");
+        lib.connect("dependency", slf4j, dependency(second.createText("2.0.7")));
+        lib.connect("managedDependency", slf4j, second.createText("2.0.7"));
+
+        WorkspaceGraph workspace = WorkspaceGraph.merge(List.of(first.build(), second.build()));
+
+        assertEquals(4, workspace.nodes().size(), "Shared artifacts should be stored once");
+        List<GraphEdge> users = workspace.incoming("dependency:org.slf4j:slf4j-api", "dependency");
+        assertEquals(2, users.size());
+        assertEquals("pom:/work/app", users.get(0).source().id());
+        assertEquals("pom:/work/lib", users.get(1).source().id());
+        assertSame(
+            appVersion,
+            users.get(0).value().children().get("version").text().orElseThrow(),
+            "Merged edges should reuse the text references of the pom graphs"
+        );
+        assertEquals(3, workspace.incoming("dependency:org.slf4j:slf4j-api").size());
+        assertEquals(
+            List.of("pom:/work/app", "pom:/work/lib"),
+            workspace.users("dependency:org.slf4j:slf4j-api").stream().map(GraphNode::id).toList()
+        );
+        GraphNode mergedApp = workspace.findNode("pom:/work/app").orElseThrow();
+        assertSame(
+            workspace.findNode("dependency:org.slf4j:slf4j-api").orElseThrow(),
+            mergedApp.edges("dependency").iterator().next().target(),
+            "Pom edges should point at the shared node"
+        );
+    }
+
+    @Test
+    void mergedGraphIsFrozenAndLeavesTheSourcesUntouched() {
+        TextGraph.Builder builder = TextGraph.builder();
+        GraphNode pom = builder.addNode("pom:/work/app");
+        GraphNode property = builder.addNode("property:java.version");
+        pom.connect("property", property, builder.createText("17"));
+        TextGraph graph = builder.build();
+
+        WorkspaceGraph workspace = WorkspaceGraph.merge(List.of(graph, graph));
+
+        GraphNode merged = workspace.findNode("pom:/work/app").orElseThrow();
+        TextReference value = graph.texts().iterator().next();
+        assertEquals(2, merged.edges().size(), "Every merged graph contributes its edges");
+        assertEquals(1, pom.edges().size(), "Source graphs must not change");
+        assertThrows(UnsupportedOperationException.class, () -> merged.connect("property", merged, value));
+    }
+
+    @Test
+    void parallelMergeFollowsThePomOrder() {
+        List<TextGraph> graphs = new ArrayList<>();
+        for (int index = 0; index < 200; index++) {
+            TextGraph.Builder builder = TextGraph.builder();
+            GraphNode pom = builder.addNode("pom:/work/module" + index);
+            pom.connect("dependency", builder.addNode("dependency:lib" + index % 3), dependency(builder.createText("1." + index)));
+            pom.connect("property", builder.addNode("property:java.version"), builder.createText("17"));
+            graphs.add(builder.build());
+        }
+
+        WorkspaceGraph workspace = WorkspaceGraph.merge(graphs);
+
+        List<String> ids = workspace.nodes().stream().map(GraphNode::id).toList();
+        assertEquals(List.of("pom:/work/module0", "dependency:lib0", "property:java.version", "pom:/work/module1"), ids.subList(0, 4));
+        assertEquals(204, ids.size());
+        List<GraphEdge> properties = workspace.incoming("property:java.version");
+        for (int index = 0; index < properties.size(); index++) {
+            assertEquals("pom:/work/module" + index, properties.get(index).source().id(), "Incoming edges should follow the poms");
+        }
+        assertEquals(
+            "1.3",
+            workspace.incoming("dependency:lib0").get(1).value().children().get("version").text().orElseThrow().value().value()
+        );
+    }
+
+    @Test
+    void unknownNodesHaveNoUsers() {
+        assertTrue(WorkspaceGraph.merge(List.of()).nodes().isEmpty());
+        assertTrue(WorkspaceGraph.empty().incoming("dependency:missing").isEmpty());
+        assertTrue(WorkspaceGraph.empty().users(null).isEmpty());
+    }
+
+    private static GraphValue dependency(TextReference version) {
+        return GraphValue.composite(Map.of("version", GraphValue.text(version)));
+    }
+}